@@ -0,0 +1,23 @@
+############################################################################################
+# run_bench.sh - run the JMH benchmarks and compare them with a base run
+#
+# usage: bench/run_bench.sh <label> [base.json] [regex]
+#   writes bench/results/<label>.json (scores and, via -prof gc, bytes allocated per op);
+#   when a base results file is given, prints the change of each benchmark against it
+#   and fails if any regressed by more than 5%; regex picks the benchmarks (default all)
+
+label=${1:?usage: run_bench.sh label [base.json] [regex]}
+base=$2
+regex=${3:-scalation.bench}
+mkdir -p bench/results
+
+echo ================================= JMH ================================================
+echo // "sbt bench/Jmh/run -rf json -rff results/$label.json -prof gc $regex"
+         sbt "bench/Jmh/run -rf json -rff results/$label.json -prof gc $regex" || exit 1
+
+if [ -n "$base" ]; then
+echo ================================= compare ============================================
+echo // "sbt bench/runMain scalation.bench.runBenchCompare $base bench/results/$label.json"
+         sbt "bench/runMain scalation.bench.runBenchCompare $base bench/results/$label.json"
+fi
+
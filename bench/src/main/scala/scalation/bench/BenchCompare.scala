@@ -0,0 +1,111 @@
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** @author  John Miller
+ *  @version 2.0
+ *  @date    Sat Oct 17 10:15:00 EDT 2026
+ *  @see     LICENSE (MIT style license file).
+ *
+ *  @note    Compare two JMH Result Files (JSON) for Regressions
+ */
+
+package scalation
+package bench
+
+import java.nio.file.{Files, Paths}
+
+import scala.jdk.CollectionConverters._
+
+import com.google.gson.{JsonObject, JsonParser}
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `BenchCompare` object reads the results JMH writes with -rf json and
+ *  compares a new run against a base run, benchmark by benchmark (one row per
+ *  benchmark method and parameter values): the score (time or throughput) and,
+ *  when the runs used -prof gc, the bytes allocated per operation.
+ */
+object BenchCompare:
+
+    private val ALLOC = "gc.alloc.rate.norm"                  // secondary metric: bytes per op
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** The `Result` case class holds the measurements of one benchmark.
+     *  @param mode   the JMH mode (thrpt, avgt, sample, ss)
+     *  @param score  the primary score
+     *  @param error  its error (99.9% confidence half-width)
+     *  @param unit   its unit
+     *  @param alloc  the bytes allocated per operation (NaN if not profiled)
+     */
+    case class Result (mode: String, score: Double, error: Double, unit: String, alloc: Double):
+
+        /** Whether a larger score is better (throughput) rather than smaller (time).
+         */
+        def higherBetter: Boolean = mode == "thrpt"
+
+    end Result
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Load the results in a JMH JSON file, keyed by benchmark and parameters,
+     *  e.g., "scalation.bench.MatrixBench.times kernel=Simd n=500".
+     *  @param file  the path of the results file
+     */
+    def load (file: String): Map [String, Result] =
+        val json = JsonParser.parseString (Files.readString (Paths.get (file))).getAsJsonArray
+        json.asScala.map (_.getAsJsonObject).map { run =>
+            val params = if run.has ("params") then
+                             run.getAsJsonObject ("params").entrySet.asScala.toSeq
+                                .map (e => s"${e.getKey}=${e.getValue.getAsString}").sorted.mkString (" ", " ", "")
+                         else ""
+            val primary   = run.getAsJsonObject ("primaryMetric")
+            val secondary = if run.has ("secondaryMetrics") then run.getAsJsonObject ("secondaryMetrics") else new JsonObject ()
+            val alloc     = if secondary.has (ALLOC) then secondary.getAsJsonObject (ALLOC).get ("score").getAsDouble
+                            else Double.NaN
+            run.get ("benchmark").getAsString + params ->
+                Result (run.get ("mode").getAsString, primary.get ("score").getAsDouble,
+                        primary.get ("scoreError").getAsDouble, primary.get ("scoreUnit").getAsString, alloc)
+        }.toMap
+    end load
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Print the change of each benchmark in both files and return the number of
+     *  regressions: scores worse by more than the threshold (and by more than the
+     *  two errors combined), or allocation up by more than the threshold.
+     *  @param base       the results of the base run
+     *  @param next       the results of the new run
+     *  @param threshold  the relative change counted as a regression (e.g., 0.05)
+     */
+    def compare (base: Map [String, Result], next: Map [String, Result], threshold: Double): Int =
+        var regressions = 0
+        println (f"${"benchmark"}%-64s ${"base"}%12s ${"new"}%12s ${"unit"}%-8s ${"change"}%8s ${"alloc B/op"}%22s")
+        for key <- base.keySet.intersect (next.keySet).toSeq.sorted do
+            val (b, n) = (base(key), next(key))
+            val change = n.score / b.score - 1.0
+            val worse  = if b.higherBetter then -change else change
+            val slower = worse > threshold && math.abs (n.score - b.score) > b.error + n.error
+            val fatter = ! b.alloc.isNaN && ! n.alloc.isNaN && n.alloc > b.alloc * (1.0 + threshold) + 16.0
+            val alloc  = if b.alloc.isNaN || n.alloc.isNaN then "" else f"${b.alloc}%.0f -> ${n.alloc}%.0f"
+            val flag   = (if slower then " SLOWER" else "") + (if fatter then " ALLOC" else "")
+            if slower || fatter then regressions += 1
+            println (f"$key%-64s ${b.score}%12.3f ${n.score}%12.3f ${n.unit}%-8s ${100 * change}%+7.1f%% $alloc%22s$flag")
+        end for
+        for key <- (base.keySet diff next.keySet).toSeq.sorted do println (s"$key: only in the base run")
+        for key <- (next.keySet diff base.keySet).toSeq.sorted do println (s"$key: only in the new run")
+        regressions
+    end compare
+
+end BenchCompare
+
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `runBenchCompare` main function compares a new JMH results file with a base
+ *  one (e.g., the last release's) and exits with status 1 if any benchmark
+ *  regressed by more than the threshold percent (default 5).
+ *  > bench/runMain scalation.bench.runBenchCompare base.json new.json [threshold%]
+ */
+@main def runBenchCompare (base: String, next: String, threshold: String*): Unit =
+
+    val thr = if threshold.nonEmpty then threshold.head.toDouble / 100.0 else 0.05
+    val regressions = BenchCompare.compare (BenchCompare.load (base), BenchCompare.load (next), thr)
+    println (s"$regressions regression(s) beyond ${100 * thr}%")
+    if regressions > 0 then sys.exit (1)
+
+end runBenchCompare
+
@@ -0,0 +1,72 @@
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** @author  John Miller
+ *  @version 2.0
+ *  @date    Sat Oct 17 10:15:00 EDT 2026
+ *  @see     LICENSE (MIT style license file).
+ *
+ *  @note    JMH Benchmark of the Coroutine Hand-Off (yyield) for each Backend
+ */
+
+package scalation
+package bench
+
+import java.util.concurrent.{CountDownLatch, TimeUnit}
+
+import org.openjdk.jmh.annotations._
+
+import scalation.simulation.{Coroutine, CoroutineBackend}
+import scalation.simulation.CoroutineBenchmark.Pinger
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `CoroutineBench` class measures the time per `Coroutine.yyield` hand-off
+ *  for each `CoroutineBackend`: two coroutines yield to each other ROUNDS times
+ *  each (as in `CoroutineBenchmark.yieldsPerSec`), so each call is 2 * ROUNDS
+ *  hand-offs.  The fork opens the JDK internals the continuation backend needs
+ *  (as build.sbt does); without them it falls back to virtual threads.
+ *  > bench/Jmh/run scalation.bench.CoroutineBench
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Array (Mode.AverageTime))
+@OutputTimeUnit (TimeUnit.NANOSECONDS)
+@Warmup (iterations = 5, time = 1)
+@Measurement (iterations = 5, time = 1)
+@Fork (value = 1, jvmArgsAppend = Array ("--add-opens=java.base/java.lang=ALL-UNNAMED",
+                                         "--add-exports=java.base/jdk.internal.vm=ALL-UNNAMED"))
+class CoroutineBench:
+
+    import CoroutineBench.ROUNDS
+
+    @Param (Array ("PlatformPool", "VirtualThreads", "Continuation"))
+    var backend = ""
+
+    @Setup (Level.Trial)
+    def setup (): Unit = Coroutine.setBackend (CoroutineBackend.valueOf (backend))
+
+    @TearDown (Level.Trial)
+    def tearDown (): Unit = Coroutine.shutdown ()
+
+    @Benchmark @OperationsPerInvocation (CoroutineBench.OPS)
+    def yyield (): Unit =
+        val done = CountDownLatch (1)
+        val a = Pinger (ROUNDS, done)
+        val b = Pinger (ROUNDS, done)
+        a.partner = b; b.partner = a; b.last = true
+        a.start ()
+        done.await ()
+        while Coroutine.numRunning > 0 do Thread.onSpinWait ()   // let both terminate
+    end yyield
+
+end CoroutineBench
+
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `CoroutineBench` companion object gives the number of hand-offs per call
+ *  and the number of rounds each of the two coroutines plays.
+ */
+object CoroutineBench:
+
+    final val OPS    = 20000
+    final val ROUNDS = OPS / 2
+
+end CoroutineBench
+
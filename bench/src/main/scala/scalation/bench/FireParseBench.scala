@@ -0,0 +1,77 @@
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** @author  John Miller
+ *  @version 2.0
+ *  @date    Sat Oct 17 10:15:00 EDT 2026
+ *  @see     LICENSE (MIT style license file).
+ *
+ *  @note    JMH Benchmarks of Parsing DEVS-FIRE Simulation Results
+ */
+
+package scalation
+package bench
+
+import java.io.ByteArrayInputStream
+import java.nio.charset.StandardCharsets
+import java.util.concurrent.TimeUnit
+
+import org.openjdk.jmh.annotations._
+
+import scalation.simulation.process.wide_FIRE.{BurnEventColumns, BurnEventDecoder, BurnEventDecoderBenchmark}
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `FireParseBench` class measures the time to parse a runSimulation result
+ *  of the given number of records (synthesized by `BurnEventDecoderBenchmark`)
+ *  with the streaming `BurnEventDecoder`, from a String and from the bytes of a
+ *  response body, and with the original split-based parser as the baseline.
+ *  The decoder reuses its columns, so its allocation rate (-prof gc) should stay
+ *  near zero per record.
+ *  > bench/Jmh/run scalation.bench.FireParseBench
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Array (Mode.AverageTime))
+@OutputTimeUnit (TimeUnit.MILLISECONDS)
+@Warmup (iterations = 5, time = 1)
+@Measurement (iterations = 5, time = 1)
+@Fork (1)
+class FireParseBench:
+
+    @Param (Array ("10000", "500000"))
+    var records = 0
+
+    private var result: String           = null
+    private var body: Array [Byte]       = null
+    private var cellX: Array [Int]       = null
+    private var cellY: Array [Int]       = null
+    private var state: Array [Int]       = null
+    private var time: Array [Double]     = null
+    private var events: BurnEventColumns = null
+    private val decoder                  = new BurnEventDecoder ()
+
+    @Setup (Level.Trial)
+    def setup (): Unit =
+        result = BurnEventDecoderBenchmark.synthesize (records, 0)
+        body   = result.getBytes (StandardCharsets.US_ASCII)
+        cellX  = Array.ofDim [Int] (records)
+        cellY  = Array.ofDim [Int] (records)
+        state  = Array.ofDim [Int] (records)
+        time   = Array.ofDim [Double] (records)
+        events = new BurnEventColumns (records)
+    end setup
+
+    @Benchmark
+    def split: Int = BurnEventDecoderBenchmark.splitParse (result, cellX, cellY, time, state)
+
+    @Benchmark
+    def decodeString: Int =
+        events.clear ()
+        decoder.decode (result, events)
+    end decodeString
+
+    @Benchmark
+    def decodeStream: Int =
+        events.clear ()
+        decoder.decode (new ByteArrayInputStream (body), events)
+    end decodeStream
+
+end FireParseBench
+
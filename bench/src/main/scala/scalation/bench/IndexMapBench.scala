@@ -0,0 +1,83 @@
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** @author  John Miller
+ *  @version 2.0
+ *  @date    Sat Oct 17 10:15:00 EDT 2026
+ *  @see     LICENSE (MIT style license file).
+ *
+ *  @note    JMH Benchmarks of Lookups in the LinHashMap and BpTreeMap Indices
+ */
+
+package scalation
+package bench
+
+import java.util.concurrent.TimeUnit
+
+import org.openjdk.jmh.annotations._
+
+import scalation.database.{BpTreeMap, LinHashMap}
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `IndexMapBench` class measures the time per lookup (get) in the index
+ *  structures of the database package, each holding size distinct keys inserted
+ *  in random order.  Each call looks up PROBES keys, half present and half absent,
+ *  in a fixed random order, so the result reflects cache misses on large indices
+ *  rather than one hot path through them.
+ *  > bench/Jmh/run scalation.bench.IndexMapBench
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Array (Mode.AverageTime))
+@OutputTimeUnit (TimeUnit.NANOSECONDS)
+@Warmup (iterations = 5, time = 1)
+@Measurement (iterations = 5, time = 1)
+@Fork (1)
+class IndexMapBench:
+
+    import IndexMapBench.PROBES
+
+    @Param (Array ("10000", "1000000"))
+    var size = 0
+
+    private var linHash: LinHashMap [Int, Int] = null
+    private var bpTree: BpTreeMap [Int]        = null
+    private val probe = Array.ofDim [Int] (PROBES)
+
+    @Setup (Level.Trial)
+    def setup (): Unit =
+        val rng  = new java.util.Random (0)
+        val keys = Array.tabulate (size)(2 * _)                // the even keys are stored, odd ones absent
+        for i <- size - 1 until 0 by -1 do                     // shuffle the insertion order
+            val j = rng.nextInt (i + 1)
+            val k = keys(i); keys(i) = keys(j); keys(j) = k
+        end for
+        linHash  = new LinHashMap [Int, Int] ("bench")
+        bpTree   = new BpTreeMap [Int] ("bench")
+        for k <- keys do { linHash.put (k, k); bpTree.put (k, k) }
+        cfor (0, PROBES) { i => probe(i) = if i % 2 == 0 then keys(rng.nextInt (size)) else 2 * rng.nextInt (size) + 1 }
+    end setup
+
+    @Benchmark @OperationsPerInvocation (IndexMapBench.PROBES)
+    def linHashGet: Int =
+        var found = 0
+        cfor (0, PROBES) { i => if linHash.get (probe(i)).isDefined then found += 1 }
+        found
+    end linHashGet
+
+    @Benchmark @OperationsPerInvocation (IndexMapBench.PROBES)
+    def bpTreeGet: Int =
+        var found = 0
+        cfor (0, PROBES) { i => if bpTree.get (probe(i)).isDefined then found += 1 }
+        found
+    end bpTreeGet
+
+end IndexMapBench
+
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `IndexMapBench` companion object gives the number of lookups per call.
+ */
+object IndexMapBench:
+
+    final val PROBES = 1024
+
+end IndexMapBench
+
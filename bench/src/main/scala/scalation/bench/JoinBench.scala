@@ -0,0 +1,65 @@
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** @author  John Miller
+ *  @version 2.0
+ *  @date    Sat Oct 17 10:15:00 EDT 2026
+ *  @see     LICENSE (MIT style license file).
+ *
+ *  @note    JMH Benchmarks of the Equi-Join Algorithms of Table
+ */
+
+package scalation
+package bench
+
+import java.util.concurrent.TimeUnit
+
+import org.openjdk.jmh.annotations._
+
+import scalation.database.table.{Table, TableGen}
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `JoinBench` class measures the time of deposit join customer (on cname)
+ *  for each equi-join algorithm, the tables as in `equiJoinBenchmark`.  The
+ *  nested-loop join is left out: it is quadratic and takes minutes at these sizes.
+ *  The hash join probes with all the cores (see `Table.setParallelism`).
+ *  > bench/Jmh/run scalation.bench.JoinBench
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Array (Mode.AverageTime))
+@OutputTimeUnit (TimeUnit.MILLISECONDS)
+@Warmup (iterations = 3, time = 2)
+@Measurement (iterations = 5, time = 2)
+@Fork (1)
+class JoinBench:
+
+    @Param (Array ("10000", "100000", "1000000"))
+    var size = 0
+
+    @Param (Array ("hj", "smj", "ij"))
+    var algo = ""
+
+    private val x = Array ("cname")
+
+    private var customer: Table = null
+    private var deposit: Table  = null
+
+    @Setup (Level.Trial)
+    def setup (): Unit =
+        customer = Table ("customer", "cname, street, ccity", "S, S, S", "cname")
+        deposit  = Table ("deposit", "accno, balance, cname, bname", "I, D, S, S", "accno")
+        deposit.addLinkage ("cname", customer)
+        TableGen.popTable (customer, size)
+        TableGen.popTable (deposit, size)
+        Table.setJoinAlgo (algo)
+        Table.setParallelism (if algo == "hj" then Runtime.getRuntime.availableProcessors else 1)
+    end setup
+
+    @TearDown (Level.Trial)
+    def tearDown (): Unit =
+        Table.setJoinAlgo ("auto")
+        Table.setParallelism (1)
+    end tearDown
+
+    @Benchmark def join: Table = deposit.join (x, x, customer)
+
+end JoinBench
+
@@ -0,0 +1,59 @@
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** @author  John Miller
+ *  @version 2.0
+ *  @date    Sat Oct 17 10:15:00 EDT 2026
+ *  @see     LICENSE (MIT style license file).
+ *
+ *  @note    JMH Benchmarks of the Matrix Products of MatrixD for each Kernel
+ */
+
+package scalation
+package bench
+
+import java.util.concurrent.TimeUnit
+
+import org.openjdk.jmh.annotations._
+
+import scalation.mathstat.{MatMulKernel, MatrixD, MatrixKernels, VectorD}
+import scalation.random.{RandomMatD, RandomVecD}
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `MatrixBench` class measures the time per call of the n-by-n matrix
+ *  product, matrix-vector product and transpose of `MatrixD`, for each of the
+ *  `MatMulKernel`s.  A SIMD kernel the JVM cannot run falls back to its scalar
+ *  version (see `MatrixKernels.setKernel`), so compare the SIMD rows only from
+ *  runs that pass --add-modules jdk.incubator.vector (as the fork below does).
+ *  > bench/Jmh/run scalation.bench.MatrixBench
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Array (Mode.AverageTime))
+@OutputTimeUnit (TimeUnit.MILLISECONDS)
+@Warmup (iterations = 3, time = 2)
+@Measurement (iterations = 5, time = 2)
+@Fork (value = 1, jvmArgsAppend = Array ("--add-modules=jdk.incubator.vector"))
+class MatrixBench:
+
+    @Param (Array ("100", "500", "1000"))
+    var n = 0
+
+    @Param (Array ("Serial", "Parallel", "Simd", "ParallelSimd"))
+    var kernel = ""
+
+    private var a: MatrixD = null
+    private var b: MatrixD = null
+    private var x: VectorD = null
+
+    @Setup (Level.Trial)
+    def setup (): Unit =
+        MatrixKernels.setKernel (MatMulKernel.valueOf (kernel))
+        a = RandomMatD (n, n, 1.0, -1.0, stream = 1).gen
+        b = RandomMatD (n, n, 1.0, -1.0, stream = 2).gen
+        x = RandomVecD (n, 1.0, -1.0, stream = 3).gen
+    end setup
+
+    @Benchmark def times: MatrixD     = a * b
+    @Benchmark def timesVec: VectorD  = a * x
+    @Benchmark def transpose: MatrixD = a.transpose
+
+end MatrixBench
+
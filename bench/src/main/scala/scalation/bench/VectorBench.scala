@@ -0,0 +1,55 @@
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** @author  John Miller
+ *  @version 2.0
+ *  @date    Sat Oct 17 10:15:00 EDT 2026
+ *  @see     LICENSE (MIT style license file).
+ *
+ *  @note    JMH Benchmarks of the Element-Wise and Reducing Operations of VectorD
+ */
+
+package scalation
+package bench
+
+import java.util.concurrent.TimeUnit
+
+import org.openjdk.jmh.annotations._
+
+import scalation.mathstat.VectorD
+import scalation.random.RandomVecD
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `VectorBench` class measures the time per call of the `VectorD` operations
+ *  the modeling code leans on (element-wise +, scaling, dot product, squared norm
+ *  and sorting) on vectors of n random reals.  The element-wise operations create
+ *  a new vector, so their allocation rate (-prof gc) is n * 8 bytes per call plus
+ *  the header; more than that is a regression.
+ *  > bench/Jmh/run scalation.bench.VectorBench
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Array (Mode.AverageTime))
+@OutputTimeUnit (TimeUnit.MICROSECONDS)
+@Warmup (iterations = 5, time = 1)
+@Measurement (iterations = 5, time = 1)
+@Fork (1)
+class VectorBench:
+
+    @Param (Array ("1000", "100000", "1000000"))
+    var n = 0
+
+    private var x: VectorD = null
+    private var y: VectorD = null
+
+    @Setup (Level.Trial)
+    def setup (): Unit =
+        x = RandomVecD (n, 1.0, -1.0, stream = 1).gen
+        y = RandomVecD (n, 1.0, -1.0, stream = 2).gen
+    end setup
+
+    @Benchmark def plus: VectorD   = x + y
+    @Benchmark def scale: VectorD  = x * 2.5
+    @Benchmark def dot: Double     = x dot y
+    @Benchmark def normSq: Double  = x.normSq
+    @Benchmark def sorted: VectorD = x.sorted
+
+end VectorBench
+
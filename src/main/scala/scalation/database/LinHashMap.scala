@@ -35,7 +35,7 @@ class LinHashMap [K: ClassTag, V: ClassTag] (name: String, order: Int = 4,
 
     var count = 0                                             // count # buckets accessed (performance)
 
-    private val debug = debugf ("LinHashMap", true)           // debug function
+    private val debug = debugf ("LinHashMap", false)          // debug function
 
     //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
     /** The `Bucket` inner class defines buckets that are stored in this hash table.
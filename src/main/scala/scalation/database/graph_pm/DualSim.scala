@@ -26,7 +26,7 @@ import scala.util.control.Breaks.{break, breakable}
 class DualSim (g: Graph, q: Graph)
       extends GraphMatcher (g, q):
 
-    private val debug = debugf ("DualSim", true )                      // debug flag
+    private val debug = debugf ("DualSim", false)                      // debug flag
 
     //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
     /** Given the mappings φ produced by the feasibleMates method,
@@ -88,7 +88,7 @@ class DualSim (g: Graph, q: Graph)
 
                     for v <- φ(u) do                                   // for each v in g image of u
                         val v_c = g.ch(v).filter (elab_u2u_c == g.elabel (v, _))   // filter on edge labels, using ==
-                        debug ("prune", s"v = $v, v_c = $v_c, φ_u_c = " + φ(u_c))
+//                      debug ("prune", s"v = $v, v_c = $v_c, φ_u_c = " + φ(u_c))   // builds a string of φ(u_c) per v
 
                         val φInt = v_c & φ(u_c)                        // children of v contained in φ(u_c)
                         if φInt.isEmpty then
@@ -23,7 +23,7 @@ import scala.runtime.ScalaRunTime.stringOf
  */
 trait GraphMatcher (g: Graph, q: Graph):
 
-    private   val debug      = debugf ("GraphMatcher", true)       // debug function
+    private   val debug      = debugf ("GraphMatcher", false)       // debug function
     protected val qRange     = 0 until q.size                      // range for query graph vertices
     protected val gRange     = 0 until g.size                      // range for data graph vertices
     protected val CHECK      = 1024                                // check progress after this many matches
@@ -27,7 +27,7 @@ import scala.util.control.Breaks.{break, breakable}
 class GraphSim (g: Graph, q: Graph)
       extends GraphMatcher (g, q):
 
-    private val debug = debugf ("GraphSim", true)                   // debug function
+    private val debug = debugf ("GraphSim", false)                   // debug function
 
     //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
     /** Given the mappings φ produced by the feasibleMates method,
@@ -0,0 +1,394 @@
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** @author  John Miller
+ *  @version 2.0
+ *  @date    Sat Oct 17 10:15:00 EDT 2026
+ *  @see     LICENSE (MIT style license file).
+ *
+ *  @note    `Graph` Simulation and Dual Simulation Using Bitsets and a Parallel Fixpoint
+ */
+
+package scalation
+package database
+package graph_pm
+
+import java.lang.Long.numberOfTrailingZeros
+import java.util.concurrent.{ForkJoinPool, ForkJoinTask, RecursiveAction}
+import java.util.concurrent.atomic.AtomicLongArray
+
+import scala.collection.mutable.{HashMap, Set => SET}
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `ParSim` class computes the same mappings φ as `GraphSim` (dual = false)
+ *  or `DualSim` (dual = true), the largest (dual) simulation of the query graph q
+ *  in the data graph g, for data graphs with millions of vertices:
+ *      - the candidate sets φ(u) are bitsets over the data vertices and the data
+ *        graph is held in compressed (offset/adjacency array) form, both ways;
+ *      - refinement proceeds in rounds over a worklist: only the candidates whose
+ *        support lost a vertex in the last round (the affected ones) are checked;
+ *      - in each round the checks, split by query vertex and by blocks of data
+ *        vertices, run in parallel against the candidate sets of the round's start,
+ *        then the removed vertices mark the candidates they supported, in parallel.
+ *  As every round is a function of the previous one, the rounds (and the result)
+ *  do not depend on the number of threads.  Unlike the sequential versions, when
+ *  some φ(u) becomes empty (no match), all the returned sets are empty.
+ *  @param g            the data graph  G(V, E, l)
+ *  @param q            the query graph Q(U, D, k)
+ *  @param dual         whether to compute dual simulation (parents must match too)
+ *  @param parallelism  the number of threads (1 => refine in this thread)
+ */
+class ParSim (g: Graph, q: Graph, dual: Boolean = false,
+              parallelism: Int = Runtime.getRuntime.availableProcessors)
+      extends GraphMatcher (g, q):
+
+    private val debug = debugf ("ParSim", false)                    // debug function
+
+    private val n     = g.size                                      // number of data vertices
+    private val nw    = (n + 63) >>> 6                              // number of words in a bitset
+    private val BLOCK = 256                                         // words per task (16384 data vertices)
+    private val nb    = (nw + BLOCK - 1) / BLOCK                    // number of blocks of words
+
+    private val qFrom = (for u <- qRange; u_c <- q.ch(u).toArray.sorted yield u).toArray      // query edges
+    private val qTo   = (for u <- qRange; u_c <- q.ch(u).toArray.sorted yield u_c).toArray    // (u -> u_c)
+    private val qOut  = Array.tabulate (q.size)(u => qFrom.indices.filter (qFrom(_) == u).toArray)
+    private val qIn   = Array.tabulate (q.size)(u => qTo.indices.filter (qTo(_) == u).toArray)
+    private var qLab  = Array.ofDim [Int] (qFrom.length)            // query edge label ids
+
+    private val chOff = Array.ofDim [Int] (n + 1)                   // children of v: chAdj(chOff(v) until chOff(v+1))
+    for v <- 0 until n do chOff(v + 1) = chOff(v) + g.ch(v).size
+    private val chAdj = Array.ofDim [Int] (chOff(n))
+    for v <- 0 until n do
+        var k = chOff(v)
+        for w <- g.ch(v) do { chAdj(k) = w; k += 1 }
+    end for
+
+    private val paOff = Array.ofDim [Int] (n + 1)                   // parents of v: paAdj(paOff(v) until paOff(v+1))
+    private val paAdj = Array.ofDim [Int] (chAdj.length)
+    private val paPos = Array.ofDim [Int] (chAdj.length)            // position of the same edge in chAdj
+    for w <- chAdj do paOff(w + 1) += 1
+    for v <- 0 until n do paOff(v + 1) += paOff(v)
+    locally {
+        val next = paOff.clone
+        for v <- 0 until n; k <- chOff(v) until chOff(v + 1) do
+            val w = chAdj(k)
+            paAdj(next(w)) = v; paPos(next(w)) = k; next(w) += 1
+        end for
+    } // locally
+
+    private var chLab = Array.ofDim [Int] (chAdj.length)            // edge label ids, by position in chAdj
+    private var paLab = Array.ofDim [Int] (paAdj.length)            // edge label ids, by position in paAdj
+    private var _rounds = 0                                         // rounds of the last refinement
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return the number of rounds the last refinement took.
+     */
+    def rounds: Int = _rounds
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Given the mappings φ produced by the feasibleMates method,
+     *  eliminate mappings u -> v when v's children (and parents if dual) fail
+     *  to match u's.  This version ignores edge labels.
+     *  @param φ  array of mappings from a query vertex u to { graph vertices v }
+     */
+    def prune0 (φ: Array [SET [Int]]): Array [SET [Int]] = toSets (refine (φ.map (toBits), true))
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Given the mappings φ produced by the feasibleMates method,
+     *  eliminate mappings u -> v when v's children (and parents if dual) fail
+     *  to match u's.  This version checks edge labels.
+     *  @param φ  array of mappings from a query vertex u to { graph vertices v }
+     */
+    def prune (φ: Array [SET [Int]]): Array [SET [Int]] = toSets (refine (φ.map (toBits), false))
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return the mappings as bitsets (bit v of φ(u) set iff u -> v), starting
+     *  from the vertices with matching labels, without building any `Set`.
+     *  @param ignoreEdgeLabels  whether to ingore edge labels during matching
+     */
+    def mappingsBits (ignoreEdgeLabels: Boolean = false): Array [Array [Long]] =
+        val sim = Array.tabulate (q.size)(u => toBits (g.labelMap.getOrElse (q.label(u), SET [Int] ())))
+        refine (sim, ignoreEdgeLabels)
+    end mappingsBits
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Refine (in-place) the candidate bitsets sim to the largest (dual) simulation
+     *  they contain, or to empty bitsets if there is none.  Return sim.
+     *  @param sim     the candidate bitsets, one per query vertex
+     *  @param ignore  whether to ignore edge labels
+     */
+    private def refine (sim: Array [Array [Long]], ignore: Boolean): Array [Array [Long]] =
+        labelEdges (ignore)
+        val rem  = Array.fill (q.size)(Array.ofDim [Long] (nw))     // vertices removed in the round
+        var aff  = sim.map (s => AtomicLongArray (s))               // candidates to check: all at first
+        var more = true
+        _rounds  = 0
+        val pool = if parallelism > 1 then new ForkJoinPool (parallelism) else null
+        try
+            while more && ! sim.exists (isEmpty) do
+                _rounds += 1
+                val affected = aff
+                forTasks (pool, q.size * nb) { t =>                // CHECK the affected candidates
+                    val u = t / nb
+                    cfor (t % nb * BLOCK, nw min (t % nb + 1) * BLOCK) { k =>
+                        var bits = affected(u).get (k) & sim(u)(k)
+                        var r    = 0L
+                        while bits != 0L do
+                            val b = numberOfTrailingZeros (bits)
+                            if ! supported (u, k << 6 | b, sim) then r |= 1L << b
+                            bits &= bits - 1
+                        end while
+                        rem(u)(k) = r
+                    } // cfor
+                } // forTasks
+
+                more = false                                        // REMOVE the unsupported ones
+                for u <- qRange; k <- 0 until nw if rem(u)(k) != 0L do
+                    sim(u)(k) &= ~rem(u)(k)
+                    more = true
+                end for
+                debug ("refine", s"round ${_rounds}: more = $more")
+
+                if more then
+                    aff = Array.fill (q.size)(AtomicLongArray (nw))
+                    val marked = aff
+                    forTasks (pool, q.size * nb) { t =>            // MARK the candidates they supported
+                        val x = t / nb
+                        cfor (t % nb * BLOCK, nw min (t % nb + 1) * BLOCK) { k =>
+                            var bits = rem(x)(k)
+                            while bits != 0L do
+                                val w = k << 6 | numberOfTrailingZeros (bits)
+                                for e <- qIn(x) do mark (paOff, paAdj, paLab, w, qLab(e), sim(qFrom(e)), marked(qFrom(e)))
+                                if dual then
+                                    for e <- qOut(x) do mark (chOff, chAdj, chLab, w, qLab(e), sim(qTo(e)), marked(qTo(e)))
+                                bits &= bits - 1
+                            end while
+                        } // cfor
+                    } // forTasks
+                end if
+            end while
+        finally
+            if pool != null then pool.shutdown ()
+        end try
+
+        if sim.exists (isEmpty) then for s <- sim do java.util.Arrays.fill (s, 0L)   // no overall match
+        sim
+    end refine
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return whether candidate v of query vertex u has, for each query edge out of
+     *  u (and into u if dual), a neighbor over an edge with its label in the
+     *  candidates of the vertex at the other end.
+     *  @param u    the query vertex
+     *  @param v    the data vertex
+     *  @param sim  the candidate bitsets
+     */
+    private def supported (u: Int, v: Int, sim: Array [Array [Long]]): Boolean =
+        val out = qOut(u)
+        var ok  = true
+        var i   = 0
+        while ok && i < out.length do
+            ok = anyIn (chOff, chAdj, chLab, v, qLab(out(i)), sim(qTo(out(i))))
+            i += 1
+        end while
+        if dual then
+            val in = qIn(u)
+            i = 0
+            while ok && i < in.length do
+                ok = anyIn (paOff, paAdj, paLab, v, qLab(in(i)), sim(qFrom(in(i))))
+                i += 1
+            end while
+        end if
+        ok
+    end supported
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return whether some neighbor of v over an edge labeled l is in bitset s.
+     */
+    private def anyIn (off: Array [Int], adj: Array [Int], lab: Array [Int], v: Int, l: Int,
+                       s: Array [Long]): Boolean =
+        var k     = off(v)
+        var found = false
+        while ! found && k < off(v + 1) do
+            val w = adj(k)
+            found = lab(k) == l && (s(w >>> 6) & (1L << w)) != 0L
+            k += 1
+        end while
+        found
+    end anyIn
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Mark (atomically) in a the neighbors of w over an edge labeled l that are
+     *  candidates in bitset s.
+     */
+    private def mark (off: Array [Int], adj: Array [Int], lab: Array [Int], w: Int, l: Int,
+                      s: Array [Long], a: AtomicLongArray): Unit =
+        cfor (off(w), off(w + 1)) { k =>
+            val v = adj(k)
+            val m = 1L << v
+            if lab(k) == l && (s(v >>> 6) & m) != 0L then
+                var old = a.get (v >>> 6)
+                while (old & m) == 0L && ! a.compareAndSet (v >>> 6, old, old | m) do old = a.get (v >>> 6)
+            end if
+        } // cfor
+    end mark
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Number the labels of the query edges and give each data edge the number of
+     *  its label (-1 if no query edge has it), or 0 to all edges to ignore labels.
+     *  @param ignore  whether to ignore edge labels
+     */
+    private def labelEdges (ignore: Boolean): Unit =
+        if ignore then
+            qLab  = Array.ofDim [Int] (qFrom.length)
+            chLab = Array.ofDim [Int] (chAdj.length)
+        else
+            val ids = HashMap [ValueType, Int] ()
+            qLab  = Array.tabulate (qFrom.length)(e => ids.getOrElseUpdate (q.elabel ((qFrom(e), qTo(e))), ids.size))
+            chLab = Array.ofDim [Int] (chAdj.length)
+            for v <- 0 until n; k <- chOff(v) until chOff(v + 1) do
+                chLab(k) = g.elabel.get ((v, chAdj(k))).flatMap (ids.get).getOrElse (-1)
+            end for
+        end if
+        paLab = Array.tabulate (paAdj.length)(k => chLab(paPos(k)))
+    end labelEdges
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Run body (t) for the tasks t in 0 until nt, in the pool (if any).
+     */
+    private def forTasks (pool: ForkJoinPool, nt: Int)(body: Int => Unit): Unit =
+        if pool == null || nt == 1 then cfor (0, nt) { t => body (t) }
+        else if nt > 1 then pool.invoke (Tasks (0, nt, body))
+    end forTasks
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** The `Tasks` class runs body (t) for t in [lo, hi), splitting the range.
+     */
+    private class Tasks (lo: Int, hi: Int, body: Int => Unit) extends RecursiveAction:
+        def compute (): Unit =
+            if hi - lo == 1 then body (lo)
+            else
+                val mid = (lo + hi) >>> 1
+                ForkJoinTask.invokeAll (Tasks (lo, mid, body), Tasks (mid, hi, body))
+            end if
+        end compute
+    end Tasks
+
+    private def isEmpty (s: Array [Long]): Boolean = s.forall (_ == 0L)
+
+    private def toBits (vs: SET [Int]): Array [Long] =
+        val s = Array.ofDim [Long] (nw)
+        for v <- vs do s(v >>> 6) |= 1L << v
+        s
+    end toBits
+
+    private def toSets (sim: Array [Array [Long]]): Array [SET [Int]] =
+        sim.map { s =>
+            val vs = SET [Int] ()
+            cfor (0, nw) { k =>
+                var bits = s(k)
+                while bits != 0L do
+                    vs += k << 6 | numberOfTrailingZeros (bits)
+                    bits &= bits - 1
+                end while
+            } // cfor
+            vs
+        } // map
+    end toSets
+
+end ParSim
+
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** Return whether the mappings φ of `ParSim` are those (ref) of the sequential
+ *  matcher: the same sets, or all empty where some set of ref is empty (no match).
+ *  @param ref  the mappings of `GraphSim` or `DualSim`
+ *  @param φ    the mappings of `ParSim`
+ */
+private def sameMappings (ref: Array [SET [Int]], φ: Array [SET [Int]]): Boolean =
+    if ref.exists (_.isEmpty) then φ.length == ref.length && φ.forall (_.isEmpty)
+    else ref sameElements φ
+end sameMappings
+
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `parSimTest` main function checks `ParSim` against `GraphSim` and `DualSim`
+ *  on the example graphs and on random graphs from `GraphGen`, with and without
+ *  edge labels, including queries with no match (where all the sets of `ParSim`
+ *  must be empty).
+ *  > runMain scalation.database.graph_pm.parSimTest
+ */
+@main def parSimTest (): Unit =
+
+    import graph_pm.{ExampleGraphD => EX_GRAPH}
+
+    val gGen  = new GraphGen ('D')
+    val pairs = Seq ((EX_GRAPH.g1p, EX_GRAPH.q1p), (EX_GRAPH.g2p, EX_GRAPH.q2p)) ++
+                (for i <- 0 until 8 yield
+                    val g = gGen.genRandomGraph (2000, 8, 3, 4, name = s"g$i")
+                    (g, gGen.genRandomGraph (4 + i % 3, 8, 3, 2, name = s"q$i"))) ++        // mostly no match
+                (for i <- 0 until 8 yield
+                    val g = gGen.genRandomGraph (2000, 8, 3, 4, name = s"g$i")
+                    (g, gGen.genBFSQuery (4 + i % 3, 1, g, false, s"q$i")))           // some match
+
+    var found = 0
+    var none  = 0
+    for (g, q) <- pairs; ignore <- Seq (false, true) do
+        val sim  = new GraphSim (g, q).mappings (ignore)
+        val dsim = new DualSim (g, q).mappings (ignore)
+        if dsim.exists (_.isEmpty) then none += 1 else found += 1
+        for p <- Seq (1, 4) do
+            val psim  = new ParSim (g, q, false, p).mappings (ignore)
+            val pdsim = new ParSim (g, q, true, p).mappings (ignore)
+            assert (sameMappings (sim, psim), s"${g.name}/${q.name} ignore = $ignore, threads = $p: sim differs")
+            assert (sameMappings (dsim, pdsim), s"${g.name}/${q.name} ignore = $ignore, threads = $p: dual differs")
+        end for
+    end for
+    assert (found > 0 && none > 0, s"$found matching and $none non-matching cases")
+    println (s"ParSim agrees with GraphSim and DualSim: $found matching and $none non-matching cases")
+
+end parSimTest
+
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `parSimBenchmark` main function times `ParSim` (dual and not) on random
+ *  data graphs from `GraphGen` of growing size, with 1, 2, 4, ... threads up to
+ *  the number of cores, against the sequential `GraphSim` and `DualSim` (on the
+ *  smaller graphs), checking that the mappings agree.
+ *  > runMain scalation.database.graph_pm.parSimBenchmark
+ */
+@main def parSimBenchmark (): Unit =
+
+    val maxSeq    = 100000                    // largest data graph for the sequential matchers
+    val qSize     =     10                    // size of the query graph
+    val vLabels   =    100                    // number of distinct vertex labels
+    val eLabels   =     10                    // number of distinct edge labels
+    val gAvDegree =     16                    // average vertex out degree for data graph
+    val qAvDegree =      2                    // average vertex out degree for query graph
+    val cores     = Runtime.getRuntime.availableProcessors
+    val threads   = Iterator.iterate (1)(_ * 2).takeWhile (_ < cores).toSeq :+ cores
+
+    println ("vertices    matcher    threads   ms          speedup  rounds  same")
+    for gSize <- Seq (100000, 1000000, 4000000) do
+        val gGen = new GraphGen ('D')
+        val g    = gGen.genRandomGraph (gSize, vLabels, eLabels, gAvDegree)
+        val q    = gGen.genBFSQuery (qSize, qAvDegree, g, false, "q")
+
+        for dual <- Seq (false, true) do
+            val name = if dual then "DualSim" else "GraphSim"
+            val ref  = if gSize > maxSeq then null
+                       else
+                           val m = if dual then new DualSim (g, q) else new GraphSim (g, q)
+                           val (φ, ms) = timed { m.mappings () }
+                           println (f"$gSize%-11d $name%-10s       1   $ms%10.1f")
+                           φ
+            var base = 0.0
+            for p <- threads do
+                val m       = new ParSim (g, q, dual, p)
+                val (φ, ms) = timed (3, true) { m.mappings () }
+                if p == 1 then base = ms
+                val same = ref == null || sameMappings (ref, φ)
+                println (f"$gSize%-11d Par$name%-7s $p%7d   $ms%10.1f  ${base / ms}%7.2f  ${m.rounds}%6d  $same")
+            end for
+        end for
+    end for
+
+end parSimBenchmark
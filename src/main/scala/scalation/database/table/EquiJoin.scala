@@ -0,0 +1,336 @@
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** @author  John Miller
+ *  @version 2.0
+ *  @date    Sat Oct 17 10:15:00 EDT 2026
+ *  @see     LICENSE (MIT style license file).
+ *
+ *  @note    Hash and Sort-Merge Equi-Join Algorithms over Bags of Tuples
+ */
+
+package scalation
+package database
+package table
+
+import java.util.concurrent.{CompletableFuture, Executors}
+
+import scala.collection.mutable.{ArrayBuffer => Bag, HashMap}
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `EquiJoin` object computes the matching (i, j) positions of an equi-join
+ *  of the left tuples (on columns ix) with the right tuples (on columns iy),
+ *  returned in NESTED-LOOP order (by i, then j), so the joined tables come out
+ *  exactly as the nested-loop joins of `Table` make them.
+ *      HJ:  HASH JOIN builds a hash map on the smaller side and probes it with
+ *           the other, the probe split into chunks run in parallel;
+ *      SMJ: SORT-MERGE JOIN sorts (stably) the positions of both sides on the
+ *           join key and merges runs of equal keys.
+ *  Keys are compared with == (so 1 == 1L == 1.0 as for the nested-loop joins).
+ */
+object EquiJoin:
+
+    private val debug = debugf ("EquiJoin", false)                          // debug function
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** The `Pairs` class is a growable list of (i, j) position pairs.
+     *  @param cap  the initial capacity
+     */
+    class Pairs (cap: Int = 16):
+
+        private [table] var pi = Array.ofDim [Int] (cap max 1)             // left positions
+        private [table] var pj = Array.ofDim [Int] (cap max 1)             // right positions
+        private [table] var n  = 0                                          // number of pairs
+
+        def size: Int = n
+        def i (k: Int): Int = pi(k)
+        def j (k: Int): Int = pj(k)
+
+        def add (i: Int, j: Int): Unit =
+            if n == pi.length then
+                pi = java.util.Arrays.copyOf (pi, 2 * n)
+                pj = java.util.Arrays.copyOf (pj, 2 * n)
+            end if
+            pi(n) = i; pj(n) = j; n += 1
+        end add
+
+        def addAll (ps: Pairs): Unit = for k <- 0 until ps.n do add (ps.pi(k), ps.pj(k))
+
+    end Pairs
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return the join key of tuple t on columns ic: the value itself for a single
+     *  column, otherwise a `KeyType` (equality and hashing element by element).
+     *  @param t   the tuple
+     *  @param ic  the column positions of the key
+     */
+    inline def keyOf (t: Tuple, ic: Array [Int]): Any =
+        if ic.length == 1 then t(ic(0)) else KeyType (Bag.tabulate (ic.length)(k => t(ic(k))))
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return the matching positions of the HASH JOIN of the left and right tuples,
+     *  building on the smaller side.
+     *  @param left         the left tuples
+     *  @param ix           the key columns of the left tuples
+     *  @param right        the right tuples
+     *  @param iy           the key columns of the right tuples
+     *  @param parallelism  the number of threads probing (1 => probe in this thread)
+     */
+    def hashJoin (left: Bag [Tuple], ix: Array [Int], right: Bag [Tuple], iy: Array [Int],
+                  parallelism: Int = 1): Pairs =
+        val buildLeft = left.size < right.size
+        val (build, ib, probe, ip) = if buildLeft then (left, ix, right, iy) else (right, iy, left, ix)
+        debug ("hashJoin", s"build on ${if buildLeft then "left" else "right"} (${build.size} tuples)")
+
+        val first = HashMap [Any, Int] ()                                   // key -> first build position
+        val next  = Array.fill (build.size)(-1)                             // next build position with the same key
+        var b = build.size - 1
+        while b >= 0 do                                                     // backwards, so chains ascend
+            val k = keyOf (build(b), ib)
+            next(b) = first.getOrElse (k, -1)
+            first(k) = b
+            b -= 1
+        end while
+
+        def probeRange (lo: Int, hi: Int): Pairs =
+            val ps = Pairs ()
+            var p  = lo
+            while p < hi do
+                var q = first.getOrElse (keyOf (probe(p), ip), -1)
+                while q >= 0 do
+                    if buildLeft then ps.add (q, p) else ps.add (p, q)
+                    q = next(q)
+                end while
+                p += 1
+            end while
+            ps
+        end probeRange
+
+        val chunks = parallelism max 1 min (probe.size / 4096 max 1)       // small probes stay in this thread
+        val ps = if chunks == 1 then probeRange (0, probe.size) else probeParallel (probe.size, chunks, probeRange)
+        if buildLeft then byLeft (ps, left.size) else ps                    // probed in right order: regroup
+    end hashJoin
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return the pairs of probing n tuples split into chunks probed by virtual
+     *  threads, concatenated in chunk (probe) order.
+     *  @param n       the number of probe tuples
+     *  @param chunks  the number of chunks
+     *  @param probe   the function probing the tuples in range [lo, hi)
+     */
+    private def probeParallel (n: Int, chunks: Int, probe: (Int, Int) => Pairs): Pairs =
+        val step    = (n + chunks - 1) / chunks
+        val workers = Executors.newVirtualThreadPerTaskExecutor ()
+        try
+            val parts = for c <- 0 until chunks yield
+                CompletableFuture.supplyAsync (() => probe (c * step, n min (c + 1) * step), workers)
+            val all = Pairs (parts.map (_.join ().size).sum)
+            for f <- parts do all.addAll (f.join ())
+            all
+        finally workers.shutdown ()
+        end try
+    end probeParallel
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return the matching positions of the SORT-MERGE JOIN of the left and right tuples.
+     *  @param left   the left tuples
+     *  @param ix     the key columns of the left tuples
+     *  @param right  the right tuples
+     *  @param iy     the key columns of the right tuples
+     */
+    def sortMergeJoin (left: Bag [Tuple], ix: Array [Int], right: Bag [Tuple], iy: Array [Int]): Pairs =
+        val lk = Array.tabulate (left.size)(i => keyTuple (left(i), ix))
+        val rk = Array.tabulate (right.size)(j => keyTuple (right(j), iy))
+        val lp = Array.range (0, left.size).sortWith ((p, q) => compare (lk(p), lk(q)) < 0)    // stable
+        val rp = Array.range (0, right.size).sortWith ((p, q) => compare (rk(p), rk(q)) < 0)
+
+        val ps = Pairs ()
+        var a = 0
+        var b = 0
+        while a < lp.length && b < rp.length do
+            val c = compare (lk(lp(a)), rk(rp(b)))
+            if c < 0 then a += 1
+            else if c > 0 then b += 1
+            else
+                var a2 = a + 1                                              // end of the run of equal left keys
+                while a2 < lp.length && compare (lk(lp(a2)), lk(lp(a))) == 0 do a2 += 1
+                var b2 = b + 1                                              // end of the run of equal right keys
+                while b2 < rp.length && compare (rk(rp(b2)), rk(rp(b))) == 0 do b2 += 1
+                for u <- a until a2; v <- b until b2 do ps.add (lp(u), rp(v))
+                a = a2; b = b2
+            end if
+        end while
+        byLeft (ps, left.size)
+    end sortMergeJoin
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return the key columns ic of tuple t.
+     */
+    private def keyTuple (t: Tuple, ic: Array [Int]): Tuple = Array.tabulate (ic.length)(k => t(ic(k)))
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Compare keys k1 and k2 lexicographically (using `compareValues`).
+     */
+    private def compare (k1: Tuple, k2: Tuple): Int =
+        var k = 0
+        while k < k1.length do
+            val c = compareValues (k1(k), k2(k))
+            if c != 0 then return c
+            k += 1
+        end while
+        0
+    end compare
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Compare values a and b: with `ValueTypeOrd` when of the same type, numbers of
+     *  different types by value (so they tie exactly when == holds, e.g., 1 and 1.0),
+     *  and other values of different types by type.
+     */
+    private def compareValues (a: ValueType, b: ValueType): Int =
+        if a.getClass eq b.getClass then return ValueTypeOrd.compare (a, b)
+        (a, b) match
+        case (_: Double, _: (Int | Long)) | (_: (Int | Long), _: Double) =>
+            val (x, y) = (a.toDouble, b.toDouble)
+            if x == y then 0 else if x > y then 1 else -1
+        case (_: (Int | Long), _: (Int | Long)) =>
+            java.lang.Long.compare (a.toLong, b.toLong)
+        case _ =>
+            a.getClass.getName compare b.getClass.getName
+        end match
+    end compareValues
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return the pairs regrouped by left position (a stable counting sort), so
+     *  pairs listed in ascending j for each i come out in nested-loop order.
+     *  @param ps  the pairs
+     *  @param nl  the number of left positions
+     */
+    private def byLeft (ps: Pairs, nl: Int): Pairs =
+        val start = Array.ofDim [Int] (nl + 1)
+        for k <- 0 until ps.n do start(ps.pi(k) + 1) += 1
+        for i <- 1 to nl do start(i) += start(i - 1)
+        val out = Pairs (ps.n)
+        for k <- 0 until ps.n do
+            val s = start(ps.pi(k))
+            out.pi(s) = ps.pi(k); out.pj(s) = ps.pj(k)
+            start(ps.pi(k)) += 1
+        end for
+        out.n = ps.n
+        out
+    end byLeft
+
+end EquiJoin
+
+
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `equiJoinBenchmark` main function times the equi-join algorithms on
+ *  deposit join customer (on cname) for growing table sizes, checking that each
+ *  produces the same tuples as the nested-loop join (or, when that is too slow,
+ *  as the hash join).
+ *  > runMain scalation.database.table.equiJoinBenchmark
+ */
+@main def equiJoinBenchmark (): Unit =
+
+    val maxNLJ = 20000                                                      // largest size for the nested-loop join
+    val x      = Array ("cname")
+
+    println ("size        algo     ms          tuples   same")
+    for sz <- Seq (10000, 20000, 100000, 1000000) do
+        val customer = Table ("customer", "cname, street, ccity", "S, S, S", "cname")
+        val deposit  = Table ("deposit", "accno, balance, cname, bname", "I, D, S, S", "accno")
+        deposit.addLinkage ("cname", customer)
+        TableGen.popTable (customer, sz)
+        TableGen.popTable (deposit, sz)
+
+        var ref: Table = null
+        for algo <- Seq ("nlj", "hj", "smj", "ij") if algo != "nlj" || sz <= maxNLJ do
+            Table.setJoinAlgo (algo)
+            Table.setParallelism (if algo == "hj" then Runtime.getRuntime.availableProcessors else 1)
+            val (r, ms) = timed (3, true) { deposit.join (x, x, customer) }
+            if ref == null then ref = r
+            println (f"$sz%-11d $algo%-8s $ms%10.1f  ${r.rows}%9d   ${sameTuples (r.tuples, ref.tuples)}")
+        end for
+    end for
+    Table.setJoinAlgo ("auto")
+    Table.setParallelism (1)
+
+end equiJoinBenchmark
+
+
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `equiJoinTest` main function checks that every equi-join algorithm (hash
+ *  join on 1 and 4 threads, sort-merge join, and auto, i.e., index join when the
+ *  second table has a primary index on the join attribute) gives the tuples of
+ *  the nested-loop join in the same order: on one and two attributes, natural,
+ *  theta "==" and index joins, with duplicate keys on both sides, Int keys
+ *  against Double keys, no match and empty tables.  Both sides are large enough
+ *  for the parallel probe in turn.  The natural index joins `join_` and `_join_`
+ *  must give the same order too, while `_join` (which iterates the second table)
+ *  must give the same tuples in some order.
+ *  > runMain scalation.database.table.equiJoinTest
+ */
+@main def equiJoinTest (): Unit =
+
+    val rng    = scala.util.Random (15)
+    var checks = 0
+
+    def table (name: String, schema: String, domain: String, key: String, n: Int)
+              (row: Int => Array [ValueType]): Table =
+        val r = Table (name, schema, domain, key)
+        for i <- 0 until n do r.add (row (i))
+        r
+    end table
+
+    def sameBag (ts1: Bag [Tuple], ts2: Bag [Tuple]): Boolean =        // _join iterates r2, so only the bags agree
+        def key (t: Tuple) = t.mkString ("\u0000")
+        sameTuples (ts1.sortBy (key), ts2.sortBy (key))
+    end sameBag
+
+    def check (what: String, run: () => Table): Unit =
+        Table.setJoinAlgo ("nlj")
+        val ref = run ()
+        for algo <- Seq ("hj", "smj", "auto"); p <- Seq (1, 4) do
+            Table.setJoinAlgo (algo)
+            Table.setParallelism (p)
+            val r = run ()
+            assert (sameTuples (r.tuples, ref.tuples),
+                    s"$what with $algo on $p threads: ${r.rows} tuples differ from the nested-loop join's ${ref.rows}")
+            checks += 1
+        end for
+    end check
+
+    val names = Array ("ann", "bob", "cy", "dee", "eve")
+    for (n1, n2) <- Seq ((9000, 300), (300, 9000), (0, 50), (50, 0), (1, 1)) do
+        val r1 = table ("r1", "a, b, c, v", "I, S, I, D", "a", n1) { i =>
+                     Array [ValueType] (i, names(rng.nextInt (5)), rng.nextInt (40), rng.nextInt (30).toDouble) }
+        val r2 = table ("r2", "w, b, c, k", "I, S, I, I", "w", n2) { j =>
+                     Array [ValueType] (j, names(rng.nextInt (5)), rng.nextInt (60), rng.nextInt (40)) }
+        val r3 = table ("r3", "c, name", "I, S", "c", 50) { j => Array [ValueType] (j, s"c$j") }
+        r3.create_index ()
+
+        val sz = s"$n1 x $n2"
+        check (s"$sz join on c",           () => r1.join (Array ("c"), Array ("c"), r2))
+        check (s"$sz join on c, b",        () => r1.join (Array ("c", "b"), Array ("c", "b"), r2))
+        check (s"$sz natural join",        () => r1 join r2)
+        check (s"$sz theta join c == c",   () => r1.join ("c == c", r2))
+        check (s"$sz join Int k = Double v", () => r2.join (Array ("k"), Array ("v"), r1))
+        check (s"$sz join on a = w",       () => r1.join (Array ("a"), Array ("w"), r2))    // at most one match
+        check (s"$sz join on b = name",    () => r1.join (Array ("b"), Array ("name"), r3)) // no match
+        check (s"$sz index join on c",     () => r1.join (Array ("c"), Array ("c"), r3))
+
+        Table.setJoinAlgo ("nlj")
+        r1.create_mindex ("c")
+        r2.create_mindex ("c")
+        for (l, lname) <- Seq ((r1, "r1"), (r2, "r2")) do
+            val natural = l join r3
+            assert (sameTuples ((l join_ r3).tuples, natural.tuples), s"$sz $lname join_ differs from the nested-loop join")
+            assert (sameTuples ((l _join_ r3).tuples, natural.tuples), s"$sz $lname _join_ differs from the nested-loop join")
+            assert (sameBag ((l _join r3).tuples, natural.tuples), s"$sz $lname _join differs from the nested-loop join")
+            checks += 3
+        end for
+    end for
+    Table.setJoinAlgo ("auto")
+    Table.setParallelism (1)
+    println (s"equiJoinTest: $checks joins agree with the nested-loop join")
+
+end equiJoinTest
@@ -102,6 +102,8 @@ object Table:
 
     private var useFullPath = false                                         // defaults to using relative file paths
     private var limit       = -1                                            // limit on number of lines to read
+    private var joinAlgo    = "auto"                                        // algorithm for equi-joins
+    private var parallelism = 1                                             // threads probing a hash join
 
     //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
     /** Set the full-path flag to the value of parameter fullPath.
@@ -115,6 +117,27 @@ object Table:
      */
     def setLimit (lim: Int): Unit = { limit = lim }
 
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Set the algorithm used by the equi-joins (on attributes, natural and "==" theta):
+     *      "auto" - INDEX JOIN when the second table has a primary index on the join
+     *               attribute, otherwise HASH JOIN (the default)
+     *      "nlj"  - NESTED-LOOP JOIN,  "ij" - INDEX JOIN,  "hj" - HASH JOIN,
+     *      "smj"  - SORT-MERGE JOIN
+     *  All produce the same tuples in the same order.
+     *  @see `EquiJoin`
+     *  @param algo  the equi-join algorithm
+     */
+    def setJoinAlgo (algo: String): Unit =
+        if Set ("auto", "nlj", "ij", "hj", "smj") contains algo then joinAlgo = algo
+        else flaw ("setJoinAlgo", s"unknown join algorithm $algo")
+    end setJoinAlgo
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Set the number of threads probing a hash join (large probes only).
+     *  @param p  the number of threads (1 => sequential)
+     */
+    def setParallelism (p: Int = Runtime.getRuntime.availableProcessors): Unit = { parallelism = p max 1 }
+
     //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
     /** Create a table given convenient string specifications.
      *  @param name     the name of the table
@@ -918,7 +941,7 @@ class Table (name: String, schema: Schema, domain: Domain, key: Schema)
 
         s.tuples ++= 
         (op match
-        case "==" => tJoinTups (a1, equ, a2, r2)
+        case "==" => equiJoinTups (Array (on(a1)), r2, Array (r2.on(a2)))
         case "!=" => tJoinTups (a1, neq, a2, r2)
         case "<"  => tJoinTups (a1, <,   a2, r2)
         case "<=" => tJoinTups (a1, <=,  a2, r2)
@@ -929,8 +952,8 @@ class Table (name: String, schema: Schema, domain: Domain, key: Schema)
     end join
 
     //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
-    /** Compute the EQUI-JOIN via the NESTED-LOOP JOIN (NLJ) algorithm of this table and
-     *  r2 keeping concatenated tuples that are equal on specified attributes.
+    /** Compute the EQUI-JOIN of this table and r2 keeping concatenated tuples that are
+     *  equal on specified attributes, via the algorithm set by `Table.setJoinAlgo`.
      *  Usage:  customer join (Array ("cname"), Array ("cname"), deposit)
      *--------------------------------------------------------------------------
      *  @param x   the subschema/attributes for the first/this table
@@ -945,16 +968,7 @@ class Table (name: String, schema: Schema, domain: Domain, key: Schema)
         val s = new Table (s"${name}_j_${cntr.inc ()}", disambiguate (schema, r2.schema),
                            domain ++ r2.domain, newKey)
 
-        val ix = pullPos (x)                                                // using integers is faster than strings
-        val iy = pullPos (y)
-
-        cfor (0, tuples.size) { i =>
-            val t_i = tuples(i)
-            cfor (0, r2.tuples.size) { j =>
-                val t_j = r2.tuples(j)
-                if pull (t_i, ix) eqElements r2.pull (t_j, iy) then s.tuples += t_i ++ t_j
-            } // for
-        } // for
+        s.tuples ++= equiJoinTups (pullPos (x), r2, r2.pullPos (y))       // using integers is faster than strings
 
 //      for t <- tuples; u <- r2.tuples do
 //          if pull (t, x) eqElements r2.pull (u, y) then s.tuples += t ++ u
@@ -1083,8 +1097,8 @@ class Table (name: String, schema: Schema, domain: Domain, key: Schema)
     end _join_
 
     //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
-    /** Compute the NATURAL JOIN via the NESTED LOOP JOIN (NLJ) algorithm of this table and
-     *  r2 keeping concatenated tuples that agree on the common attributes.
+    /** Compute the NATURAL JOIN of this table and r2 keeping concatenated tuples that
+     *  agree on the common attributes, via the algorithm set by `Table.setJoinAlgo`.
      *  Usage:  customer join deposit
      *--------------------------------------------------------------------------
      *  @param r2  the second table
@@ -1100,16 +1114,7 @@ class Table (name: String, schema: Schema, domain: Domain, key: Schema)
 
         val s = new Table (s"${name}_j_${cntr.inc ()}", schema ++ rest,
                            domain ++ r2.pull (rest), newKey)
-        val icommon = pullPos (common)                                      // using integers id faster than strings
-
-        cfor (0, tuples.size) { i =>
-            val t_i = tuples(i)
-            cfor (0, r2.tuples.size) { j =>
-                val t_j = r2.tuples(j)
-                if pull (t_i, icommon) eqElements r2.pull (t_j, icommon) then
-                    s.tuples += t_i ++ r2.pull (t_j, rest)
-            } // for
-        } // for
+        s.tuples ++= equiJoinTups (pullPos (common), r2, r2.pullPos (common), r2.pullPos (rest))
 
 //      for t <- tuples; u <- r2.tuples do
 //          if pull (t, common) eqElements r2.pull (u, common) then
@@ -1140,8 +1145,7 @@ class Table (name: String, schema: Schema, domain: Domain, key: Schema)
         val s = new Table (s"${name}_j_${cntr.inc ()}", schema ++ rest,
                            domain ++ r2.pull (rest), newKey)
 
-        // implement IJ-UI
-
+        s.tuples ++= equiJoinTups (pullPos (common), r2, r2.pullPos (common), r2.pullPos (rest), "ij")
         s
     end join_
 
@@ -1167,8 +1171,18 @@ class Table (name: String, schema: Schema, domain: Domain, key: Schema)
         val s = new Table (s"${name}_j_${cntr.inc ()}", schema ++ rest,
                            domain ++ r2.pull (rest), newKey)
 
-        // implement IJ-NUI
-
+        val idx = if common.length == 1 then mindex.getOrElse (common(0), null) else null
+        if idx != null then
+            val ic = r2.on(common(0))
+            val iz = r2.pullPos (rest)
+            cfor (0, r2.tuples.size) { j =>                                 // iterate over r2
+                val u  = r2.tuples(j)
+                val ts = idx.getOrElse (u(ic), null)                        // get {t} via common attribute
+                if ts != null then
+                    for t <- ts do s.tuples += t ++ r2.pull (u, iz)         // add concatenated tuples
+            } // cfor
+        else
+            flaw ("_join", s"must call 'create_mindex' on ${stringOf (common)} before using indexed-join on $name")
         s
     end _join
 
@@ -1194,8 +1208,7 @@ class Table (name: String, schema: Schema, domain: Domain, key: Schema)
         val s = new Table (s"${name}_j_${cntr.inc ()}", schema ++ rest,
                            domain ++ r2.pull (rest), newKey)
 
-        // implement SMJ
-
+        s.tuples ++= equiJoinTups (pullPos (common), r2, r2.pullPos (common), r2.pullPos (rest), "smj")
         s
     end _join_
 
@@ -1789,6 +1802,54 @@ class Table (name: String, schema: Schema, domain: Domain, key: Schema)
         tups
     end tJoinTups
 
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return the concatenated tuples of the EQUI-JOIN of this table and r2 on columns
+     *  ix (of this) equal to columns iy (of r2), in nested-loop order.  The algorithm
+     *  is "nlj", "ij", "hj" or "smj" (@see `Table.setJoinAlgo`); "auto" picks INDEX JOIN
+     *  when r2 has a primary index on the (single) join attribute, otherwise HASH JOIN.
+     *  @param ix    the column positions of the join attributes in this table
+     *  @param r2    the second table
+     *  @param iy    the column positions of the join attributes in r2
+     *  @param iz    the column positions of r2 to keep (null => all)
+     *  @param algo  the equi-join algorithm to use
+     */
+    private def equiJoinTups (ix: Array [Int], r2: Table, iy: Array [Int], iz: Array [Int] = null,
+                              algo: String = Table.joinAlgo): Bag [Tuple] =
+        val tups = Bag [Tuple] ()
+        def keep (u: Tuple): Tuple = if iz == null then u else r2.pull (u, iz)
+
+        val indexed = r2.hasIndex && iy.length == 1 && r2.key.length == 1 && r2.on(r2.key(0)) == iy(0)
+        val alg = algo match
+            case "auto"            => if indexed then "ij" else "hj"
+            case "ij" if ! indexed => flaw ("equiJoinTups", s"no primary index on the join attribute of ${r2.name}, use hash join")
+                                      "hj"
+            case _                 => algo
+        debug ("equiJoinTups", s"$name join ${r2.name} using $alg")
+
+        alg match
+        case "nlj" =>
+            cfor (0, tuples.size) { i =>
+                val t_i = tuples(i)
+                cfor (0, r2.tuples.size) { j =>
+                    val t_j = r2.tuples(j)
+                    if pull (t_i, ix) eqElements r2.pull (t_j, iy) then tups += t_i ++ keep (t_j)
+                } // cfor
+            } // cfor
+        case "ij" =>
+            cfor (0, tuples.size) { i =>                                    // iterate over this table
+                val t_i = tuples(i)
+                val t_j = r2.index.getOrElse (t_i(ix(0)), null)              // get u via pkey from r2
+                if t_j != null then tups += t_i ++ keep (t_j)
+            } // cfor
+        case _ =>
+            val ps = if alg == "smj" then EquiJoin.sortMergeJoin (tuples, ix, r2.tuples, iy)
+                     else EquiJoin.hashJoin (tuples, ix, r2.tuples, iy, Table.parallelism)
+            tups.sizeHint (ps.size)
+            cfor (0, ps.size) { k => tups += tuples(ps.i (k)) ++ keep (r2.tuples(ps.j (k))) }
+        end match
+        tups
+    end equiJoinTups
+
     //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
     /** Return the rank order of the tuples in this table by performing indirect
      *  merge-sort on the given attributes.
@@ -0,0 +1,203 @@
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** @author  John Miller
+ *  @version 2.0
+ *  @date    Sat Oct 17 10:15:00 EDT 2026
+ *  @see     LICENSE (MIT style license file).
+ *
+ *  @note    Matrix of Doubles Stored in a Flat Row-Major Array
+ */
+
+package scalation
+package mathstat
+
+import java.util.Arrays
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `FlatMatrixD` class stores a matrix of doubles in one row-major array
+ *  (element (i, j) at i * dim2 + j), for hot loops: one allocation per matrix,
+ *  rows adjacent in memory, and `into` variants of the products that write into
+ *  a preallocated result, so a training loop can run without allocating.
+ *  Convert from/to `MatrixD` with `FlatMatrixD (x)` and `toMatrixD`.
+ *  @param dim   the first (row) dimension of the matrix
+ *  @param dim2  the second (column) dimension of the matrix
+ *  @param a     the flat array of elements
+ */
+class FlatMatrixD (val dim: Int, val dim2: Int, val a: Array [Double]):
+
+    private val flaw = flawf ("FlatMatrixD")                   // flaw function
+
+    if a.length != dim * dim2 then
+        flaw ("init", s"array length ${a.length} != dim * dim2 = ${dim * dim2}")
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Construct a dim by dim2 matrix of zeros.
+     */
+    def this (dim: Int, dim2: Int) = this (dim, dim2, Array.ofDim [Double] (dim * dim2))
+
+    inline def dims: (Int, Int) = (dim, dim2)
+
+    inline def apply (i: Int, j: Int): Double = a(i * dim2 + j)
+
+    inline def update (i: Int, j: Int, s: Double): Unit = a(i * dim2 + j) = s
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return a deep copy of this matrix.
+     */
+    def copy: FlatMatrixD = new FlatMatrixD (dim, dim2, a.clone)
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Set all elements of this matrix to s.
+     *  @param s  the value to assign
+     */
+    def setAll (s: Double): Unit = Arrays.fill (a, s)
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Multiply this matrix and matrix y into c (c = this * y), overwriting c,
+     *  using the current `MatrixKernels` kernel.  Return c.
+     *  @param y  the other matrix
+     *  @param c  the result matrix (dim by y.dim2, not this or y)
+     */
+    def mulInto (y: FlatMatrixD, c: FlatMatrixD): FlatMatrixD =
+        if y.dim != dim2 || c.dim != dim || c.dim2 != y.dim2 then
+            flaw ("mulInto", s"incompatible dimensions: this = $dims, y = ${y.dims}, c = ${c.dims}")
+        if (c eq this) || (c eq y) then
+            flaw ("mulInto", "the result matrix may not be an operand")
+        Arrays.fill (c.a, 0.0)
+        MatrixKernels.mul (a, y.a, c.a, dim, dim2, y.dim2)
+        c
+    end mulInto
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Multiply this matrix and matrix y.
+     *  @param y  the other matrix
+     */
+    def * (y: FlatMatrixD): FlatMatrixD = mulInto (y, new FlatMatrixD (dim, y.dim2))
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Multiply this matrix and vector y into vector c (c = this * y), overwriting c.
+     *  Return c.
+     *  @param y  the vector to multiply by
+     *  @param c  the result vector (dimension dim)
+     */
+    def mulInto (y: VectorD, c: VectorD): VectorD =
+        cfor (0, dim) { i =>
+            val off = i * dim2
+            var sum = 0.0
+            cfor (0, dim2) { j => sum += a(off + j) * y(j) }
+            c(i) = sum
+        } // cfor
+        c
+    end mulInto
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Transpose this matrix into c (dim2 by dim), tile by tile.  Return c.
+     *  @param c  the result matrix (not this)
+     */
+    def transposeInto (c: FlatMatrixD): FlatMatrixD =
+        if c.dim != dim2 || c.dim2 != dim then
+            flaw ("transposeInto", s"incompatible dimensions: this = $dims, c = ${c.dims}")
+        if c eq this then
+            flaw ("transposeInto", "the result matrix may not be this matrix")
+        MatrixKernels.transpose (a, c.a, dim, dim2)
+        c
+    end transposeInto
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Transpose this matrix (swap columns <=> rows).
+     */
+    def transpose: FlatMatrixD = transposeInto (new FlatMatrixD (dim2, dim))
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Multiply (in-place) element-wise this matrix and matrix y (Hadamard product).
+     *  @param y  the other matrix (same dimensions)
+     */
+    def *~= (y: FlatMatrixD): FlatMatrixD =
+        cfor (0, a.length) { k => a(k) *= y.a(k) }
+        this
+    end *~=
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Add (in-place) matrix y times scalar s to this matrix (this += y * s).
+     *  @param y  the other matrix (same dimensions)
+     *  @param s  the scalar multiplier
+     */
+    def addScaled (y: FlatMatrixD, s: Double): FlatMatrixD =
+        cfor (0, a.length) { k => a(k) += y.a(k) * s }
+        this
+    end addScaled
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Convert this matrix to a `MatrixD` (row arrays).
+     */
+    def toMatrixD: MatrixD =
+        val v = Array.tabulate (dim)(i => Arrays.copyOfRange (a, i * dim2, (i + 1) * dim2))
+        new MatrixD (dim, dim2, v)
+    end toMatrixD
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Convert this matrix to a string.
+     */
+    override def toString: String = toMatrixD.toString
+
+end FlatMatrixD
+
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `FlatMatrixD` companion object provides factory methods.
+ */
+object FlatMatrixD:
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Create a flat copy of matrix x.
+     *  @param x  the matrix to copy
+     */
+    def apply (x: MatrixD): FlatMatrixD =
+        val a = Array.ofDim [Double] (x.dim * x.dim2)
+        cfor (0, x.dim) { i => System.arraycopy (x.v(i), 0, a, i * x.dim2, x.dim2) }
+        new FlatMatrixD (x.dim, x.dim2, a)
+    end apply
+
+end FlatMatrixD
+
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `flatMatrixDTest` main function checks the flat products against `MatrixD`,
+ *  also for sizes spanning several tiles (results must match bit for bit).
+ *  > runMain scalation.mathstat.flatMatrixDTest
+ */
+@main def flatMatrixDTest (): Unit =
+
+    val x = MatrixD ((2, 3), 1.0, 2.0, 3.0,
+                             4.0, 5.0, 6.0)
+    val y = MatrixD ((3, 2), 1.0, 2.0,
+                             3.0, 4.0,
+                             5.0, 6.0)
+    val fx = FlatMatrixD (x)
+    val fy = FlatMatrixD (y)
+    val fc = new FlatMatrixD (2, 2)
+
+    println (s"x * y            = ${x * y}")
+    println (s"fx mulInto fy    = ${fx.mulInto (fy, fc)}")
+    println (s"x.transpose      = ${x.transpose}")
+    println (s"fx.transpose     = ${fx.transpose}")
+    println (s"fx * (1, 1, 1)   = ${fx.mulInto (VectorD (1.0, 1.0, 1.0), new VectorD (2))}")
+
+    val rng = new java.util.Random (0)
+    val u   = new MatrixD (250, 130)
+    val w   = new MatrixD (130, 210)
+    for i <- u.indices; j <- u.indices2 do u(i, j) = rng.nextDouble ()
+    for i <- w.indices; j <- w.indices2 do w(i, j) = rng.nextDouble ()
+    val ref = u * w
+    val fu  = FlatMatrixD (u)
+    val fw  = FlatMatrixD (w)
+    val fuw = new FlatMatrixD (250, 210)
+    for k <- MatMulKernel.values if ! k.simd do
+        MatrixKernels.setKernel (k)
+        fu.mulInto (fw, fuw)
+        for i <- ref.indices; j <- ref.indices2 do assert (fuw(i, j) == ref(i, j), s"$k at ($i, $j)")
+    end for
+    MatrixKernels.setKernel (MatMulKernel.Serial)
+    println ("flat products match MatrixD")
+
+end flatMatrixDTest
+
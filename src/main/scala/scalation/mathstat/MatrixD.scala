@@ -571,6 +571,24 @@ class MatrixD (val dim:  Int,
         new MatrixD (dim2, dim, a)
     end transpose
 
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Transpose this matrix into matrix c (dim2 by dim), overwriting c rather than
+     *  allocating the result.  Return c.
+     *  @param c  the result matrix (not this)
+     */
+    def transposeInto (c: MatrixD): MatrixD =
+        if c.dim != dim2 || c.dim2 != dim then
+            flaw ("transposeInto", s"incompatible dimensions: this = $dims, c = ${c.dims}")
+        if c eq this then
+            flaw ("transposeInto", "the result matrix may not be this matrix")
+
+        cfor (0, dim) { j =>
+            val v_j = v(j)
+            cfor (0, dim2) { i => c.v(i)(j) = v_j(i) }
+        } // cfor
+        c
+    end transposeInto
+
     inline def 𝐓: MatrixD = transpose                     // unicode (𝐓) mathematical bold capital T
 //  inline def Ƭ: MatrixD = transpose                     // unicode (Ƭ)
 
@@ -875,6 +893,22 @@ class MatrixD (val dim:  Int,
 
     inline def ⊙ (y: MatrixD): MatrixD = *~ (y)                     // unicode XNOR gate
 
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Multiply (in-place) element-wise, this matrix and matrix y (requires y to have
+     *  at least the dimensions of this).
+     *  @param y  the other matrix
+     */
+    def *~= (y: MatrixD): MatrixD =
+        if y.dim < dim || y.dim2 < dim2 then
+            flaw ("*~=", s"matrix *~= matrix - incompatible dimensions: this = $dims, y = ${y.dims}")
+
+        cfor (0, dim) { i =>
+            val v_i = v(i); val y_i = y.v(i)
+            cfor (0, dim2) { j => v_i(j) *= y_i(j) }
+        } // cfor
+        this
+    end *~=
+
     //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
     /** Multiply this matrix by vector u to produce another matrix v_ij * u_j.
      *  E.g., multiply a matrix by a diagonal matrix represented as a vector.
@@ -913,6 +947,7 @@ class MatrixD (val dim:  Int,
     //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
     /** Multiply this matrix and matrix y (requires y to have at least the dimensions of this).
      *  Alias rows to avoid double subscripting, use tiling/blocking, and optimized i, k, j loop order.
+     *  The tiles run serially, across a fork-join pool or with SIMD, see `MatrixKernels`.
      *  @see software.intel.com/content/www/us/en/develop/documentation/advisor-cookbook/top/
      *  optimize-memory-access-patterns-using-loop-interchange-and-cache-blocking-techniques.html
      *  @param y  the other matrix
@@ -922,26 +957,27 @@ class MatrixD (val dim:  Int,
             flaw ("*", s"matrix * matrix - incompatible cross dimensions: dim2 = $dim2, y.dim = ${y.dim}")
 
         val a = Array.ofDim [Double] (dim, y.dim2)
-
-        cfor (0, dim, TSZ) { ii =>
-            val i2 = math.min (ii + TSZ, dim)
-            cfor (0, dim2, TSZ) { kk =>
-                val k2 = math.min (kk + TSZ, dim2)
-                cfor (0, y.dim2, TSZ) { jj =>
-                    val j2 = math.min (jj + TSZ, y.dim2)
-
-                    cfor (ii, i2) { i =>
-                        val v_i = v(i); val a_i = a(i)
-                        cfor (kk, k2) { k =>
-                            val y_k = y.v(k); val v_ik = v_i(k)
-                            cfor (jj, j2) { j => a_i(j) += v_ik * y_k(j) }
-                        } // cfor
-                    } // cfor
-
-        }}} // cfor
+        MatrixKernels.mul (v, y.v, a, dim, dim2, y.dim2)
         new MatrixD (dim, y.dim2, a)
     end *
 
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Multiply this matrix and matrix y into matrix c (c = this * y), overwriting
+     *  c rather than allocating the result.  Return c.
+     *  @param y  the other matrix
+     *  @param c  the result matrix (dim by y.dim2, not this or y)
+     */
+    def mulInto (y: MatrixD, c: MatrixD): MatrixD =
+        if y.dim != dim2 || c.dim != dim || c.dim2 != y.dim2 then
+            flaw ("mulInto", s"incompatible dimensions: this = $dims, y = ${y.dims}, c = ${c.dims}")
+        if (c eq this) || (c eq y) then
+            flaw ("mulInto", "the result matrix may not be an operand")
+
+        cfor (0, dim) { i => java.util.Arrays.fill (c.v(i), 0.0) }
+        MatrixKernels.mul (v, y.v, c.v, dim, dim2, y.dim2)
+        c
+    end mulInto
+
     //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
     /** Multiply this matrix and vector y (requires y to have at least dim2 elements).
      *  Alias rows to avoid double subscripting and use array ops.
@@ -2196,3 +2232,56 @@ end matrixDTest6
 
 end matrixDTest7
 
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `matrixDTest8` main function tests the allocation-free `MatrixD` and
+ *  `FlatMatrixD` operations against their allocating versions and the product
+ *  kernels against a naive triple loop: Serial and Parallel must match the loop
+ *  bit for bit, the SIMD kernels the loop with one rounding per term (FMA),
+ *  for sizes that are not multiples of the tile size or the vector length.
+ *  > runMain scalation.mathstat.matrixDTest8
+ */
+@main def matrixDTest8 (): Unit =
+
+    val rng = new java.util.Random (8)
+    def rand (m: Int, n: Int): MatrixD = new MatrixD (m, n, Array.fill (m, n)(rng.nextDouble - 0.5))
+
+    def same (a: MatrixD, b: MatrixD): Boolean =                    // bit for bit
+        a.dims == b.dims && (0 until a.dim).forall (i => java.util.Arrays.equals (a.v(i), b.v(i)))
+
+    def naive (x: MatrixD, y: MatrixD, fma: Boolean): MatrixD =
+        val c = new MatrixD (x.dim, y.dim2)
+        for i <- 0 until x.dim; j <- 0 until y.dim2 do
+            var s = 0.0
+            for l <- 0 until x.dim2 do s = if fma then Math.fma (x(i, l), y(l, j), s) else s + x(i, l) * y(l, j)
+            c(i, j) = s
+        c
+    end naive
+
+    val initial = MatrixKernels.kernel
+    for (m, k, n) <- Seq ((1, 1, 1), (3, 5, 7), (101, 67, 203), (130, 100, 131)) do
+        val (x, y) = (rand (m, k), rand (k, n))
+        for kern <- MatMulKernel.values do
+            MatrixKernels.setKernel (kern)
+            val exp = naive (x, y, MatrixKernels.kernel.simd)
+            val c   = rand (m, n)                                       // overwritten, not added to
+            assert (x.mulInto (y, c) eq c)
+            assert (same (c, exp) && same (x * y, exp), s"$kern ($m, $k, $n): product differs from the naive loop")
+            val fc = new FlatMatrixD (m, n)
+            FlatMatrixD (x).mulInto (FlatMatrixD (y), fc)
+            assert (same (fc.toMatrixD, exp), s"$kern ($m, $k, $n): flat product differs from the naive loop")
+        end for
+
+        val t = rand (k, m)
+        assert (x.transposeInto (t) eq t)
+        assert (same (t, x.transpose) && same (FlatMatrixD (x).transposeInto (new FlatMatrixD (k, m)).toMatrixD, t))
+
+        val z = rand (m, k)
+        val h = x *~ z
+        assert (same (x.copy *~= z, h))
+        assert (same ((FlatMatrixD (x) *~= FlatMatrixD (z)).toMatrixD, h))
+        println (s"($m, $k, $n): mulInto, transposeInto and *~= match")
+    end for
+    MatrixKernels.setKernel (initial)
+
+end matrixDTest8
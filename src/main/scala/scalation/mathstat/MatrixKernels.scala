@@ -0,0 +1,280 @@
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** @author  John Miller
+ *  @version 2.0
+ *  @date    Sat Oct 17 10:15:00 EDT 2026
+ *  @see     LICENSE (MIT style license file).
+ *
+ *  @note    Matrix Multiplication Kernels: Serial, Fork-Join Parallel and SIMD
+ */
+
+package scalation
+package mathstat
+
+import java.util.concurrent.{ForkJoinPool, ForkJoinTask, RecursiveAction}
+
+import scala.math.min
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `MatMulKernel` enum lists the ways of running the tiled matrix product:
+ *      Serial       - the tiled i, k, j loops in the calling thread
+ *      Parallel     - blocks of rows split across a fork-join pool
+ *      Simd         - the inner j loop as fused multiply-adds over vector registers
+ *                     (jdk.incubator.vector, see `MatrixSimd`)
+ *      ParallelSimd - both
+ *  Serial and Parallel give bit-identical results (each element accumulates its
+ *  terms in the same order); the SIMD kernels round each term once (FMA).
+ */
+enum MatMulKernel:
+    case Serial, Parallel, Simd, ParallelSimd
+
+    def parallel: Boolean = this == Parallel || this == ParallelSimd
+    def simd: Boolean     = this == Simd || this == ParallelSimd
+
+end MatMulKernel
+
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `MatrixKernels` object provides the matrix multiplication kernels used by
+ *  `MatrixD` (row arrays) and `FlatMatrixD` (a flat row-major array).  The kernel
+ *  is given by the system property scalation.matmul=serial|parallel|simd|parallel-simd
+ *  (default serial) or set by `setKernel`: the parallel and SIMD kernels are opt-in,
+ *  as whether they pay off depends on the cores and the sizes (measure with
+ *  `matrixKernelBenchmark`).  Products with fewer than PAR_WORK multiply-adds run
+ *  serially, as splitting them costs more than it saves.
+ *  The SIMD kernels need the JVM option --add-modules jdk.incubator.vector (see
+ *  build.sbt); without it they fall back to the scalar ones.
+ */
+object MatrixKernels:
+
+    private val flaw = flawf ("MatrixKernels")                  // flaw function
+
+    val TSZ = 100                                               // the tile/block size (tunable)
+    private val PAR_WORK = 1L << 20                             // fewest multiply-adds to go parallel
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Whether the Vector API module is present (so `MatrixSimd` may be loaded).
+     */
+    lazy val simdAvailable: Boolean =
+        try { Class.forName ("jdk.incubator.vector.DoubleVector"); true }
+        catch case _: ClassNotFoundException => false
+
+    private var _kernel: MatMulKernel = sys.props.getOrElse ("scalation.matmul", "serial") match
+        case "parallel"      => MatMulKernel.Parallel
+        case "simd"          => MatMulKernel.Simd
+        case "parallel-simd" => MatMulKernel.ParallelSimd
+        case _               => MatMulKernel.Serial
+    if _kernel.simd && ! simdAvailable then
+        _kernel = if _kernel.parallel then MatMulKernel.Parallel else MatMulKernel.Serial
+
+    private var pool = ForkJoinPool.commonPool ()               // pool running the parallel kernels
+
+    private val scratch = ThreadLocal.withInitial [Array [Array [Double]]] (() =>
+                          Array.ofDim [Double] (TSZ + 1, TSZ))  // a tile of y and a row of a, per thread
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return the current kernel.
+     */
+    def kernel: MatMulKernel = _kernel
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Set the kernel, keeping the scalar version of a SIMD kernel when the Vector
+     *  API is not available.
+     *  @param k  the kernel to use from now on
+     */
+    def setKernel (k: MatMulKernel): Unit =
+        if k.simd && ! simdAvailable then
+            flaw ("setKernel", "jdk.incubator.vector is not available (--add-modules jdk.incubator.vector)")
+            _kernel = if k.parallel then MatMulKernel.Parallel else MatMulKernel.Serial
+        else
+            _kernel = k
+        end if
+    end setKernel
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Run the parallel kernels on a pool of p threads (rather than the common pool).
+     *  @param p  the parallelism
+     */
+    def setParallelism (p: Int): Unit =
+        if pool ne ForkJoinPool.commonPool () then pool.shutdown ()
+        pool = if p == ForkJoinPool.commonPool ().getParallelism then ForkJoinPool.commonPool ()
+               else new ForkJoinPool (p max 1)
+    end setParallelism
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** The `RowBlocks` class splits rows [lo, hi) in halves down to blocks of at
+     *  most `block` rows, running body on each block in the fork-join pool.
+     *  @param lo     the first row
+     *  @param hi     the row after the last
+     *  @param block  the largest block to run without splitting
+     *  @param body   the kernel for a block of rows
+     */
+    private class RowBlocks (lo: Int, hi: Int, block: Int, body: (Int, Int) => Unit) extends RecursiveAction:
+        def compute (): Unit =
+            if hi - lo <= block then body (lo, hi)
+            else
+                val mid = (lo + hi) >>> 1
+                ForkJoinTask.invokeAll (RowBlocks (lo, mid, block, body), RowBlocks (mid, hi, block, body))
+            end if
+        end compute
+    end RowBlocks
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Run body over rows [0, m), split across the pool when the kernel is parallel
+     *  and the product is large (about four blocks per thread).
+     *  @param m     the number of rows
+     *  @param work  the number of multiply-adds
+     *  @param body  the kernel for a block of rows
+     */
+    private def byRows (m: Int, work: Long, body: (Int, Int) => Unit): Unit =
+        if _kernel.parallel && work >= PAR_WORK && m > 1 then
+            val block = 1 max (m + 4 * pool.getParallelism - 1) / (4 * pool.getParallelism)
+            pool.invoke (RowBlocks (0, m, block, body))
+        else
+            body (0, m)
+        end if
+    end byRows
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Add the product x * y to a, where x is m-by-k, y is k-by-n and a is m-by-n,
+     *  all stored as row arrays.  Uses tiling with the i, k, j loop order.
+     *  @param x  the left matrix
+     *  @param y  the right matrix
+     *  @param a  the result matrix (accumulated into)
+     *  @param m  the number of rows of x and a
+     *  @param k  the number of columns of x (rows of y)
+     *  @param n  the number of columns of y and a
+     */
+    def mul (x: Array [Array [Double]], y: Array [Array [Double]], a: Array [Array [Double]],
+             m: Int, k: Int, n: Int): Unit =
+        val simd = _kernel.simd
+
+        def rows (lo: Int, hi: Int): Unit =
+            cfor (lo, hi, TSZ) { ii =>
+                val i2 = min (ii + TSZ, hi)
+                cfor (0, k, TSZ) { kk =>
+                    val k2 = min (kk + TSZ, k)
+                    cfor (0, n, TSZ) { jj =>
+                        val j2 = min (jj + TSZ, n)
+
+                        cfor (ii, i2) { i =>
+                            val x_i = x(i); val a_i = a(i)
+                            cfor (kk, k2) { l =>
+                                val y_l = y(l); val x_il = x_i(l)
+                                if simd then MatrixSimd.axpy (x_il, y_l, jj, a_i, jj, j2 - jj)
+                                else cfor (jj, j2) { j => a_i(j) += x_il * y_l(j) }
+                            } // cfor
+                        } // cfor
+
+            }}} // cfor
+        end rows
+
+        byRows (m, m.toLong * k * n, rows)
+    end mul
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Add the product x * y to a, where x is m-by-k, y is k-by-n and a is m-by-n,
+     *  all stored as flat row-major arrays (element (i, j) of a at i * n + j).
+     *  Each tile of y is first copied into the rows of a scratch tile and each
+     *  row slice of a accumulated in a scratch row, so the inner loop runs over
+     *  arrays starting at 0, like the row-array kernel (the JIT does not vectorize
+     *  a loop storing into one array at an offset while loading from another at a
+     *  different offset, as they may be the same array).  Every element still sums
+     *  its terms in the same order as the row-array kernel.
+     *  @param x  the left matrix
+     *  @param y  the right matrix
+     *  @param a  the result matrix (accumulated into)
+     *  @param m  the number of rows of x and a
+     *  @param k  the number of columns of x (rows of y)
+     *  @param n  the number of columns of y and a
+     */
+    def mul (x: Array [Double], y: Array [Double], a: Array [Double], m: Int, k: Int, n: Int): Unit =
+        val simd = _kernel.simd
+
+        def rows (lo: Int, hi: Int): Unit =
+            val tile = scratch.get (); val acc = tile(TSZ)
+            cfor (0, k, TSZ) { kk =>
+                val k2 = min (kk + TSZ, k)
+                cfor (0, n, TSZ) { jj =>
+                    val j2 = min (jj + TSZ, n); val len = j2 - jj
+                    cfor (kk, k2) { l => System.arraycopy (y, l * n + jj, tile(l - kk), 0, len) }
+
+                    cfor (lo, hi) { i =>
+                        val xi = i * k; val ai = i * n + jj
+                        System.arraycopy (a, ai, acc, 0, len)
+                        cfor (kk, k2) { l =>
+                            val y_l = tile(l - kk); val x_il = x(xi + l)
+                            if simd then MatrixSimd.axpy (x_il, y_l, 0, acc, 0, len)
+                            else cfor (0, len) { j => acc(j) += x_il * y_l(j) }
+                        } // cfor
+                        System.arraycopy (acc, 0, a, ai, len)
+                    } // cfor
+
+            }} // cfor
+        end rows
+
+        byRows (m, m.toLong * k * n, rows)
+    end mul
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Transpose the m-by-n flat row-major matrix x into a (n-by-m), tile by tile.
+     *  @param x  the matrix to transpose
+     *  @param a  the result matrix
+     *  @param m  the number of rows of x
+     *  @param n  the number of columns of x
+     */
+    def transpose (x: Array [Double], a: Array [Double], m: Int, n: Int): Unit =
+        cfor (0, m, TSZ) { ii =>
+            val i2 = min (ii + TSZ, m)
+            cfor (0, n, TSZ) { jj =>
+                val j2 = min (jj + TSZ, n)
+                cfor (ii, i2) { i => cfor (jj, j2) { j => a(j * m + i) = x(i * n + j) }}
+        }} // cfor
+    end transpose
+
+end MatrixKernels
+
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `matrixKernelBenchmark` main function times the matrix product n-by-n
+ *  times n-by-n with each available kernel, for `MatrixD` (row arrays) and
+ *  `FlatMatrixD` (into a preallocated result), printing GFLOP/s, the speedup
+ *  over the serial row-array kernel and the largest difference from its result.
+ *  > runMain scalation.mathstat.matrixKernelBenchmark
+ */
+@main def matrixKernelBenchmark (): Unit =
+
+    val kernels = MatMulKernel.values.filter (k => ! k.simd || MatrixKernels.simdAvailable)
+    val saved   = MatrixKernels.kernel
+    println (s"threads = ${ForkJoinPool.commonPool ().getParallelism}, SIMD = ${MatrixKernels.simdAvailable}")
+    println ("n      kernel         storage    GFLOP/s   speedup   max |diff|")
+
+    for n <- Seq (64, 128, 256, 512, 1024) do
+        val x   = new MatrixD (n, n)
+        val y   = new MatrixD (n, n)
+        val rng = new java.util.Random (n)
+        for i <- 0 until n; j <- 0 until n do { x(i, j) = rng.nextDouble (); y(i, j) = rng.nextDouble () }
+        val fx  = FlatMatrixD (x); val fy = FlatMatrixD (y); val fc = new FlatMatrixD (n, n)
+        val reps  = (1 max (200000000L / (n.toLong * n * n)).toInt) min 200
+        val flops = 2.0 * n * n * n * reps
+
+        MatrixKernels.setKernel (MatMulKernel.Serial)
+        val ref  = x * y
+        var base = 0.0
+        for k <- kernels; flat <- Seq (false, true) do
+            MatrixKernels.setKernel (k)
+            if flat then fx.mulInto (fy, fc) else x * y                             // warm up
+            val t0 = System.nanoTime ()
+            var c: MatrixD = null
+            for _ <- 0 until reps do if flat then fx.mulInto (fy, fc) else c = x * y
+            val secs = (System.nanoTime () - t0) / 1E9
+            if flat then c = fc.toMatrixD
+            if base == 0.0 then base = secs
+            var diff = 0.0
+            for i <- 0 until n; j <- 0 until n do diff = diff max math.abs (c(i, j) - ref(i, j))
+            println (f"$n%-6d ${k.toString}%-14s ${if flat then "flat" else "rows"}%-9s ${flops / secs / 1E9}%8.2f  ${base / secs}%8.2f   $diff%.2e")
+        end for
+    end for
+    MatrixKernels.setKernel (saved)
+
+end matrixKernelBenchmark
+
@@ -0,0 +1,36 @@
+package scalation.mathstat;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD inner loops of the matrix kernels (see MatrixKernels), written with the
+ * incubating Vector API (jdk.incubator.vector), so each step multiplies and adds
+ * a whole vector register of doubles with a fused multiply-add.  The module must
+ * be added at compile and run time (--add-modules jdk.incubator.vector); callers
+ * first check MatrixKernels.simdAvailable, so the class is never loaded without it.
+ */
+public final class MatrixSimd {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    private MatrixSimd() { }
+
+    /**
+     * Adds s * x[xOff + j] to y[yOff + j] for j in [0, len), each with a single
+     * rounding (fused multiply-add), in the tail past the last full register too.
+     */
+    public static void axpy(double s, double[] x, int xOff, double[] y, int yOff, int len) {
+        DoubleVector vs = DoubleVector.broadcast(SPECIES, s);
+        int step  = SPECIES.length();
+        int bound = SPECIES.loopBound(len);
+        int j = 0;
+        for (; j < bound; j += step) {
+            DoubleVector vx = DoubleVector.fromArray(SPECIES, x, xOff + j);
+            DoubleVector vy = DoubleVector.fromArray(SPECIES, y, yOff + j);
+            vx.lanewise(VectorOperators.FMA, vs, vy).intoArray(y, yOff + j);
+        }
+        for (; j < len; j++) y[yOff + j] = Math.fma(s, x[xOff + j], y[yOff + j]);
+    }
+}
@@ -13,6 +13,8 @@ package random
 
 import scala.math.floor
 
+import scalation.mathstat.VectorD
+
 //:::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
 /** The `RNG` trait is the base class for all ScalaTion Random Number Generators.
  *  The extending classes must implement a 'gen' method that generates random
@@ -50,6 +52,69 @@ trait RNG (stream: Int):
      */
     def igen: Int
 
+    //:::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return the position of this generator in its stream (its state), e.g.,
+     *  to checkpoint a simulation.
+     */
+    def state: Array [Long]
+
+    //:::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Set the position of this generator in its stream to a saved state, so it
+     *  continues with the same numbers it did after the state was saved.
+     *  @param s  the state (as returned by 'state')
+     */
+    def state_= (s: Array [Long]): Unit
+
+    //:::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Advance this generator n numbers in its stream, as if 'gen' were called n
+     *  times.  Generators that can jump ahead override it.
+     *  @param n  the number of random numbers to skip
+     */
+    def skip (n: Long): Unit =
+        var i = 0L
+        while i < n do { gen; i += 1 }
+    end skip
+
+    //:::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Fill xs(from until until) with the next random numbers in (0, 1), the same
+     *  numbers as calling 'gen' for each element.  Generators override it with a
+     *  tight loop over their state, for Monte Carlo loops drawing in batches.
+     *  @param xs     the array to fill
+     *  @param from   the first index to fill
+     *  @param until  the index after the last to fill
+     */
+    def fill (xs: Array [Double], from: Int, until: Int): Array [Double] =
+        cfor (from, until) { i => xs(i) = gen }
+        xs
+    end fill
+
+    //:::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Fill array xs with the next random numbers in (0, 1).
+     *  @param xs  the array to fill
+     */
+    def fill (xs: Array [Double]): Array [Double] = fill (xs, 0, xs.length)
+
+    //:::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Fill vector y with the next random numbers in (0, 1).
+     *  @param y  the vector to fill
+     */
+    def fill (y: VectorD): VectorD =
+        cfor (0, y.dim) { i => y(i) = gen }
+        y
+    end fill
+
+    //:::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return an array of the next n random numbers in (0, 1).
+     *  @param n  the number of random numbers
+     */
+    def genArray (n: Int): Array [Double] = fill (Array.ofDim [Double] (n), 0, n)
+
+    //:::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return a vector of the next n random numbers in (0, 1).
+     *  @param n  the number of random numbers
+     */
+    def genVec (n: Int): VectorD = new VectorD (n, genArray (n))
+
 end RNG
 
 
@@ -86,7 +151,7 @@ end RNGStream
  */
 object RNGTester:
 
-    import scalation.mathstat.{Correlogram, Histogram, VectorD}
+    import scalation.mathstat.{Correlogram, Histogram}
 
     private val flaw = flawf ("RNG")                          // flaw function
 
@@ -80,6 +80,12 @@ case class Random (stream: Int = 0)
         if x11 <= x21 then (x11 - x21 + M1) * NORM else (x11 - x21) * NORM
     end gen
 
+    override def state: Array [Long] = Array (x11, x12, x13, x21, x22, x23)
+
+    override def state_= (s: Array [Long]): Unit =
+        x11 = s(0); x12 = s(1); x13 = s(2); x21 = s(3); x22 = s(4); x23 = s(5)
+    end state_=
+
     //:::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
     /** Return the next stream value as an integer 'Int'.
      *  This calculation uses 64-bit integers 'Long'.
@@ -45,5 +45,9 @@ case class Random0 (stream: Int = 0)
      */
     inline def igen: Int = {x = (x + 1) % M; x }
 
+    override def state: Array [Long] = Array (x.toLong)
+
+    override def state_= (s: Array [Long]): Unit = x = s(0).toInt
+
 end Random0
 
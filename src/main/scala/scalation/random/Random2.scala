@@ -109,5 +109,12 @@ case class Random2 (stream: Int = 0)
         if x11 <= x21 then x11 - x21 + M1 else x11 - x21
     end igen
 
+    override def state: Array [Long] = Array (x11, x12, x13, x21, x22, x23).map (_.toLong)
+
+    override def state_= (s: Array [Long]): Unit =
+        x11 = s(0).toInt; x12 = s(1).toInt; x13 = s(2).toInt
+        x21 = s(3).toInt; x22 = s(4).toInt; x23 = s(5).toInt
+    end state_=
+
 end Random2
 
@@ -56,5 +56,9 @@ case class Random3 (stream: Int = 0)
         x.toInt
     end igen
 
+    override def state: Array [Long] = Array (x)
+
+    override def state_= (s: Array [Long]): Unit = x = s(0)
+
 end Random3
 
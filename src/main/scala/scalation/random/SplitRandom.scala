@@ -0,0 +1,188 @@
+//:::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** @author  John Miller
+ *  @version 2.0
+ *  @date    Sat Oct 17 10:15:00 EDT 2026
+ *  @see     LICENSE (MIT style license file).
+ *
+ *  @note    Splittable Random Number Generator (SplitMix64) for Parallel Substreams
+ */
+
+package scalation
+package random
+
+import java.util.concurrent.RecursiveTask
+
+//:::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `SplitRandom` class generates random real numbers in the range (0, 1)
+ *  using the SplitMix64 generator of Steele, Lea and Flood (as in Java's
+ *  `SplittableRandom`): the state advances by an odd gamma and each output is a
+ *  64-bit mix of the state, so the i-th output is a function of seed + i * gamma.
+ *  Unlike `Random`, whose streams come from the fixed `RandomSeeds` table
+ *  (N_STREAMS of them), it derives any number of independent, reproducible
+ *  substreams, e.g., one per parallel worker:
+ *      substream (i)  the i-th substream (same i => same numbers, state unchanged)
+ *      split ()       a new generator seeded from the next outputs of this one
+ *  @see https://doi.org/10.1145/2714064.2660195
+ *  @param seed   the initial state
+ *  @param gamma  the increment of the state (made odd)
+ */
+case class SplitRandom (seed: Long = SplitRandom.SEED, gamma: Long = SplitRandom.GOLDEN_GAMMA)
+     extends RNG (0):
+
+    import SplitRandom.{DOUBLE_UNIT, mix64, mixGamma}
+
+    private val γ     = gamma | 1L                       // odd increment
+    private var x     = seed                             // state, advanced by γ per output
+
+    //:::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return the next 64 random bits as a `Long`.
+     */
+    inline def nextLong: Long = { x += γ; mix64 (x) }
+
+    //:::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return the next random number as a real `Double` in the interval (0, 1)
+     *  (the top 53 bits, offset by half a unit, so 0 is never returned).
+     */
+    inline def gen: Double = ((nextLong >>> 11) + 0.5) * DOUBLE_UNIT
+
+    //:::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return the next stream value as a non-negative integer `Int` (31 bits).
+     */
+    inline def igen: Int = (nextLong >>> 33).toInt
+
+    //:::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Fill xs(from until until) with random numbers in (0, 1), in one tight loop.
+     *  @param xs     the array to fill
+     *  @param from   the first index to fill
+     *  @param until  the index after the last to fill
+     */
+    override def fill (xs: Array [Double], from: Int, until: Int): Array [Double] =
+        var s = x
+        cfor (from, until) { i => s += γ; xs(i) = ((mix64 (s) >>> 11) + 0.5) * DOUBLE_UNIT }
+        x = s
+        xs
+    end fill
+
+    override def state: Array [Long] = Array (x)
+
+    override def state_= (s: Array [Long]): Unit = x = s(0)
+
+    override def skip (n: Long): Unit = x += n * γ      // jump ahead in O(1)
+
+    //:::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return a new generator seeded (seed and gamma) from the next two outputs
+     *  of this one.
+     */
+    def split (): SplitRandom =
+        val s = nextLong
+        SplitRandom (s, mixGamma (nextLong))
+    end split
+
+    //:::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return the i-th substream of this generator's seed: a function of (seed,
+     *  gamma, i) only, so it neither depends on nor changes the numbers drawn.
+     *  @param i  the substream index (any non-negative Long)
+     */
+    def substream (i: Long): SplitRandom =
+        val h = mix64 (seed ^ mix64 (γ + (i + 1) * SplitRandom.GOLDEN_GAMMA))
+        SplitRandom (h, mixGamma (mix64 (h)))
+    end substream
+
+end SplitRandom
+
+
+//:::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `SplitRandom` companion object provides the mixing functions and the
+ *  substreams of the default seed.
+ */
+object SplitRandom:
+
+    val SEED         = 0x3c6ef372fe94f82bL               // default seed
+    val GOLDEN_GAMMA = 0x9e3779b97f4a7c15L               // 2^64 / golden ratio (odd)
+    val DOUBLE_UNIT  = 1.0 / (1L << 53)                  // 2^-53
+
+    private val root = SplitRandom ()                    // generator of the default seed
+
+    //:::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return the i-th substream of the default seed (an unbounded counterpart of
+     *  the stream numbers of `Random`).
+     *  @param i  the substream index
+     */
+    def ofStream (i: Long): SplitRandom = root.substream (i)
+
+    //:::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Run body for each of the given number of workers in parallel (in the common
+     *  fork-join pool), worker w drawing from substream w of seed, and return their
+     *  results in worker order.  The results depend on the seed and the number of
+     *  workers, but not on the scheduling of the threads.
+     *  @param workers  the number of workers
+     *  @param seed     the seed whose substreams the workers use
+     *  @param body     the work of worker w given its generator
+     */
+    def parallel [T] (workers: Int, seed: Long = SEED)(body: (Int, SplitRandom) => T): IndexedSeq [T] =
+        val base  = SplitRandom (seed)
+        val tasks = for w <- 0 until workers yield
+            new RecursiveTask [T] { protected def compute (): T = body (w, base.substream (w)) }
+        tasks.foreach (_.fork ())
+        tasks.map (_.join ())
+    end parallel
+
+    //:::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Mix the 64 bits of z (variant 13 of Stafford's MurmurHash3 finalizer).
+     *  @param z  the value to mix
+     */
+    inline def mix64 (z: Long): Long =
+        var x = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L
+        x = (x ^ (x >>> 27)) * 0x94d049bb133111ebL
+        x ^ (x >>> 31)
+    end mix64
+
+    //:::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return an odd gamma mixed from z, with enough bit transitions to avoid
+     *  weak increments (as in `SplittableRandom`).
+     *  @param z  the value to mix
+     */
+    def mixGamma (z: Long): Long =
+        var x = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL
+        x = (x ^ (x >>> 33)) * 0xc4ceb9fe1a85ec53L
+        x = (x ^ (x >>> 33)) | 1L
+        if java.lang.Long.bitCount (x ^ (x >>> 1)) < 24 then x ^ 0xaaaaaaaaaaaaaaaaL else x
+    end mixGamma
+
+end SplitRandom
+
+
+//:::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `splitRandomTest` main function checks that substreams are reproducible
+ *  and that the bulk fill matches one-at-a-time generation, times both against
+ *  `Random`, and runs the `RNGTester` tests.
+ *  > runMain scalation.random.splitRandomTest
+ */
+@main def splitRandomTest (): Unit =
+
+    val n  = 10000000
+    val xs = Array.ofDim [Double] (n)
+
+    val s3a = SplitRandom.ofStream (3)
+    val s3b = SplitRandom.ofStream (3)
+    assert ((0 until 1000).forall (_ => s3a.gen == s3b.gen), "substream 3 reproducible")
+    assert (SplitRandom.ofStream (3).gen != SplitRandom.ofStream (4).gen, "substreams 3 and 4 differ")
+
+    for rng <- Seq (Random (), SplitRandom ()) do
+        val name = rng.getClass.getSimpleName
+        val one  = rng match
+                   case r: Random      => Random (r.stream)
+                   case r: SplitRandom => SplitRandom (r.seed, r.gamma)
+                   case _              => null
+        rng.fill (xs)
+        assert (xs.take (1000).forall (_ == one.gen), s"$name fill == gen")
+        var sum = 0.0
+        val tg = gauge (5) { for i <- 0 until n do sum += rng.gen }
+        val tf = gauge (5) { rng.fill (xs) }
+        println (s"$name: gen $tg ms, fill $tf ms per $n numbers (sum = $sum)")
+    end for
+
+    RNGTester.meansTest (SplitRandom ())
+    RNGTester.distributionTest (SplitRandom ())
+
+end splitRandomTest
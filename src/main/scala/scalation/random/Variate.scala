@@ -16,6 +16,8 @@
 package scalation
 package random
 
+import java.io.{DataInput, DataOutput}
+
 import scala.math.{exp, floor, log, Pi, round, sqrt, tan}
 import scala.runtime.ScalaRunTime.stringOf
 
@@ -43,6 +45,10 @@ abstract class Variate (stream: Int = 0):
      */
     protected val r = Random (stream % N_STREAMS)
 
+    /** The variates this one is generated from (each with its own stream position)
+     */
+    protected def components: Seq [Variate] = Seq.empty
+
     /** Allow (lax) calling igen on continuous distributions
      */
     private val LAX = true
@@ -129,6 +135,80 @@ abstract class Variate (stream: Int = 0):
      */
     def sgen1 (z: Double): String = "s" + "%g".format (gen1 (z))
 
+    //:::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Fill xs(from until until) with the next random variates, the same numbers
+     *  as calling 'gen' for each element.  The main distributions override it
+     *  with a tight loop (random numbers drawn in bulk from `r`, then transformed).
+     *  @param xs     the array to fill
+     *  @param from   the first index to fill
+     *  @param until  the index after the last to fill
+     */
+    def fill (xs: Array [Double], from: Int, until: Int): Array [Double] =
+        cfor (from, until) { i => xs(i) = gen }
+        xs
+    end fill
+
+    //:::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Fill array xs with the next random variates.
+     *  @param xs  the array to fill
+     */
+    def fill (xs: Array [Double]): Array [Double] = fill (xs, 0, xs.length)
+
+    //:::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Fill vector y with the next random variates.
+     *  @param y  the vector to fill
+     */
+    def fill (y: VectorD): VectorD =
+        val xs = genArray (y.dim)
+        cfor (0, y.dim) { i => y(i) = xs(i) }
+        y
+    end fill
+
+    //:::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return an array of the next n random variates.
+     *  @param n  the number of random variates
+     */
+    def genArray (n: Int): Array [Double] = fill (Array.ofDim [Double] (n), 0, n)
+
+    //:::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return a vector of the next n random variates.
+     *  @param n  the number of random variates
+     */
+    def genVec (n: Int): VectorD = new VectorD (n, genArray (n))
+
+    //:::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Write the position of this variate in its random number stream (and those
+     *  of its components), e.g., to checkpoint a simulation.
+     *  @param out  the output to write to
+     */
+    def saveState (out: DataOutput): Unit =
+        val s = r.state
+        out.writeByte (s.length)
+        for x <- s do out.writeLong (x)
+        for v <- components do v.saveState (out)
+    end saveState
+
+    //:::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Read the position of this variate in its random number stream (and those
+     *  of its components) written by 'saveState', so it continues with the same
+     *  variates it generated after the state was saved.
+     *  @param in  the input to read from
+     */
+    def restoreState (in: DataInput): Unit =
+        r.state = Array.fill (in.readByte ())(in.readLong ())
+        for v <- components do v.restoreState (in)
+    end restoreState
+
+    //:::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Advance this variate (and its components) n numbers in their random number
+     *  streams, e.g., to leave the numbers a checkpointed simulation went on to use.
+     *  @param n  the number of random numbers to skip in each stream
+     */
+    def skip (n: Long): Unit =
+        r.skip (n)
+        for v <- components do v.skip (n)
+    end skip
+
 end Variate
 
 
@@ -178,6 +258,8 @@ case class Beta (alpha: Double = 2, beta: Double = 3, stream: Int = 0)
     private val gamma1 = Gamma (alpha, 1.0, stream)
     private val gamma2 = Gamma (beta, 1.0, stream)
 
+    override protected def components: Seq [Variate] = Seq (gamma1, gamma2)
+
     val mean = alpha / (alpha + beta)
 
     def pf (z: Double): Double =
@@ -213,6 +295,8 @@ case class Binomial (p: Double = .5, n: Int = 10, stream: Int = 0)
     private val p_q  = p / q                    // the ratio p divided by q
     private val coin = Bernoulli (p, stream)    // coin with prob of success of p
 
+    override protected def components: Seq [Variate] = Seq (coin)
+
     val mean = p * n
 
     def pf (z: Double): Double = { val k = z.toInt; if z == k then pf (k) else 0.0 }
@@ -273,6 +357,8 @@ case class ChiSquare (df: Int = 2, stream: Int = 0)
     private val normal = Normal (0.0, 1.0, stream)
     private val k      = df/2.0
 
+    override protected def components: Seq [Variate] = Seq (gamma, normal)
+
     val mean = df.toDouble
 
     def pf (z: Double): Double = 0.5~^k * z~^(k-1) * exp (-z/2.0) / gammaF (k)
@@ -474,6 +560,12 @@ case class Exponential (mu: Double = 1.0, stream: Int = 0)
 
     def gen1 (z: Double): Double = -z * log (r.gen)
 
+    override def fill (xs: Array [Double], from: Int, until: Int): Array [Double] =
+        r.fill (xs, from, until)
+        cfor (from, until) { i => xs(i) = -mu * log (xs(i)) }
+        xs
+    end fill
+
 end Exponential
 
 
@@ -517,6 +609,8 @@ case class Fisher (df1: Int = 6, df2: Int = 4, stream: Int = 0)
     private val chi1 = ChiSquare (df1, stream)
     private val chi2 = ChiSquare (df2, stream)
 
+    override protected def components: Seq [Variate] = Seq (chi1, chi2)
+
     val mean = df2 / (df2-2.0)
 
     def pf (z: Double): Double =
@@ -559,6 +653,8 @@ case class Gamma (alpha: Double = 1.0, beta: Double = 1.0, stream: Int = 0)
     private val erl1 = Erlang (beta, a, stream)
     private val erl2 = Erlang (beta, a + 1, stream)
 
+    override protected def components: Seq [Variate] = Seq (erl1, erl2)
+
     val mean = alpha * beta
     
     def pf (z: Double): Double =
@@ -825,6 +921,8 @@ case class LogNormal (mu: Double = 0.0, sigma2: Double = 1.0, stream: Int = 0)
     private val _2sigma2 = 2.0 * sigma2
     private val normal   = Normal (mu, sigma2, stream)   // associated Normal distribution
 
+    override protected def components: Seq [Variate] = Seq (normal)
+
     val mean = exp (mu + sigma2/2.0)
 
     def pf (z: Double): Double =
@@ -860,6 +958,8 @@ case class NegativeBinomial (p: Double = .5, s: Int = 2, stream: Int = 0)
     private val q    = 1.0 - p
     private val geom = Geometric (p, stream)
 
+    override protected def components: Seq [Variate] = Seq (geom)
+
     val mean = s * q / p
 
     def pf (z: Double): Double =
@@ -941,6 +1041,52 @@ case class Normal (mu: Double = 0.0, sigma2: Double = 1.0, stream: Int = 0)
         (a * t) * sigma + z
     end gen1
 
+    override def fill (xs: Array [Double], from: Int, until: Int): Array [Double] =
+        var i = from
+        if i < until && ! computed then                 // second of a pending pair
+            computed = true
+            xs(i) = save * sigma + mu
+            i += 1
+        end if
+        while i < until do                              // both of each new pair
+            var (a, b, w) = (0.0, 0.0, 0.0)
+            while
+                a = 2.0 * r.gen - 1.0
+                b = 2.0 * r.gen - 1.0
+                w = a*a + b*b
+                w > 1.0
+            do ()
+            val t = sqrt (-2.0 * log (w) / w)
+            xs(i) = (a * t) * sigma + mu
+            i += 1
+            if i < until then
+                xs(i) = (b * t) * sigma + mu
+                i += 1
+            else
+                computed = false
+                save     = b * t
+            end if
+        end while
+        xs
+    end fill
+
+    override def saveState (out: DataOutput): Unit =
+        super.saveState (out)
+        out.writeBoolean (computed)
+        out.writeDouble (save)
+    end saveState
+
+    override def restoreState (in: DataInput): Unit =
+        super.restoreState (in)
+        computed = in.readBoolean ()
+        save     = in.readDouble ()
+    end restoreState
+
+    override def skip (n: Long): Unit =
+        super.skip (n)
+        computed = true                                  // drop any pending second of a pair
+    end skip
+
 end Normal
 
 
@@ -1082,6 +1228,12 @@ case class Randi (a: Int = 0, b: Int = 5, stream: Int = 0)
 
     def gen1 (z: Double): Double = { val width = z.toInt + 1 - a; floor (a + width * r.gen) }
 
+    override def fill (xs: Array [Double], from: Int, until: Int): Array [Double] =
+        r.fill (xs, from, until)
+        cfor (from, until) { i => xs(i) = floor (a + width * xs(i)) }
+        xs
+    end fill
+
 end Randi
 
 object Randi:
@@ -1241,6 +1393,8 @@ case class StudentT (df: Int = 4, stream: Int = 0)
     private val normal = Normal (0.0, 1.0, stream)
     private val chi    = ChiSquare (df, stream)
 
+    override protected def components: Seq [Variate] = Seq (normal, chi)
+
     val mean = 0.0
 
     def pf (z: Double): Double =
@@ -1381,6 +1535,8 @@ case class Trinomial (p: Double = 1.0/3.0, q: Double = 1.0/3.0, n: Int = 5, stre
     private val q_qq = q / qq                    // the ratio of medium to low
     private val dice = Dice (Array (qq, qq+q, 1.0), stream)
 
+    override protected def components: Seq [Variate] = Seq (dice)
+
     val mean = (q + 2.0*p) * n
 
     def pf (z: Double): Double =
@@ -1450,6 +1606,12 @@ case class Uniform (a: Double = 0.0, b: Double = 5.0, stream: Int = 0)
 
     def gen1 (z: Double): Double = { val width = z - a; a + width * r.gen }
 
+    override def fill (xs: Array [Double], from: Int, until: Int): Array [Double] =
+        r.fill (xs, from, until)
+        cfor (from, until) { i => xs(i) = a + width * xs(i) }
+        xs
+    end fill
+
 end Uniform
 
 object Uniform:
@@ -1673,3 +1835,115 @@ end diceTest
 
 end cLTTest
 
+
+
+//:::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `variateStateTest` main function checks checkpointing of random variates:
+ *  after 'restoreState' a variate (simple, composite or with a pending value)
+ *  repeats the variates it generated after 'saveState', and 'skip (n)' leaves a
+ *  generator where n calls to 'gen' do.
+ *  > runMain scalation.random.variateStateTest
+ */
+@main def variateStateTest (): Unit =
+
+    import java.io.{ByteArrayInputStream, ByteArrayOutputStream, DataInputStream, DataOutputStream}
+
+    for rv <- Seq (Exponential (2.0, 1), Normal (1.0, 4.0, 2), Gamma (2.5, 1.5, 3), ChiSquare (3, 4),
+                   StudentT (5, 5), Binomial (0.3, 12, 6)) do
+        for _ <- 0 until 101 do rv.gen                            // odd: Normal has a pending value
+        val bytes = new ByteArrayOutputStream ()
+        val out   = new DataOutputStream (bytes)
+        rv.saveState (out)
+        out.flush ()
+        val xs = rv.genArray (1000)
+        rv.restoreState (new DataInputStream (new ByteArrayInputStream (bytes.toByteArray)))
+        val ys = rv.genArray (1000)
+        println (s"${rv.getClass.getSimpleName}: state ${bytes.size} bytes, same = ${xs sameElements ys}")
+        assert (xs sameElements ys)
+    end for
+
+    for (r1, r2) <- Seq ((Random (7), Random (7)), (Random2 (7), Random2 (7)), (Random3 (7), Random3 (7)),
+                         (SplitRandom (7L), SplitRandom (7L))) do
+        for _ <- 0 until 12345 do r1.gen
+        r2.skip (12345)
+        assert (r1.gen == r2.gen, s"skip of ${r1.getClass.getSimpleName}")
+    end for
+
+    val e1 = Exponential (1.0, 8)
+    val e2 = Exponential (1.0, 8)
+    e1.genArray (5000)
+    e2.skip (5000)
+    assert (e1.gen == e2.gen)
+    println ("skip matches gen")
+
+end variateStateTest
+
+
+//:::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `variateFillTest` main function checks that the bulk 'fill' methods give
+ *  bit for bit the numbers repeated calls to 'gen' give, for the random number
+ *  generators and for the variates overriding 'fill' (Normal with its pending
+ *  value), over sub-ranges, vectors and interleaved 'gen' and 'fill' calls.
+ *  > runMain scalation.random.variateFillTest
+ */
+@main def variateFillTest (): Unit =
+
+    import java.lang.Double.doubleToRawLongBits
+
+    val sizes = Randi (0, 9, 11)                                  // chunk sizes, incl. 0 and odd
+    val pick  = Randi (0, 4, 12)                                  // which call next
+
+    /*  Draw about 2000 numbers with a random mix of 'gen' and the 'bulk' calls
+     *  ('fill' of a sub-range or an array, 'genArray', 'genVec', 'fill (VectorD)'),
+     *  and check each against the same count of 'gen' calls on 'one'.
+     */
+    def check (name: String, bulk: Int => Array [Double] => Array [Double],
+               gen: () => Double, one: () => Double): Unit =
+        var count = 0
+        while count < 2000 do
+            val n   = sizes.igen
+            val got = pick.igen match
+                case 0 => Array.fill (n)(gen ())
+                case k => bulk (k)(Array.ofDim [Double] (n))
+            for i <- got.indices do
+                val exp = one ()
+                assert (doubleToRawLongBits (got(i)) == doubleToRawLongBits (exp),
+                        s"$name: number ${count + i} is ${got(i)}, gen gives $exp")
+            count += n
+        end while
+        println (s"$name: fill == gen for $count numbers")
+    end check
+
+    /*  Fill the middle of a padded array and check the padding is untouched.
+     */
+    def ranged (fill: (Array [Double], Int, Int) => Array [Double])(xs: Array [Double]): Array [Double] =
+        val ys = Array.fill (xs.length + 4)(-1.0)
+        fill (ys, 2, 2 + xs.length)
+        assert (ys.take (2).forall (_ == -1.0) && ys.takeRight (2).forall (_ == -1.0), "fill outside its range")
+        ys.slice (2, 2 + xs.length)
+    end ranged
+
+    for (rng, one) <- Seq ((Random (3), Random (3)), (Random2 (3), Random2 (3)), (Random3 (3), Random3 (3)),
+                           (SplitRandom (3L), SplitRandom (3L))) do
+        check (rng.getClass.getSimpleName,
+               { case 1 => ranged (rng.fill)
+                 case 2 => xs => rng.fill (xs)
+                 case 3 => xs => rng.genArray (xs.length)
+                 case _ => xs => if xs.length % 2 == 0 then rng.genVec (xs.length).toArray
+                                 else rng.fill (new VectorD (xs.length)).toArray },
+               () => rng.gen, () => one.gen)
+    end for
+
+    for (rv, one) <- Seq ((Uniform (-2.0, 3.0, 4), Uniform (-2.0, 3.0, 4)), (Exponential (2.0, 5), Exponential (2.0, 5)),
+                          (Randi (-3, 7, 6), Randi (-3, 7, 6)), (Normal (1.0, 4.0, 7), Normal (1.0, 4.0, 7)),
+                          (Gamma (2.5, 1.5, 8), Gamma (2.5, 1.5, 8))) do
+        check (rv.getClass.getSimpleName,
+               { case 1 => ranged (rv.fill)
+                 case 2 => xs => rv.fill (xs)
+                 case 3 => xs => rv.genArray (xs.length)
+                 case _ => xs => if xs.length % 2 == 0 then rv.genVec (xs.length).toArray
+                                 else rv.fill (new VectorD (xs.length)).toArray },
+               () => rv.gen, () => one.gen)
+    end for
+
+end variateFillTest
@@ -1,24 +1,43 @@
-
 //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
 /** @author  John Miller, Michael Cotterell, Yulong Wang
  *  @version 2.0
  *  @date    Sat Mar 21 20:34:23 EDT 2015
  *  @see     LICENSE (MIT style license file).
  *
- *  @note    Coroutine implementation options: (1) Java Threads, (2) Java Virtual Threads
+ *  @note    Coroutine implementation options: (1) Java Threads, (2) Java Virtual Threads,
+ *           (3) Continuations on driver threads
  */
 
 package scalation
 package simulation
 
-import java.util.concurrent.{ExecutorService, Executors, Semaphore, ThreadPoolExecutor}
+import java.util.concurrent.{Executor, ExecutorService, Executors, ForkJoinPool, Semaphore, ThreadPoolExecutor}
+import java.util.concurrent.atomic.AtomicInteger
 //import java.util.concurrent.{Executors, ExecutorService, Future, Semaphore, ThreadPerTaskExecutor}
 
 import scala.collection.mutable.ArrayBuffer
-import scala.language.postfixOps
 
 import scalation.{debugf, flawf}
 
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `CoroutineBackend` enumeration lists the ways coroutines may be run
+ *  (see `Coroutine.setBackend`):
+ *  PlatformPool   - each coroutine on a platform thread from a cached thread pool,
+ *                   control handed over by releasing/acquiring semaphores
+ *  VirtualThreads - each coroutine on a virtual thread scheduled on a dedicated,
+ *                   bounded carrier `ForkJoinPool`, semaphore hand-off
+ *  Continuation   - each coroutine is a continuation run by a driver thread (one per
+ *                   chain of coroutines started from outside, e.g., per model),
+ *                   control handed over directly (yield to the driver, which runs
+ *                   the next continuation), no semaphores and no thread per coroutine
+ */
+enum CoroutineBackend:
+
+    case PlatformPool, VirtualThreads, Continuation
+
+end CoroutineBackend
+
+
 //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
 /** The `Coroutine` class supports (one-at-a-time) quasi-concurrent programming.
  *  A coroutine runs/acts until it yields control from 'this' to 'that' coroutine.
@@ -30,31 +49,32 @@ abstract class Coroutine (label: String = "cor")
 
     import Coroutine._
 
-    private val debug   = debugf ("Coroutine", true)           // debug function
+    private val debug   = debugf ("Coroutine", false)          // debug function
     private val _sema   = new Semaphore (0)                    // waiting semaphore
     private var started = false                                // whether this coroutine has started
+    private var cont: AnyRef = null                            // continuation (Continuation backend)
+    @volatile private var resumedAt = 0L                       // when another coroutine yielded to this one (ns)
 
-    nCreated += 1
-    protected val cor_id = label + "." + nCreated
+    protected val cor_id = label + "." + nCreated.incrementAndGet ()
     debug ("init", s"===> $cor_id waits to be STARTed")
 
     //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
     /** Return the Coroutine counts.
      */
-    def counts: (Int, Int, Int) = (nCreated, nStarted, nTerminated)
+    def counts: (Int, Int, Int) = (nCreated.get, nStarted.get, nTerminated.get)
 
     //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
     /** Thread's 'run' method delegates to the 'act' method.  Upon interruption
      *  the 'act' method is run again from the beginning.
      */
     def run (): Unit =
-        nStarted += 1
+        nStarted.incrementAndGet ()
         try
             act ()
         catch case ex: InterruptedException =>
             debug ("run", s"INTERRUPTED coroutine $cor_id")
         end try
-        nTerminated +=1
+        nTerminated.incrementAndGet ()
 //      pool.remove (this)
         debug ("run", s"TERMINATE coroutine $cor_id")
     end run
@@ -80,22 +100,36 @@ abstract class Coroutine (label: String = "cor")
      *                                  or wait to be resumed (false)
      */
     def yyield (that: Coroutine, quit: Boolean = false): Unit =
-        if that != null then
-            if that.started then
-                debug ("yyield", s"$cor_id RESUMEs that coroutine ${that.cor_id}")
-                that.resume ()
-            else
-                debug ("yyield", s"$cor_id STARTs that new coroutine ${that.cor_id}")
-                that.start ()
+        if backend == CoroutineBackend.Continuation then
+            debug ("yyield", s"$cor_id hands over to ${if that == null then "none" else that.cor_id}")
+            if that != null then
+                if that.started && SimEvents.timingYields () then that.resumedAt = System.nanoTime ()
+                that.started = true
+            end if
+            driving.get.next = that                            // the driver runs that next
+            if ! quit then
+                Continuations.suspend ()                       // back to the driver until resumed
+                resumed ()
             end if
-        end if
-
-        if quit then
-            debug ("yyield", s"$cor_id TERMINATEs")
-            return
         else
-            debug ("yyield", s"$cor_id WAITs on semaphore")
-            _sema.acquire ()                                   // wait until resumed
+            if that != null then
+                if that.started then
+                    debug ("yyield", s"$cor_id RESUMEs that coroutine ${that.cor_id}")
+                    if SimEvents.timingYields () then that.resumedAt = System.nanoTime ()
+                    that.resume ()
+                else
+                    debug ("yyield", s"$cor_id STARTs that new coroutine ${that.cor_id}")
+                    that.start ()
+                end if
+            end if
+
+            if quit then
+                debug ("yyield", s"$cor_id TERMINATEs")
+            else
+                debug ("yyield", s"$cor_id WAITs on semaphore")
+                _sema.acquire ()                               // wait until resumed
+                resumed ()
+            end if
         end if
     end yyield
 
@@ -104,18 +138,20 @@ abstract class Coroutine (label: String = "cor")
      */
     def start (): Unit =
         started = true
+        if ! isStarted then startup ()
 
-//      if threadArr == null then
-//          flaw ("start", "the coroutine system must be started using Coroutine.startup; expect undefined behavior.")
-
-        if useVirtualThread then
-            val vt = Thread.ofVirtual ().unstarted (this)
-            threadArr += vt
-            vt.start ()
-        else
+        backend match
+        case CoroutineBackend.PlatformPool =>
             pool.submit (this)
-        end if
-
+        case CoroutineBackend.VirtualThreads =>
+            val vt = vtBuilder.unstarted (this)
+            threadArr.synchronized { threadArr += vt }
+            vt.start ()
+        case CoroutineBackend.Continuation =>
+            val d = driving.get
+            if d != null then d.next = this                    // started by a coroutine
+            else driver.execute (() => drive (this))
+        end match
     end start
 
     //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
@@ -133,57 +169,206 @@ abstract class Coroutine (label: String = "cor")
      */
     private def resume (): Unit = _sema.release ()
 
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Report the hand-off latency from the yield to this coroutine until it runs
+     *  again, if it was measured (see `SimEvents`).
+     */
+    private def resumed (): Unit =
+        if resumedAt != 0L then
+            SimEvents.yielded (cor_id, System.nanoTime () - resumedAt)
+            resumedAt = 0L
+        end if
+    end resumed
+
 end Coroutine
 
 
 //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
 /** The `Coroutine` companion object provides functions to start-up and shutdown
- *  the coroutine system as well as counters for the `Coroutine` class.
+ *  the coroutine system, to choose its backend, as well as counters for the
+ *  `Coroutine` class.  The initial backend may be set with the system property
+ *  scalation.coroutine=platform|virtual|continuation (default platform).
+ *  The dedicated carrier pool and the continuations use JDK internals and need
+ *  the JVM options (see build.sbt)
+ *      --add-opens=java.base/java.lang=ALL-UNNAMED
+ *      --add-exports=java.base/jdk.internal.vm=ALL-UNNAMED
+ *  Without them, virtual threads use the JDK's default scheduler and the
+ *  Continuation backend falls back to virtual threads.  Coroutines started from
+ *  outside (not by a coroutine) get a driver thread of their own, so models run
+ *  concurrently (e.g., by `Model.replicate`) do not share driver state.
+ *  The counts and the yield (hand-off) latencies are reported as metrics and
+ *  JFR events (see `SimEvents`).
  */
 object Coroutine:
 
-    private [simulation]  var useVirtualThread = false         // whether to use regular or virtual threads
-
     private val debug = debugf ("Coroutine", false)            // debug function
     private val flaw  = flawf ("Coroutine")                    // flaw function
-    private var pool: ExecutorService = null                   // thread pool
+
+    private var _backend     = initialBackend                  // how coroutines are run
+    private var nCarriers    = Runtime.getRuntime.availableProcessors // carrier threads for virtual threads
+
+    private var pool: ExecutorService = null                   // thread pool (PlatformPool)
+    private var carrier: ForkJoinPool = null                   // carrier pool (VirtualThreads)
+    private var vtBuilder: Thread.Builder.OfVirtual = null     // builder of virtual threads on the carriers
+    private var driver: ExecutorService = null                 // driver threads (Continuation)
+    private val driving = new ThreadLocal [Driver] ()          // state of the driver on this thread, if any
+
     private val CORE_THREADS = 0                               // number of core threads
+    private val VT_BUILDER   = "java.lang.ThreadBuilders$VirtualThreadBuilder"
     private val threadArr    = ArrayBuffer [Thread] ()         // array buffer to hold threads
-    private var nCreated     = 0                               // number of Coroutines created
-    private var nStarted     = 0                               // number of Coroutines started
-    private var nTerminated  = 0                               // number of Coroutines terminated
+    private val nCreated     = AtomicInteger ()                // number of Coroutines created (on any thread)
+    private val nStarted     = AtomicInteger ()                // number of Coroutines started (on any thread)
+    private val nTerminated  = AtomicInteger ()                // number of Coroutines terminated
 //  var scope = new StructuredTaskScope[Unit]()
 
-    if ! useVirtualThread then startup ()                      // automatic startup at program start
+    startup ()                                                 // automatic startup at program start
+
+    SimEvents.coroutineCounts (() => nCreated.get, () => nStarted.get, () => numRunning)   // gauges and JFR event
 
 //  sys.addShutdownHook ({                                     // automatic shutdown at program end
 //      pool.shutdown ()
 //      pool.shutdownNow ()
 //  })
 
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return the backend named by the scalation.coroutine system property.
+     */
+    private def initialBackend: CoroutineBackend =
+        sys.props.get ("scalation.coroutine") match
+        case Some ("virtual")      => CoroutineBackend.VirtualThreads
+        case Some ("continuation") => CoroutineBackend.Continuation
+        case _                     => CoroutineBackend.PlatformPool
+        end match
+    end initialBackend
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return the backend running the coroutines.
+     */
+    def backend: CoroutineBackend = _backend
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return whether coroutines run on virtual threads (or continuations,
+     *  which virtual threads are built on).
+     */
+    private [simulation] def useVirtualThread: Boolean = _backend != CoroutineBackend.PlatformPool
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Choose the backend running the coroutines.  Only allowed while no coroutine
+     *  is running: the current backend is shut down and the new one started.
+     *  @param b         the backend to use
+     *  @param carriers  the number of carrier threads (VirtualThreads)
+     */
+    def setBackend (b: CoroutineBackend, carriers: Int = Runtime.getRuntime.availableProcessors): Unit =
+        if numRunning > 0 then
+            flaw ("setBackend", s"$numRunning coroutines are running: backend stays ${_backend}")
+        else
+            shutdown ()
+            _backend  =
+                if b == CoroutineBackend.Continuation && ! Continuations.available then
+                    flaw ("setBackend", "continuations not accessible (see --add-exports): use VirtualThreads")
+                    CoroutineBackend.VirtualThreads
+                else b
+            nCarriers = math.max (1, carriers)
+            startup ()
+        end if
+    end setBackend
+
     //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
     /** Return the thread pool executor.
      */
     private def threadPoolExecutor = pool.asInstanceOf [ThreadPoolExecutor]
 
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return whether the infrastructure of the current backend is started.
+     */
+    private [simulation] def isStarted: Boolean =
+        _backend match
+        case CoroutineBackend.PlatformPool   => pool != null
+        case CoroutineBackend.VirtualThreads => vtBuilder != null
+        case CoroutineBackend.Continuation   => driver != null
+        end match
+    end isStarted
+
     //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
     /** Start-up the coroutine system.  This function can also set the core
      *  number of threads for the internal cached thread pool.
      *  @param nCoreThreads  the new core size
      */
-    private def startup (nCoreThreads: Int = CORE_THREADS): Unit =
-        if pool == null then
-            pool = Executors.newCachedThreadPool ()
-            if nCoreThreads != CORE_THREADS then threadPoolExecutor.setCorePoolSize (nCoreThreads)
-        else
+    private [simulation] def startup (nCoreThreads: Int = CORE_THREADS): Unit =
+        if isStarted then
             flaw ("startup", "coroutine system is already started")
+        else
+            debug ("startup", s"backend ${_backend}")
+            _backend match
+            case CoroutineBackend.PlatformPool =>
+                pool = Executors.newCachedThreadPool ()
+                if nCoreThreads != CORE_THREADS then threadPoolExecutor.setCorePoolSize (nCoreThreads)
+            case CoroutineBackend.VirtualThreads =>
+                carrier   = new ForkJoinPool (nCarriers, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true)
+                vtBuilder = virtualBuilder (carrier)
+            case CoroutineBackend.Continuation =>
+                driver = Executors.newCachedThreadPool (r => new Thread (r, "coroutine-driver"))
+            end match
         end if
     end startup
 
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return a builder of virtual threads scheduled on the given carrier pool,
+     *  or on the JDK's default scheduler if the builder is not accessible.
+     *  @param exec     the carrier pool
+     *  @param builder  the name of the JDK's (internal) builder class
+     */
+    private [simulation] def virtualBuilder (exec: Executor, builder: String = VT_BUILDER): Thread.Builder.OfVirtual =
+        try
+            val ctor = Class.forName (builder)
+                            .getDeclaredConstructor (classOf [Executor])
+            ctor.setAccessible (true)
+            ctor.newInstance (exec).asInstanceOf [Thread.Builder.OfVirtual]
+        catch case ex: Exception =>
+            flaw ("virtualBuilder", s"default scheduler used, no dedicated carriers (see --add-opens): $ex")
+            Thread.ofVirtual ()
+        end try
+    end virtualBuilder
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Run coroutines on the driver thread, starting with the first, each until it
+     *  yields, then the one it yielded to, until one yields to none (Continuation).
+     *  @param first  the coroutine to run first
+     */
+    private def drive (first: Coroutine): Unit =
+        val d = new Driver ()
+        driving.set (d)
+        var c = first
+        while c != null do
+            d.next = null
+            if c.cont == null then c.cont = Continuations.create (c)
+            if Continuations.isDone (c.cont) then
+                flaw ("drive", s"coroutine ${c.cor_id} has terminated and cannot be resumed")
+            else
+                try Continuations.run (c.cont)
+                catch case ex: Exception =>
+                    flaw ("drive", s"coroutine ${c.cor_id} failed: $ex")
+                end try
+            end if
+            c = d.next
+        end while
+        driving.remove ()
+    end drive
+
     //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
     /** Return the number of threads that have terminated.
      */
-    inline def numTerminted: Int = nTerminated
+    inline def numTerminted: Int = nTerminated.get
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return the number of coroutines created.
+     */
+    def numCreated: Int = nCreated.get
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return the number of coroutines started, but not yet terminated.
+     */
+    def numRunning: Int = nStarted.get - nTerminated.get
 
     //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
     /** Wait for threads in threadArr to finish and then clear the array buffer,
@@ -191,36 +376,89 @@ object Coroutine:
      */
     def waitThreadFinish (): Unit =
         if threadArr != null then
-            for thread <- threadArr do thread.join ()
-            threadArr.clear ()
+            for thread <- threadArr.synchronized (threadArr.toArray) do thread.join ()
+            threadArr.synchronized { threadArr.clear () }
     end waitThreadFinish
 
     //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
-    /** Shutdown the coroutine thread pool and return the largest number of threads
-     *  that have ever simultaneously been in the pool.  Must be called at program
-     *  end or application will hang.
+    /** Shutdown the coroutine system and return the largest number of threads
+     *  that have ever simultaneously been in the pool (-1 for virtual threads).
+     *  Must be called at program end or application will hang.
      */
     def shutdown (): Int =
         var lps = 0                                            // largest pool size
         debug ("Coroutine", "shutdown")
 
-        if threadArr != null && useVirtualThread then
-            for thread <- threadArr do thread.join ()
+        if vtBuilder != null then
+            waitThreadFinish ()
+            carrier.shutdown ()
+            carrier   = null
+            vtBuilder = null
             lps = -1                                           // ThreadPerTaskExecutor does not track this
 
-        if pool != null && !useVirtualThread then
+        if pool != null then
             pool.shutdown ()                                   // prevent new submissions to pool
 //          pool.awaitTermination (Int.MaxValue, TimeUnit.NANOSECONDS)
             pool.shutdownNow ()                                // interrupt all threads remaining in pool
             lps  = threadPoolExecutor.getLargestPoolSize
             pool = null
+
+        if driver != null then
+            driver.shutdown ()                                 // runs the chains already handed over
+            lps    = driver.asInstanceOf [ThreadPoolExecutor].getLargestPoolSize
+            driver = null
 //      else flaw ("shutdown", "coroutine system is already shutdown")
         lps
     end shutdown
 
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** The `Driver` class holds the state of a driver thread running a chain of
+     *  coroutines (Continuation): the coroutine it runs next.
+     */
+    private final class Driver:
+        var next: Coroutine = null
+    end Driver
+
 end Coroutine
 
 
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `Continuations` object gives access (through reflection, as the class
+ *  is internal to the JDK) to the one-shot delimited continuations virtual
+ *  threads are built on.  A continuation runs a coroutine until it suspends,
+ *  returning to the caller of `run`; the next `run` resumes it.  A coroutine
+ *  cannot suspend while it holds a monitor (inside synchronized).
+ */
+private [simulation] object Continuations:
+
+    private val scopeClass = Class.forName ("jdk.internal.vm.ContinuationScope")
+    private val contClass  = Class.forName ("jdk.internal.vm.Continuation")
+
+    private var scope: AnyRef = null
+    private var ctor: java.lang.reflect.Constructor [?] = null
+    private var runM, isDoneM, yieldM: java.lang.reflect.Method = null
+
+    /** Whether continuations are accessible (needs --add-exports java.base/jdk.internal.vm)
+     */
+    val available: Boolean =
+        try
+            scope   = scopeClass.getConstructor (classOf [String]).newInstance ("scalation").asInstanceOf [AnyRef]
+            ctor    = contClass.getConstructor (scopeClass, classOf [Runnable])
+            runM    = contClass.getMethod ("run")
+            isDoneM = contClass.getMethod ("isDone")
+            yieldM  = contClass.getMethod ("yield", scopeClass)
+            true
+        catch case _: Exception => false
+        end try
+
+    def create (body: Runnable): AnyRef  = ctor.newInstance (scope, body).asInstanceOf [AnyRef]
+    def run (cont: AnyRef): Unit         = runM.invoke (cont)
+    def isDone (cont: AnyRef): Boolean   = isDoneM.invoke (cont).asInstanceOf [Boolean]
+    def suspend (): Unit                 = yieldM.invoke (null, scope)
+
+end Continuations
+
+
 //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
 /** The `CoroutineTest` object is used to test the `Coroutine` class.
  *  Should print:
@@ -275,3 +513,78 @@ object CoroutineTest:                      // requires object since it needs for
 
 end CoroutineTest
 
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `coroutineBackendTest` main function runs, for each backend, several
+ *  ping-pongs of two coroutines started at once from different threads (as
+ *  `Model.replicate` does) and checks each keeps its order, that each coroutine
+ *  got an id of its own and that all terminate.  It also checks that virtual
+ *  threads fall back to the default scheduler when the JDK's builder is not
+ *  accessible.
+ *  > runMain scalation.simulation.coroutineBackendTest
+ */
+@main def coroutineBackendTest (): Unit =
+
+    import java.util.concurrent.{ConcurrentLinkedQueue, CountDownLatch}
+    import scala.jdk.CollectionConverters._
+
+    val (groups, rounds) = (8, 1000)
+
+    /*  Coroutine adding even (first) or odd numbers to its log, yielding to the other.
+     */
+    class Player (log: ConcurrentLinkedQueue [Int], first: Boolean, done: CountDownLatch)
+          extends Coroutine ("player"):
+        var other: Player = null
+        override def act (): Unit =
+            for i <- 0 until rounds do
+                log.add (if first then 2 * i else 2 * i + 1)
+                yyield (other)
+            end for
+            done.countDown ()
+            yyield (if first then other else null, true)
+        end act
+    end Player
+
+    for b <- CoroutineBackend.values do
+        Coroutine.setBackend (b, 2)
+        val created = Coroutine.numCreated
+        val done    = new CountDownLatch (2 * groups)
+        val logs    = Array.fill (groups)(new ConcurrentLinkedQueue [Int] ())
+        val starts  = for g <- 0 until groups yield new Thread (() =>
+            val (p, q) = (Player (logs(g), true, done), Player (logs(g), false, done))
+            p.other = q; q.other = p
+            p.start ()
+        )
+        starts.foreach (_.start ())
+        starts.foreach (_.join ())
+        done.await ()
+        while Coroutine.numRunning > 0 do Thread.sleep (1)
+
+        println (s"$b (running ${Coroutine.backend}): $groups ping-pongs of $rounds rounds done")
+        assert (b == Coroutine.backend || b == CoroutineBackend.Continuation && ! Continuations.available)
+        assert (Coroutine.numCreated - created == 2 * groups, "a coroutine count was lost")
+        for g <- 0 until groups do
+            assert (logs(g).asScala.toSeq == (0 until 2 * rounds), s"$b: ping-pong $g out of order")
+    end for
+    Coroutine.setBackend (CoroutineBackend.PlatformPool)
+
+    class Idle extends Coroutine ("idle"):
+        def id: String = cor_id
+        override def act (): Unit = ()
+    end Idle
+
+    val ids    = ConcurrentLinkedQueue [String] ()
+    val makers = for _ <- 0 until 4 yield new Thread (() => for _ <- 0 until 1000 do ids.add (Idle ().id))
+    makers.foreach (_.start ())
+    makers.foreach (_.join ())
+    assert (ids.asScala.toSet.size == 4000, "two coroutines got the same id")
+
+    var ran = false
+    val vt  = Coroutine.virtualBuilder (ForkJoinPool.commonPool, "java.lang.NoSuchBuilder").unstarted (() => ran = true)
+    vt.start ()
+    vt.join ()
+    assert (ran && vt.isVirtual, "fallback to the default virtual thread scheduler")
+    println ("coroutine ids distinct, virtual thread builder falls back")
+    Coroutine.shutdown ()
+
+end coroutineBackendTest
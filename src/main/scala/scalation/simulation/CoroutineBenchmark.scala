@@ -0,0 +1,154 @@
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** @author  John Miller
+ *  @version 2.0
+ *  @date    Sat Oct 17 10:15:00 EDT 2026
+ *  @see     LICENSE (MIT style license file).
+ *
+ *  @note    Benchmark of the Coroutine Backends: Yields per Second and Memory per Actor
+ */
+
+package scalation
+package simulation
+
+import java.util.concurrent.CountDownLatch
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `CoroutineBenchmark` object measures, for each `CoroutineBackend`,
+ *  (1) the hand-off rate: two coroutines yielding to each other m times each, and
+ *  (2) the heap bytes per suspended actor: a chain of n coroutines, each starting
+ *      the next and waiting, measured after GC while all n are suspended.
+ *  Platform threads keep their stacks outside the heap, so (2) understates their
+ *  footprint (about 1 MB of reserved stack per thread, see -Xss).
+ */
+object CoroutineBenchmark:
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** The `Pinger` class yields to its partner m times, then lets it finish.
+     *  @param m     the number of yields
+     *  @param done  counted down by the last of the pair
+     */
+    class Pinger (m: Int, done: CountDownLatch) extends Coroutine ("ping"):
+        var partner: Coroutine = null
+        var last = false
+        def act (): Unit =
+            for _ <- 0 until m do yyield (partner)
+            if last then
+                done.countDown ()
+                yyield (null, true)
+            else
+                yyield (partner, true)
+            end if
+        end act
+    end Pinger
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** The `Link` class is the i-th coroutine of a chain: it starts the next one
+     *  and waits; when resumed, it resumes the previous one and terminates.
+     *  @param i      the position in the chain
+     *  @param chain  the coroutines of the chain
+     *  @param ready  counted down once the whole chain is suspended
+     *  @param done   counted down once the whole chain has terminated
+     */
+    class Link (i: Int, chain: Array [Coroutine], ready: CountDownLatch, done: CountDownLatch)
+          extends Coroutine ("link"):
+        def act (): Unit =
+            if i < chain.length - 1 then yyield (chain(i+1))
+            else { ready.countDown (); yyield (null) }
+            if i > 0 then yyield (chain(i-1), true)
+            else { done.countDown (); yyield (null, true) }
+        end act
+    end Link
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** The `Kicker` class resumes a coroutine from outside (the main thread cannot yield).
+     *  @param target  the coroutine to resume
+     */
+    class Kicker (target: Coroutine) extends Coroutine ("kick"):
+        def act (): Unit = yyield (target, true)
+    end Kicker
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Wait for all coroutines to terminate (their last step runs after the latch).
+     */
+    private def quiesce (): Unit = while Coroutine.numRunning > 0 do Thread.onSpinWait ()
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return the used heap in bytes after a full collection.
+     */
+    private def usedHeap: Long =
+        val rt = Runtime.getRuntime
+        for _ <- 0 until 3 do System.gc ()
+        rt.totalMemory - rt.freeMemory
+    end usedHeap
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return the number of yields per second of a ping-pong of m rounds.
+     *  @param m  the number of rounds (2m yields)
+     */
+    def yieldsPerSec (m: Int): Double =
+        val done = CountDownLatch (1)
+        val a = Pinger (m, done)
+        val b = Pinger (m, done)
+        a.partner = b; b.partner = a; b.last = true
+        val t0 = System.nanoTime ()
+        a.start ()
+        done.await ()
+        val secs = (System.nanoTime () - t0) / 1E9
+        quiesce ()
+        2.0 * m / secs
+    end yieldsPerSec
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return the heap bytes per suspended actor of a chain of n actors.
+     *  @param n  the number of actors (at least 2)
+     */
+    def bytesPerActor (n: Int): Double =
+        val ready = CountDownLatch (1)
+        val done  = CountDownLatch (1)
+        val chain = Array.ofDim [Coroutine] (n)
+        val before = usedHeap
+        for i <- 0 until n do chain(i) = Link (i, chain, ready, done)
+        chain(0).start ()
+        ready.await ()
+        val after = usedHeap
+        Kicker (chain(n-1)).start ()
+        done.await ()
+        quiesce ()
+        (after - before).toDouble / n
+    end bytesPerActor
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Run both measurements on each backend (warmed up once) and print a table.
+     *  @param m  the number of ping-pong rounds
+     *  @param n  the number of actors in the chain
+     */
+    def run (m: Int, n: Int): Unit =
+        println (s"backend          yields/s     heap bytes/actor   (m = $m rounds, n = $n actors)")
+        for b <- CoroutineBackend.values do
+            Coroutine.setBackend (b)
+            if Coroutine.backend == b then
+                yieldsPerSec (m / 10); bytesPerActor (n / 10)   // warm-up
+                val ys = yieldsPerSec (m)
+                val bpa = bytesPerActor (n)
+                println (f"${b.toString}%-16s ${ys}%12.0f ${bpa}%12.0f")
+            end if
+        end for
+        Coroutine.shutdown ()
+    end run
+
+end CoroutineBenchmark
+
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `runCoroutineBenchmark` main function compares the coroutine backends.
+ *  Run with the JVM options in build.sbt (dedicated carriers, continuations).
+ *  > runMain scalation.simulation.runCoroutineBenchmark [rounds] [actors]
+ */
+@main def runCoroutineBenchmark (args: String*): Unit =
+
+    val m = if args.nonEmpty then args(0).toInt else 100000
+    val n = if args.length > 1 then args(1).toInt else 2000
+    CoroutineBenchmark.run (m, n)
+
+end runCoroutineBenchmark
+
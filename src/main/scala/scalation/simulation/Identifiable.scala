@@ -11,6 +11,8 @@
 package scalation
 package simulation
 
+import java.util.concurrent.atomic.AtomicInteger
+
 //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
 /** The `Identifiable` trait provides unique identification for simulation components,
  *  entities and events.  Includes a mandatory id and an optional name.
@@ -79,14 +81,15 @@ end Identifiable
  */
 object Identifiable:
 
-    /** Used for counter
+    /** Used for counter (atomic, as models may be built on several threads, e.g.,
+     *  parallel replications)
      */
-    private var i = 0
+    private val i = AtomicInteger ()
 
     //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
     /** Get the next value from the counter.
      */
-    def next (): Int = { i += 1; i }
+    def next (): Int = i.incrementAndGet ()
 
 end Identifiable
 
@@ -0,0 +1,167 @@
+package scalation.simulation;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * An in-process registry of named counters, histograms and gauges, for seeing
+ * where the time of a production run goes without attaching a profiler.  It is
+ * off unless the JVM runs with -Dscalation.metrics=true: ENABLED is a constant,
+ * so the JIT drops the guarded recording code of a run without metrics.  When
+ * on, the registry is dumped to standard error at shutdown (unless
+ * -Dscalation.metrics.dump=false); dump may also be called at any time.
+ *
+ * Counters are LongAdders and histograms count values in power-of-two buckets
+ * with atomic adds, so recording from many threads does not contend on a lock.
+ * The same measurements are also emitted as JFR events (see SimEvents and
+ * wide_FIRE.FireEvents), for recordings with timestamps and threads.
+ */
+public final class Metrics {
+
+    /**
+     * Whether metrics are recorded (-Dscalation.metrics=true).
+     */
+    public static final boolean ENABLED = Boolean.getBoolean("scalation.metrics");
+
+    private static final Map<String, Counter> counters     = new ConcurrentSkipListMap<>();
+    private static final Map<String, Histogram> histograms = new ConcurrentSkipListMap<>();
+    private static final Map<String, LongSupplier> gauges  = new ConcurrentSkipListMap<>();
+    private static boolean hooked = false;
+
+    static {
+        if (ENABLED && ! "false".equals(System.getProperty("scalation.metrics.dump"))) dumpAtShutdown();
+    }
+
+    private Metrics() {}
+
+    /**
+     * A monotone count, e.g., of dequeues or failed calls.
+     */
+    public static final class Counter {
+        private final LongAdder n = new LongAdder();
+
+        public void increment()   { n.increment(); }
+        public void add(long k)   { n.add(k); }
+        public long sum()         { return n.sum(); }
+        void reset()              { n.reset(); }
+    }
+
+    /**
+     * The distribution of non-negative values (e.g., latencies in ns or sizes),
+     * kept in 64 buckets, value v in bucket 64 - numberOfLeadingZeros(v), so a
+     * quantile is known to within a factor of 2 (its bucket's upper bound is
+     * returned, capped at the maximum).
+     */
+    public static final class Histogram {
+        private final boolean nanos;
+        private final AtomicLongArray buckets = new AtomicLongArray(65);
+        private final LongAdder count = new LongAdder(), sum = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        Histogram(boolean nanos) {
+            this.nanos = nanos;
+        }
+
+        public void record(long v) {
+            if (v < 0) v = 0;
+            buckets.incrementAndGet(64 - Long.numberOfLeadingZeros(v));
+            count.increment();
+            sum.add(v);
+            long m;
+            while (v > (m = max.get()) && ! max.compareAndSet(m, v)) { }
+        }
+
+        public long count()  { return count.sum(); }
+        public long max()    { return max.get(); }
+
+        public double mean() {
+            long n = count.sum();
+            return n == 0 ? 0 : (double) sum.sum() / n;
+        }
+
+        public long quantile(double q) {
+            long n = count.sum(), need = (long) Math.ceil(q * n), seen = 0;
+            if (n == 0) return 0;
+            for (int b = 0; b < 65; b++) {
+                seen += buckets.get(b);
+                if (seen >= need) return Math.min(b == 0 ? 0 : b == 64 ? Long.MAX_VALUE : (1L << b) - 1, max.get());
+            }
+            return max.get();
+        }
+
+        void reset() {
+            for (int b = 0; b < 65; b++) buckets.set(b, 0);
+            count.reset();
+            sum.reset();
+            max.set(0);
+        }
+
+        private String format(double v) {
+            return nanos ? String.format("%.3f ms", v / 1e6) : String.format("%.0f", v);
+        }
+    }
+
+    /**
+     * Returns the counter of the given name, created at first use.
+     */
+    public static Counter counter(String name) {
+        return counters.computeIfAbsent(name, k -> new Counter());
+    }
+
+    /**
+     * Returns the histogram of the given name (values such as sizes or bytes).
+     */
+    public static Histogram histogram(String name) {
+        return histograms.computeIfAbsent(name, k -> new Histogram(false));
+    }
+
+    /**
+     * Returns the histogram of the given name for durations in nanoseconds
+     * (dumped in milliseconds).
+     */
+    public static Histogram timer(String name) {
+        return histograms.computeIfAbsent(name, k -> new Histogram(true));
+    }
+
+    /**
+     * Registers (or replaces) a gauge, a value read when the registry is dumped.
+     */
+    public static void gauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    /**
+     * Zeroes every counter and histogram (e.g., between warm-up and measurement).
+     */
+    public static void reset() {
+        counters.values().forEach(Counter::reset);
+        histograms.values().forEach(Histogram::reset);
+    }
+
+    /**
+     * Prints every metric, by name.
+     */
+    public static void dump(PrintStream out) {
+        out.println("metrics:");
+        counters.forEach((name, c) -> out.printf("  %-40s %d%n", name, c.sum()));
+        gauges.forEach((name, g) -> out.printf("  %-40s %d%n", name, g.getAsLong()));
+        histograms.forEach((name, h) -> out.printf("  %-40s n = %d, mean = %s, p50 = %s, p99 = %s, max = %s%n",
+                name, h.count(), h.format(h.mean()), h.format(h.quantile(0.5)), h.format(h.quantile(0.99)),
+                h.format(h.max())));
+    }
+
+    /**
+     * Dumps the registry to standard error when the JVM shuts down (once).
+     */
+    public static synchronized void dumpAtShutdown() {
+        if (hooked) return;
+        hooked = true;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> dump(System.err), "metrics-dump"));
+    }
+
+}
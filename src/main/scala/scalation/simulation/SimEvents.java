@@ -0,0 +1,162 @@
+package scalation.simulation;
+
+import java.util.function.IntSupplier;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * The JFR events of the simulation kernel, and the hooks the kernel calls to emit
+ * them and to record the matching metrics (see Metrics).  Start a recording with,
+ * e.g., -XX:StartFlightRecording:filename=sim.jfr; the per-dequeue and per-yield
+ * events are off by default (there may be millions) and are turned on with
+ * +scalation.AgendaDequeue#enabled=true and +scalation.CoroutineYield#enabled=true
+ * (or in a .jfc settings file).  A hook returns at once when neither its event
+ * nor the metrics are enabled.
+ */
+public final class SimEvents {
+
+    private SimEvents() {}
+
+    @Name("scalation.AgendaDequeue")
+    @Label("Agenda Dequeue")
+    @Description("An actor taken off the agenda of a process model")
+    @Category({"ScalaTion", "Simulation"})
+    @Enabled(false)
+    @StackTrace(false)
+    public static final class AgendaDequeue extends Event {
+        @Label("Model")       public String model;
+        @Label("Clock")       public double clock;
+        @Label("Agenda Size") public int agendaSize;
+    }
+
+    @Name("scalation.Replication")
+    @Label("Replication")
+    @Description("One replication of a process model")
+    @Category({"ScalaTion", "Simulation"})
+    @StackTrace(false)
+    public static final class Replication extends Event {
+        @Label("Model")              public String model;
+        @Label("Replication")        public int rep;
+        @Label("Dequeues")           public long dequeues;
+        @Label("Max Agenda Size")    public int maxAgendaSize;
+        @Label("Dequeues per Second") public double dequeueRate;
+    }
+
+    @Name("scalation.CoroutineYield")
+    @Label("Coroutine Yield")
+    @Description("The hand-off latency from a coroutine yielding to another until that one runs")
+    @Category({"ScalaTion", "Simulation"})
+    @Enabled(false)
+    @StackTrace(false)
+    public static final class CoroutineYield extends Event {
+        @Label("Coroutine")                            public String coroutine;
+        @Label("Latency") @Timespan(Timespan.NANOSECONDS) public long latency;
+    }
+
+    @Name("scalation.Coroutines")
+    @Label("Coroutines")
+    @Description("The coroutine counts, sampled periodically")
+    @Category({"ScalaTion", "Simulation"})
+    @Period("1 s")
+    @StackTrace(false)
+    public static final class Coroutines extends Event {
+        @Label("Created") public int created;
+        @Label("Started") public int started;
+        @Label("Running") public int running;
+    }
+
+    private static final Metrics.Counter DEQUEUES     = Metrics.counter("process.dequeues");
+    private static final Metrics.Histogram AGENDA     = Metrics.histogram("process.agenda.size");
+    private static final Metrics.Histogram RATE       = Metrics.histogram("process.dequeues_per_s");
+    private static final Metrics.Histogram YIELD      = Metrics.timer("coroutine.yield.latency");
+
+    /**
+     * Called after an actor is dequeued from the agenda of the model.
+     */
+    public static void dequeued(String model, double clock, int agendaSize) {
+        if (Metrics.ENABLED) {
+            DEQUEUES.increment();
+            AGENDA.record(agendaSize);
+        }
+        AgendaDequeue e = new AgendaDequeue();
+        if (e.isEnabled()) {
+            e.model      = model;
+            e.clock      = clock;
+            e.agendaSize = agendaSize;
+            e.commit();
+        }
+    }
+
+    /**
+     * Returns the event timing a replication, begun (call at its start).
+     */
+    public static Replication replicationStarted() {
+        Replication e = new Replication();
+        e.begin();
+        return e;
+    }
+
+    /**
+     * Called at the end of a replication with the event replicationStarted returned.
+     */
+    public static void replicationEnded(Replication e, long startNanos, String model, int rep,
+                                        long dequeues, int maxAgendaSize) {
+        double rate = dequeues / Math.max(1e-9, (System.nanoTime() - startNanos) / 1e9);
+        if (Metrics.ENABLED) RATE.record((long) rate);
+        e.end();
+        if (e.shouldCommit()) {
+            e.model         = model;
+            e.rep           = rep;
+            e.dequeues      = dequeues;
+            e.maxAgendaSize = maxAgendaSize;
+            e.dequeueRate   = rate;
+            e.commit();
+        }
+    }
+
+    /**
+     * Returns whether yield latencies are measured (metrics or the yield event on).
+     */
+    public static boolean timingYields() {
+        return Metrics.ENABLED || new CoroutineYield().isEnabled();
+    }
+
+    /**
+     * Called by a coroutine resumed latency ns after another yielded to it.
+     */
+    public static void yielded(String coroutine, long latency) {
+        if (Metrics.ENABLED) YIELD.record(latency);
+        CoroutineYield e = new CoroutineYield();
+        if (e.isEnabled()) {
+            e.coroutine = coroutine;
+            e.latency   = latency;
+            e.commit();
+        }
+    }
+
+    /**
+     * Registers the coroutine counts as gauges and as the periodic Coroutines event.
+     */
+    public static void coroutineCounts(IntSupplier created, IntSupplier started, IntSupplier running) {
+        Metrics.gauge("coroutine.created", created::getAsInt);
+        Metrics.gauge("coroutine.started", started::getAsInt);
+        Metrics.gauge("coroutine.running", running::getAsInt);
+        FlightRecorder.addPeriodicEvent(Coroutines.class, () -> {
+            Coroutines e = new Coroutines();
+            e.created = created.getAsInt();
+            e.started = started.getAsInt();
+            e.running = running.getAsInt();
+            e.commit();
+        });
+    }
+
+}
@@ -12,7 +12,7 @@ package scalation
 package simulation
 package monte_carlo
 
-import scalation.random.RandomVecD
+import scalation.random.{SplitRandom, Uniform}
 
 //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
 /** The `GrainDropping` class may be used for rough estimates of pi by using
@@ -22,18 +22,57 @@ import scalation.random.RandomVecD
  */
 class GrainDropping (stream: Int):
 
-    private val grain = RandomVecD (2, max = 1, min = -1, stream = stream)  // random vector generator
+    private val BATCH = 4096                                              // coordinates per batch
+    private val coord = Uniform (-1, 1, stream)                           // grain coordinate generator
 
     //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
-    /** Return the fraction of grains found inside the unit circle. 
+    /** Return the fraction of grains found inside the unit circle.  The (x, y)
+     *  coordinates are drawn in batches, the same numbers as generating each grain
+     *  as a random vector in [-1, 1]^2.
      *  @param n  the number of grains to generate
      */
     def fraction (n: Int): Double =
+        val buf   = Array.ofDim [Double] (2 * BATCH)
         var count = 0
-        for i <- 0 until n do if grain.gen.normSq <= 1.0 then count += 1
+        var it    = 0
+        while it < n do
+            val k = BATCH min (n - it)
+            coord.fill (buf, 0, 2 * k)
+            cfor (0, k) { i => if buf(2*i) * buf(2*i) + buf(2*i+1) * buf(2*i+1) <= 1.0 then count += 1 }
+            it += k
+        end while
         count / n.toDouble
     end fraction
 
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return the fraction of grains found inside the unit circle, dropped by
+     *  parallel workers each drawing from its own `SplitRandom` substream (of the
+     *  seed for this stream), so the result is reproducible for a given number
+     *  of workers.
+     *  @param n        the number of grains to generate
+     *  @param workers  the number of parallel workers
+     */
+    def fractionPar (n: Int, workers: Int = Runtime.getRuntime.availableProcessors): Double =
+        val seed   = SplitRandom.ofStream (stream).seed
+        val counts = SplitRandom.parallel (workers, seed) { (w, rng) =>
+            val nw    = n / workers + (if w < n % workers then 1 else 0)  // grains for worker w
+            val buf   = Array.ofDim [Double] (2 * BATCH)
+            var count = 0L
+            var it    = 0
+            while it < nw do
+                val k = BATCH min (nw - it)
+                rng.fill (buf, 0, 2 * k)
+                cfor (0, k) { i =>
+                    val (x, y) = (2.0 * buf(2*i) - 1.0, 2.0 * buf(2*i+1) - 1.0)
+                    if x * x + y * y <= 1.0 then count += 1
+                }
+                it += k
+            end while
+            count
+        }
+        counts.sum / n.toDouble
+    end fractionPar
+
 end GrainDropping
 
 
@@ -48,7 +87,7 @@ end GrainDropping
         banner (s"Grain Dropping Results for stream = $stream")
         for k <- 1 to 8 do
             val n = 10~^k
-            println (s"for n = $n: pi = ${4 * bn.fraction (n)}")
+            println (s"for n = $n: pi = ${4 * bn.fraction (n)}, parallel pi = ${4 * bn.fractionPar (n)}")
         end for
     end for
 
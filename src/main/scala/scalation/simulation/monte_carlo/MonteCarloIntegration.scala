@@ -14,7 +14,7 @@ package monte_carlo
 
 import scala.math.sqrt
 
-import scalation.random.Uniform
+import scalation.random.{SplitRandom, Uniform}
 
 //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
 /** The `MonteCarloIntegration` uses Monte Carlo sampling to approximate the
@@ -22,6 +22,8 @@ import scalation.random.Uniform
  */
 object MonteCarloIntegration:
 
+    private val BATCH = 4096                                     // random numbers drawn per batch
+
     //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
     /** Inegrate the function f on the interval [a, b].
      *  @param f  the function to integrate
@@ -33,11 +35,49 @@ object MonteCarloIntegration:
     def integrate (f: FunctionS2S, a: Double, b: Double, m: Int, s: Int = 0): Double =
         val length = b - a
         val x   = Uniform (a, b, s)
+        val buf = Array.ofDim [Double] (BATCH min m)
         var sum = 0.0
-        for it <- 0 until m do sum += f(x.gen)
+        var it  = 0
+        while it < m do                                          // draw the x's in batches
+            val k = BATCH min (m - it)
+            x.fill (buf, 0, k)
+            cfor (0, k) { i => sum += f(buf(i)) }
+            it += k
+        end while
         sum * length / m
     end integrate
 
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Inegrate the function f on the interval [a, b] using parallel workers, each
+     *  drawing its share of the samples from its own `SplitRandom` substream, so
+     *  the result is reproducible for a given seed and number of workers.
+     *  @param f        the function to integrate
+     *  @param a        the start of the interval
+     *  @param b        the end of the interval
+     *  @param m        the number of samples of f to collect
+     *  @param workers  the number of parallel workers
+     *  @param seed     the seed of the substreams
+     */
+    def integratePar (f: FunctionS2S, a: Double, b: Double, m: Int,
+                      workers: Int = Runtime.getRuntime.availableProcessors,
+                      seed: Long = SplitRandom.SEED): Double =
+        val length = b - a
+        val sums = SplitRandom.parallel (workers, seed) { (w, rng) =>
+            val mw  = m / workers + (if w < m % workers then 1 else 0)   // samples for worker w
+            val buf = Array.ofDim [Double] (BATCH min mw)
+            var sum = 0.0
+            var it  = 0
+            while it < mw do
+                val k = BATCH min (mw - it)
+                rng.fill (buf, 0, k)
+                cfor (0, k) { i => sum += f(a + length * buf(i)) }
+                it += k
+            end while
+            sum
+        }
+        sums.sum * length / m
+    end integratePar
+
 end MonteCarloIntegration
 
 
@@ -49,7 +89,7 @@ end MonteCarloIntegration
  */
 @main def monteCarloIntegrationTest (): Unit =
 
-    import MonteCarloIntegration.integrate
+    import MonteCarloIntegration.{integrate, integratePar}
 
     def h(x: Double): Double = sqrt (1 - x~^2)
 
@@ -58,5 +98,11 @@ end MonteCarloIntegration
         println (s"for k = $k, s = $s: pi = $pi")
     end for
 
+    banner ("parallel workers on SplitRandom substreams")
+    for k <- 1 to 9 do
+        val pi = 4 * integratePar (h, 0, 1, 10~^k)
+        println (s"for k = $k: pi = $pi")
+    end for
+
 end monteCarloIntegrationTest
 
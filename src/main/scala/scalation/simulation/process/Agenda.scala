@@ -0,0 +1,441 @@
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** @author  John Miller
+ *  @version 2.0
+ *  @date    Sat Oct 17 10:15:00 EDT 2026
+ *  @see     LICENSE (MIT style license file).
+ *
+ *  @note    Agenda: Time-Ordered Activation List for Process Simulation
+ *
+ *  @see     R. Brown, "Calendar Queues: A Fast O(1) Priority Queue Implementation
+ *           for the Simulation Event Set Problem", CACM 31(10), 1988
+ */
+
+package scalation
+package simulation
+package process
+
+import java.util.Arrays
+
+import scala.collection.mutable.PriorityQueue
+
+import scalation.random.Exponential
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `Agenda` trait specifies the time-ordered activation list the director
+ *  (`Model`) keeps of the actors to be (re)activated.  An item's key is its
+ *  activation time (actTime) when it is enqueued.
+ *  @tparam A  the type of items (e.g., `SimActor`)
+ */
+trait Agenda [A <: Temporal]:
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Add the item to the agenda, keyed on its current activation time.
+     *  @param item  the item to add
+     */
+    def += (item: A): this.type
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Remove and return the item with the earliest activation time.
+     */
+    def dequeue (): A
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return the number of items in the agenda.
+     */
+    def size: Int
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Remove all items from the agenda.
+     */
+    def clear (): Unit
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return the items in the order they would be dequeued (leaving them in the
+     *  agenda), e.g., to checkpoint a model.
+     */
+    def items: IndexedSeq [A]
+
+    def isEmpty: Boolean  = size == 0
+    def nonEmpty: Boolean = size > 0
+
+end Agenda
+
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `Agenda` object creates agendas of the kind given by the system property
+ *  scalation.agenda=calendar|heap (default calendar).
+ */
+object Agenda:
+
+    val defaultKind: String = sys.props.getOrElse ("scalation.agenda", "calendar")
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return a new empty agenda of the given kind.
+     *  @param kind  "calendar" (`CalendarAgenda`) or "heap" (`HeapAgenda`)
+     */
+    def apply [A <: Temporal] (kind: String = defaultKind): Agenda [A] =
+        kind match
+        case "heap"     => HeapAgenda [A] ()
+        case "calendar" => CalendarAgenda [A] ()
+        case _          => flawf ("Agenda") ("apply", s"unknown agenda kind $kind, use calendar")
+                           CalendarAgenda [A] ()
+        end match
+    end apply
+
+end Agenda
+
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `HeapAgenda` class keeps the agenda in Scala's binary heap, the way `Model`
+ *  always has: O(log n) per operation, items with equal activation times leave
+ *  in an unspecified (but repeatable) order.
+ *  @tparam A  the type of items
+ */
+class HeapAgenda [A <: Temporal] extends Agenda [A]:
+
+    private val pq = PriorityQueue.empty [A] (using Ordering.fromLessThan [A] (_.actTime > _.actTime))
+
+    def += (item: A): this.type = { pq += item; this }
+    def dequeue (): A           = pq.dequeue ()
+    def size: Int               = pq.size
+    def clear (): Unit          = pq.clear ()
+    def items: IndexedSeq [A]   = pq.clone ().dequeueAll.toIndexedSeq
+
+end HeapAgenda
+
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `CalendarAgenda` class keeps the agenda in a calendar queue: activation
+ *  times are hashed into nb buckets ("days") of a given width making up a "year",
+ *  each bucket a list sorted by time.  Dequeue scans the days from the current
+ *  one, taking the head of a bucket if it falls in the current year.  The
+ *  calendar doubles/halves its days as the size passes 2 nb / nb/2, re-estimating
+ *  the width from the separation of the earliest items, so enqueue and dequeue
+ *  take amortized O(1) time for the usual (hold model) workloads.
+ *
+ *  Items with equal activation times leave in the order they were enqueued
+ *  (FIFO), so runs are deterministic.  The keys and links are kept in primitive
+ *  arrays with a free list, so operations do not allocate.
+ *  @tparam A  the type of items
+ */
+class CalendarAgenda [A <: Temporal] extends Agenda [A]:
+
+    import CalendarAgenda.{MIN_BUCKETS, SAMPLE}
+
+    private var time  = Array.ofDim [Double] (16)                  // key (activation time) of each entry
+    private var seq   = Array.ofDim [Long] (16)                    // enqueue sequence number (tie-breaker)
+    private var item  = Array.ofDim [AnyRef] (16)                  // the item of each entry
+    private var link  = Array.ofDim [Int] (16)                     // next entry in the bucket (or free list)
+    private var free  = -1                                         // head of the free list
+    private var used  = 0                                          // number of entry slots ever used
+
+    private var heads = Array.fill (MIN_BUCKETS)(-1)               // first entry of each bucket (-1 if empty)
+    private var nb    = MIN_BUCKETS                                // number of buckets (days in a year)
+    private var width = 1.0                                        // time span of a bucket (day)
+    private var cur   = 0L                                         // current day, counted from time 0
+    private var n     = 0                                          // number of items
+    private var count = 0L                                         // number of items ever enqueued
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return the day (virtual bucket) of time t and the bucket of day v.
+     */
+    private inline def day (t: Double): Long = math.floor (t / width).toLong
+    private inline def bucket (v: Long): Int = java.lang.Math.floorMod (v, nb.toLong).toInt
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return whether entry e1 goes before entry e2 (by time, then sequence).
+     */
+    private inline def before (e1: Int, e2: Int): Boolean =
+        time(e1) < time(e2) || time(e1) == time(e2) && seq(e1) < seq(e2)
+
+    def size: Int = n
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Add the item to the agenda, keyed on its current activation time.
+     *  @param it  the item to add
+     */
+    def += (it: A): this.type =
+        val e = alloc ()
+        time(e) = it.actTime
+        seq(e)  = count
+        item(e) = it
+        count  += 1
+        insert (e)
+        if n > 2 * nb then resize (2 * nb)
+        this
+    end +=
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Remove and return the item with the earliest activation time (null if empty).
+     */
+    def dequeue (): A =
+        if n == 0 then return null.asInstanceOf [A]
+        val e  = unlinkMin ()
+        val it = item(e).asInstanceOf [A]
+        item(e) = null
+        link(e) = free; free = e
+        if n < nb / 2 && nb > MIN_BUCKETS then resize (nb / 2)
+        it
+    end dequeue
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Remove all items from the agenda.
+     */
+    def clear (): Unit =
+        Arrays.fill (item, null)
+        heads = Array.fill (MIN_BUCKETS)(-1)
+        nb    = MIN_BUCKETS
+        free  = -1; used = 0; n = 0; cur = 0L
+    end clear
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return the items in the order they would be dequeued (by time, then
+     *  sequence), leaving them in the agenda.
+     */
+    def items: IndexedSeq [A] =
+        val es = Array.ofDim [Int] (n)
+        var k  = 0
+        for h <- heads do
+            var e = h
+            while e >= 0 do { es(k) = e; k += 1; e = link(e) }
+        end for
+        es.sortInPlaceWith ((e1, e2) => before (e1, e2))
+        es.toIndexedSeq.map (e => item(e).asInstanceOf [A])
+    end items
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return a free entry slot, growing the arrays when all are used.
+     */
+    private def alloc (): Int =
+        if free >= 0 then
+            val e = free; free = link(e); e
+        else
+            if used == time.length then
+                val len = 2 * used
+                time = Arrays.copyOf (time, len); seq  = Arrays.copyOf (seq, len)
+                item = Arrays.copyOf (item, len); link = Arrays.copyOf (link, len)
+            end if
+            used += 1
+            used - 1
+        end if
+    end alloc
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Insert entry e into its bucket, keeping the bucket sorted.
+     *  @param e  the entry to insert
+     */
+    private def insert (e: Int): Unit =
+        val v = day (time(e))
+        val b = bucket (v)
+        var p = -1
+        var q = heads(b)
+        while q >= 0 && before (q, e) do { p = q; q = link(q) }
+        link(e) = q
+        if p < 0 then heads(b) = e else link(p) = e
+        if n == 0 || v < cur then cur = v                          // an item earlier than the current day
+        n += 1
+    end insert
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Unlink and return the earliest entry: scan a year of days from the current
+     *  one, then (a sparse calendar) search the bucket heads directly.
+     */
+    private def unlinkMin (): Int =
+        var k = 0
+        while k < nb do
+            val b = bucket (cur)
+            val h = heads(b)
+            if h >= 0 && day (time(h)) <= cur then
+                heads(b) = link(h); n -= 1
+                return h
+            end if
+            cur += 1; k += 1
+        end while
+
+        var m = -1
+        for b <- 0 until nb do
+            val h = heads(b)
+            if h >= 0 && (m < 0 || before (h, m)) then m = h
+        end for
+        cur = day (time(m))
+        heads(bucket (cur)) = link(m); n -= 1
+        m
+    end unlinkMin
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Change the number of buckets, first re-estimating the width as three times
+     *  the average separation of the earliest items (ignoring outliers).
+     *  @param nb_  the new number of buckets
+     */
+    private def resize (nb_ : Int): Unit =
+        val k = math.min (n, SAMPLE)
+        val s = Array.fill (k)(unlinkMin ())                       // the k earliest entries, in order
+        if k > 1 then
+            val avg = (time(s(k-1)) - time(s(0))) / (k - 1)
+            var sum = 0.0
+            var m   = 0
+            for i <- 1 until k do
+                val d = time(s(i)) - time(s(i-1))
+                if d <= 2 * avg then { sum += d; m += 1 }
+            end for
+            if sum > 0.0 then width = 3 * sum / m
+        end if
+
+        val old = heads
+        heads = Array.fill (nb_)(-1)
+        nb    = nb_
+        n     = 0
+        for h0 <- old do
+            var h = h0
+            while h >= 0 do { val nx = link(h); insert (h); h = nx }
+        end for
+        for e <- s do insert (e)
+    end resize
+
+end CalendarAgenda
+
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `CalendarAgenda` companion object provides the sizing constants.
+ */
+object CalendarAgenda:
+
+    private val MIN_BUCKETS = 2                                    // fewest buckets
+    private val SAMPLE      = 25                                   // items sampled to estimate the width
+
+end CalendarAgenda
+
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `agendaBenchmark` main function compares the agendas on the hold model:
+ *  n items in the agenda, each hold dequeues the earliest and enqueues it again
+ *  an exponential increment later.  The increments come from a fixed random
+ *  stream, so the item order is the same on every run (checked across agendas
+ *  by a checksum of the dequeued times).
+ *  > runMain scalation.simulation.process.agendaBenchmark
+ */
+@main def agendaBenchmark (): Unit =
+
+    class Item extends Temporal
+
+    val holds = 2000000
+    println ("items       kind        ns/hold     checksum")
+    for n <- Seq (100, 10000, 1000000); kind <- Seq ("heap", "calendar") do
+        val rng    = Exponential (1.0, 7)
+        val agenda = Agenda [Item] (kind)
+        for _ <- 0 until n do
+            val it = Item ()
+            it.actTime = rng.gen
+            agenda += it
+        end for
+        var sum = 0.0
+        val t0  = System.nanoTime ()
+        for _ <- 0 until holds do
+            val it = agenda.dequeue ()
+            sum += it.actTime
+            it.actTime += rng.gen
+            agenda += it
+        end for
+        val ns = (System.nanoTime () - t0).toDouble / holds
+        println (f"$n%-11d $kind%-10s $ns%8.1f   $sum%.6e")
+    end for
+
+end agendaBenchmark
+
+
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `agendaTest` main function checks both agendas against a reference queue
+ *  ordered by (time, enqueue order) on random workloads: holds with ties, zero,
+ *  exponential, huge and backward increments, bursts of equal times growing the
+ *  calendar and drains shrinking it.  The `CalendarAgenda` must dequeue exactly
+ *  the reference items (ties FIFO), the `HeapAgenda` items of the same times;
+ *  `items` must list the dequeue order.
+ *  > runMain scalation.simulation.process.agendaTest
+ */
+@main def agendaTest (): Unit =
+
+    import scala.collection.mutable.ArrayBuffer
+
+    class Item (val ix: Int) extends Temporal
+
+    type Entry = (Double, Long, Int)                                // (time, sequence, item index)
+
+    val rng   = scala.util.Random (11)
+    val cal   = CalendarAgenda [Item] ()
+    val heap  = HeapAgenda [Item] ()
+    val ref   = PriorityQueue.empty [Entry] (using Ordering.by [Entry, (Double, Long)] (e => (e._1, e._2)).reverse)
+    val calIt = ArrayBuffer [Item] ()
+    val hpIt  = ArrayBuffer [Item] ()
+    var seq   = 0L
+    var ops   = 0
+
+    def add (c: Item, h: Item, id: Int, t: Double): Unit =
+        c.actTime = t; cal += c
+        h.actTime = t; heap += h
+        ref += ((t, seq, id)); seq += 1
+    end add
+
+    def create (t: Double): Unit =
+        val id = calIt.size
+        calIt += Item (id); hpIt += Item (id)
+        add (calIt(id), hpIt(id), id, t)
+    end create
+
+    def take (): (Item, Item, Entry) =
+        val e = ref.dequeue ()
+        val c = cal.dequeue ()
+        val h = heap.dequeue ()
+        ops += 1
+        assert (c.ix == e._3 && c.actTime == e._1, s"op $ops: calendar gave ${c.ix} at ${c.actTime}, expected ${e._3} at ${e._1}")
+        assert (h.actTime == e._1, s"op $ops: heap gave ${h.actTime}, expected ${e._1}")
+        (c, h, e)
+    end take
+
+    def hold (inc: Double): Unit =
+        val (c, h, e) = take ()
+        add (c, h, e._3, e._1 + inc)
+    end hold
+
+    def increment (): Double =
+        rng.nextInt (10) match
+        case 0 | 1 => 0.0                                           // a tie with the current time
+        case 2     => rng.nextInt (3).toDouble                      // ties among whole times
+        case 3     => if rng.nextInt (100) == 0 then 1e6 else 0.5   // a rare far future
+        case 4     => -rng.nextDouble ()                            // into the past
+        case _     => -math.log (1.0 - rng.nextDouble ())           // exponential
+    end increment
+
+    def check (): Unit =
+        assert (cal.size == ref.size && heap.size == ref.size, s"sizes ${cal.size}, ${heap.size}, expected ${ref.size}")
+        val order = ref.clone ().dequeueAll
+        assert (cal.items.map (_.ix) == order.map (_._3), "calendar items out of order")
+        assert (heap.items.map (_.actTime) == order.map (_._1), "heap items out of order")
+    end check
+
+    for round <- 0 until 3 do
+        for _ <- 0 until 1000 do create (math.rint (rng.nextDouble () * 100) / 2)   // many ties
+        check ()
+        for _ <- 0 until 50000 do hold (increment ())
+        check ()
+        while ref.size > 10 do take ()                              // shrink the calendar
+        val now = ref.head._1
+        for _ <- 0 until 5000 do create (now)                       // a burst of equal times
+        create (now - 1.0); create (now + 1e9)
+        for _ <- 0 until 20000 do hold (increment ())
+        check ()
+        while ref.nonEmpty do take ()
+        assert (cal.isEmpty && heap.isEmpty, "agendas not empty")
+        assert (cal.dequeue () == null, "an empty calendar dequeued an item")
+        if round == 1 then { cal.clear (); heap.clear () }         // reuse after clear
+    end for
+
+    create (3.0); create (1.0); create (3.0)
+    cal.clear (); heap.clear (); ref.clear ()
+    assert (cal.isEmpty && cal.items.isEmpty && heap.isEmpty, "clear left items")
+    create (2.0); create (2.0); create (1.0)
+    check ()
+    while ref.nonEmpty do take ()
+    println (s"agendaTest: $ops dequeues matched the reference order")
+
+end agendaTest
@@ -12,6 +12,8 @@ package scalation
 package simulation
 package process
 
+import java.io.{DataInput, DataOutput}
+
 import scala.collection.mutable.{ArrayBuffer => VEC}
 //import scala.collection.mutable.{ListBuffer => VEC}
 
@@ -129,5 +131,36 @@ trait Component
      */
     def persistentStat: TimeStatistic = _persistentStat
 
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Restart this component's statistics (and those of its subparts) at the
+     *  given time, e.g., when a model is restored from a `Snapshot`.
+     *  @param time  the time observation begins
+     */
+    private [process] def restartStats (time: Double): Unit =
+        _durationStat.reset ()
+        if _persistentStat != null then _persistentStat = new TimeStatistic ("p-" + name, time, time)
+        for p <- subpart do p.restartStats (time)
+    end restartStats
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return the actors waiting in this component (none, except for queues).
+     */
+    private [process] def waiting: Iterable [SimActor] = Nil
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Write the state of this component for a `Snapshot` (none by default, for
+     *  components holding no actors and no counts, e.g., `Sink`).
+     *  @param out    the output to write to
+     *  @param index  the index of each actor saved in the snapshot
+     */
+    private [process] def saveState (out: DataOutput, index: SimActor => Int): Unit = ()
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Read the state written by 'saveState' into this component.
+     *  @param in     the input to read from
+     *  @param actor  the restored actor of each index
+     */
+    private [process] def restoreState (in: DataInput, actor: Int => SimActor): Unit = ()
+
 end Component
 
@@ -12,6 +12,8 @@ package scalation
 package simulation
 package process
 
+import java.io.{DataInput, DataOutput}
+
 import scala.collection.mutable.{ArrayBuffer => VEC}
 import scala.runtime.ScalaRunTime.stringOf
 import scala.util.control.Breaks.{breakable, break}
@@ -49,6 +51,7 @@ class Gate (name: String, director: Model, line: WaitQueue, units: Int,
     private val flaw  = flawf ("Gate")                               // flaw function
  
     private var _shut = shut0                                        // initial value for _shut
+    private var cycle = 0                                            // number of phases begun
 
     debug ("init", s"name = $name with cor_id , located at ${stringOf (at)}")
 
@@ -106,7 +109,8 @@ class Gate (name: String, director: Model, line: WaitQueue, units: Int,
     /** Specifies how the gate is controlled.
      */
     override def act (): Unit =
-        for i <- 1 to units do
+        while cycle < units do
+            cycle += 1
             flip ()
             if ! _shut then release ()
             director.animate (this, SetPaintNode, gateColor, Rectangle (), at)            
@@ -114,10 +118,31 @@ class Gate (name: String, director: Model, line: WaitQueue, units: Int,
             tally (dur)    
             schedule (dur)
             yieldToDirector ()
-        end for
+        end while
         yieldToDirector (true)    
     end act
 
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Save whether the gate is shut and the number of phases begun.
+     *  @param out    the output to write to
+     *  @param index  the index of each actor saved in the snapshot
+     */
+    override private [process] def saveState (out: DataOutput, index: SimActor => Int): Unit =
+        out.writeBoolean (_shut)
+        out.writeInt (cycle)
+    end saveState
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Restore whether the gate is shut and the number of phases begun, so it
+     *  begins the next phase when it next acts.
+     *  @param in     the input to read from
+     *  @param actor  the restored actor of each index
+     */
+    override private [process] def restoreState (in: DataInput, actor: Int => SimActor): Unit =
+        _shut = in.readBoolean ()
+        cycle = in.readInt ()
+    end restoreState
+
     //:::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
     /** Return the current color of the gate which indicates (within the animation)
      *  whether the gate is open or closed.
@@ -56,7 +56,6 @@ class Junction (name: String, jTime: Variate, at: Array [Double], nt: Int)
         val ctime = director.clock
         tally(duration)
         accum(onJunction)
-        println(s"Taking record at the Junction:$name")
         record(actor, ctime)
         onJunction += 1
         director.log.trace(this, s"jump for $duration", actor, director.clock)
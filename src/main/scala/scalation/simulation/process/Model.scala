@@ -12,21 +12,32 @@ package scalation
 package simulation
 package process
 
+import java.io.{ByteArrayOutputStream, DataInputStream, DataOutputStream}
+import java.util.IdentityHashMap
+import java.util.concurrent.{Callable, Executors}
+import java.util.concurrent.atomic.AtomicInteger
+
 import scala.collection.mutable.{ArrayBuffer => VEC}
-import scala.collection.mutable.{LinkedHashMap, PriorityQueue}
+import scala.collection.mutable.LinkedHashMap
 import scala.runtime.ScalaRunTime.stringOf
 
 import scalation.animation.{AnimateCommand, CommandType, DgAnimator}
 import scalation.mathstat._
+import scalation.random.{RandomSeeds, Variate}
 import scalation.scala2d.Colors._
 import scalation.scala2d.Shape
 
 //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
 /** The `Model` class maintains a list of components making up the model and
  *  controls the flow of entities (`SimActor`s) through the model, following the
- *  process-interaction world-view.  It maintains a time-ordered priority queue
+ *  process-interaction world-view.  It maintains a time-ordered agenda (`Agenda`)
  *  to activate/re-activate each of the entities.  Each entity (`SimActor`) is
  *  implemented as a `Coroutine` and may be thought of as running in its own thread.
+ *  Dequeues (with the agenda size) and replications (with their dequeue rate) are
+ *  reported as metrics and JFR events (see `SimEvents`).
+ *  The model may be checkpointed at a simulated time (`checkpointAt`) and a model
+ *  of the same structure forked from the `Snapshot` (`simulateFrom`), so warm-up
+ *  is simulated once for many replications or parameter variants.
  *  @param name       the name of the simulation model
  *  @param reps       the number of independent replications to run
  *  @param animating  whether to animate the model
@@ -51,7 +62,7 @@ class Model (name: String, val reps: Int = 1, animating: Boolean = true, aniRati
     private [process] var numActors = 0                             // number of actors created so far
 
     protected var startTime = 0.0                                   // time at which the simulation is to begin
-    protected val agenda    = PriorityQueue.empty [SimActor]        // agenda of things to be done (time-ordered activation list)
+    protected val agenda    = Agenda [SimActor] ()                  // agenda of things to be done (time-ordered activation list)
     protected var _theActor: SimActor = null                        // currently acting actor (act one at a time)
 
     def isAnimating:Boolean = animating             // getter for animating;
@@ -70,6 +81,11 @@ class Model (name: String, val reps: Int = 1, animating: Boolean = true, aniRati
 
     private val parts    = VEC [Component] ()                       // List (VEC) of Components making up the model
 
+    private val tracked  = VEC [Variate] ()                         // variates whose stream positions are checkpointed
+    private var checkAt  = -1.0                                     // time to take a snapshot at (-1 => none)
+    private var onCheck: Snapshot => Unit = null                    // receiver of the snapshot
+    private var warm: Snapshot = null                               // snapshot the replications start from (null => none)
+
     /** The animation engine
      */
     private [simulation] val dgAni = if animating then new DgAnimator ("Process Animator", black, white,
@@ -112,15 +128,19 @@ class Model (name: String, val reps: Int = 1, animating: Boolean = true, aniRati
         // reset the agenda - activation priority queue
         while ! agenda.isEmpty do agenda.dequeue ()                 // clean out actors from agenda
 
-        // reset stateful components
-        for p <- parts do
-            if p.isInstanceOf [Source] then                         // reset sources
-                val s = p.asInstanceOf [Source]
-                reschedule (s)
-            if p.isInstanceOf [WaitQueue] then                      // reset wait queues
-                val w = p.asInstanceOf [WaitQueue]
-                while ! w.isEmpty do w.dequeue ()
-        end for
+        if warm != null then                                        // start again from the snapshot,
+            restore (warm, false, 0L)                               // continuing the random streams
+        else
+            // reset stateful components
+            for p <- parts do
+                if p.isInstanceOf [Source] then                     // reset sources
+                    val s = p.asInstanceOf [Source]
+                    reschedule (s)
+                if p.isInstanceOf [WaitQueue] then                  // reset wait queues
+                    val w = p.asInstanceOf [WaitQueue]
+                    while ! w.isEmpty do w.dequeue ()
+            end for
+        end if
     end reset
 
     //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
@@ -142,6 +162,189 @@ class Model (name: String, val reps: Int = 1, animating: Boolean = true, aniRati
         start ()                                                    // start the director thread/actor -> act ()
     end simulate
 
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Execute the simulation from a snapshot (taken of this model or one of the
+     *  same structure, e.g., with other parameters), instead of from the start.
+     *  Each replication starts from the snapshot and its statistics are collected
+     *  from the snapshot time on.  The tracked variates are put back at their
+     *  positions in their streams at the snapshot: if sameRandoms, the first
+     *  replication draws the numbers the snapshot's model drew after it, otherwise
+     *  the streams are first advanced `Model.SKIP_AHEAD` numbers, so neither the
+     *  warm-up's numbers nor those of its continuation are reused.  Later
+     *  replications continue the streams.
+     *  @param snap         the snapshot to start from
+     *  @param sameRandoms  whether to continue the random numbers of the snapshot's model
+     */
+    def simulateFrom (snap: Snapshot, sameRandoms: Boolean = true): Unit =
+        warm = snap
+        for p <- parts do
+            p.director = this
+            for q <- p.subpart do q.director = this
+        end for
+        restore (snap, true, if sameRandoms then 0L else Model.SKIP_AHEAD)
+        log.trace (this, s"starts from ${snap.model} at ${snap.clock}", this, _clock)
+
+        start ()                                                    // start the director thread/actor -> act ()
+    end simulateFrom
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Track the variates, saving their positions in their random number streams
+     *  in snapshots.  All the variates the model uses should be tracked (in the
+     *  same order in the models forked from its snapshots).
+     *  @param variates  the variates used by the components and scripts
+     */
+    def track (variates: Variate*): Unit = tracked ++= variates
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Take a snapshot of the model (first replication) when its clock reaches
+     *  the given time, i.e., before the first activation after it, and pass it
+     *  to saved (on the director's thread, with all actors suspended).
+     *  @param time   the simulated time, e.g., the end of warm-up
+     *  @param saved  the receiver of the snapshot (e.g., to save it to a file)
+     */
+    def checkpointAt (time: Double)(saved: Snapshot => Unit): Unit =
+        checkAt = time
+        onCheck = saved
+    end checkpointAt
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return the components of the model and their subparts.
+     */
+    private def allParts: VEC [Component] =
+        val all = VEC [Component] ()
+        def add (p: Component): Unit = { all += p; p.subpart.foreach (add) }
+        parts.foreach (add)
+        all
+    end allParts
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return a snapshot of the model at the given time, next being the actor just
+     *  dequeued (to be activated after the time).  Actors in the agenda or waiting
+     *  in a component are saved, those made by a source (others are left out).
+     *  @param time  the simulated time
+     *  @param next  the next actor to act
+     */
+    private def capture (time: Double, next: SimActor): Snapshot =
+        val comps  = allParts
+        val partIx = new IdentityHashMap [AnyRef, Int] ()
+        for i <- comps.indices do partIx.put (comps(i), i)
+
+        val actors = VEC [SimActor] ()
+        val index  = new IdentityHashMap [SimActor, Int] ()
+        def add (a: SimActor): Unit =
+            if ! index.containsKey (a) && ! partIx.containsKey (a) then
+                if a.mySource == null || ! partIx.containsKey (a.mySource) || a.isInstanceOf [Vehicle] then
+                    flaw ("capture", s"actor $a is not restorable (not made by a source or a vehicle): left out")
+                else
+                    index.put (a, actors.size)
+                    actors += a
+                end if
+            end if
+        end add
+
+        val items = next +: agenda.items
+        items.foreach (add)
+        for p <- comps; a <- p.waiting do add (a)
+        if tracked.isEmpty then flaw ("capture", "no variates tracked: random number streams not saved")
+
+        val bytes = new ByteArrayOutputStream ()
+        val out   = new DataOutputStream (bytes)
+        Snapshot.writeHeader (out, name, time)
+        out.writeInt (numActors)
+
+        val rngs = new ByteArrayOutputStream ()                     // stream positions (may be skipped)
+        val rout = new DataOutputStream (rngs)
+        rout.writeInt (tracked.size)
+        for v <- tracked do v.saveState (rout)
+        rout.flush ()
+        out.writeInt (rngs.size)
+        rngs.writeTo (out)
+
+        out.writeInt (actors.size)
+        for a <- actors do
+            out.writeInt (partIx.get (a.mySource))
+            out.writeInt (a.subtype)
+            out.writeInt (a.stage)
+            out.writeInt (if a.movingOn != null && partIx.containsKey (a.movingOn) then partIx.get (a.movingOn) else -1)
+            out.writeDouble (a.arrivalT)
+            a.save (out)
+        end for
+
+        val sched = items.filter (a => index.containsKey (a) || partIx.containsKey (a))
+        out.writeInt (sched.size)
+        for a <- sched do
+            val isPart = partIx.containsKey (a)
+            out.writeBoolean (isPart)
+            out.writeInt (if isPart then partIx.get (a) else index.get (a))
+            out.writeDouble (if a.stageEnd >= 0.0 then a.stageEnd else a.actTime)
+        end for
+
+        out.writeInt (comps.size)
+        for p <- comps do p.saveState (out, a => if index.containsKey (a) then index.get (a) else -1)
+        out.flush ()
+
+        val snap = new Snapshot (bytes.toByteArray)
+        debug ("capture", s"$snap: ${actors.size} actors, ${sched.size} scheduled")
+        snap
+    end capture
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Restore the state of the model from the snapshot: remake its actors, fill
+     *  the agenda and restore the components (and, if randoms, the positions of
+     *  the tracked variates in their streams, then advanced skip numbers).
+     *  @param snap     the snapshot to restore
+     *  @param randoms  whether to restore the streams of the tracked variates
+     *  @param skip     the number of random numbers to advance each stream after
+     */
+    private def restore (snap: Snapshot, randoms: Boolean, skip: Long): Unit =
+        val in: DataInputStream = snap.input
+        val comps = allParts
+        startTime = snap.clock
+        _clock    = startTime
+        numActors = in.readInt ()
+
+        val nBytes = in.readInt ()
+        if randoms then
+            val n = in.readInt ()
+            if n != tracked.size then
+                flaw ("restore", s"snapshot has $n tracked variates, model has ${tracked.size}")
+                in.skipBytes (nBytes - 4)
+            else
+                for v <- tracked do v.restoreState (in)
+            end if
+            if skip > 0L then for v <- tracked do v.skip (skip)
+        else
+            in.skipBytes (nBytes)
+        end if
+
+        val actors = Array.fill (in.readInt ()) {
+            val src   = comps (in.readInt ()).asInstanceOf [Source]
+            val a     = src.make ()
+            a.mySource = src
+            a.subtype  = in.readInt ()
+            a.stage    = in.readInt ()
+            val on     = in.readInt ()
+            a.movingOn = if on >= 0 then comps(on).asInstanceOf [Transport] else null
+            a.arrivalT = in.readDouble ()
+            a.restore (in)
+            a
+        }
+
+        agenda.clear ()
+        for _ <- 0 until in.readInt () do
+            val isPart = in.readBoolean ()
+            val i      = in.readInt ()
+            val a      = if isPart then comps(i).asInstanceOf [SimActor] else actors(i)
+            a.actTime  = in.readDouble ()
+            agenda += a
+        end for
+
+        val n = in.readInt ()
+        if n != comps.size then flaw ("restore", s"snapshot has $n components, model has ${comps.size}")
+        for p <- comps.take (n) do p.restoreState (in, i => if i >= 0 then actors(i) else null)
+        debug ("restore", s"$snap: ${actors.length} actors, ${agenda.size} scheduled")
+    end restore
+
     //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
     /** Cleanup the agenda and any stateful components.  Any actors left in the
      *  agenda or a wait queue must be terminated.  The model (i.e., the director)
@@ -228,14 +431,26 @@ class Model (name: String, val reps: Int = 1, animating: Boolean = true, aniRati
 
         for rep <- 1 to reps do                                         // LOOP THROUGH REPLICATIONS
             _clock = startTime                                          //Initialize the clock at StartTime
+            if warm != null then for p <- parts do p.restartStats (startTime)   // statistics from the snapshot on
             if rep == 1 && animating then display()                     // turn animation on (true) off (false)
 
             log.trace(this, s"starts rep $rep", null, _clock)           // log this simulation
 
             simulating = true                                           // Start the simulation as true,
+            val repEvent = SimEvents.replicationStarted ()              // JFR event/metrics (see SimEvents)
+            val repStart = System.nanoTime ()
+            var nDequeued = 0L
+            var maxAgenda = 0
 
             while simulating && !agenda.isEmpty do                      // INNER SCHEDULING LOOP
+                if agenda.size > maxAgenda then maxAgenda = agenda.size
                 _theActor = agenda.dequeue()                            // get next actor from priority queue
+                nDequeued += 1
+                if checkAt >= 0.0 && _theActor.actTime > checkAt then   // all actors suspended at checkAt
+                    onCheck (capture (checkAt, _theActor))
+                    checkAt = -1.0
+                end if
+                SimEvents.dequeued (name, _theActor.actTime, agenda.size)
                 if _theActor.actTime < clock then
                     flaw("act", s"actor $_theActor activation time < $_clock")
                     println("QUIT")
@@ -248,15 +463,14 @@ class Model (name: String, val reps: Int = 1, animating: Boolean = true, aniRati
                     else
                         if isAnimating then dgAni.updateActorCount(numActors)
                         debug("act", s"${this.me} resumes ${_theActor} at clock= $clock")
-                        println(s"This RESUME @@@@@@")
                         log.trace(this, "resumes", _theActor, _clock)
                         yyield(_theActor) // yield to actor
                         debug ("act", s"after yyield at clock $clock")
-                        println(s"After the yyield: RESUME @@@@@@")
                 end if
             end while
 
             simulating = false
+            SimEvents.replicationEnded (repEvent, repStart, name, rep, nDequeued, maxAgenda)
             log.trace(this, s"ends rep $rep", null, _clock)
 
             fini(rep)
@@ -356,6 +570,12 @@ class Model (name: String, val reps: Int = 1, animating: Boolean = true, aniRati
             stat.reset ()
     end resetStats
 
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return the means of each statistic recorded for each replication/batch
+     *  (filled in by `resetStats`).
+     */
+    def statMeans: LinkedHashMap [String, VectorD] = statV
+
     //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
     /** Return the statistical results of the simulation (statistics for each part).
      *  This includes the sample/duration statistics and if 'full', time persistent
@@ -389,18 +609,7 @@ class Model (name: String, val reps: Int = 1, animating: Boolean = true, aniRati
      *  in statV (may include multiple replications/batches).
      *  @param showMeans  whether to show the individual run/batch means
      */
-    protected def reportV (showMeans: Boolean = false): Unit =
-        banner (s"Summary over replications/batches")
-        println (Statistic.line)
-        println (Statistic.labels)
-        println (Statistic.line)
-        if showMeans then println (s"reportV: MEANS statV = $statV")
-        for (k, v) <- statV do
-            val aStat = new Statistic (k)
-            aStat.tallyVec (v)
-            println (aStat)
-        println (Statistic.line)
-    end reportV
+    protected def reportV (showMeans: Boolean = false): Unit = Model.reportV (statV, showMeans)
 
     //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
     /** Report on the statistical results of the simulation in a new GUI window/frame.
@@ -411,20 +620,122 @@ end Model
 
 
 //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
-/** The `Model` companion object provides a shutdown method.
+/** The `Model` companion object provides a shutdown method, parallel independent
+ *  replications and the reports summarizing replications.
  */
 object Model:
 
+    private val debug = debugf ("Model", false)                     // debug function
+    private val flaw  = flawf ("Model")                             // flaw function
+
+    private val running = AtomicInteger ()                          // number of replication runs in progress
+
+    /** The random numbers each tracked variate's stream is advanced when a model
+     *  forks from a snapshot with other random numbers (see `simulateFrom`)
+     */
+    val SKIP_AHEAD = 1L << 22
+
     //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
     /** Shutdown the Model execution infrastructure (WARNING: this method should
      *  only be called right before program termination).  Make sure all threads
      *  have finished (e.g., call `waitFinished`), not just the main thread.
-     *  If `shutdown` is not called, the application may hang.
+     *  If `shutdown` is not called, the application may hang.  Ignored while
+     *  `replicate` is running (models shutting down at the end of their own run),
+     *  so call it again once `replicate` returns (as `runBankReps` does).
      */
-
     def shutdown (): Unit =
-        Recorder.shutdownRecorder()
-        Coroutine.shutdown ()
+        if running.get > 0 then
+            debug ("shutdown", "deferred until the replications finish")
+        else
+            Recorder.shutdownRecorder()
+            Coroutine.shutdown ()
+        end if
+    end shutdown
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Run independent replications concurrently, each on its own model instance
+     *  built and run by make (rep, stream) for rep = 1, ... reps, and return the
+     *  means of each statistic over all replications (in replication order).
+     *  Replication rep gets the random number streams from stream + (rep-1) *
+     *  streamsPerRep, so its results depend only on rep, not on the number of
+     *  threads or the order in which replications finish.
+     *  The models must not share mutable state (e.g., the global `SimActor.alist`
+     *  or `Recorder`) and should not animate.
+     *  @see `runBankReps` in example_1
+     *  @param reps           the number of independent replications
+     *  @param parallelism    the number of replications run at the same time
+     *  @param stream         the base random number stream (0 to 999)
+     *  @param streamsPerRep  the number of streams a model uses (stream, stream+1, ...)
+     *  @param make           build and run (e.g., in its constructor) the model for
+     *                        a replication and its base stream (reps should be 1)
+     */
+    def replicate (reps: Int, parallelism: Int = Runtime.getRuntime.availableProcessors,
+                   stream: Int = 0, streamsPerRep: Int = 10)
+                  (make: (Int, Int) => Model): LinkedHashMap [String, VectorD] =
+        val nStreams = RandomSeeds.seeds.length
+        if reps * streamsPerRep > nStreams then
+            flaw ("replicate", s"$reps replications x $streamsPerRep streams exceed $nStreams streams: streams reused")
+
+        val exec = Executors.newFixedThreadPool (math.max (1, parallelism))
+        running.incrementAndGet ()
+        val means =
+            try
+                val runs = for rep <- 1 to reps yield
+                    val s = (stream + (rep - 1) * streamsPerRep) % nStreams
+                    exec.submit (new Callable [LinkedHashMap [String, VectorD]] {
+                        def call (): LinkedHashMap [String, VectorD] =
+                            debug ("replicate", s"rep $rep uses streams from $s")
+                            make (rep, s).statMeans
+                    })
+                runs.map (_.get)                                    // in replication order
+            finally
+                exec.shutdown ()
+                running.decrementAndGet ()
+            end try
+
+        val merged = LinkedHashMap [String, VectorD] ()
+        for m <- means; (k, v) <- m do
+            merged (k) = if merged contains k then merged (k) ++ v else v
+        merged
+    end replicate
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Report on the statistical results over replications/batches given the
+     *  means of each statistic for each replication/batch.
+     *  @param statV      the means of each statistic for each replication/batch
+     *  @param showMeans  whether to show the individual run/batch means
+     */
+    def reportV (statV: LinkedHashMap [String, VectorD], showMeans: Boolean = false): Unit =
+        banner (s"Summary over replications/batches")
+        println (Statistic.line)
+        println (Statistic.labels)
+        println (Statistic.line)
+        if showMeans then println (s"reportV: MEANS statV = $statV")
+        for stat <- summary (statV) do println (stat)
+        println (Statistic.line)
+    end reportV
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Report on the statistical results over replications/batches in a new GUI
+     *  window/frame.
+     *  @param name   the name of the model
+     *  @param statV  the means of each statistic for each replication/batch
+     */
+    def reportF (name: String, statV: LinkedHashMap [String, VectorD]): Unit =
+        new StatTable (s"$name statistics over replications", summary (statV))
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return a statistic for each statistic name, tallying its means.
+     *  @param statV  the means of each statistic for each replication/batch
+     */
+    private def summary (statV: LinkedHashMap [String, VectorD]): VEC [Statistic] =
+        val stats = VEC [Statistic] ()
+        for (k, v) <- statV do
+            val aStat = new Statistic (k)
+            aStat.tallyVec (v)
+            stats += aStat
+        stats
+    end summary
 
 end Model
 
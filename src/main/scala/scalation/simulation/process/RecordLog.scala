@@ -0,0 +1,352 @@
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** @author  John Miller
+ *  @version 2.0
+ *  @date    Sat Oct 17 10:15:00 EDT 2026
+ *  @see     LICENSE (MIT style license file).
+ *
+ *  @note    Asynchronous Recording of Primitive (time, key, value) Records
+ */
+
+package scalation
+package simulation
+package process
+
+import java.io.{BufferedWriter, IOException}
+import java.nio.{ByteBuffer, ByteOrder}
+import java.nio.channels.FileChannel
+import java.nio.charset.StandardCharsets
+import java.nio.file.{Files, Path, StandardOpenOption}
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.locks.LockSupport
+
+import scala.collection.mutable.HashSet
+import scala.jdk.CollectionConverters._
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `RecordRing` class is a ring buffer of primitive (time, key, value)
+ *  records, e.g., (time, laneID, speed) for a sensor.  The simulation appends
+ *  records (`add` allocates nothing and does no I/O) and the writer thread of
+ *  `RecordLog` drains them in batches to the ring's file.  There is one producer
+ *  at a time (the coroutines of a model hand over control one at a time) and one
+ *  consumer (the writer).  A full ring makes the producer wait for the writer,
+ *  so no record is lost (while the writer runs).  Once `RecordLog.close` has
+ *  closed the ring (or the writer has stopped with the ring full), records added
+ *  to it are dropped: the first with a flaw, all counted by 'dropped', so a lossy
+ *  recording is not taken for a complete one.  Users of a ring that may outlive
+ *  the log get a new one from `RecordLog.reopen`.
+ *  @param name      the name of the ring (and its file)
+ *  @param keyName   the column name of the keys (e.g., "lane")
+ *  @param valName   the column name of the values (e.g., "speed")
+ *  @param capacity  the number of records the ring holds (a power of 2)
+ */
+class RecordRing private [process] (val name: String, val keyName: String, val valName: String,
+                                    capacity: Int = 1 << 14):
+
+    private val flaw = flawf ("RecordRing")                         // flaw function
+
+    private val mask = capacity - 1
+    private val time = Array.ofDim [Double] (capacity)
+    private val key  = Array.ofDim [Int] (capacity)
+    private val vals = Array.ofDim [Double] (capacity)
+
+    @volatile private var head = 0L                                  // records added (written by the producer)
+    @volatile private var tail = 0L                                  // records drained (written by the writer)
+
+    /** Whether `RecordLog.close` has drained and closed the ring's file
+     */
+    @volatile private [process] var closed = false
+
+    @volatile private var _dropped = 0L                              // records dropped (written by the producer)
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Append the record (t, k, v), waiting for the writer while the ring is full.
+     *  @param t  the time
+     *  @param k  the key (e.g., lane)
+     *  @param v  the value (e.g., speed)
+     */
+    def add (t: Double, k: Int, v: Double): Unit =
+        if closed then { drop (s"ring $name is closed"); return }
+        val h = head
+        if h - tail == capacity then
+            while h - tail == capacity && RecordLog.running do
+                RecordLog.wakeWriter ()
+                LockSupport.parkNanos (100000L)
+            end while
+            if h - tail == capacity then { drop (s"ring $name is full and its writer stopped"); return }
+        end if
+        val i = (h & mask).toInt
+        time(i) = t; key(i) = k; vals(i) = v
+        head = h + 1                                                 // publish the record
+        if h - tail == capacity / 2 then RecordLog.wakeWriter ()     // half full: drain now
+    end add
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Count a record that could not be added, flawing the first one.
+     *  @param why  why the record is dropped
+     */
+    private def drop (why: String): Unit =
+        if _dropped == 0L then flaw ("add", s"$why: records dropped (see 'dropped')")
+        _dropped += 1
+    end drop
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return the number of records dropped, added after the ring was closed or
+     *  while it was full with the writer stopped.
+     */
+    def dropped: Long = _dropped
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return the number of records waiting to be drained.
+     */
+    def size: Int = (head - tail).toInt
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Drain the waiting records to the sink, returning their number (writer only).
+     *  @param sink  the sink receiving the records
+     */
+    private [process] def drain (sink: RecordSink): Int =
+        val t0 = tail
+        val h  = head
+        var j  = t0
+        while j < h do
+            val i = (j & mask).toInt
+            sink.put (time(i), key(i), vals(i))
+            j += 1
+        end while
+        tail = h                                                     // free the slots
+        (h - t0).toInt
+    end drain
+
+end RecordRing
+
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `RecordSink` trait writes drained records to a file.
+ */
+trait RecordSink:
+
+    def put (t: Double, k: Int, v: Double): Unit
+    def flush (): Unit
+    def close (): Unit
+
+end RecordSink
+
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `CsvRecordSink` class writes records as CSV lines "time,key,value"
+ *  after a header line naming the columns.
+ *  @param path  the path of the file
+ *  @param ring  the ring whose records are written
+ */
+class CsvRecordSink (path: Path, ring: RecordRing) extends RecordSink:
+
+    private val out: BufferedWriter = Files.newBufferedWriter (path, StandardCharsets.UTF_8)
+    out.write (s"time,${ring.keyName},${ring.valName}\n")
+
+    def put (t: Double, k: Int, v: Double): Unit =
+        out.write (t.toString); out.write (','); out.write (k.toString)
+        out.write (','); out.write (v.toString); out.write ('\n')
+    end put
+
+    def flush (): Unit = out.flush ()
+    def close (): Unit = out.close ()
+
+end CsvRecordSink
+
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `BinaryRecordSink` class writes records as little endian (double time,
+ *  int key, double value), 20 bytes each, with no header.
+ *  @param path  the path of the file
+ */
+class BinaryRecordSink (path: Path) extends RecordSink:
+
+    private val ch  = FileChannel.open (path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                        StandardOpenOption.TRUNCATE_EXISTING)
+    private val buf = ByteBuffer.allocateDirect (1 << 16).order (ByteOrder.LITTLE_ENDIAN)
+
+    def put (t: Double, k: Int, v: Double): Unit =
+        if buf.remaining < 20 then flush ()
+        buf.putDouble (t).putInt (k).putDouble (v)
+    end put
+
+    def flush (): Unit =
+        buf.flip ()
+        while buf.hasRemaining do ch.write (buf)
+        buf.clear ()
+    end flush
+
+    def close (): Unit = { flush (); ch.close () }
+
+end BinaryRecordSink
+
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `RecordLog` object keeps the rings and the (daemon) writer thread that
+ *  drains them, every 50 ms or as soon as a ring is half full, each to its file
+ *  LOG_DIR/recorder/<name>.csv (or .bin).  Recording is on unless the system
+ *  property scalation.recorder is "off"; the format is csv unless it is "binary".
+ *  When off, no ring, file or thread is created and `Recorder`s only keep their
+ *  count and speed matrices.
+ */
+object RecordLog:
+
+    private val flaw = flawf ("RecordLog")                          // flaw function
+
+    private val mode   = sys.props.getOrElse ("scalation.recorder", "csv")
+    private val period = 50000000L                                  // nanoseconds between drains
+
+    /** Whether records are kept (set before the model runs)
+     */
+    var enabled: Boolean = mode != "off"
+
+    /** Whether records are written in binary (rather than CSV)
+     */
+    var binary: Boolean = mode == "binary"
+
+    private val rings = CopyOnWriteArrayList [(RecordRing, RecordSink)] ()
+    private val names = HashSet [String] ()                         // file names in use
+    @volatile private var writer: Thread = null
+    @volatile private var stopping = false
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return a new ring writing to the file for the given name, made unique
+     *  (e.g., a sensor of several replications) by a suffix _2, _3, ...
+     *  The writer is started with the first ring.
+     *  @param name     the name of the ring and its file
+     *  @param keyName  the column name of the keys
+     *  @param valName  the column name of the values
+     */
+    def ring (name: String, keyName: String, valName: String): RecordRing = synchronized {
+        var file = name
+        var k    = 1
+        while names contains file do { k += 1; file = s"${name}_$k" }
+        names += file
+        val r    = new RecordRing (file, keyName, valName)
+        val dir  = Path.of (LOG_DIR, "recorder")
+        Files.createDirectories (dir)
+        val sink = if binary then BinaryRecordSink (dir.resolve (file + ".bin"))
+                   else CsvRecordSink (dir.resolve (file + ".csv"), r)
+        rings.add ((r, sink))
+        if writer == null then
+            stopping = false
+            writer = Thread.ofPlatform ().name ("RecordLog").daemon (true).start (() => writeLoop ())
+        r
+    }
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return the given ring while it is open, else (none yet, or closed by `close`,
+     *  e.g., for a recorder of a model run again) a new ring for the name.
+     *  @param r        the ring in use, or null
+     *  @param name     the name of the ring and its file
+     *  @param keyName  the column name of the keys
+     *  @param valName  the column name of the values
+     */
+    def reopen (r: RecordRing, name: String, keyName: String, valName: String): RecordRing =
+        if r != null && ! r.closed then r else ring (name, keyName, valName)
+    end reopen
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return whether the writer is draining the rings.
+     */
+    private [process] def running: Boolean = writer != null && enabled
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Wake the writer to drain the rings now.
+     */
+    private [process] def wakeWriter (): Unit =
+        val w = writer
+        if w != null then LockSupport.unpark (w)
+    end wakeWriter
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Drain all rings to their sinks, returning the number of records drained.
+     */
+    private def drainAll (): Int =
+        var n = 0
+        for (r, s) <- rings.asScala do n += r.drain (s)
+        n
+    end drainAll
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** The writer: drain and flush until stopped.
+     */
+    private def writeLoop (): Unit =
+        try
+            while ! stopping do
+                if drainAll () > 0 then for (_, s) <- rings.asScala do s.flush ()
+                LockSupport.parkNanos (period)
+            end while
+        catch case ex: IOException =>
+            flaw ("writeLoop", s"recording stopped: $ex")
+            enabled = false
+        end try
+    end writeLoop
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Stop the writer, drain the remaining records and close the rings and their
+     *  files.  Call when the simulation (all replications) has ended.  The file
+     *  names stay taken, so rings made later (see `reopen`) do not overwrite them.
+     */
+    def close (): Unit = synchronized {
+        val w = writer
+        if w != null then
+            stopping = true
+            LockSupport.unpark (w)
+            w.join ()
+            writer = null
+            try
+                drainAll ()
+                for (_, s) <- rings.asScala do s.close ()
+            catch case ex: IOException => flaw ("close", s"records lost: $ex")
+            end try
+            for (r, _) <- rings.asScala do r.closed = true
+            rings.clear ()
+        end if
+    }
+
+end RecordLog
+
+
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `recordLogTest` main function checks that the records of a ring reach its
+ *  file, that a ring used after `RecordLog.close` is replaced by `reopen` with a
+ *  new file, keeping the first one, and that records added to a closed ring are
+ *  counted as dropped.
+ *  > runMain scalation.simulation.process.recordLogTest
+ */
+@main def recordLogTest (): Unit =
+
+    import scala.io.Source.fromFile
+
+    def lines (r: RecordRing): List [String] =
+        val src = fromFile (Path.of (LOG_DIR, "recorder", r.name + ".csv").toFile)
+        try src.getLines ().toList finally src.close ()
+    end lines
+
+    RecordLog.binary = false
+    var r  = RecordLog.reopen (null, "recordLogTest", "lane", "speed")
+    val r1 = r
+    for i <- 0 until 20000 do r.add (i, i % 4, 60.0 + i % 7)              // more than a ring holds
+    RecordLog.close ()
+    assert (r1.closed)
+    val l1 = lines (r1)
+    assert (l1.head == "time,lane,speed")
+    assert (l1.size == 20001, s"${l1.size - 1} records written")
+    assert (l1(20000) == "19999.0,3,60.0")
+    assert (r1.dropped == 0L)
+
+    r = RecordLog.reopen (r, "recordLogTest", "lane", "speed")          // used again after close
+    assert (r ne r1)
+    assert (r.name != r1.name, s"ring reopened on ${r.name}")
+    assert (RecordLog.reopen (r, "recordLogTest", "lane", "speed") eq r)
+    r.add (1.0, 2, 55.5)
+    for i <- 0 until 3 do r1.add (i, 0, 0.0)                              // stale ring: counted, one flaw
+    RecordLog.close ()
+    assert (lines (r) == List ("time,lane,speed", "1.0,2,55.5"))
+    assert (lines (r1).size == 20001)
+    assert (r1.dropped == 3L && r.dropped == 0L, s"${r1.dropped} records dropped")
+    println (s"recorded to ${r1.name}, then after close to ${r.name}")
+
+end recordLogTest
@@ -14,7 +14,6 @@ package process
 
 import scala.math.floor
 import scalation.mathstat.MatrixD
-import scala.collection.mutable.ArrayBuffer
 //import java.io.PrintWriter
 
 ////::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
@@ -64,8 +63,15 @@ trait Recorder(nt: Int):
     protected val r_counts = new MatrixD(nt, nl)   // Count matrix [time_intervals × lanes] [nt, number of lanes]  
     protected val r_speeds = new MatrixD(nt, nl)   // Speed matrix [time_intervals × lanes]
 
-    private val recordedVehicles = new ArrayBuffer[String]()
+    /** The ring the (time, laneID, speed) of each pass go to (when `RecordLog.enabled`),
+     *  made at the first pass and again after `RecordLog.close`
+     */
+    private var ring: RecordRing = null
 
+    private def sensorRing: RecordRing =
+        ring = RecordLog.reopen (ring, s"sensor_$this", "lane", "speed")
+        ring
+    end sensorRing
 
 
     //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
@@ -97,14 +103,9 @@ trait Recorder(nt: Int):
 
     def record(actor: SimActor, ctime: Double): Unit =
 
-        println(s"the clock time is $ctime and the timeConv is $timeConv")
-
         val i = floor(ctime / timeConv).toInt // Time bucket index //Fix this time conversion thing.
         val j = if i >= nt then nt - 1 else i // cap the last time bucker for overflow
 
-        Recorder.ew.write(s"\n the clock time is $ctime and the timeConv is $timeConv i: $i \n")
-        println(s"[Recorder] recording for: $this")
-
         if actor.isInstanceOf[Vehicle] then
             val vehicle = actor.asInstanceOf[Vehicle]
             val laneID = vehicle.laneID
@@ -113,9 +114,10 @@ trait Recorder(nt: Int):
             val speed = if vehicle.velocity.isNaN then 0.0 else vehicle.velocity
             r_speeds(j, laneID) = (r_speeds(j, laneID) * (cnt - 1) + (speed * 2.24694) ) / cnt // Compute running avg speed
 
-            recordedVehicles += vehicle.name
+            if RecordLog.enabled then sensorRing.add (ctime, laneID, speed * 2.24694)   // written by the RecordLog writer
         else
             r_counts(j, 0) += 1 //None vehicle actors records
+            if RecordLog.enabled then sensorRing.add (ctime, -1, Double.NaN)
     end record
 
 
@@ -157,6 +159,7 @@ object Recorder:
     
     
     def shutdownRecorder(): Unit =
+        RecordLog.close()                               // drain and close the sensor/row records
         ew.finish()
 
 end Recorder
@@ -12,6 +12,8 @@ package scalation
 package simulation
 package process
 
+import java.io.{DataInput, DataOutput}
+
 import scala.collection.mutable.{ArrayBuffer => VEC}
 import scala.runtime.ScalaRunTime.stringOf
 
@@ -134,6 +136,29 @@ class Resource (name: String, line: WaitQueue, private var units: Int, serviceTi
         else flaw ("release", "no service units currently in use")
     end release
 
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Save the number of service units and the number in use.
+     *  @param out    the output to write to
+     *  @param index  the index of each actor saved in the snapshot
+     */
+    override private [process] def saveState (out: DataOutput, index: SimActor => Int): Unit =
+        out.writeInt (units)
+        out.writeInt (inUse)
+    end saveState
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Restore the number of service units in use (by the actors restored in
+     *  service).  The number of units stays this resource's own, so a parameter
+     *  variant (e.g., with more tellers) can fork from the snapshot.
+     *  @param in     the input to read from
+     *  @param actor  the restored actor of each index
+     */
+    override private [process] def restoreState (in: DataInput, actor: Int => SimActor): Unit =
+        in.readInt ()                                               // units of the snapshot's model
+        inUse = in.readInt ()
+        if inUse > units then flaw ("restoreState", s"$inUse units in use, but only $units units")
+    end restoreState
+
 end Resource
 
 
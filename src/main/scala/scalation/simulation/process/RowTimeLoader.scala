@@ -9,7 +9,10 @@ trait RowTimeLoader:
 
    
 
-    private[process] val ew = new EasyWriter("recorder", "rowTimeRecord.txt")
+    /** The ring the (clock, curRow, rowTime) of each row advance go to (when `RecordLog.enabled`),
+     *  made at the first advance and again after `RecordLog.close`
+     */
+    private var rowRing: RecordRing = null
     
     def nextRow(clock: Double): Unit =
         //println(s"I was called by @@@@@@ director clock: $clock and rowTime: $rowTime")
@@ -18,7 +21,10 @@ trait RowTimeLoader:
         if clock >= rowTime then
             curRow += 1
             rowTime += 15 * MINUTE
-            ew.write(s"\n Director clock advanced: $clock and new rowtime $rowTime and curRow $curRow \n ")
+            if RecordLog.enabled then
+                rowRing = RecordLog.reopen (rowRing, "rowTimeRecord", "curRow", "rowTime")
+                rowRing.add (clock, curRow, rowTime)
+            end if
             //println(s"[RowManager] Advanced to row $curRow at clock = $clock")
 
         end if
@@ -13,6 +13,8 @@ package scalation
 package simulation
 package process
 
+import java.io.{DataInput, DataOutput}
+
 //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
 /** The `SimActor` abstract class represents entities that are active in the model.
  *  The act abstract method, which specifies entity behavior, must be defined
@@ -36,10 +38,15 @@ abstract class SimActor (label: String, director: Model,
     var nextTransport: Transport = null                           // next `Transport` to move along for this entity `SimActor`
     // must be specified, e.g.,, before entering a bus (PUBLIC access required)
     var subtype = 0                                               // indicator of entity subtype `SimActor`, e.g., for turning choices (PUBLIC)
+    var stage   = 0                                               // the last step of its script begun (see 'step') (PUBLIC)
 
     private [process] var arrivalT = director.clock               // time at which this entity `SimActor` arrived
     private [process] var mySource: Source = null                 // `Source` that created this entity `SimActor`
     private [process] var myNode: SimActor.alist.Node = null      // my (the actor's) node in the ACTOR LIST pred <-> me <-> succ
+    private [process] var stageEnd = -1.0                         // time the step in progress ends, if it has several delays
+    private [process] var waitStart = 0.0                         // time it joined the wait-queue it is in
+    private [process] var waitedIn: Component = null              // wait-queue it was restored into (see 'step')
+    private [process] var movingOn: Transport = null              // transport it is moving along (see 'step')
 
     private var _trajectory = 0.0                                 // value of the trajectory along `QCurve` for this entity `SimActor`
 
@@ -71,6 +78,47 @@ abstract class SimActor (label: String, director: Model,
      */
     def act (): Unit = println ("SimActor.act method should be overridden")
 
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Run step k of the script unless it has been begun, recording it as the
+     *  stage reached.  A script written as a sequence of steps can be restored
+     *  from a `Snapshot`: the restored actor skips the steps begun before the
+     *  snapshot and continues with the next one when its delay ends.  Local
+     *  variables used across steps must be fields saved by 'save'.  An actor
+     *  restored into a wait-queue ends its wait (tallied as 'waitIn' would) at
+     *  the end of the step it was waiting in, and one restored onto a transport
+     *  leaves it (as 'move' would) at the end of the step it was moving in.
+     *  @param k     the number of the step (1, 2, ...)
+     *  @param body  the step (e.g., moving along a transport)
+     */
+    def step (k: Int)(body: => Unit): Unit =
+        if stage < k then
+            stage = k
+            body
+        else if k == stage && waitedIn != null then
+            val q = waitedIn
+            waitedIn = null
+            q.tally (director.clock - waitStart)
+            q.accum (q.waiting.size + 1)
+            director.log.trace (q, "wait ends", this, director.clock)
+        else if k == stage && movingOn != null then
+            movingOn.endMove (this)
+        end if
+    end step
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Write the fields of this actor its script needs beyond those every actor
+     *  has (e.g., a lane chosen at random), for a `Snapshot`.  Override with
+     *  'restore' when the script uses such fields.
+     *  @param out  the output to write to
+     */
+    def save (out: DataOutput): Unit = ()
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Read the fields written by 'save' into this (restored) actor.
+     *  @param in  the input to read from
+     */
+    def restore (in: DataInput): Unit = ()
+
     //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
     /** Schedule a reactivation of this `SimActor` delay time units in the future.
      *  @param delay  the time delay before reactivation
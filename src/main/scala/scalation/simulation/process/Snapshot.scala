@@ -0,0 +1,231 @@
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** @author  John Miller
+ *  @version 2.0
+ *  @date    Sat Oct 17 10:15:00 EDT 2026
+ *  @see     LICENSE (MIT style license file).
+ *
+ *  @note    Snapshot of a Process-Interaction Model for Warm Starts
+ */
+
+package scalation
+package simulation
+package process
+
+import java.io.{ByteArrayInputStream, DataInputStream, DataOutputStream}
+import java.nio.file.{Files, Paths, StandardCopyOption}
+import java.util.zip.{GZIPInputStream, GZIPOutputStream}
+
+import scalation.random.{Exponential, Uniform}
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `Snapshot` class holds the state of a process-interaction model at a
+ *  simulated time in a compact binary form: the clock, the positions of the
+ *  tracked random variates in their streams, the actors (their source, subtype,
+ *  stage, the transport they are moving along and the fields they 'save'), the
+ *  agenda (each actor's or component's activation time, in order) and the state
+ *  of the components (e.g., the actors waiting in each queue, the units of each
+ *  resource in use, the number of actors on each transport).
+ *
+ *  A model takes one with `Model.checkpointAt` and a model of the same structure
+ *  (e.g., a parameter variant) forks from it with `Model.simulateFrom`, instead
+ *  of simulating the warm-up again.  Since actors are coroutines, the restored
+ *  actors do not resume inside their scripts: they are made again by their
+ *  sources and skip the steps they had begun (see `SimActor.step`).
+ *  @param bytes  the encoded state (header first)
+ */
+class Snapshot private [process] (private [process] val bytes: Array [Byte]):
+
+    private val header = new DataInputStream (new ByteArrayInputStream (bytes))
+
+    if header.readInt () != Snapshot.MAGIC || header.readShort () != Snapshot.VERSION then
+        throw new IllegalArgumentException ("Snapshot: not a snapshot of this version")
+    end if
+
+    /** The name of the model the snapshot was taken of
+     */
+    val model: String = header.readUTF ()
+
+    /** The simulated time the snapshot was taken at
+     */
+    val clock: Double = header.readDouble ()
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return the size of the snapshot in bytes.
+     */
+    def size: Int = bytes.length
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return an input reading the state after the header.
+     */
+    private [process] def input: DataInputStream =
+        val in = new DataInputStream (new ByteArrayInputStream (bytes))
+        in.skipBytes (bytes.length - header.available)
+        in
+    end input
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Save the snapshot (gzipped) to the file, replacing it atomically.
+     *  @param file  the path of the file
+     */
+    def save (file: String): Unit =
+        val path = Paths.get (file)
+        val tmp  = Paths.get (file + ".tmp")
+        val out  = new GZIPOutputStream (Files.newOutputStream (tmp))
+        try out.write (bytes) finally out.close ()
+        Files.move (tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE)
+    end save
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Show the model, time and size of the snapshot.
+     */
+    override def toString: String = s"Snapshot ($model at $clock, $size bytes)"
+
+end Snapshot
+
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `Snapshot` companion object writes the header of a snapshot and loads
+ *  snapshots from files.
+ */
+object Snapshot:
+
+    private [process] val MAGIC   = 0x534e4150                     // "SNAP"
+    private [process] val VERSION: Short = 3
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Write the header of a snapshot of the model taken at the clock time.
+     *  @param out    the output to write to
+     *  @param model  the name of the model
+     *  @param clock  the simulated time
+     */
+    private [process] def writeHeader (out: DataOutputStream, model: String, clock: Double): Unit =
+        out.writeInt (MAGIC)
+        out.writeShort (VERSION)
+        out.writeUTF (model)
+        out.writeDouble (clock)
+    end writeHeader
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Load a snapshot saved to the file.
+     *  @param file  the path of the file
+     */
+    def load (file: String): Snapshot =
+        val in = new GZIPInputStream (Files.newInputStream (Paths.get (file)))
+        try new Snapshot (in.readAllBytes ()) finally in.close ()
+    end load
+
+end Snapshot
+
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `snapshotTest` main function warms up a bank model (one teller, a busy
+ *  queue) to time 8 hours, takes a snapshot and saves it, then forks from the
+ *  loaded snapshot: (1) the same model continued with the same random numbers,
+ *  (2) more replications continuing from the warm state with other random
+ *  numbers, and (3) a variant with a second teller, with the warm-up statistics
+ *  left out of each.  (1) must give the statistics of the full run after 8 hours,
+ *  forking again must reproduce (1) and (2) exactly, the first replication of (2)
+ *  must not reuse the random numbers of (1), and (3) must use both tellers.
+ *  > runMain scalation.simulation.process.snapshotTest
+ */
+@main def snapshotTest (): Unit =
+
+    val file = DATA_DIR + "bank_warm.snap"
+
+    class WarmBank (name: String, reps: Int, nTellers: Int, warmUp: Double = -1.0)
+          extends Model (name, reps, false):
+
+        val iArrivalRV = Exponential (HOUR / 7.0, 0)
+        val serviceRV  = Exponential (HOUR / 8.0, 1)
+        val moveRV     = Uniform (4 * MINUTE, 6 * MINUTE, 2)
+        track (iArrivalRV, serviceRV, moveRV)
+
+        val entry     = Source ("entry", this, () => Customer (), 0, 2000, iArrivalRV, (100, 290))
+        val tellerQ   = WaitQueue ("tellerQ", (330, 290))
+        val teller    = Resource ("teller", tellerQ, nTellers, serviceRV, (350, 285))
+        val door      = Sink ("door", (600, 290))
+        val toTellerQ = Transport ("toTellerQ", entry, tellerQ, moveRV)
+        val toDoor    = Transport ("toDoor", teller, door, moveRV)
+
+        addComponent (entry, tellerQ, teller, door, toTellerQ, toDoor)
+
+        var tellerMax = 0.0                                      // most tellers busy at once
+
+        if warmUp > 0.0 then checkpointAt (warmUp) { snap =>
+            snap.save (file)
+            for p <- Seq (entry, tellerQ, teller, door, toTellerQ, toDoor) do
+                p.restartStats (warmUp)                          // statistics from the checkpoint on, as the forks'
+        }
+
+        override def resetStats (rep: Int, rmax: Int = reps): Unit =
+            tellerMax = tellerMax max teller.persistentStat.max
+            super.resetStats (rep, rmax)
+        end resetStats
+
+        case class Customer () extends SimActor ("c", this):
+
+            override def act (): Unit =
+                step (1) { toTellerQ.move () }
+                step (2) { if teller.busy then tellerQ.waitIn () else tellerQ.noWait () }
+                step (3) { teller.utilize () }
+                step (4) { teller.release () }
+                step (5) { toDoor.move () }
+                door.leave ()
+            end act
+
+        end Customer
+
+    end WarmBank
+
+    banner ("warm up to 8 hours and checkpoint")
+    val t0   = System.nanoTime ()
+    val full = new WarmBank ("Bank", 1, 1, 8 * HOUR)
+    full.simulate ()
+    full.waitFinished ()
+    val snap = Snapshot.load (file)
+    println (s"$snap, full run ${(System.nanoTime () - t0) / 1E6} ms")
+
+    banner ("fork: same model, same random numbers (continues the full run)")
+    val t1   = System.nanoTime ()
+    val same = new WarmBank ("Bank", 1, 1)
+    same.simulateFrom (snap)
+    same.waitFinished ()
+    println (s"fork ${(System.nanoTime () - t1) / 1E6} ms")
+    for (stat, means) <- full.statMeans do                      // time-weighted sums may differ in the last bit
+        assert ((same.statMeans (stat)(0) - means(0)).abs <= 1E-12 * means(0).abs,
+                s"$stat: fork ${same.statMeans (stat)(0)} != full run ${means(0)}")
+    println ("the fork's statistics are those of the full run after 8 hours")
+
+    banner ("fork: 5 replications from the warm state")
+    val reps = new WarmBank ("Bank", 5, 1)
+    reps.simulateFrom (snap, sameRandoms = false)
+    reps.waitFinished ()
+
+    banner ("fork again: both must be reproduced")
+    val same2 = new WarmBank ("Bank", 1, 1)
+    same2.simulateFrom (Snapshot.load (file))
+    same2.waitFinished ()
+    val reps2 = new WarmBank ("Bank", 1, 1)
+    reps2.simulateFrom (Snapshot.load (file), sameRandoms = false)
+    reps2.waitFinished ()
+
+    for (stat, means) <- same.statMeans do
+        println (s"$stat: same = ${means(0)}, other randoms = ${reps.statMeans (stat)(0)}")
+        assert (same2.statMeans (stat)(0) == means(0))
+        assert (reps2.statMeans (stat)(0) == reps.statMeans (stat)(0))
+    end for
+    assert (same.statMeans ("teller")(0) != reps.statMeans ("teller")(0))
+
+    banner ("fork: variant with 2 tellers")
+    val two = new WarmBank ("Bank", 1, 2)
+    two.simulateFrom (snap)
+    two.waitFinished ()
+    val (q1, q2) = (same.statMeans ("tellerQ")(0), two.statMeans ("tellerQ")(0))
+    println (s"tellerQ: 1 teller = $q1, 2 tellers = $q2; most busy: ${same.tellerMax}, ${two.tellerMax}")
+    assert (same.tellerMax == 1.0 && two.tellerMax == 2.0)
+    assert (q2 < q1)
+
+    Model.shutdown ()
+
+end snapshotTest
+
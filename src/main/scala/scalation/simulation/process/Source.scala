@@ -12,6 +12,8 @@ package scalation
 package simulation
 package process
 
+import java.io.{DataInput, DataOutput}
+
 import scala.collection.mutable.{ArrayBuffer => VEC}
 import scala.runtime.ScalaRunTime.stringOf
 import scala.util.control.Breaks.{break, breakable}
@@ -48,6 +50,8 @@ class Source (name: String, director: Model, makeEntity: () => SimActor,
 
     debug ("Init", s"name = $name with cor_id = $id, located at ${stringOf (at)}")
 
+    private var made = 0                                                     // number of entities made so far this rep
+
     //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
     /** Auxiliary constructor that uses defaults for width 'w' and height 'h'.
      *  @param name          the name of the source
@@ -71,6 +75,31 @@ class Source (name: String, director: Model, makeEntity: () => SimActor,
         director.animate (this, CreateNode, limegreen, Ellipse (), at)
     end display
 
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Make an entity of this source's type without generating it (e.g., to
+     *  restore an actor saved in a `Snapshot`).
+     */
+    private [process] def make (): SimActor = makeEntity ()
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Save the number of entities made so far in this replication.
+     *  @param out    the output to write to
+     *  @param index  the index of each actor saved in the snapshot
+     */
+    override private [process] def saveState (out: DataOutput, index: SimActor => Int): Unit =
+        out.writeInt (made)
+    end saveState
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Restore the number of entities made so far, so the source goes on making
+     *  the rest when it next acts.
+     *  @param in     the input to read from
+     *  @param actor  the restored actor of each index
+     */
+    override private [process] def restoreState (in: DataInput, actor: Int => SimActor): Unit =
+        made = in.readInt ()
+    end restoreState
+
     //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
     /** The `Source`s as special `SimActor` will act over time to make entities
      *  (other `SimActor`s).
@@ -81,13 +110,14 @@ class Source (name: String, director: Model, makeEntity: () => SimActor,
 
             breakable {
                 debug ("act", s"start making $units SimActors")
-                for i <- 1 to units do                                       // MINOR LOOP - make actors
+                for i <- made + 1 to units do                                // MINOR LOOP - make actors
                     if director.stopped then
                         println (s"Source.act: simulation unexpectedly ended at ${director.clock}")
                         break ()                                             // terminate source, simulation ended
                     val actor = makeEntity ()                                // make new actor
                     actor.mySource = this                                    // actor's source
                     actor.subtype  = esubtype                                // set the entity subtype
+                    made = i
                     director.numActors += 1                                  // number of actors created by all sources, so far
                     //if director.isAnimating then director.dgAni.updateActorCount(director.numActors)
                     director.log.trace (this, "generates", actor, director.clock)
@@ -110,6 +140,7 @@ class Source (name: String, director: Model, makeEntity: () => SimActor,
                         yieldToDirector ()                                   // yield and wait duration time units
                 end for
             } // breakable
+            made = 0
 
             if rep < director.reps then
                 director.log.trace (this, "wait for next rep", director, director.clock)
@@ -12,6 +12,8 @@ package scalation
 package simulation
 package process
 
+import java.io.{DataInput, DataOutput}
+
 import scala.math.{abs, floor}
 import scala.runtime.ScalaRunTime.stringOf
 import scalation.animation.CommandType.*
@@ -144,6 +146,7 @@ class Transport (name: String, val from: Component, val to: Component,
         tally (duration)
         accum (onTransport)
         onTransport += 1
+        actor.movingOn = this
         director.log.trace (this, s"moves for $duration", actor, director.clock)
 
         val dist  = curve.length                             // al distance to move
@@ -154,6 +157,7 @@ class Transport (name: String, val from: Component, val to: Component,
         curve.traj = actor.trajectory
         var loc    = curve.next (DIAM, DIAM)                            // get the starting position for the entity/token
         actor.trajectory = curve.traj
+        actor.stageEnd   = director.clock + duration                    // the move ends then (for a `Snapshot`)
 
         for i <- 1 to steps do
             if loc != null then
@@ -168,10 +172,41 @@ class Transport (name: String, val from: Component, val to: Component,
             end if
         end for
 
+        endMove (actor)
+    end move
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** End the move of the actor along this transport: it leaves the transport.
+     *  Called at the end of 'move' and by 'SimActor.step' for an actor restored
+     *  from a `Snapshot` while moving.
+     *  @param actor  the actor reaching the end of this transport
+     */
+    private [process] def endMove (actor: SimActor): Unit =
         accum (onTransport)
         onTransport -= 1
+        actor.movingOn   = null
         actor.trajectory = 0.0                                          // reset for next transport
-    end move
+        actor.stageEnd   = -1.0
+    end endMove
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Write the number of actors on this transport, for a `Snapshot`.
+     *  @param out    the output to write to
+     *  @param index  the index of each actor in the snapshot
+     */
+    override private [process] def saveState (out: DataOutput, index: SimActor => Int): Unit =
+        out.writeInt (onTransport)
+    end saveState
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Restore the number of actors on this transport.  The restored actors
+     *  moving along it leave it when they resume (see 'SimActor.step').
+     *  @param in     the input to read from
+     *  @param actor  the restored actor of each index
+     */
+    override private [process] def restoreState (in: DataInput, actor: Int => SimActor): Unit =
+        onTransport = in.readInt ()
+    end restoreState
     
 end Transport
 
@@ -12,6 +12,8 @@ package scalation
 package simulation
 package process
 
+import java.io.{DataInput, DataOutput}
+
 import scala.collection.mutable.{ArrayBuffer => VEC, Queue}
 import scala.runtime.ScalaRunTime.stringOf
 
@@ -84,6 +86,7 @@ class WaitQueue (name: String, at: Array [Double], cap: Int = Int.MaxValue)
             false
         else
             super.+= (actor)                                   // entity/actor joins queue
+            actor.waitStart = timeIn
             actor.yieldToDirector ()                           // indefinite delay
             true
 
@@ -101,6 +104,47 @@ class WaitQueue (name: String, at: Array [Double], cap: Int = Int.MaxValue)
      */
     def noWait (): Unit = tally (0.0)
 
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return the actors waiting in this queue.
+     */
+    override private [process] def waiting: Iterable [SimActor] = this
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Save the waiting actors (in order, with the times they joined) and the
+     *  number barred.
+     *  @param out    the output to write to
+     *  @param index  the index of each actor saved in the snapshot
+     */
+    override private [process] def saveState (out: DataOutput, index: SimActor => Int): Unit =
+        out.writeInt (_barred)
+        out.writeInt (size)
+        for a <- this do
+            out.writeInt (index (a))
+            out.writeDouble (a.waitStart)
+        end for
+    end saveState
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Restore the waiting actors (in order) and the number barred.  A restored
+     *  actor does not return from 'waitIn', so its wait is tallied by 'SimActor.step'
+     *  when it resumes.
+     *  @param in     the input to read from
+     *  @param actor  the restored actor of each index
+     */
+    override private [process] def restoreState (in: DataInput, actor: Int => SimActor): Unit =
+        _barred = in.readInt ()
+        clear ()
+        for _ <- 0 until in.readInt () do
+            val a = actor (in.readInt ())
+            val t = in.readDouble ()
+            if a != null then                                  // null: an actor left out of the snapshot
+                a.waitStart = t
+                a.waitedIn  = this                             // its wait is tallied when it resumes
+                this += a
+            end if
+        end for
+    end restoreState
+
 end WaitQueue
 
 
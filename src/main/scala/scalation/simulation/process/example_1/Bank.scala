@@ -22,6 +22,23 @@ import scalation.random.{Exponential, Uniform}
 @main def runBank (): Unit = new BankModel ()
 
 
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `runBankReps` function runs 10 replications of the `BankModel` class in
+ *  parallel, each on its own model with its own random number streams, and
+ *  summarizes them (the same summary for any number of threads).
+ *  > runMain scalation.simulation.process.example_1.runBankReps
+ */
+@main def runBankReps (): Unit =
+
+    val means = Model.replicate (10, streamsPerRep = 3) { (rep, stream) =>
+        new BankModel (s"Bank$rep", 1, false, 1.0, 100, stream)
+    }
+    Model.reportV (means)
+    Model.shutdown ()
+
+end runBankReps
+
+
 //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
 /** The `BankModel` class defines a simple process-interaction model of a bank
  *  where service is provided by one or more tellers.
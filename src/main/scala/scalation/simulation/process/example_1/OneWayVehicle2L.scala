@@ -225,8 +225,6 @@ class OneWayVehicle2L (name: String = "OneWayVehicle2L", reps: Int = 1, animatin
 
 
         //new Plot(null, ytrue, ysim.sumVr, "Simulation vs Actual Plot")
-
-        ew.flush()
     end simRunVsPemsRun
 
 
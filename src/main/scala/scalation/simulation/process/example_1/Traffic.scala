@@ -13,6 +13,8 @@ package simulation
 package process
 package example_1                                       // One-Shot
 
+import java.io.{DataInput, DataOutput}
+
 import scala.collection.mutable.{ArrayBuffer => VEC}
 
 import scalation.random.{Bernoulli, Sharp, Uniform}
@@ -57,6 +59,7 @@ class TrafficModel (name: String = "Traffic", reps: Int = 1, animating: Boolean
     val offTimeRV  = Sharp (offTime, stream + 2)
     val moveRV     = Uniform (mvTime, stream + 3)       // use Random Variate (RV) for Motion
     val laneRV     = Bernoulli (stream = stream + 4)
+    track (iArrivalRV, onTimeRV, offTimeRV, moveRV, laneRV)             // for snapshots (see `Snapshot`)
 
     //--------------------------------------------------
     // Create Model Components
@@ -96,18 +99,27 @@ class TrafficModel (name: String = "Traffic", reps: Int = 1, animating: Boolean
 
     case class Car () extends SimActor ("c", this):
 
+        private var j = 0                               // lane of the car (saved in snapshots)
+
         override def act (): Unit =
             banner (s"Car $me started")
             val i = subtype                             // from North (0), East (1), South (2), West (3)
-            val j = laneRV.igen                         // randomly select lane j
-            road(i).lane(j).move ()                     // move along road i in lane j
-
-            if light(i).shut then queue(i).waitIn ()    // stop and wait for red light
-            else queue(i).noWait ()                     // record skipping the queue for green light
-            road(i+4).lane(j).move ()                   // move along road i+4 in lane j
+            step (1) {
+                j = laneRV.igen                         // randomly select lane j
+                road(i).lane(j).move ()                 // move along road i in lane j
+            }
+            step (2) {
+                if light(i).shut then queue(i).waitIn ()    // stop and wait for red light
+                else queue(i).noWait ()                     // record skipping the queue for green light
+            }
+            step (3) { road(i+4).lane(j).move () }      // move along road i+4 in lane j
             sink((i+2)%4).leave ()                      // end at the corresponding sink
         end act
 
+        override def save (out: DataOutput): Unit = out.writeInt (j)
+
+        override def restore (in: DataInput): Unit = j = in.readInt ()
+
     end Car
 
     simulate ()
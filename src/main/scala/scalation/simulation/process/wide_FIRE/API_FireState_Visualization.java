@@ -2,9 +2,14 @@ package scalation.simulation.process.wide_FIRE;
 
 /**
  * This class visualizes the fire state returned from the DEVS-FIRE API call.
- * This is a preliminary implementation of the visualization. For example, the cell
- * space dimension is pre-defined as 200 x 200. More advanced implementation will be
- * provided later
+ * The cell space dimension is set per instance (200 x 200 by default) and grows to
+ * the extent of the simulation records drawn.  Cell states are kept in a
+ * level-of-detail pyramid (FireLodPyramid), so large cell spaces are shown
+ * downsampled: zoom with the mouse wheel, pan by dragging and double-click to switch
+ * between coloring by burn state and by arrival time.  Only the visible tiles that
+ * changed are re-rendered.  A result is played back by a FireReplay clock over a
+ * time-indexed FireTimeline, so any simulation time can be shown without
+ * replaying from the start.
  *
  * Copyright: Systems Integrated Modeling and Simulation (SIMS) Lab, Georgia State University, All Rights Reserved
  * Contact: Prof. Xiaolin Hu (xhu@gsu.edu)
@@ -21,6 +26,15 @@ import java.awt.Font;
 import java.awt.FontMetrics;
 import java.awt.Graphics;
 import java.awt.Insets;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 import javax.swing.BorderFactory;
 import javax.swing.JFrame;
@@ -29,18 +43,54 @@ import javax.swing.SwingUtilities;
 
 
 public class API_FireState_Visualization extends JFrame{
-    public static int x_cellDisplaySize = 3;//6;//3;//10;//
-    public static int y_cellDisplaySize = 3;//6;//3;//10;//
-    public static int xCellspaceDim = 200;
-    public static int yCellspaceDim = 200;
-    public static int x_spaceDisplaySize = xCellspaceDim*x_cellDisplaySize;
-    public static int y_spaceDisplaySize = yCellspaceDim*y_cellDisplaySize;
+    /**
+     * The default cell space dimension and the largest side of the grid panel (in pixels).
+     */
+    public static final int DEFAULT_CELLSPACE_DIM = 200;
+    public static final int MAX_SPACE_DISPLAY_SIZE = 900;
+
+    public int x_cellDisplaySize = 3;//6;//3;//10;//
+    public int y_cellDisplaySize = 3;//6;//3;//10;//
+    public int xCellspaceDim;
+    public int yCellspaceDim;
+    public int x_spaceDisplaySize;
+    public int y_spaceDisplaySize;
+
+
+    /**
+     * The off-screen raster holding the color of each cell in the view.
+     */
+    protected FireRaster raster;
+
+    /**
+     * The burn states and arrival times of all cells, at every level of detail.
+     */
+    protected FireLodPyramid pyramid;
 
+    /**
+     * The level of detail shown (a cell of the view covers 2^lodLevel cells per side)
+     * and the lower-left cell of the view.
+     */
+    protected int lodLevel = 0;
+    protected int viewX = 0, viewY = 0;
+
+    /**
+     * The tile versions last rendered into the raster (see FireLodPyramid.render).
+     */
+    protected int[] drawnVersions;
+
+    /**
+     * The records of the last visualized result, the cursor giving the records
+     * applied to the pyramid, and the clock replaying them.
+     */
+    protected FireTimeline timeline;
+    protected FireTimeline.Cursor cursor;
+    protected FireReplay replay;
 
     /**
-     * The color of each cell in the grid.
+     * Whether cells are colored by arrival time instead of burn state.
      */
-    protected Color[][] grid;
+    protected boolean colorByArrival = false;
 
     /**
      * The actual panel on which the grid is drawn.
@@ -50,7 +100,7 @@ public class API_FireState_Visualization extends JFrame{
     /**
      * The size of the cell space being depicted (in cells).
      */
-    protected static double xRange=400, yRange=400;
+    protected double xRange=400, yRange=400;
 
     protected Dimension spaceSize = new Dimension (40,40);
 
@@ -62,7 +112,7 @@ public class API_FireState_Visualization extends JFrame{
 
     /**
      * The scale factors to use when depicting a range that is larger than
-     * the space-size.
+     * the space-size (the view cells per cell).
      */
     protected double xScaleFactor = 1, yScaleFactor = 1;
 
@@ -92,87 +142,148 @@ public class API_FireState_Visualization extends JFrame{
 
 
     public API_FireState_Visualization (){
+        this(DEFAULT_CELLSPACE_DIM, DEFAULT_CELLSPACE_DIM);
+    }
+
+    /**
+     * Creates a view of a cell space of the given dimension (in cells).
+     */
+    public API_FireState_Visualization (int xDim, int yDim){
         super("FireStateVisualization");
+        setDimensions(xDim, yDim);
         createGridView();
     }
 
     /**
      * Draw the fire shape from input file using desiredColor
      */
-    public void visualize(String data){
-
-        double timeGranularity = 100; // seconds
-        // remove the beginning "[{" and the ending "]"
-        data = data.substring(2,data.length()-1);
-        //System.out.println(data);
-
-        String[] dataPoint = data.split("\\{");
-        int dataSize= dataPoint.length;
-        int index=0;
-        int[] cellX= new int[dataSize];
-        int[] cellY= new int[dataSize];
-        double[] time= new double[dataSize];
-        int[] state = new int[dataSize];
-
-        for(int i=0; i<dataSize;i++) {
-            //System.out.println(dataPoint[i]);
-            int yLoc = dataPoint[i].indexOf("y");
-            int OpeLoc = dataPoint[i].indexOf("Operation");
-            int timeLoc = dataPoint[i].indexOf("time");
-            if(dataPoint[i].substring(OpeLoc+12, timeLoc-3).compareTo("BurnCell")==0) {
-                int stateLoc = dataPoint[i].indexOf("state");
-                cellX[index] = Integer.valueOf(dataPoint[i].substring(5, yLoc-3));
-                cellY[index] = Integer.valueOf(dataPoint[i].substring(yLoc+4, OpeLoc-3));
-                time[index] = Double.valueOf(dataPoint[i].substring(timeLoc+7, stateLoc-3));
-                state[index] = Integer.valueOf(dataPoint[i].substring(stateLoc+8, stateLoc+9));
-                index++;
-            }
-            else { // the data is for the ignition team. Skip it for now
-                // do nothing
-            }
-        }
+    public FireReplay visualize(String data){
+        BurnEventColumns events = new BurnEventColumns();
+        long start = System.nanoTime();
+        FireEvents.Parse event = FireEvents.parseStarted();
+        new BurnEventDecoder().decode(data, events);
+        FireEvents.parseEnded(event, start, "string", data.length(), events.size());
+        return visualize(events);
+    }
 
-        double currentTime = time[0];
-        setTitle("FireStateVisualization - SimulationTime="+currentTime);
-        int currentIdx=0;
-
-        while(currentIdx<index) {
-            if(time[currentIdx]<(currentTime+timeGranularity)) {
-                System.out.println("draw cell:"+cellX[currentIdx]+"_"+cellY[currentIdx]+" State="+state[currentIdx]);
-                double x_pos = cellX[currentIdx]-xCellspaceDim/2;
-                double y_pos = cellY[currentIdx]-yCellspaceDim/2;
-                if(state[currentIdx]==1){
-                    drawCellToScale(x_pos, y_pos,Color.red);
-                }
-                else if(state[currentIdx]==2){
-                    drawCellToScale(x_pos, y_pos,Color.black);
-                }
-                currentIdx++;
-            }
-            else {
-                currentTime+=timeGranularity;
-                setTitle("FireStateVisualization - SimulationTime="+currentTime);
-                try {
-                    Thread.sleep(100);
-                } catch (Exception e){}
-            }
+    /**
+     * Draw the fire shape from a simulation result read from the given stream,
+     * e.g., the body of a runSimulation response obtained with
+     * HttpResponse.BodyHandlers.ofInputStream().
+     */
+    public FireReplay visualize(InputStream data) throws IOException {
+        BurnEventColumns events = new BurnEventColumns();
+        long start = System.nanoTime();
+        FireEvents.Parse event = FireEvents.parseStarted();
+        new BurnEventDecoder().decode(data, events);
+        FireEvents.parseEnded(event, start, "stream", -1, events.size());
+        return visualize(events);
+    }
+
+    /**
+     * Draw the fire shape from a result stored in a BurnEventFile, e.g., an
+     * entry of a FireResultCache (read through a memory-mapped file).
+     */
+    public FireReplay visualize(Path file) throws IOException {
+        BurnEventColumns events = new BurnEventColumns();
+        long start = System.nanoTime();
+        FireEvents.Parse event = FireEvents.parseStarted();
+        BurnEventFile.read(file, events);
+        FireEvents.parseEnded(event, start, "file", Files.size(file), events.size());
+        return visualize(events);
+    }
+
+    /**
+     * Draw the fire shape from decoded simulation records.  Only the BurnCell
+     * records are drawn; the ignition team records are kept in the columns.
+     * The cell space grows to hold every record.  The playback runs on its own
+     * replay clock, so this returns at once: use the returned FireReplay to pause,
+     * seek or change the speed, and its finished() to wait for the end.  In the
+     * view, space pauses, the left/right arrows seek and up/down change the speed.
+     */
+    public synchronized FireReplay visualize(BurnEventColumns events){
+        if(replay!=null) replay.close();
+        timeline = new FireTimeline(events);
+        if(timeline.maxX()>=xCellspaceDim || timeline.maxY()>=yCellspaceDim) {
+            setCellSpaceDimension(Math.max(xCellspaceDim, timeline.maxX()+1), Math.max(yCellspaceDim, timeline.maxY()+1));
+        }
+        else {
+            pyramid.clear();
         }
-        setTitle("FireStateVisualization - SimulationTime="+(int)time[currentIdx-1]);
+        cursor = timeline.cursor();
+        replay = new FireReplay(timeline.startTime(), timeline.endTime(), this::renderAt);
+        replay.play();
+        return replay;
+    }
+
+    /**
+     * Renders the fire state at the given simulation time, applying only the
+     * records between the time last rendered and this one.
+     *
+     * @param   t           The simulation time.
+     */
+    public synchronized void renderAt(double t)
+    {
+        if(cursor==null) return;
+        long start = System.nanoTime();
+        FireEvents.Render event = FireEvents.renderStarted();
+        cursor.seek(t, pyramid::set);
+        refreshView();
+        FireEvents.renderEnded(event, start, t, lodLevel);
+        setTitle("FireStateVisualization - SimulationTime="+(int)t+(replay!=null && replay.isPlaying() ? "" : " (paused)"));
+    }
 
+    /**
+     * Returns the replay of the last visualized result (null before the first).
+     */
+    public synchronized FireReplay replay()
+    {
+        return replay;
     }
 
-    public void createGridView(){
-        xRange = x_spaceDisplaySize;
-        yRange = y_spaceDisplaySize;
-        xLabel = "" + .5 * xRange;
-        yLabel = "" + .5 * yRange;
+    /**
+     * Records the new burn state of a cell; it shows at the next refreshView().
+     *
+     * @param   x, y        The cell (not centered).
+     * @param   time        The time of the state change.
+     * @param   state       The new state (1 burning, 2 burned).
+     */
+    public synchronized void drawEvent(int x, int y, double time, int state)
+    {
+        pyramid.update(x, y, time, state);
+    }
 
-        cellSize = x_cellDisplaySize;
-        spaceSize = new Dimension((int)xRange/cellSize, (int)yRange/cellSize);
+    /**
+     * Sets the cell space dimension, e.g., to the extent of a simulation result,
+     * and lays the view out again.  The states drawn so far are discarded.
+     *
+     * @param   xDim, yDim      The new dimension (in cells).
+     */
+    public synchronized void setCellSpaceDimension(int xDim, int yDim)
+    {
+        setDimensions(xDim, yDim);
+        if(timeline!=null) cursor = timeline.cursor();
+        layoutGridView();
+    }
 
-        // create the grid data structure
-        grid = new Color[spaceSize.width][spaceSize.height];
+    /**
+     * Sets the dimension fields and creates the pyramid; the cells are shown as
+     * large as possible (up to 3 pixels) in a panel of at most
+     * MAX_SPACE_DISPLAY_SIZE pixels per side.
+     */
+    protected void setDimensions(int xDim, int yDim)
+    {
+        if(xDim<=0 || yDim<=0) throw new IllegalArgumentException("cell space dimension must be positive");
+        xCellspaceDim = xDim;
+        yCellspaceDim = yDim;
+        x_cellDisplaySize = y_cellDisplaySize = Math.max(1, Math.min(3, MAX_SPACE_DISPLAY_SIZE / Math.max(xDim, yDim)));
+        x_spaceDisplaySize = Math.min(xDim, MAX_SPACE_DISPLAY_SIZE / x_cellDisplaySize) * x_cellDisplaySize;
+        y_spaceDisplaySize = Math.min(yDim, MAX_SPACE_DISPLAY_SIZE / y_cellDisplaySize) * y_cellDisplaySize;
+        pyramid = new FireLodPyramid(xDim, yDim);
+        lodLevel = 0;
+    }
 
+    public void createGridView(){
         // set the properties of this view's content pane
         Container pane = getContentPane();
         //Container pane = this;
@@ -192,31 +303,34 @@ public class API_FireState_Visualization extends JFrame{
         //GridPanel gridPanel=(GridPanel)GUI.ttest.jPanel2;
         main.add(gridPanel, BorderLayout.CENTER);
 
-        setCellSize(x_cellDisplaySize);
-        setXScale(xRange);
-        setYScale(yRange);
+        layoutGridView();
         setLocation(300, 100);
         setVisible(true);
+    }
 
-        // draw map color based on fuel, currently it is assumes a single color of green
-        double x_pos;
-        double y_pos;
-        for (int i = 0; i < yCellspaceDim; i++){
-            for (int j = 0; j < xCellspaceDim; j++) {
-                x_pos = j-xCellspaceDim/2;
-                y_pos = i-yCellspaceDim/2;
-                drawCellToScale(x_pos, y_pos, Color.getHSBColor(200, 240, 250));
-            }
-        }
+    /**
+     * Sizes the view for the current dimension and shows the whole cell space,
+     * centered, at the finest level of detail that fits.
+     */
+    protected void layoutGridView(){
+        xLabel = "" + xCellspaceDim / 2;
+        yLabel = "" + yCellspaceDim / 2;
+
+        // the raster holds one pixel per cell of the view
+        setCellSize(x_cellDisplaySize);
+        viewX = (xCellspaceDim - (spaceSize.width << lodLevel)) / 2;
+        viewY = (yCellspaceDim - (spaceSize.height << lodLevel)) / 2;
+        setXScale(xCellspaceDim);
+        setYScale(yCellspaceDim);
     }
 
     public void setCellSize(int size)
     {
         cellSize = size;
         if(cellSize>0){
-            spaceSize = new Dimension( (int) xRange / cellSize,
-                    (int) yRange / cellSize);
-            grid = new Color[spaceSize.width][spaceSize.height];
+            spaceSize = new Dimension(x_spaceDisplaySize / cellSize,
+                    y_spaceDisplaySize / cellSize);
+            raster = new FireRaster(spaceSize.width, spaceSize.height);
         }
         adjustSizeToHoldGridPanel();
     }
@@ -237,54 +351,158 @@ public class API_FireState_Visualization extends JFrame{
     }
 
     /**
-     * Sets the x scale factor to use when depicting a range that is larger
-     * than the space-size.
+     * Sets the x-range (in cells) the view is to depict; the level of detail
+     * becomes the finest one showing both the x- and y-ranges.
      *
      * @param   range       The x-range the cell space is supposed to depict.
      */
     public void setXScale(double range)
     {
-        if(cellSize > 0) xScaleFactor = 1/((double)cellSize);  //Xiaolin Hu
-        else xScaleFactor = spaceSize.width / range;
-
+        xRange = range;
+        setLevel(fitLevel());
     }
 
     /**
-     * Sets the y scale factor to use when depicting a range that is larger
-     * than the space-size.
+     * Sets the y-range (in cells) the view is to depict; the level of detail
+     * becomes the finest one showing both the x- and y-ranges.
      *
      * @param   range       The y-range the cell space is supposed to depict.
      */
     public void setYScale(double range)
     {
-        if(cellSize > 0) yScaleFactor = 1/((double)cellSize); // Xiaolin Hu
-        else yScaleFactor = spaceSize.height / range;
+        yRange = range;
+        setLevel(fitLevel());
+    }
+
+    /**
+     * Returns the finest level of detail at which xRange and yRange fit in the view.
+     */
+    protected int fitLevel()
+    {
+        int level = 0;
+        while(level<pyramid.levels-1 &&
+              (xRange > (spaceSize.width << level) || yRange > (spaceSize.height << level))) level++;
+        return level;
+    }
+
+    /**
+     * Shows the given level of detail (0 for one view cell per cell) and
+     * re-renders the view.
+     *
+     * @param   level       The level, limited to those of the pyramid.
+     */
+    public synchronized void setLevel(int level)
+    {
+        lodLevel = Math.max(0, Math.min(level, pyramid.levels - 1));
+        xScaleFactor = yScaleFactor = 1.0 / (1 << lodLevel);
+        clampView();
+        renderView();
+    }
+
+    /**
+     * Zooms out (positive levels) or in (negative levels) keeping the cell under
+     * the given view cell in place.  The view does not zoom out beyond showing
+     * the whole cell space.
+     *
+     * @param   levels      The number of levels to zoom out by.
+     * @param   col, row    The view cell to zoom about (row 0 at the top).
+     */
+    public synchronized void zoom(int levels, int col, int row)
+    {
+        int level = Math.max(0, Math.min(lodLevel + levels, fitLevel()));
+        if(level==lodLevel) return;
+        int up = spaceSize.height - 1 - row;
+        int cellX = viewX + (col << lodLevel), cellY = viewY + (up << lodLevel);
+        viewX = cellX - (col << level);
+        viewY = cellY - (up << level);
+        setLevel(level);
+    }
+
+    /**
+     * Moves the view by the given number of view cells (east and north positive).
+     *
+     * @param   cols, rows  The view cells to move by.
+     */
+    public synchronized void pan(int cols, int rows)
+    {
+        viewX += cols << lodLevel;
+        viewY += rows << lodLevel;
+        clampView();
+        renderView();
+    }
+
+    /**
+     * Switches between coloring the cells by burn state and by arrival time.
+     */
+    public synchronized void setColorByArrival(boolean byArrival)
+    {
+        colorByArrival = byArrival;
+        renderView();
+    }
+
+    /**
+     * Keeps the view within the cell space, its origin on a block of the level.
+     */
+    protected void clampView()
+    {
+        int maxX = Math.max(0, xCellspaceDim - (spaceSize.width << lodLevel));
+        int maxY = Math.max(0, yCellspaceDim - (spaceSize.height << lodLevel));
+        viewX = (Math.max(0, Math.min(viewX, maxX)) >> lodLevel) << lodLevel;
+        viewY = (Math.max(0, Math.min(viewY, maxY)) >> lodLevel) << lodLevel;
+    }
+
+    /**
+     * Renders every visible tile into the raster and repaints.
+     */
+    protected synchronized void renderView()
+    {
+        raster.fill(FireRaster.UNBURNED);
+        drawnVersions = pyramid.newDrawnVersions(lodLevel);
+        pyramid.render(raster, lodLevel, viewX >> lodLevel, viewY >> lodLevel, colorByArrival, drawnVersions);
+        repaintGrid();
+    }
+
+    /**
+     * Renders the visible tiles that changed since they were last rendered and
+     * repaints.  When coloring by arrival time the whole view is rendered, as the
+     * color scale follows the times seen so far.
+     */
+    public synchronized void refreshView()
+    {
+        if(colorByArrival) {
+            renderView();
+            return;
+        }
+        pyramid.render(raster, lodLevel, viewX >> lodLevel, viewY >> lodLevel, false, drawnVersions);
+        repaintGrid();
     }
 
     /**
-     * Returns the given x scaled according to the current x-scale-factor.
+     * Returns the view column of the given x (in cells, centered on the cell
+     * space) scaled according to the current x-scale-factor, or -1 if it is not
+     * in the view.
      *
      * @param   x       The x to scale.
      * @return          The x-value, scaled.
      */
     protected int scaleX(double x)
     {
-        int centerX = (int)Math.rint(spaceSize.width / 2.0);
-        int scaled = centerX + (int)x;//(int)Math.rint(x * xScaleFactor);
-        return forceXInBounds(scaled);
+        int scaled = (int)Math.floor((x + xCellspaceDim / 2 - viewX) * xScaleFactor);
+        return (scaled >= 0 && scaled < spaceSize.width) ? scaled : -1;
     }
 
     /**
-     * Returns the given y scaled according to the current y-scale-factor.
+     * Returns the view row (row 0 at the top) of the given y (in cells, centered
+     * on the cell space) scaled according to the current y-scale-factor, or -1 if
+     * it is not in the view.
      *
      * @param   y       The y to scale.
      * @return          The y-value, scaled.
      */
     protected int scaleY(double y)
     {
-        int centerY = (int)Math.rint(spaceSize.height / 2.0);
-        int scaled = centerY + (int)y ;//(int)Math.rint(y * yScaleFactor);
-        return forceYInBounds(scaled);
+        int scaled = spaceSize.height - 1 - (int)Math.floor((y + yCellspaceDim / 2 - viewY) * yScaleFactor);
+        return (scaled >= 0 && scaled < spaceSize.height) ? scaled : -1;
     }
 
     /**
@@ -313,7 +531,9 @@ public class API_FireState_Visualization extends JFrame{
 
     /**
      * Draws a cell at the location determined by scaling the given
-     * cell location by the current scale factors.
+     * cell location by the current scale factors.  Cells outside the view
+     * are not drawn.  The color is not kept in the pyramid, so it is
+     * overwritten when its tile is rendered again.
      *
      * @param   cellX, cellY        The cell location to scale.
      * @param   color               The color to fill the cell with.
@@ -321,22 +541,23 @@ public class API_FireState_Visualization extends JFrame{
     public void drawCellToScale(double cellX, double cellY, Color color)
     {
         // detm the scaled pixel location of the cell
-        int x = (scaleX(cellX) * cellSize) + 1;
-        int y = (scaleY(-cellY) * cellSize) + 1;
+        int col = scaleX(cellX), row = scaleY(cellY);
+        if(col<0 || row<0) return;
+        int x = (col * cellSize) + 1;
+        int y = (row * cellSize) + 1;
 
         if(x==AgentX && y==AgentY){  //Xiaolin Hu
             preAgentCellColor = color;
             return;
         }
 
-        fillCellOnSwingThread(x, y, color);
+        fillCell(x, y, color);
     }
 
     /**
-     * Fills the cell at the given pixel location with the given color.
-     * Note that when filling a cell, neither its starting row or column
-     * are filled; this keeps the cell from obliterating the axis lines and
-     * provides a border between adjacent cells.
+     * Fills the cell at the given pixel location with the given color.  The cell
+     * is set in the off-screen raster (no drawing on the Swing thread per cell);
+     * it shows on the screen at the next repaintGrid().
      *
      * @param   pixelX, pixelY      The pixel location of the upper-left-hand
      *                              corner of the cell to fill.
@@ -344,32 +565,16 @@ public class API_FireState_Visualization extends JFrame{
      */
     protected void fillCell(int pixelX, int pixelY, Color color)
     {
-        // fill in the cell's rectangle
-        Graphics g = gridPanel.getGraphics();
-        g.setColor(color);
-        if(displayGrid) // Xiaolin Hu, Oct. 16, 2007
-            g.fillRect(pixelX, pixelY, cellSize - 1, cellSize - 1);
-        else
-            g.fillRect(pixelX, pixelY, cellSize, cellSize);
-
-        // remember the cell's new color
-        grid[pixelX / cellSize][pixelY / cellSize] = color;
+        raster.setPixel(pixelX / cellSize, pixelY / cellSize, color.getRGB());
     }
 
     /**
-     * Makes a call to the fillCell() method on the swing thread.
-     *
-     * See fillCell() for parameter descriptions.
+     * Puts the raster on the screen in a single (coalesced) repaint.  May be
+     * called from any thread.
      */
-    protected void fillCellOnSwingThread(final int pixelX, final int pixelY,
-                                         final Color color)
+    public void repaintGrid()
     {
-        // run this code on the swing thread
-        SwingUtilities.invokeLater(new Runnable() {
-            public void run() {
-                fillCell(pixelX, pixelY, color);
-            }
-        });
+        if(gridPanel!=null) gridPanel.repaint();
     }
 
     /**
@@ -399,7 +604,9 @@ public class API_FireState_Visualization extends JFrame{
         });
     }
     /**
-     * The panel on which the actual grid is drawn.
+     * The panel on which the actual grid is drawn.  The mouse wheel zooms about
+     * the pointer, dragging pans and a double-click switches the coloring; the
+     * keys control the replay (space, left/right, up/down).
      */
     protected class GridPanel extends JPanel
     {
@@ -409,6 +616,51 @@ public class API_FireState_Visualization extends JFrame{
         public GridPanel()
         {
             setBackground(Color.white);
+            MouseAdapter mouse = new MouseAdapter() {
+                private int lastX, lastY;
+
+                public void mousePressed(MouseEvent e) {
+                    requestFocusInWindow();
+                    lastX = e.getX();
+                    lastY = e.getY();
+                }
+
+                public void mouseDragged(MouseEvent e) {
+                    int cols = (e.getX() - lastX) / cellSize, rows = (e.getY() - lastY) / cellSize;
+                    if(cols==0 && rows==0) return;
+                    lastX += cols * cellSize;
+                    lastY += rows * cellSize;
+                    pan(-cols, rows); // the cell space follows the pointer
+                }
+
+                public void mouseWheelMoved(MouseWheelEvent e) {
+                    zoom(e.getWheelRotation(), forceXInBounds(e.getX() / cellSize), forceYInBounds(e.getY() / cellSize));
+                }
+
+                public void mouseClicked(MouseEvent e) {
+                    if(e.getClickCount()==2) setColorByArrival(! colorByArrival);
+                }
+            };
+            addMouseListener(mouse);
+            addMouseMotionListener(mouse);
+            addMouseWheelListener(mouse);
+
+            setFocusable(true);
+            addKeyListener(new KeyAdapter() {
+                public void keyPressed(KeyEvent e) {
+                    FireReplay r = replay();
+                    if(r==null) return;
+                    double step = (r.endTime() - r.startTime()) / 20;
+                    switch(e.getKeyCode()) {
+                        case KeyEvent.VK_SPACE: if(r.isPlaying()) r.pause(); else r.play(); break;
+                        case KeyEvent.VK_LEFT:  r.seek(r.time() - step); break;
+                        case KeyEvent.VK_RIGHT: r.seek(r.time() + step); break;
+                        case KeyEvent.VK_UP:    r.setSpeed(r.speed() * 2); break;
+                        case KeyEvent.VK_DOWN:  r.setSpeed(r.speed() / 2); break;
+                        default:
+                    }
+                }
+            });
         }
 
         /**
@@ -429,9 +681,21 @@ public class API_FireState_Visualization extends JFrame{
             //System.out.println("paint");
             super.paint(g);
 
-            // draw and label the 0,0 cell
-            int width = spaceSize.width * cellSize, halfX = width / 2;
-            int height = spaceSize.height * cellSize, halfY = height / 2;
+            // draw the cells in one operation, scaling the raster to the cell size
+            int width = spaceSize.width * cellSize;
+            int height = spaceSize.height * cellSize;
+            g.drawImage(raster.image(), 1, 1, width, height, null);
+            if(displayGrid) { // Xiaolin Hu, Oct. 16, 2007
+                g.setColor(getBackground());
+                for (int i = 0; i <= spaceSize.width; i++) g.drawLine(i * cellSize, 0, i * cellSize, height);
+                for (int j = 0; j <= spaceSize.height; j++) g.drawLine(0, j * cellSize, width, j * cellSize);
+            }
+
+            // draw and label the 0,0 cell (the center of the cell space) when in view
+            int col = scaleX(0), row = scaleY(0);
+            if(col<0 || row<0) return;
+            int halfX = col * cellSize, halfY = row * cellSize;
+            g.setColor(getForeground());
             g.drawRect(halfX, halfY, cellSize, cellSize);
             g.drawString("0,0", halfX + 4, halfY - 4);
 
@@ -444,23 +708,6 @@ public class API_FireState_Visualization extends JFrame{
             // draw the two lines that form the four quadrants
             g.drawLine(halfX, 0, halfX, height);
             g.drawLine(0, halfY, width, halfY);
-
-            // for each cell in the grid
-            for (int i = 0; i < spaceSize.width; i++) {
-                for (int j = 0; j < spaceSize.height; j++) {
-                    // if this cell has had its color set
-                    if (grid[i][j] != null) {
-                        // fill in this cell with its color
-                        g.setColor(grid[i][j]);
-                        if(displayGrid) // Xiaolin Hu, Oct. 16, 2007
-                            g.fillRect(i * cellSize + 1, j * cellSize + 1,
-                                    cellSize - 1, cellSize - 1);
-                        else
-                            g.fillRect(i * cellSize + 1, j * cellSize + 1,
-                                    cellSize, cellSize);
-                    }
-                }
-            }
         }
     }
 
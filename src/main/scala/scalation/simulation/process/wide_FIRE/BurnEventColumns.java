@@ -0,0 +1,98 @@
+package scalation.simulation.process.wide_FIRE;
+
+import java.util.Arrays;
+
+/**
+ * A BurnEventSink that stores the records of a simulation result in primitive
+ * column arrays (x, y, time, state, op).  The columns grow geometrically and are
+ * reused by clear(), so decoding many results into the same instance does not
+ * allocate once the capacity has been reached.
+ */
+public class BurnEventColumns implements BurnEventSink {
+
+    private int[]    x;
+    private int[]    y;
+    private double[] time;
+    private byte[]   state;
+    private short[]  op;
+
+    /**
+     * The number of records stored, and how many of them are BurnCell records.
+     */
+    private int size = 0, burnCount = 0;
+
+    public BurnEventColumns() {
+        this(1024);
+    }
+
+    /**
+     * @param   capacity    The initial number of records the columns can hold.
+     */
+    public BurnEventColumns(int capacity) {
+        capacity = Math.max(capacity, 16);
+        x     = new int[capacity];
+        y     = new int[capacity];
+        time  = new double[capacity];
+        state = new byte[capacity];
+        op    = new short[capacity];
+    }
+
+    /**
+     * See parent method.
+     */
+    public void accept(int cellX, int cellY, double t, int s, int o) {
+        if (size == x.length) grow(size + 1);
+        x[size]     = cellX;
+        y[size]     = cellY;
+        time[size]  = t;
+        state[size] = (byte) s;
+        op[size]    = (short) o;
+        if (o == BURN_CELL) burnCount++;
+        size++;
+    }
+
+    /**
+     * Makes sure the columns can hold at least the given number of records.
+     *
+     * @param   minCapacity     The required capacity.
+     */
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity > x.length) grow(minCapacity);
+    }
+
+    protected void grow(int minCapacity) {
+        int capacity = Math.max(minCapacity, x.length + (x.length >> 1));
+        x     = Arrays.copyOf(x, capacity);
+        y     = Arrays.copyOf(y, capacity);
+        time  = Arrays.copyOf(time, capacity);
+        state = Arrays.copyOf(state, capacity);
+        op    = Arrays.copyOf(op, capacity);
+    }
+
+    /**
+     * Removes all records, keeping the allocated columns for reuse.
+     */
+    public void clear() {
+        size = 0;
+        burnCount = 0;
+    }
+
+    public int size()                { return size; }
+    public int burnCount()           { return burnCount; }
+    public int x(int i)              { return x[i]; }
+    public int y(int i)              { return y[i]; }
+    public double time(int i)        { return time[i]; }
+    public int state(int i)          { return state[i]; }
+    public int op(int i)             { return op[i]; }
+    public boolean isBurnCell(int i) { return op[i] == BURN_CELL; }
+
+    /**
+     * Pushes the stored records, in order, to the given sink.
+     *
+     * @param   sink    The receiver of the records.
+     */
+    public void replay(BurnEventSink sink) {
+        for (int i = 0; i < size; i++) sink.accept(x[i], y[i], time[i], state[i], op[i]);
+    }
+
+}
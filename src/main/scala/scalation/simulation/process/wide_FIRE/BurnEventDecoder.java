@@ -0,0 +1,499 @@
+package scalation.simulation.process.wide_FIRE;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * This class decodes the result of the DEVS-FIRE runSimulation call, i.e., a JSON
+ * array of records of the form
+ *
+ *     [{"x": 100, "y": 101, "Operation": "BurnCell", "time": 35.2, "state": 1}, ...]
+ *
+ * The decoder reads the response body incrementally through a fixed byte buffer
+ * (it does not hold the whole body in memory) and pushes every record to a
+ * BurnEventSink as primitive values.  Numbers are parsed directly from the bytes
+ * and keys/operation names are matched against byte constants, so decoding does
+ * not allocate per record.  Records are kept whatever their operation is (i.e.,
+ * the ignition team records are passed on with their own operation code), and
+ * unknown keys and nested values are skipped.
+ *
+ * A decoder instance reuses its buffers and is not thread-safe; operation codes
+ * are shared by all decoders.
+ */
+public class BurnEventDecoder {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final byte[] KEY_X     = ascii("x");
+    private static final byte[] KEY_Y     = ascii("y");
+    private static final byte[] KEY_OP    = ascii("Operation");
+    private static final byte[] KEY_TIME  = ascii("time");
+    private static final byte[] KEY_STATE = ascii("state");
+
+    /**
+     * The powers of ten that are exactly representable as doubles.
+     */
+    private static final double[] POW10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+    /**
+     * The operation names seen so far, indexed by operation code (BurnCell = 0).
+     */
+    private static volatile byte[][] opNames = { ascii("BurnCell") };
+
+    /**
+     * The input buffer, and the current position and limit within it.
+     */
+    private final byte[] buf = new byte[BUFFER_SIZE];
+    private int pos, limit;
+
+    /**
+     * The source being decoded: either a stream or a character sequence.
+     */
+    private InputStream in;
+    private CharSequence text;
+    private int textPos;
+
+    /**
+     * Holds the bytes of the last key or string value read.
+     */
+    private byte[] scratch = new byte[64];
+    private int scratchLen;
+
+    /**
+     * The position in buf of the number being read (-1 if none), and its bytes
+     * saved from earlier fills of buf, for the numbers toDouble cannot convert
+     * exactly.
+     */
+    private int numberStart = -1;
+    private byte[] number = new byte[32];
+    private int numberLen;
+
+    /**
+     * Decodes a simulation result read from the given stream (e.g., the body of a
+     * response obtained with HttpResponse.BodyHandlers.ofInputStream()).  The
+     * stream is read to its end but not closed.
+     *
+     * @param   input   The stream holding the simulation result.
+     * @param   sink    The receiver of the decoded records.
+     * @return          The number of records decoded.
+     */
+    public int decode(InputStream input, BurnEventSink sink) throws IOException {
+        in = input;
+        text = null;
+        try {
+            return decodeRecords(sink);
+        } finally {
+            in = null;
+        }
+    }
+
+    /**
+     * Decodes a simulation result that has already been read into memory.
+     *
+     * @param   result  The simulation result.
+     * @param   sink    The receiver of the decoded records.
+     * @return          The number of records decoded.
+     */
+    public int decode(CharSequence result, BurnEventSink sink) {
+        in = null;
+        text = result;
+        textPos = 0;
+        try {
+            return decodeRecords(sink);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);      // only a malformed result gets here
+        } finally {
+            text = null;
+        }
+    }
+
+    /**
+     * Returns the name of the operation with the given code.
+     *
+     * @param   code    The operation code.
+     */
+    public static String operationName(int code) {
+        if (code == BurnEventSink.NO_OPERATION) return "";
+        byte[][] names = opNames;
+        return new String(names[code], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the code of the operation with the given name, registering the name
+     * if it has not been seen before.
+     *
+     * @param   name    The operation name, e.g., "BurnCell".
+     */
+    public static int operationCode(String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        return operationCode(bytes, bytes.length);
+    }
+
+    private static int operationCode(byte[] bytes, int len) {
+        byte[][] names = opNames;
+        for (int i = 0; i < names.length; i++) {
+            if (equal(names[i], bytes, len)) return i;
+        }
+        synchronized (BurnEventDecoder.class) {
+            names = opNames;
+            for (int i = 0; i < names.length; i++) {
+                if (equal(names[i], bytes, len)) return i;
+            }
+            if (names.length > Short.MAX_VALUE) throw new IllegalStateException("too many operation names");
+            names = Arrays.copyOf(names, names.length + 1);
+            names[names.length - 1] = Arrays.copyOf(bytes, len);
+            opNames = names;
+            return names.length - 1;
+        }
+    }
+
+    /**
+     * Decodes all top-level objects of the source, one record per object.
+     */
+    private int decodeRecords(BurnEventSink sink) throws IOException {
+        pos = limit = 0;
+        int count = 0;
+        int c;
+        while ((c = read()) >= 0) {
+            if (c == '{') {
+                decodeRecord(sink);
+                count++;
+            } else if (c == '"') {
+                skipString();
+            }
+            // anything else at the top level ('[', ']', ',', white space) is ignored
+        }
+        return count;
+    }
+
+    /**
+     * Decodes the fields of one record, the opening brace having been read.
+     */
+    private void decodeRecord(BurnEventSink sink) throws IOException {
+        int x = -1, y = -1, state = -1, op = BurnEventSink.NO_OPERATION;
+        double time = Double.NaN;
+
+        for (int c = skipWhitespace(); c != '}'; c = skipWhitespace()) {
+            if (c < 0) throw malformed("unterminated record");
+            if (c == ',') continue;
+            if (c != '"') throw malformed("expected a key");
+            readString();
+            if (skipWhitespace() != ':') throw malformed("expected ':'");
+            c = skipWhitespace();
+
+            if (equal(KEY_X, scratch, scratchLen)) {
+                x = readInt(c);
+            } else if (equal(KEY_Y, scratch, scratchLen)) {
+                y = readInt(c);
+            } else if (equal(KEY_TIME, scratch, scratchLen)) {
+                time = readNumber(c);
+            } else if (equal(KEY_STATE, scratch, scratchLen)) {
+                state = readInt(c);
+            } else if (equal(KEY_OP, scratch, scratchLen) && c == '"') {
+                readString();
+                op = operationCode(scratch, scratchLen);
+            } else {
+                skipValue(c);
+            }
+        }
+        sink.accept(x, y, time, state, op);
+    }
+
+    /**
+     * Reads a number (possibly quoted) whose first byte has been read.  Returns
+     * NaN for non-numeric values such as null.
+     */
+    private double readNumber(int c) throws IOException {
+        boolean quoted = c == '"';
+        if (quoted) c = read();
+        boolean negative = false;
+        if (c == '-') {
+            negative = true;
+            c = read();
+        } else if (c == '+') {
+            c = read();
+        }
+        numberLen = 0;
+        numberStart = pos - 1;                           // c, unless at the end
+
+        long mantissa = 0;
+        int digits = 0, exponent = 0;
+        boolean any = false, truncated = false;
+        for (; c >= '0' && c <= '9'; c = read()) {
+            if (digits < 18) {
+                mantissa = mantissa * 10 + (c - '0');
+                if (mantissa != 0) digits++;
+            } else {
+                exponent++;
+                truncated |= c != '0';
+            }
+            any = true;
+        }
+        if (c == '.') {
+            for (c = read(); c >= '0' && c <= '9'; c = read()) {
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (mantissa != 0) digits++;
+                    exponent--;
+                } else {
+                    truncated |= c != '0';
+                }
+                any = true;
+            }
+        }
+        if (any && (c == 'e' || c == 'E')) {
+            c = read();
+            boolean negExp = c == '-';
+            if (c == '-' || c == '+') c = read();
+            int e = 0;
+            for (; c >= '0' && c <= '9'; c = read()) {
+                if (e < 10000) e = e * 10 + (c - '0');
+            }
+            exponent += negExp ? -e : e;
+        }
+        double value = Double.NaN;
+        if (any) value = truncated || ! exact(mantissa, exponent) ? parse(c >= 0 ? pos - 1 : limit)
+                                                                  : toDouble(mantissa, exponent);
+        numberStart = -1;
+
+        if (quoted) {
+            while (c >= 0 && c != '"') c = read();       // consume the closing quote
+        } else {
+            while (isLiteral(c)) c = read();             // rest of null/true/false
+            if (c >= 0) pos--;                           // push back the terminator
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Saves the bytes of the number being read up to end of buf.
+     */
+    private void keepNumber(int end) {
+        int len = end - numberStart;
+        if (numberLen + len > number.length) number = Arrays.copyOf(number, Math.max(2 * number.length, numberLen + len));
+        System.arraycopy(buf, numberStart, number, numberLen, len);
+        numberLen += len;
+    }
+
+    /**
+     * Returns the number being read (without its sign), ending at end of buf, as
+     * Double.parseDouble reads it.
+     */
+    private double parse(int end) {
+        keepNumber(end);
+        try {
+            return Double.parseDouble(new String(number, 0, numberLen, StandardCharsets.ISO_8859_1));
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    private int readInt(int c) throws IOException {
+        double value = readNumber(c);
+        return Double.isNaN(value) ? -1 : (int) value;
+    }
+
+    /**
+     * Returns whether toDouble gives mantissa * 10^exponent correctly rounded, i.e.,
+     * the value is zero, a long, or an exact double times or over an exact power of ten.
+     */
+    private static boolean exact(long mantissa, int exponent) {
+        return mantissa == 0 || exponent == 0 || mantissa < (1L << 53) && exponent >= -22 && exponent <= 22;
+    }
+
+    private static double toDouble(long mantissa, int exponent) {
+        if (mantissa == 0 || exponent == 0) return mantissa;
+        return exponent > 0 ? mantissa * POW10[exponent] : mantissa / POW10[-exponent];
+    }
+
+    /**
+     * Reads a string into the scratch buffer, the opening quote having been read.
+     */
+    private void readString() throws IOException {
+        scratchLen = 0;
+        for (int c = read(); c != '"'; c = read()) {
+            if (c < 0) throw malformed("unterminated string");
+            if (c == '\\') c = read();
+            if (scratchLen == scratch.length) scratch = Arrays.copyOf(scratch, scratchLen * 2);
+            scratch[scratchLen++] = (byte) c;
+        }
+    }
+
+    private void skipString() throws IOException {
+        for (int c = read(); c != '"'; c = read()) {
+            if (c < 0) throw malformed("unterminated string");
+            if (c == '\\') read();
+        }
+    }
+
+    /**
+     * Skips a value whose first byte has been read.
+     */
+    private void skipValue(int c) throws IOException {
+        if (c == '"') {
+            skipString();
+        } else if (c == '{' || c == '[') {
+            int depth = 1;
+            while (depth > 0) {
+                c = read();
+                if (c < 0) throw malformed("unterminated value");
+                if (c == '"') skipString();
+                else if (c == '{' || c == '[') depth++;
+                else if (c == '}' || c == ']') depth--;
+            }
+        } else {
+            while (c >= 0 && c != ',' && c != '}' && c != ']' && ! isWhitespace(c)) c = read();
+            if (c >= 0) pos--;
+        }
+    }
+
+    private int skipWhitespace() throws IOException {
+        int c = read();
+        while (isWhitespace(c)) c = read();
+        return c;
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+
+    private static boolean isLiteral(int c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z';
+    }
+
+    /**
+     * Returns the next byte of the source, or -1 at its end.
+     */
+    private int read() throws IOException {
+        if (pos == limit && ! fill()) return -1;
+        return buf[pos++] & 0xff;
+    }
+
+    private boolean fill() throws IOException {
+        if (numberStart >= 0) {                          // a number spans the refill
+            keepNumber(limit);
+            numberStart = limit;
+        }
+        int n;
+        if (in != null) {
+            do n = in.read(buf, 0, buf.length); while (n == 0);
+        } else {
+            n = Math.min(buf.length, text.length() - textPos);
+            for (int i = 0; i < n; i++) {
+                char ch = text.charAt(textPos + i);
+                buf[i] = ch < 0x80 ? (byte) ch : (byte) '?';
+            }
+            textPos += n;
+        }
+        if (n <= 0) return false;
+        if (numberStart >= 0) numberStart = 0;
+        pos = 0;
+        limit = n;
+        return true;
+    }
+
+    private static boolean equal(byte[] a, byte[] b, int len) {
+        return a.length == len && Arrays.equals(a, 0, len, b, 0, len);
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private IOException malformed(String message) {
+        return new IOException("malformed simulation result: " + message);
+    }
+
+    /**
+     * Checks the decoder against the split-based parser of API_FireState_Visualization
+     * (BurnEventDecoderBenchmark.splitParse): on synthetic results with times rounded
+     * to milliseconds and with times of every length and exponent, decoded from a
+     * String, from a stream and from a stream returning a few bytes per read, the
+     * BurnCell records must be the parser's, bit for bit, and the ignition team
+     * records must be kept.
+     *
+     * Usage: java scalation.simulation.process.wide_FIRE.BurnEventDecoder
+     */
+    public static void main(String[] args) throws IOException {
+        java.util.Random rng = new java.util.Random(1);
+        int results = 0, records = 0;
+        for (int seed = 0; seed < 40; seed++) {
+            int n = seed < 4 ? seed : 1 + rng.nextInt(seed < 30 ? 200 : 20000);
+            String result = seed % 2 == 0 ? BurnEventDecoderBenchmark.synthesize(n, seed) : exotic(n, rng);
+            int[] cellX = new int[n], cellY = new int[n], state = new int[n];
+            double[] time = new double[n];
+            int burns = n == 0 ? 0 : BurnEventDecoderBenchmark.splitParse(result, cellX, cellY, time, state);
+            byte[] body = result.getBytes(StandardCharsets.US_ASCII);
+
+            BurnEventColumns[] decoded = new BurnEventColumns[3];
+            for (int k = 0; k < 3; k++) decoded[k] = new BurnEventColumns();
+            BurnEventDecoder decoder = new BurnEventDecoder();
+            decoder.decode(result, decoded[0]);
+            decoder.decode(new java.io.ByteArrayInputStream(body), decoded[1]);
+            decoder.decode(new java.io.ByteArrayInputStream(body) {
+                @Override
+                public synchronized int read(byte[] b, int off, int len) {
+                    return super.read(b, off, Math.min(len, 1 + rng.nextInt(13)));
+                }
+            }, decoded[2]);
+
+            for (BurnEventColumns events : decoded) {
+                if (events.size() != n || events.burnCount() != burns) {
+                    throw new AssertionError("seed " + seed + ": " + events.size() + " records, " + events.burnCount()
+                                             + " BurnCell, expected " + n + " and " + burns);
+                }
+                for (int i = 0, j = 0; i < n; i++) {
+                    if (! events.isBurnCell(i)) {
+                        if (! "IgnitionTeam".equals(operationName(events.op(i)))) {
+                            throw new AssertionError("seed " + seed + ": record " + i + " has operation "
+                                                     + operationName(events.op(i)));
+                        }
+                        continue;
+                    }
+                    if (events.x(i) != cellX[j] || events.y(i) != cellY[j] || events.state(i) != state[j]
+                            || Double.doubleToLongBits(events.time(i)) != Double.doubleToLongBits(time[j])) {
+                        throw new AssertionError("seed " + seed + ": record " + i + " differs from the split parser: time "
+                                                 + events.time(i) + " vs " + time[j]);
+                    }
+                    j++;
+                }
+            }
+            results++;
+            records += n;
+        }
+        System.out.println(results + " results, " + records + " records decoded as by the split parser");
+    }
+
+    /**
+     * Returns a result in the layout of BurnEventDecoderBenchmark.synthesize whose
+     * times are written in every form: whole, with up to 17 significant digits, in
+     * scientific notation, huge and tiny.
+     */
+    private static String exotic(int n, java.util.Random rng) {
+        StringBuilder sb = new StringBuilder(n * 80).append('[');
+        for (int i = 0; i < n; i++) {
+            if (i > 0) sb.append(", ");
+            double t = switch (i % 6) {
+                case 0  -> rng.nextInt(100000);
+                case 1  -> rng.nextDouble() * 86400;
+                case 2  -> Math.scalb(rng.nextDouble(), rng.nextInt(200) - 100);
+                case 3  -> rng.nextLong() / 1e3;
+                case 4  -> Double.longBitsToDouble(rng.nextLong() & 0x7fefffffffffffffL);
+                default -> Math.round(rng.nextDouble() * 1e7) / 1e3;
+            };
+            String time = i % 7 == 6 ? String.format("%.20e", t) : Double.toString(t);
+            sb.append("{\"x\": ").append(rng.nextInt(2000))
+              .append(", \"y\": ").append(rng.nextInt(2000))
+              .append(", \"Operation\":\"").append(i % 50 == 49 ? "IgnitionTeam" : "BurnCell")
+              .append("\",\"time\": ").append(time)
+              .append(", \"state\": ").append(1 + rng.nextInt(2)).append('}');
+        }
+        return sb.append(']').toString();
+    }
+
+}
@@ -0,0 +1,141 @@
+package scalation.simulation.process.wide_FIRE;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * This class compares the streaming BurnEventDecoder with the original split-based
+ * parser of API_FireState_Visualization on a synthetic simulation result, reporting
+ * the time and the bytes allocated per parse.
+ *
+ * Usage: java scalation.simulation.process.wide_FIRE.BurnEventDecoderBenchmark [records] [rounds]
+ */
+public class BurnEventDecoderBenchmark {
+
+    /**
+     * Returns a synthetic runSimulation result with n records laid out the way the
+     * split-based parser expects them (its fixed offsets require the operation value
+     * to be written as "Operation":"BurnCell","time"); every 50th record is an ignition
+     * team record.
+     *
+     * @param   n       The number of records.
+     * @param   seed    The seed for the random cell locations.
+     */
+    public static String synthesize(int n, long seed) {
+        Random rng = new Random(seed);
+        StringBuilder sb = new StringBuilder(n * 72);
+        sb.append('[');
+        double time = 0;
+        for (int i = 0; i < n; i++) {
+            if (i > 0) sb.append(", ");
+            time += rng.nextDouble() * 2;
+            String op = (i % 50 == 49) ? "IgnitionTeam" : "BurnCell";
+            sb.append("{\"x\": ").append(rng.nextInt(200))
+              .append(", \"y\": ").append(rng.nextInt(200))
+              .append(", \"Operation\":\"").append(op)
+              .append("\",\"time\": ").append(Math.round(time * 1000) / 1000.0)
+              .append(", \"state\": ").append(1 + rng.nextInt(2)).append('}');
+        }
+        sb.append(']');
+        return sb.toString();
+    }
+
+    /**
+     * The original parser of API_FireState_Visualization.visualize, kept here as
+     * the baseline.  Returns the number of BurnCell records.
+     */
+    public static int splitParse(String data, int[] cellX, int[] cellY, double[] time, int[] state) {
+        data = data.substring(2, data.length() - 1);
+        String[] dataPoint = data.split("\\{");
+        int index = 0;
+        for (int i = 0; i < dataPoint.length; i++) {
+            int yLoc = dataPoint[i].indexOf("y");
+            int OpeLoc = dataPoint[i].indexOf("Operation");
+            int timeLoc = dataPoint[i].indexOf("time");
+            if (dataPoint[i].substring(OpeLoc + 12, timeLoc - 3).compareTo("BurnCell") == 0) {
+                int stateLoc = dataPoint[i].indexOf("state");
+                cellX[index] = Integer.valueOf(dataPoint[i].substring(5, yLoc - 3));
+                cellY[index] = Integer.valueOf(dataPoint[i].substring(yLoc + 4, OpeLoc - 3));
+                time[index] = Double.valueOf(dataPoint[i].substring(timeLoc + 7, stateLoc - 3));
+                state[index] = Integer.valueOf(dataPoint[i].substring(stateLoc + 8, stateLoc + 9));
+                index++;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Returns the number of bytes allocated so far by the current thread, or -1
+     * if the JVM does not track it.
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    private static void report(String name, long nanos, long bytes, int rounds, int n) {
+        System.out.printf("%-22s %10.3f ms/parse %8.1f ns/record %14d bytes/parse%n",
+                name, nanos / 1e6 / rounds, (double) nanos / rounds / n, bytes < 0 ? -1 : bytes / rounds);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int n      = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        String result = synthesize(n, 0);
+        byte[] body   = result.getBytes(StandardCharsets.US_ASCII);
+        int[] cellX = new int[n], cellY = new int[n], state = new int[n];
+        double[] time = new double[n];
+        BurnEventDecoder decoder = new BurnEventDecoder();
+        BurnEventColumns events  = new BurnEventColumns(n);
+
+        System.out.println("records = " + n + ", body = " + body.length + " bytes, rounds = " + rounds);
+        for (int warmup = 0; warmup < 3; warmup++) {
+            splitParse(result, cellX, cellY, time, state);
+            events.clear();
+            decoder.decode(new ByteArrayInputStream(body), events);
+        }
+
+        long bytes = allocatedBytes(), nanos = System.nanoTime();
+        int burns = 0;
+        for (int r = 0; r < rounds; r++) burns = splitParse(result, cellX, cellY, time, state);
+        nanos = System.nanoTime() - nanos;
+        bytes = allocatedBytes() - bytes;
+        report("split (String)", nanos, bytes, rounds, n);
+
+        bytes = allocatedBytes(); nanos = System.nanoTime();
+        for (int r = 0; r < rounds; r++) {
+            events.clear();
+            decoder.decode(result, events);
+        }
+        nanos = System.nanoTime() - nanos;
+        bytes = allocatedBytes() - bytes;
+        report("decoder (String)", nanos, bytes, rounds, n);
+
+        bytes = allocatedBytes(); nanos = System.nanoTime();
+        for (int r = 0; r < rounds; r++) {
+            events.clear();
+            decoder.decode(new ByteArrayInputStream(body), events);
+        }
+        nanos = System.nanoTime() - nanos;
+        bytes = allocatedBytes() - bytes;
+        report("decoder (InputStream)", nanos, bytes, rounds, n);
+
+        if (events.burnCount() != burns) throw new AssertionError("decoder found " + events.burnCount() + " BurnCell records, split parser " + burns);
+        for (int i = 0, j = 0; i < events.size(); i++) {
+            if (! events.isBurnCell(i)) continue;
+            if (events.x(i) != cellX[j] || events.y(i) != cellY[j] || events.time(i) != time[j] || events.state(i) != state[j]) {
+                throw new AssertionError("record " + i + " differs from the split parser");
+            }
+            j++;
+        }
+        System.out.println("BurnCell records = " + burns + ", ignition team records kept = " + (events.size() - burns));
+    }
+
+}
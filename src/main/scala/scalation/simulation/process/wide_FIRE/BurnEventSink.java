@@ -0,0 +1,35 @@
+package scalation.simulation.process.wide_FIRE;
+
+/**
+ * A receiver of the per-cell records contained in a DEVS-FIRE simulation result.
+ * Records are pushed one at a time as primitive values, so a decoder can hand
+ * them over without allocating an object (or a String) per record.
+ *
+ * The operation code identifies the kind of record: BURN_CELL for the fire
+ * spread records the visualizer paints, any other code for the records produced
+ * by the ignition team (see BurnEventDecoder.operationName).
+ */
+public interface BurnEventSink {
+
+    /**
+     * Operation code of a "BurnCell" record.
+     */
+    int BURN_CELL = 0;
+
+    /**
+     * Operation code of a record that has no "Operation" field.
+     */
+    int NO_OPERATION = -1;
+
+    /**
+     * Accepts one record of the simulation result.
+     *
+     * @param   x       The cell x coordinate (-1 if absent).
+     * @param   y       The cell y coordinate (-1 if absent).
+     * @param   time    The simulation time of the record (NaN if absent).
+     * @param   state   The cell state, 1 = burning, 2 = burned (-1 if absent).
+     * @param   op      The operation code of the record.
+     */
+    void accept(int x, int y, double time, int state, int op);
+
+}
@@ -0,0 +1,110 @@
+package scalation.simulation.process.wide_FIRE;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * The operations of the DEVS-FIRE API: obtain a user token, set the wind, the cell
+ * space location and the ignition point of the token's session, and run the
+ * simulation.  All operations are asynchronous; the records of a run are pushed
+ * to a BurnEventSink as they are decoded.
+ *
+ * Implemented by DevsFireClient (the remote service) and LocalFireEngine (an
+ * in-process simulator); use create to switch between them.
+ */
+public interface DevsFireApi {
+
+    /**
+     * Returns the backend for the given target: "local" for a LocalFireEngine,
+     * otherwise the base URL of a DEVS-FIRE server for a DevsFireClient.
+     *
+     * @param   target      "local" or a base URL such as DevsFireClient.DEFAULT_BASE_URL.
+     */
+    static DevsFireApi create(String target) {
+        if ("local".equals(target)) return new LocalFireEngine();
+        return DevsFireClient.builder().baseUrl(target).build();
+    }
+
+    /**
+     * Connects to the service and returns a new user token.
+     */
+    CompletableFuture<String> connect();
+
+    CompletableFuture<Void> setWindCondition(String token, double windSpeed, double windDirection);
+
+    CompletableFuture<Void> setCellSpaceLocation(String token, double lat, double lng);
+
+    CompletableFuture<Void> setPointIgnition(String token, int x, int y);
+
+    /**
+     * Runs the simulation of the token's session for simTime seconds.
+     *
+     * @return          The number of records pushed to the sink.
+     */
+    CompletableFuture<Integer> runSimulation(String token, int simTime, BurnEventSink sink);
+
+    /**
+     * Ends the token's session, releasing what the backend keeps for it.  The
+     * DEVS-FIRE server has no such call, so by default nothing is done.
+     */
+    default void disconnect(String token) {}
+
+    /**
+     * Runs one scenario on a new session: the calls are made in the order of
+     * connectAndRunTest, and the session is disconnected once the run completes
+     * (normally or not).
+     *
+     * @param   scenario    The scenario to run.
+     * @param   sink        The receiver of the records of the run.
+     * @return              The number of records pushed to the sink.
+     */
+    default CompletableFuture<Integer> run(DevsFireScenario scenario, BurnEventSink sink) {
+        return connect().thenCompose(token ->
+                setWindCondition(token, scenario.windSpeed(), scenario.windDirection())
+                .thenCompose(v -> setCellSpaceLocation(token, scenario.lat(), scenario.lng()))
+                .thenCompose(v -> setPointIgnition(token, scenario.ignitionX(), scenario.ignitionY()))
+                .thenCompose(v -> runSimulation(token, scenario.simTime(), sink))
+                .whenComplete((n, ex) -> disconnect(token)));
+    }
+
+    /**
+     * Runs the given independent scenarios concurrently, one virtual thread per
+     * scenario, with at most maxConcurrency of them in flight at any time.
+     *
+     * @param   scenarios       The scenarios to run.
+     * @param   sinks           Creates the sink receiving the records of one scenario.
+     * @param   maxConcurrency  The maximum number of scenarios running at once.
+     * @return                  The sinks, in the order of the scenarios.
+     */
+    default <S extends BurnEventSink> List<S> runAll(List<DevsFireScenario> scenarios, Supplier<S> sinks,
+                                                   int maxConcurrency)
+            throws InterruptedException, ExecutionException {
+        Semaphore permits = new Semaphore(maxConcurrency);
+        List<S> results = new ArrayList<>(scenarios.size());
+        List<Future<?>> runs = new ArrayList<>(scenarios.size());
+        try (ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (DevsFireScenario scenario : scenarios) {
+                S sink = sinks.get();
+                results.add(sink);
+                runs.add(threads.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return run(scenario, sink).get();
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+            for (Future<?> f : runs) f.get();
+        }
+        return results;
+    }
+
+}
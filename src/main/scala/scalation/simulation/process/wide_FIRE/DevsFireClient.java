@@ -0,0 +1,470 @@
+package scalation.simulation.process.wide_FIRE;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * A reusable client for the DEVS-FIRE API server (see connectAndRunTest for the
+ * sequence of calls).  All calls go through one shared HttpClient, so connections
+ * are kept alive and reused across calls and scenarios, and are made with sendAsync
+ * so the calls of a scenario are chained (wind and cell space location are set
+ * concurrently) without blocking a thread per call.  Every request has a timeout,
+ * and the requests safe to repeat (connect, at worst leaving an unused token, and
+ * the setters) are retried with an exponential backoff when failing with an I/O
+ * error or a 5xx status.  runSimulation is never sent twice on a session, as the
+ * server may have started the first one: run(scenario, sink) retries the scenario
+ * on a new session instead, as long as no record has reached the sink.  The
+ * latency, status and response size of every call, and the time to decode a
+ * result, are reported as JFR events and metrics (FireEvents).
+ *
+ * The server keeps the fire of a session (ignitions, burnt cells) from one run to
+ * the next and has no call to reset it, so run connects a new session for every
+ * scenario.  Only for a server resetting a session on each runSimulation may the
+ * sessions (user tokens) be pooled (Builder.reuseSessions): a scenario then takes
+ * an idle token, if any, instead of connecting again, and the cell space location
+ * is only sent when it differs from the one the token's session already has,
+ * which spares the server the fuel/terrain lookup for repeated regions.  A token
+ * is dropped from the pool when a call on it fails.
+ *
+ * With a tile store (Builder.tileStore), setting a new location also maps, while
+ * the server does its own lookup, the local fuel/terrain tiles of the cell space,
+ * so local consumers of the run (e.g., a LocalFireEngine on the same store, or
+ * analyses needing the fuel under the fire) read them from the page cache.  The
+ * tiles are best-effort: a failed prefetch is logged and the run goes on.
+ *
+ * Usage:
+ *     try (DevsFireClient client = DevsFireClient.builder().build()) {
+ *         BurnEventColumns events = new BurnEventColumns();
+ *         client.run(DevsFireScenario.EXAMPLE, events).join();
+ *     }
+ */
+public class DevsFireClient implements DevsFireApi, AutoCloseable {
+
+    public static final String DEFAULT_BASE_URL = "http://firesim.cs.gsu.edu:8084";
+
+    private static final System.Logger LOG = System.getLogger(DevsFireClient.class.getName());
+
+    private final String baseUrl;
+    private final String credentials;
+    private final Duration requestTimeout;
+    private final int maxRetries;
+    private final Duration retryBackoff;
+    private final int maxConcurrency;
+    private final boolean reuseSessions;
+    private final FireTileStore tiles;
+
+    /**
+     * The shared HTTP client and the (virtual thread) executor running its
+     * callbacks and the decoding of simulation results.
+     */
+    private final ExecutorService executor;
+    private final HttpClient http;
+
+    /**
+     * The idle sessions available for reuse.
+     */
+    private final Queue<Session> idle = new ConcurrentLinkedQueue<>();
+
+    /**
+     * A user token and the cell space location last set on its session.
+     */
+    private static final class Session {
+        final String token;
+        double lat = Double.NaN, lng = Double.NaN;
+
+        Session(String token) {
+            this.token = token;
+        }
+    }
+
+    private DevsFireClient(Builder b) {
+        baseUrl        = b.baseUrl.endsWith("/") ? b.baseUrl.substring(0, b.baseUrl.length() - 1) : b.baseUrl;
+        credentials    = b.credentials;
+        requestTimeout = b.requestTimeout;
+        maxRetries     = b.maxRetries;
+        retryBackoff   = b.retryBackoff;
+        maxConcurrency = b.maxConcurrency;
+        reuseSessions  = b.reuseSessions;
+        tiles          = b.tiles;
+        executor       = Executors.newVirtualThreadPerTaskExecutor();
+        http           = HttpClient.newBuilder()
+                                   .version(HttpClient.Version.HTTP_1_1)
+                                   .connectTimeout(b.connectTimeout)
+                                   .executor(executor)
+                                   .build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * See parent method.
+     */
+    public CompletableFuture<String> connect() {
+        HttpRequest request = newRequest("/api/connect")
+                .header("accept", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(credentials))
+                .build();
+        return send(request, HttpResponse.BodyHandlers.ofString(), true).thenApply(r -> r.body().trim());
+    }
+
+    /**
+     * See parent method.
+     */
+    public CompletableFuture<Void> setWindCondition(String token, double windSpeed, double windDirection) {
+        return post("/api/setWindCondition/?userToken=" + encode(token)
+                + "&windSpeed=" + windSpeed + "&windDirection=" + windDirection);
+    }
+
+    /**
+     * See parent method.
+     */
+    public CompletableFuture<Void> setCellSpaceLocation(String token, double lat, double lng) {
+        return post("/api/setCellSpaceLocation/?userToken=" + encode(token) + "&lat=" + lat + "&lng=" + lng);
+    }
+
+    /**
+     * See parent method.
+     */
+    public CompletableFuture<Void> setPointIgnition(String token, int x, int y) {
+        return post("/api/setPointIgnition/?userToken=" + encode(token) + "&x=" + x + "&y=" + y);
+    }
+
+    /**
+     * See parent method.  The response body is decoded while it streams in, on a
+     * virtual thread of this client.  The request is not retried (see above).
+     */
+    public CompletableFuture<Integer> runSimulation(String token, int simTime, BurnEventSink sink) {
+        return simulate(token, simTime).thenCompose(r -> decode(r, sink));
+    }
+
+    /**
+     * Returns the local tile store warmed for the locations of the runs, or null.
+     */
+    public FireTileStore tileStore() {
+        return tiles;
+    }
+
+    /**
+     * Runs one scenario on a new (or pooled) session: the wind and the cell space
+     * location are set concurrently (the location only if it changed, its tiles
+     * then mapped meanwhile if there is a tile store), then the ignition point, then
+     * the simulation is run.  A runSimulation failing with an I/O error or a 5xx
+     * status is retried, with the backoff of the requests, on a new session.
+     *
+     * @param   scenario    The scenario to run.
+     * @param   sink        The receiver of the records of the run.
+     * @return              The number of records pushed to the sink.
+     */
+    public CompletableFuture<Integer> run(DevsFireScenario scenario, BurnEventSink sink) {
+        return run(scenario, sink, 0);
+    }
+
+    private CompletableFuture<Integer> run(DevsFireScenario scenario, BurnEventSink sink, int attempt) {
+        CompletableFuture<Session> acquired = attempt == 0 ? acquire() : connect().thenApply(Session::new);
+        return acquired.thenCompose(session -> {
+            CompletableFuture<Void> wind = setWindCondition(session.token, scenario.windSpeed(), scenario.windDirection());
+            CompletableFuture<Void> location = sameLocation(session, scenario)
+                    ? CompletableFuture.completedFuture(null)
+                    : setCellSpaceLocation(session.token, scenario.lat(), scenario.lng()).thenRun(() -> {
+                          session.lat = scenario.lat();
+                          session.lng = scenario.lng();
+                      });
+            if (tiles != null && ! location.isDone()) {
+                location = CompletableFuture.allOf(location, CompletableFuture.runAsync(
+                        () -> tiles.prefetch(scenario.lat(), scenario.lng()), executor)
+                        .exceptionally(ex -> {                  // the tiles are best-effort
+                            LOG.log(System.Logger.Level.WARNING, "tile prefetch failed at lat = "
+                                    + scenario.lat() + ", lng = " + scenario.lng(), unwrap(ex));
+                            return null;
+                        }));
+            }
+            return CompletableFuture.allOf(wind, location)
+                    .thenCompose(v -> setPointIgnition(session.token, scenario.ignitionX(), scenario.ignitionY()))
+                    .thenCompose(v -> simulate(session.token, scenario.simTime()).handle((r, ex) -> {
+                        if (ex == null) return decode(r, sink).whenComplete((n, e) -> {
+                            if (e == null && reuseSessions) idle.offer(session);
+                        });
+                        Throwable cause = unwrap(ex);             // no record has reached the sink
+                        if (attempt >= maxRetries || ! retryable(cause)) {
+                            return CompletableFuture.<Integer>failedFuture(cause);
+                        }
+                        return CompletableFuture.supplyAsync(() -> attempt + 1, backoff(attempt))
+                                                .thenCompose(next -> run(scenario, sink, next));
+                    }).thenCompose(f -> f));
+        });
+    }
+
+    /**
+     * Runs the given independent scenarios concurrently on virtual threads, with
+     * at most maxConcurrency (see Builder) of them in flight at any time.
+     *
+     * @param   scenarios   The scenarios to run.
+     * @param   sinks       Creates the sink receiving the records of one scenario.
+     * @return              The sinks, in the order of the scenarios.
+     */
+    public <S extends BurnEventSink> List<S> runAll(List<DevsFireScenario> scenarios, Supplier<S> sinks)
+            throws InterruptedException, ExecutionException {
+        return runAll(scenarios, sinks, maxConcurrency);
+    }
+
+    /**
+     * Closes the shared HTTP client and its executor.
+     */
+    public void close() {
+        idle.clear();
+        http.close();
+        executor.shutdown();
+    }
+
+    private boolean sameLocation(Session session, DevsFireScenario scenario) {
+        return reuseSessions && session.lat == scenario.lat() && session.lng == scenario.lng();
+    }
+
+    /**
+     * Starts the simulation of the token's session, sending the request once.
+     */
+    private CompletableFuture<HttpResponse<InputStream>> simulate(String token, int simTime) {
+        HttpRequest request = newRequest("/api/runSimulation/?userToken=" + encode(token) + "&time=" + simTime)
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+        return send(request, HttpResponse.BodyHandlers.ofInputStream(), false);
+    }
+
+    /**
+     * Decodes the records of a simulation to the sink, on a virtual thread.
+     */
+    private CompletableFuture<Integer> decode(HttpResponse<InputStream> response, BurnEventSink sink) {
+        return CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
+            FireEvents.Parse event = FireEvents.parseStarted();
+            try (CountingInputStream body = new CountingInputStream(response.body())) {
+                int n = new BurnEventDecoder().decode(body, sink);
+                FireEvents.parseEnded(event, start, "runSimulation", body.count, n);
+                return n;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
+    private CompletableFuture<Session> acquire() {
+        Session session = reuseSessions ? idle.poll() : null;
+        if (session != null) return CompletableFuture.completedFuture(session);
+        return connect().thenApply(Session::new);
+    }
+
+    private HttpRequest.Builder newRequest(String pathAndQuery) {
+        return HttpRequest.newBuilder().uri(URI.create(baseUrl + pathAndQuery)).timeout(requestTimeout);
+    }
+
+    private CompletableFuture<Void> post(String pathAndQuery) {
+        HttpRequest request = newRequest(pathAndQuery).POST(HttpRequest.BodyPublishers.noBody()).build();
+        return send(request, HttpResponse.BodyHandlers.discarding(), true).thenApply(r -> null);
+    }
+
+    /**
+     * Sends the request (see below), retried only if it is safe to repeat, reporting
+     * its latency, status and response size (see FireEvents).
+     */
+    private <T> CompletableFuture<HttpResponse<T>> send(HttpRequest request, HttpResponse.BodyHandler<T> handler,
+                                                        boolean repeatable) {
+        long start = System.nanoTime();
+        return sendAttempt(request, handler, repeatable ? 0 : maxRetries).whenComplete((r, ex) -> FireEvents.call(
+                FireEvents.endpoint(request.uri().getPath()), r == null ? -1 : r.statusCode(),
+                r == null ? -1 : responseBytes(r), System.nanoTime() - start));
+    }
+
+    private static long responseBytes(HttpResponse<?> response) {
+        if (response.body() instanceof String body) return body.length();
+        return response.headers().firstValueAsLong("content-length").orElse(-1);
+    }
+
+    /**
+     * Sends the request, retrying (until attempt reaches maxRetries) on an I/O error
+     * (including a timeout) or a 5xx status; any other non-2xx status fails the
+     * returned future at once.
+     */
+    private <T> CompletableFuture<HttpResponse<T>> sendAttempt(HttpRequest request, HttpResponse.BodyHandler<T> handler,
+                                                               int attempt) {
+        return http.sendAsync(request, handler).handle((response, ex) -> {
+            boolean retryable = ex != null || response.statusCode() >= 500;
+            if (! retryable) {
+                if (response.statusCode() / 100 == 2) return CompletableFuture.completedFuture(response);
+                discard(response);
+                return CompletableFuture.<HttpResponse<T>>failedFuture(
+                        new StatusException(request, response.statusCode()));
+            }
+            if (response != null) discard(response);
+            if (attempt >= maxRetries) {
+                Throwable cause = ex != null ? unwrap(ex) : new StatusException(request, response.statusCode());
+                return CompletableFuture.<HttpResponse<T>>failedFuture(cause);
+            }
+            return CompletableFuture.supplyAsync(() -> request, backoff(attempt))
+                                    .thenCompose(r -> sendAttempt(r, handler, attempt + 1));
+        }).thenCompose(f -> f);
+    }
+
+    /**
+     * Returns the executor waiting out the backoff before the retry following attempt.
+     */
+    private Executor backoff(int attempt) {
+        return CompletableFuture.delayedExecutor(retryBackoff.toMillis() << attempt, TimeUnit.MILLISECONDS, executor);
+    }
+
+    /**
+     * Returns whether a failed request may succeed when sent again: on an I/O error
+     * or a 5xx status.
+     */
+    private static boolean retryable(Throwable cause) {
+        if (cause instanceof StatusException s) return s.status >= 500;
+        return cause instanceof IOException;
+    }
+
+    /**
+     * A request answered with a non-2xx status.
+     */
+    private static final class StatusException extends IOException {
+        final int status;
+
+        StatusException(HttpRequest request, int status) {
+            super(request.uri().getPath() + " failed with status " + status);
+            this.status = status;
+        }
+    }
+
+    private static void discard(HttpResponse<?> response) {
+        if (response.body() instanceof InputStream body) {
+            try {
+                body.close();
+            } catch (IOException e) {
+                // the response is being thrown away
+            }
+        }
+    }
+
+    private static Throwable unwrap(Throwable ex) {
+        return (ex instanceof CompletionException && ex.getCause() != null) ? ex.getCause() : ex;
+    }
+
+    /**
+     * Counts the bytes read through it.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) count += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long k = super.skip(n);
+            count += k;
+            return k;
+        }
+    }
+
+    private static String encode(String token) {
+        return URLEncoder.encode(token, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Builds a DevsFireClient; every setting has a default.
+     */
+    public static final class Builder {
+        private String baseUrl          = DEFAULT_BASE_URL;
+        private String credentials      = "testtest";
+        private Duration connectTimeout = Duration.ofSeconds(10);
+        private Duration requestTimeout = Duration.ofMinutes(5);
+        private int maxRetries          = 3;
+        private Duration retryBackoff   = Duration.ofMillis(200);
+        private int maxConcurrency      = 16;
+        private boolean reuseSessions   = false;
+        private FireTileStore tiles     = null;
+
+        private Builder() {}
+
+        public Builder baseUrl(String url)             { baseUrl = url; return this; }
+        public Builder credentials(String body)        { credentials = body; return this; }
+        public Builder connectTimeout(Duration d)      { connectTimeout = d; return this; }
+
+        /**
+         * Sets the timeout of each request, including runSimulation.
+         */
+        public Builder requestTimeout(Duration d)      { requestTimeout = d; return this; }
+
+        /**
+         * Sets how many times a failed request is retried, the first retry
+         * waiting for the backoff, each further retry twice as long.
+         */
+        public Builder retries(int max, Duration backoff) {
+            if (max < 0) throw new IllegalArgumentException("retries must be non-negative");
+            maxRetries   = max;
+            retryBackoff = backoff;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of scenarios runAll keeps in flight.
+         */
+        public Builder maxConcurrency(int n) {
+            if (n < 1) throw new IllegalArgumentException("maxConcurrency must be positive");
+            maxConcurrency = n;
+            return this;
+        }
+
+        /**
+         * Sets whether tokens are pooled and reused across scenarios, or each
+         * scenario connects for a new token (the default).  Pool them only for a
+         * server resetting a session's fire on each runSimulation.
+         */
+        public Builder reuseSessions(boolean reuse)    { reuseSessions = reuse; return this; }
+
+        /**
+         * Sets the local store of fuel/terrain tiles to warm for the location of
+         * each scenario (none by default).
+         */
+        public Builder tileStore(FireTileStore store)  { tiles = store; return this; }
+
+        public DevsFireClient build() {
+            return new DevsFireClient(this);
+        }
+    }
+
+}
@@ -0,0 +1,45 @@
+package scalation.simulation.process.wide_FIRE;
+
+/**
+ * The parameters of one DEVS-FIRE simulation run, i.e., the arguments of the
+ * setWindCondition, setCellSpaceLocation, setPointIgnition and runSimulation calls.
+ *
+ * @param   windSpeed       The wind speed (m/s).
+ * @param   windDirection   The wind direction (degree).
+ * @param   lat             The projected y coordinate of the cell space center.
+ * @param   lng             The projected x coordinate of the cell space center.
+ * @param   ignitionX       The x coordinate of the ignition cell.
+ * @param   ignitionY       The y coordinate of the ignition cell.
+ * @param   simTime         The simulation time (seconds).
+ */
+public record DevsFireScenario(double windSpeed, double windDirection, double lat, double lng,
+                               int ignitionX, int ignitionY, int simTime) {
+
+    /**
+     * The scenario run by connectAndRunTest.
+     */
+    public static final DevsFireScenario EXAMPLE =
+            new DevsFireScenario(10, 180, 1526271.822562622, -35619.01701560877, 100, 100, 10000);
+
+    /**
+     * Returns a copy of this scenario with a different wind.
+     */
+    public DevsFireScenario withWind(double speed, double direction) {
+        return new DevsFireScenario(speed, direction, lat, lng, ignitionX, ignitionY, simTime);
+    }
+
+    /**
+     * Returns a copy of this scenario with a different ignition cell.
+     */
+    public DevsFireScenario withIgnition(int x, int y) {
+        return new DevsFireScenario(windSpeed, windDirection, lat, lng, x, y, simTime);
+    }
+
+    /**
+     * Returns a copy of this scenario with a different simulation time.
+     */
+    public DevsFireScenario withSimTime(int time) {
+        return new DevsFireScenario(windSpeed, windDirection, lat, lng, ignitionX, ignitionY, time);
+    }
+
+}
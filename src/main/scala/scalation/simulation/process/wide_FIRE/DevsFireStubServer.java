@@ -0,0 +1,279 @@
+package scalation.simulation.process.wide_FIRE;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A local stand-in for the DEVS-FIRE API server, built on the JDK HTTP server, so
+ * DevsFireClient can be exercised and its scenario throughput measured offline.
+ * It serves the five endpoints used by connectAndRunTest, keeps the wind and the
+ * ignition point per user token, and answers runSimulation with a synthetic burn:
+ * the fire spreads from the ignition cell in square rings (faster with more wind),
+ * each cell emitting a BurnCell record with state 1 when it ignites and state 2
+ * when it burns out.  An artificial latency per call can be added to mimic the
+ * network, and runSimulation calls can be dropped (the connection closed with no
+ * reply) to mimic a lost response.
+ *
+ * Usage: java scalation.simulation.process.wide_FIRE.DevsFireStubServer [scenarios] [latencyMillis]
+ */
+public class DevsFireStubServer implements AutoCloseable {
+
+    /**
+     * The dimensions of the synthetic cell space, and the seconds a cell burns.
+     */
+    public static final int DIM = 200;
+    public static final double BURN_OUT = 300;
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();   // the JDK server pins virtual threads
+    private final long latencyMillis;
+    private final Map<String, StubSession> sessions = new ConcurrentHashMap<>();
+    private final AtomicInteger nextToken = new AtomicInteger();
+    private final AtomicInteger requests  = new AtomicInteger();
+    private final AtomicInteger drops     = new AtomicInteger();
+    private final AtomicInteger reruns    = new AtomicInteger();
+
+    private static final class StubSession {
+        volatile double windSpeed;
+        volatile int ignitionX = DIM / 2, ignitionY = DIM / 2;
+        final AtomicInteger runs = new AtomicInteger();
+    }
+
+    /**
+     * Starts a stub server on the given port of the loopback interface.
+     *
+     * @param   port            The port, 0 for any free port.
+     * @param   latencyMillis   The delay added to every call.
+     */
+    public DevsFireStubServer(int port, long latencyMillis) throws IOException {
+        this.latencyMillis = latencyMillis;
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        server.setExecutor(executor);
+        server.createContext("/api/connect", this::connect);
+        server.createContext("/api/setWindCondition/", this::setWindCondition);
+        server.createContext("/api/setCellSpaceLocation/", this::setCellSpaceLocation);
+        server.createContext("/api/setPointIgnition/", this::setPointIgnition);
+        server.createContext("/api/runSimulation/", this::runSimulation);
+        server.start();
+    }
+
+    /**
+     * Returns the base URL to give DevsFireClient.Builder.baseUrl.
+     */
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Returns the number of requests served so far.
+     */
+    public int requests() {
+        return requests.get();
+    }
+
+    /**
+     * Drops the next n runSimulation calls after starting their runs.
+     */
+    public void dropRuns(int n) {
+        drops.set(n);
+    }
+
+    /**
+     * Returns the number of runSimulation calls on a session that had already run.
+     */
+    public int reruns() {
+        return reruns.get();
+    }
+
+    public void close() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    private void connect(HttpExchange ex) throws IOException {
+        exchange(ex);
+        String token = "stub" + nextToken.incrementAndGet();
+        sessions.put(token, new StubSession());
+        reply(ex, 200, token);
+    }
+
+    private void setWindCondition(HttpExchange ex) throws IOException {
+        Map<String, String> q = exchange(ex);
+        StubSession s = session(ex, q);
+        if (s == null) return;
+        s.windSpeed = Double.parseDouble(q.getOrDefault("windSpeed", "0"));
+        reply(ex, 200, "ok");
+    }
+
+    private void setCellSpaceLocation(HttpExchange ex) throws IOException {
+        Map<String, String> q = exchange(ex);
+        if (session(ex, q) == null) return;
+        reply(ex, 200, "ok");
+    }
+
+    private void setPointIgnition(HttpExchange ex) throws IOException {
+        Map<String, String> q = exchange(ex);
+        StubSession s = session(ex, q);
+        if (s == null) return;
+        s.ignitionX = Integer.parseInt(q.getOrDefault("x", "" + DIM / 2));
+        s.ignitionY = Integer.parseInt(q.getOrDefault("y", "" + DIM / 2));
+        reply(ex, 200, "ok");
+    }
+
+    /**
+     * Streams the synthetic burn, in time order, as the simulation result.
+     */
+    private void runSimulation(HttpExchange ex) throws IOException {
+        Map<String, String> q = exchange(ex);
+        StubSession s = session(ex, q);
+        if (s == null) return;
+        if (s.runs.getAndIncrement() > 0) reruns.incrementAndGet();
+        if (drops.getAndUpdate(n -> Math.max(n - 1, 0)) > 0) {
+            ex.close();                                           // the run started, its reply is lost
+            return;
+        }
+        double simTime = Double.parseDouble(q.getOrDefault("time", "0"));
+        double ringTime = 60 / (1 + s.windSpeed / 10);           // seconds to spread one ring
+
+        ex.getResponseHeaders().set("Content-Type", "application/json");
+        ex.sendResponseHeaders(200, 0);                           // chunked
+        try (OutputStream out = new BufferedOutputStream(ex.getResponseBody(), 1 << 16)) {
+            StringBuilder sb = new StringBuilder(128);
+            boolean first = true;
+            out.write('[');
+            int maxRing = (int) Math.min(DIM, (simTime + BURN_OUT) / ringTime);
+            for (int d = 0; d <= maxRing; d++) {                  // ring d ignites at d * ringTime
+                for (int state = 1; state <= 2; state++) {
+                    double time = d * ringTime + (state == 2 ? BURN_OUT : 0);
+                    if (time > simTime) continue;
+                    for (int x = s.ignitionX - d; x <= s.ignitionX + d; x++) {
+                        for (int y = s.ignitionY - d; y <= s.ignitionY + d; y++) {
+                            if (Math.max(Math.abs(x - s.ignitionX), Math.abs(y - s.ignitionY)) != d) continue;
+                            if (x < 0 || y < 0 || x >= DIM || y >= DIM) continue;
+                            sb.setLength(0);
+                            if (! first) sb.append(", ");
+                            first = false;
+                            sb.append("{\"x\": ").append(x).append(", \"y\": ").append(y)
+                              .append(", \"Operation\":\"BurnCell\",\"time\": ").append(time)
+                              .append(", \"state\": ").append(state).append('}');
+                            out.write(sb.toString().getBytes(StandardCharsets.US_ASCII));
+                        }
+                    }
+                }
+            }
+            out.write(']');
+        }
+    }
+
+    /**
+     * Counts the request, applies the latency, drains the request body and
+     * returns the query parameters.
+     */
+    private Map<String, String> exchange(HttpExchange ex) throws IOException {
+        requests.incrementAndGet();
+        ex.getRequestBody().readAllBytes();
+        if (latencyMillis > 0) {
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        Map<String, String> params = new HashMap<>();
+        String query = ex.getRequestURI().getRawQuery();
+        if (query != null) {
+            for (String pair : query.split("&")) {
+                int eq = pair.indexOf('=');
+                if (eq > 0) params.put(pair.substring(0, eq),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+
+    private StubSession session(HttpExchange ex, Map<String, String> q) throws IOException {
+        StubSession s = sessions.get(q.getOrDefault("userToken", ""));
+        if (s == null) reply(ex, 401, "unknown userToken");
+        return s;
+    }
+
+    private static void reply(HttpExchange ex, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        ex.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Checks that DevsFireClient runs every scenario on its own session and,
+     * when the reply of a run is lost, runs it again on a new session rather
+     * than sending runSimulation twice.  Then measures its scenario throughput
+     * against a stub server, running the scenarios one at a time and then
+     * concurrently.
+     */
+    public static void main(String[] args) throws Exception {
+        int n          = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        long latency   = args.length > 1 ? Long.parseLong(args[1]) : 20;
+
+        List<DevsFireScenario> scenarios = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            scenarios.add(DevsFireScenario.EXAMPLE.withWind(i % 20, 180).withIgnition(50 + i % 100, 100).withSimTime(3000));
+        }
+
+        try (DevsFireStubServer stub = new DevsFireStubServer(0, 0);
+             DevsFireClient client = DevsFireClient.builder().baseUrl(stub.baseUrl())
+                                                   .retries(2, Duration.ofMillis(10)).build()) {
+            BurnEventColumns first = new BurnEventColumns(), second = new BurnEventColumns();
+            int n1 = client.run(DevsFireScenario.EXAMPLE, first).join();
+            stub.dropRuns(2);
+            int n2 = client.run(DevsFireScenario.EXAMPLE, second).join();
+            if (n1 == 0 || n2 != n1 || second.size() != n1) {
+                throw new AssertionError("runs returned " + n1 + " and " + n2 + " records, " + second.size() + " kept");
+            }
+            if (stub.reruns() != 0) throw new AssertionError(stub.reruns() + " runSimulation calls on a used session");
+            stub.dropRuns(3);
+            try {
+                client.run(DevsFireScenario.EXAMPLE, new BurnEventColumns()).join();
+                throw new AssertionError("a run lost 3 times did not fail");
+            } catch (CompletionException e) {
+                if (! (e.getCause() instanceof IOException)) throw e;
+            }
+            System.out.println("lost runs retried on new sessions, " + stub.reruns() + " runs on used sessions");
+        }
+
+        try (DevsFireStubServer stub = new DevsFireStubServer(0, latency)) {
+            for (int concurrency : new int[] { 1, 16, 64 }) {
+                try (DevsFireClient client = DevsFireClient.builder().baseUrl(stub.baseUrl())
+                                                           .maxConcurrency(concurrency).build()) {
+                    int before = stub.requests();
+                    long start = System.nanoTime();
+                    List<BurnEventColumns> results = client.runAll(scenarios, BurnEventColumns::new);
+                    double secs = (System.nanoTime() - start) / 1e9;
+                    long records = 0;
+                    for (BurnEventColumns r : results) records += r.size();
+                    System.out.printf("concurrency %3d: %8.1f scenarios/s, %6d requests, %10d records%n",
+                            concurrency, n / secs, stub.requests() - before, records);
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,363 @@
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** @author  John Miller
+ *  @version 2.0
+ *  @date    Sat Oct 17 10:15:00 EDT 2026
+ *  @see     LICENSE (MIT style license file).
+ *
+ *  @note    Parallel Ensemble Runner for Wide-Fire Scenario Sweeps (Monte Carlo)
+ */
+
+package scalation
+package simulation
+package process
+package wide_FIRE
+
+import java.nio.file.Files
+import java.util.concurrent.{Executors, TimeUnit}
+import java.util.concurrent.atomic.AtomicInteger
+
+import scala.collection.mutable.{ArrayBuffer => VEC}
+
+import scalation.mathstat.{MatrixD, Statistic, StatTable, VectorD}
+import scalation.random.{Randi, Uniform, Variate}
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `FireAccumulator` class folds the BurnCell records of successive runs
+ *  into per-cell burn counts and arrival-time sums, so an ensemble never keeps
+ *  the raw results.  A cell counts as burned in a run at its first record with
+ *  state 1 (ignition), whose time is its arrival time.  The cells of the current
+ *  run are staged and only added to the totals when the run ends successfully,
+ *  so a run failing part way leaves no trace.  One accumulator is used per
+ *  worker (not thread-safe); accumulators are merged at the end.
+ *  @param dimX  the x dimension of the cell space
+ *  @param dimY  the y dimension of the cell space
+ */
+class FireAccumulator (val dimX: Int, val dimY: Int)
+      extends BurnEventSink:
+
+    private [wide_FIRE] val count   = Array.ofDim [Int] (dimX * dimY)    // number of runs burning each cell
+    private [wide_FIRE] val timeSum = Array.ofDim [Double] (dimX * dimY) // sum of arrival times of each cell
+    private val stamp   = Array.fill (dimX * dimY)(-1)                    // last run each cell was counted in
+    private val cells   = Array.ofDim [Int] (dimX * dimY)                 // cells burned in current run (staged)
+    private val arrival = Array.ofDim [Double] (dimX * dimY)              // their arrival times (staged)
+    private var run     = -1                                              // current run number
+    private var burned  = 0                                               // cells burned in current run
+    private var lastT   = 0.0                                             // time of last record in current run
+
+    val burnedArea = new Statistic ("burnedCells")                        // cells burned per run
+    val fireTime   = new Statistic ("lastBurnTime")                       // time of last BurnCell record per run
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Begin folding a new run (runs must be numbered uniquely by the caller).
+     *  @param r  the run number
+     */
+    def beginRun (r: Int): Unit =
+        run    = r
+        burned = 0
+        lastT  = 0.0
+    end beginRun
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** End folding the current run, adding its staged cells to the totals and
+     *  tallying its per-run statistics.
+     */
+    def endRun (): Unit =
+        for k <- 0 until burned do
+            count(cells(k))   += 1
+            timeSum(cells(k)) += arrival(k)
+        end for
+        burnedArea.tally (burned)
+        fireTime.tally (lastT)
+        burned = 0
+    end endRun
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Abort folding the current run (it failed), discarding its staged cells.
+     */
+    def abortRun (): Unit = burned = 0
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Accept one record of the current run (see `BurnEventSink`).
+     */
+    def accept (x: Int, y: Int, time: Double, state: Int, op: Int): Unit =
+        if op == BurnEventSink.BURN_CELL && x >= 0 && x < dimX && y >= 0 && y < dimY then
+            if time > lastT then lastT = time
+            val c = x * dimY + y
+            if state == 1 && stamp(c) != run then
+                stamp(c)        = run
+                cells(burned)   = c
+                arrival(burned) = time
+                burned         += 1
+            end if
+        end if
+    end accept
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Merge that accumulator's totals into this accumulator.
+     *  @param that  the other accumulator (same dimensions)
+     */
+    def merge (that: FireAccumulator): Unit =
+        for c <- count.indices do
+            count(c)   += that.count(c)
+            timeSum(c) += that.timeSum(c)
+        end for
+    end merge
+
+end FireAccumulator
+
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `EnsembleResult` class holds the aggregated outcome of an ensemble.
+ *  @param runs         the number of runs that completed
+ *  @param failed       the number of runs that failed
+ *  @param burnProb     the per-cell burn probability, indexed (x, y)
+ *  @param meanArrival  the per-cell mean arrival time over the runs burning
+ *                      the cell (-1 if no run burned it), indexed (x, y)
+ *  @param stats        per-run statistics (burned cells, last burn time)
+ */
+case class EnsembleResult (runs: Int, failed: Int, burnProb: MatrixD, meanArrival: MatrixD,
+                           stats: VEC [Statistic]):
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Report the per-run statistics in the terminal.
+     */
+    def report (): Unit =
+        banner (s"Fire ensemble: $runs runs ($failed failed)")
+        println (Statistic.line)
+        println (Statistic.labels)
+        println (Statistic.line)
+        for stat <- stats do println (stat)
+        println (Statistic.line)
+    end report
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Report the per-run statistics in a new GUI window/frame.
+     */
+    def reportF (): Unit = new StatTable ("Fire ensemble statistics", stats)
+
+end EnsembleResult
+
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `FireEnsemble` class runs many wide-fire scenarios through a DEVS-FIRE
+ *  backend (e.g., `DevsFireClient`) on a bounded pool of workers, folding each
+ *  run's burn results into burn-probability and mean-arrival-time grids as the
+ *  records stream in.  Scenarios are fully determined before the runs start
+ *  (Monte Carlo samples are drawn on the calling thread), so a sweep is
+ *  reproducible whatever the number of workers.
+ *  @param api       the DEVS-FIRE backend to run the scenarios on
+ *  @param dimX      the x dimension of the cell space
+ *  @param dimY      the y dimension of the cell space
+ *  @param nWorkers  the number of runs in flight at once
+ */
+class FireEnsemble (api: DevsFireApi, dimX: Int = 200, dimY: Int = 200, nWorkers: Int = 16):
+
+    private val debug = debugf ("FireEnsemble", false)              // debug function
+    private val flaw  = flawf ("FireEnsemble")                      // flaw function
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Run the given scenarios and return the aggregated result.
+     *  @param scenarios  the scenarios to run
+     */
+    def run (scenarios: IndexedSeq [DevsFireScenario]): EnsembleResult =
+        val next   = new AtomicInteger (0)
+        val failed = new AtomicInteger (0)
+        val nw     = math.max (1, math.min (nWorkers, scenarios.size))
+        val accs   = Array.fill (nw)(new FireAccumulator (dimX, dimY))
+
+        val workers = Executors.newVirtualThreadPerTaskExecutor ()
+        for w <- 0 until nw do
+            workers.execute (() =>
+                val acc = accs(w)
+                var i   = next.getAndIncrement ()
+                while i < scenarios.size do
+                    acc.beginRun (i)
+                    try
+                        api.run (scenarios(i), acc).get ()
+                        acc.endRun ()
+                        debug ("run", s"worker $w finished run $i")
+                    catch case ex: Exception =>
+                        acc.abortRun ()
+                        flaw ("run", s"run $i ${scenarios(i)} failed: $ex")
+                        failed.incrementAndGet ()
+                    end try
+                    i = next.getAndIncrement ()
+                end while
+            )
+        end for
+        workers.shutdown ()
+        workers.awaitTermination (Long.MaxValue, TimeUnit.NANOSECONDS)
+
+        val total = accs(0)
+        for w <- 1 until nw do total.merge (accs(w))
+        val runs = scenarios.size - failed.get
+        val area = Statistic.aggregate (VEC.from (accs.map (_.burnedArea)), "burnedCells")
+        val time = Statistic.aggregate (VEC.from (accs.map (_.fireTime)), "lastBurnTime")
+        EnsembleResult (runs, failed.get, burnProb (total, runs), meanArrival (total), VEC (area, time))
+    end run
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Run n Monte Carlo samples of the base scenario, drawing the wind and the
+     *  ignition point from the given random variates.
+     *  @param n          the number of samples/runs
+     *  @param base       the base scenario (location and simulation time)
+     *  @param windSpeed  the random variate for the wind speed
+     *  @param windDir    the random variate for the wind direction
+     *  @param ignX       the random variate for the ignition x coordinate
+     *  @param ignY       the random variate for the ignition y coordinate
+     */
+    def runMonteCarlo (n: Int, base: DevsFireScenario, windSpeed: Variate, windDir: Variate,
+                       ignX: Variate, ignY: Variate): EnsembleResult =
+        run (FireEnsemble.sample (n, base, windSpeed, windDir, ignX, ignY))
+    end runMonteCarlo
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return the burn probability of each cell.
+     *  @param acc   the merged accumulator
+     *  @param runs  the number of completed runs
+     */
+    private def burnProb (acc: FireAccumulator, runs: Int): MatrixD =
+        val p = new MatrixD (dimX, dimY)
+        if runs > 0 then
+            for x <- 0 until dimX; y <- 0 until dimY do p(x, y) = acc.count(x * dimY + y).toDouble / runs
+        p
+    end burnProb
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return the mean arrival time of each cell (-1 for cells never burned).
+     *  @param acc  the merged accumulator
+     */
+    private def meanArrival (acc: FireAccumulator): MatrixD =
+        val t = new MatrixD (dimX, dimY)
+        for x <- 0 until dimX; y <- 0 until dimY do
+            val c = x * dimY + y
+            t(x, y) = if acc.count(c) == 0 then -1.0 else acc.timeSum(c) / acc.count(c)
+        end for
+        t
+    end meanArrival
+
+end FireEnsemble
+
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `FireEnsemble` companion object provides factory methods for parameter
+ *  grids and Monte Carlo samples of scenarios.
+ */
+object FireEnsemble:
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return the full factorial grid of scenarios over the given wind speeds,
+     *  wind directions and ignition points.
+     *  @param base       the base scenario (location and simulation time)
+     *  @param speeds     the wind speeds
+     *  @param dirs       the wind directions
+     *  @param ignitions  the ignition points (x, y)
+     */
+    def grid (base: DevsFireScenario, speeds: VectorD, dirs: VectorD,
+              ignitions: Seq [(Int, Int)]): IndexedSeq [DevsFireScenario] =
+        for s <- speeds.indices; d <- dirs.indices; (x, y) <- ignitions yield
+            base.withWind (speeds(s), dirs(d)).withIgnition (x, y)
+    end grid
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return n scenarios with wind and ignition point drawn from the given
+     *  random variates (sampled here, in order, for reproducibility).
+     *  @param n          the number of scenarios
+     *  @param base       the base scenario (location and simulation time)
+     *  @param windSpeed  the random variate for the wind speed
+     *  @param windDir    the random variate for the wind direction
+     *  @param ignX       the random variate for the ignition x coordinate
+     *  @param ignY       the random variate for the ignition y coordinate
+     */
+    def sample (n: Int, base: DevsFireScenario, windSpeed: Variate, windDir: Variate,
+                ignX: Variate, ignY: Variate): IndexedSeq [DevsFireScenario] =
+        for i <- 0 until n yield
+            base.withWind (windSpeed.gen, windDir.gen).withIgnition (ignX.igen, ignY.igen)
+    end sample
+
+end FireEnsemble
+
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `fireEnsembleTest` main function runs a Monte Carlo ensemble against a
+ *  local `DevsFireStubServer` (offline) and reports burn statistics.
+ *  > runMain scalation.simulation.process.wide_FIRE.fireEnsembleTest
+ */
+@main def fireEnsembleTest (): Unit =
+
+    val stub   = new DevsFireStubServer (0, 0)
+    val client = DevsFireClient.builder ().baseUrl (stub.baseUrl ()).build ()
+    val base   = DevsFireScenario.EXAMPLE.withSimTime (3000)
+
+    val ens    = new FireEnsemble (client, nWorkers = 8)
+    val result = ens.runMonteCarlo (100, base, Uniform (0, 20, 1), Uniform (0, 360, 2),
+                                    Randi (50, 150, 3), Randi (50, 150, 4))
+    result.report ()
+    println (s"burn probability at ignition center (100, 100) = ${result.burnProb(100, 100)}")
+    println (s"mean arrival time at (120, 100) = ${result.meanArrival(120, 100)}")
+
+    client.close ()
+    stub.close ()
+
+end fireEnsembleTest
+
+
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `fireEnsembleTest2` main function runs the same grid of scenarios twice
+ *  on the `LocalFireEngine` behind a `FireResultCache`: the second pass loads
+ *  every run from the cache's memory-mapped files.
+ *  > runMain scalation.simulation.process.wide_FIRE.fireEnsembleTest2
+ */
+@main def fireEnsembleTest2 (): Unit =
+
+    val cache = new FireResultCache (Files.createTempDirectory ("fire_cache"), "local", new LocalFireEngine ())
+    val scens = FireEnsemble.grid (DevsFireScenario.EXAMPLE.withSimTime (3000), VectorD (5, 10, 15),
+                                   VectorD (0, 90, 180, 270), Seq ((100, 100), (80, 120)))
+    val ens   = new FireEnsemble (cache, nWorkers = 4)
+
+    for pass <- 1 to 2 do
+        val t0     = System.nanoTime ()
+        val result = ens.run (scens)
+        println (s"pass $pass: ${result.runs} runs in ${(System.nanoTime () - t0) / 1E6} ms, " +
+                 s"cache hits = ${cache.hits ()}, misses = ${cache.misses ()}")
+    end for
+
+end fireEnsembleTest2
+
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `fireEnsembleTest3` main function checks that runs failing after they
+ *  emitted records leave no trace: an ensemble where every other scenario fails
+ *  part way must aggregate to exactly the ensemble of the successful scenarios.
+ *  > runMain scalation.simulation.process.wide_FIRE.fireEnsembleTest3
+ */
+@main def fireEnsembleTest3 (): Unit =
+
+    val engine  = new LocalFireEngine ()
+    val failing = new DevsFireApi:                                  // fails runs with wind from the east
+        def connect () = engine.connect ()
+        def setWindCondition (token: String, speed: Double, dir: Double) = engine.setWindCondition (token, speed, dir)
+        def setCellSpaceLocation (token: String, lat: Double, lng: Double) = engine.setCellSpaceLocation (token, lat, lng)
+        def setPointIgnition (token: String, x: Int, y: Int) = engine.setPointIgnition (token, x, y)
+        def runSimulation (token: String, simTime: Int, sink: BurnEventSink) = engine.runSimulation (token, simTime, sink)
+        override def run (scenario: DevsFireScenario, sink: BurnEventSink) =
+            val done = super.run (scenario, sink)
+            if scenario.windDirection != 90 then done
+            else done.thenApply [Integer] (_ => throw new RuntimeException ("failed after emitting records"))
+    end failing
+
+    val scens = FireEnsemble.grid (DevsFireScenario.EXAMPLE.withSimTime (3000), VectorD (5, 15),
+                                   VectorD (0, 90, 180, 270), Seq ((100, 100), (80, 120)))
+    val ok    = scens.filter (_.windDirection != 90)
+    val mixed = new FireEnsemble (failing, nWorkers = 1).run (scens)
+    val clean = new FireEnsemble (engine, nWorkers = 1).run (ok)
+
+    println (s"mixed: ${mixed.runs} runs, ${mixed.failed} failed; clean: ${clean.runs} runs")
+    assert (mixed.runs == ok.size && mixed.failed == scens.size - ok.size)
+    assert (mixed.burnProb =~ clean.burnProb)
+    assert (mixed.meanArrival =~ clean.meanArrival)
+    assert (mixed.burnProb.mmax <= 1.0)
+
+end fireEnsembleTest3
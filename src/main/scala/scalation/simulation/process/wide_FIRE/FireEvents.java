@@ -0,0 +1,133 @@
+package scalation.simulation.process.wide_FIRE;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+import scalation.simulation.Metrics;
+
+/**
+ * The JFR events of the DEVS-FIRE client and visualization, and the hooks that
+ * emit them and record the matching metrics (see Metrics): the latency, status
+ * and response bytes of each API call (by endpoint), and the time to parse a
+ * simulation result and to render a frame of it.
+ */
+public final class FireEvents {
+
+    private FireEvents() {}
+
+    @Name("scalation.DevsFireCall")
+    @Label("DEVS-FIRE Call")
+    @Description("A call to the DEVS-FIRE API, from sending the request to receiving the response headers")
+    @Category({"ScalaTion", "DEVS-FIRE"})
+    @StackTrace(false)
+    public static final class Call extends Event {
+        @Label("Endpoint")                                 public String endpoint;
+        @Label("Status")                                   public int status;
+        @Label("Response Bytes") @DataAmount               public long bytes;
+        @Label("Latency") @Timespan(Timespan.NANOSECONDS)  public long latency;
+    }
+
+    @Name("scalation.DevsFireParse")
+    @Label("DEVS-FIRE Parse")
+    @Description("Decoding a simulation result into records")
+    @Category({"ScalaTion", "DEVS-FIRE"})
+    @StackTrace(false)
+    public static final class Parse extends Event {
+        @Label("Source")                                   public String source;
+        @Label("Bytes") @DataAmount                        public long bytes;
+        @Label("Records")                                  public int records;
+    }
+
+    @Name("scalation.FireRender")
+    @Label("Fire Render")
+    @Description("Rendering the fire state at a simulation time into the view")
+    @Category({"ScalaTion", "DEVS-FIRE"})
+    @StackTrace(false)
+    public static final class Render extends Event {
+        @Label("Simulation Time")                          public double time;
+        @Label("Level")                                    public int level;
+    }
+
+    /**
+     * Returns the endpoint of a request path, e.g., "connect" for "/api/connect".
+     */
+    static String endpoint(String path) {
+        String p = path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+        return p.substring(p.lastIndexOf('/') + 1);
+    }
+
+    /**
+     * Called when a call completes (status -1 when it failed without a response,
+     * bytes -1 when unknown, e.g., a body still streaming in).
+     */
+    static void call(String endpoint, int status, long bytes, long latency) {
+        if (Metrics.ENABLED) {
+            Metrics.timer("devsfire." + endpoint + ".latency").record(latency);
+            if (bytes >= 0) Metrics.histogram("devsfire." + endpoint + ".bytes").record(bytes);
+            if (status / 100 != 2) Metrics.counter("devsfire." + endpoint + ".failures").increment();
+        }
+        Call e = new Call();
+        if (e.isEnabled()) {
+            e.endpoint = endpoint;
+            e.status   = status;
+            e.bytes    = bytes;
+            e.latency  = latency;
+            e.commit();
+        }
+    }
+
+    /**
+     * Returns the event timing a parse, begun.
+     */
+    static Parse parseStarted() {
+        Parse e = new Parse();
+        e.begin();
+        return e;
+    }
+
+    /**
+     * Called when a parse begun by parseStarted at startNanos ends.
+     */
+    static void parseEnded(Parse e, long startNanos, String source, long bytes, int records) {
+        if (Metrics.ENABLED) {
+            Metrics.timer("devsfire.parse." + source).record(System.nanoTime() - startNanos);
+            if (bytes >= 0) Metrics.histogram("devsfire.parse." + source + ".bytes").record(bytes);
+        }
+        e.end();
+        if (e.shouldCommit()) {
+            e.source  = source;
+            e.bytes   = bytes;
+            e.records = records;
+            e.commit();
+        }
+    }
+
+    /**
+     * Returns the event timing a render, begun.
+     */
+    static Render renderStarted() {
+        Render e = new Render();
+        e.begin();
+        return e;
+    }
+
+    /**
+     * Called when a render begun by renderStarted at startNanos ends.
+     */
+    static void renderEnded(Render e, long startNanos, double time, int level) {
+        if (Metrics.ENABLED) Metrics.timer("devsfire.render").record(System.nanoTime() - startNanos);
+        e.end();
+        if (e.shouldCommit()) {
+            e.time  = time;
+            e.level = level;
+            e.commit();
+        }
+    }
+
+}
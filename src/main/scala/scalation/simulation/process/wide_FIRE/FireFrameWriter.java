@@ -0,0 +1,167 @@
+package scalation.simulation.process.wide_FIRE;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageOutputStream;
+
+/**
+ * Renders a decoded simulation result without a display (no Swing, works with
+ * java.awt.headless=true), for server-side batch jobs: one frame per time slice,
+ * written either as numbered PNG files or as a looping animated GIF.  Each frame
+ * paints only the records of its slice into the same FireRaster.
+ *
+ * Usage: java scalation.simulation.process.wide_FIRE.FireFrameWriter [local|url] [outDir] [slice]
+ */
+public class FireFrameWriter {
+
+    /** The largest raster (in cells) rasterFor builds; larger coordinates mean a corrupt result. */
+    static final long MAX_RASTER_CELLS = 1L << 26;
+
+    /**
+     * Returns a raster large enough for every burned cell of the result, but at
+     * least the view's default cell space, as API_FireState_Visualization grows to.
+     *
+     * @param   events  The decoded simulation result.
+     * @throws  IllegalArgumentException  if the cells exceed MAX_RASTER_CELLS.
+     */
+    public static FireRaster rasterFor(BurnEventColumns events) {
+        int maxX = API_FireState_Visualization.DEFAULT_CELLSPACE_DIM - 1;
+        int maxY = maxX;
+        for (int i = 0; i < events.size(); i++) {
+            if (! events.isBurnCell(i)) continue;
+            maxX = Math.max(maxX, events.x(i));
+            maxY = Math.max(maxY, events.y(i));
+        }
+        long cells = (maxX + 1L) * (maxY + 1L);
+        if (cells > MAX_RASTER_CELLS)
+            throw new IllegalArgumentException("burned cells up to (" + maxX + ", " + maxY
+                                               + ") need " + cells + " raster cells, more than " + MAX_RASTER_CELLS);
+        return new FireRaster(maxX + 1, maxY + 1);
+    }
+
+    /**
+     * Writes one PNG frame per time slice into the directory, named frame_00000.png,
+     * frame_00001.png, ...  Returns the number of frames.
+     *
+     * @param   events  The decoded simulation result, in time order.
+     * @param   raster  The raster to paint into (its current content is the first background).
+     * @param   slice   The simulation time covered by one frame.
+     * @param   dir     The output directory (created if missing).
+     * @param   factor  The number of pixels per cell side.
+     */
+    public static int writePngFrames(BurnEventColumns events, FireRaster raster, double slice,
+                                     File dir, int factor) throws IOException {
+        if (! dir.isDirectory() && ! dir.mkdirs()) throw new IOException("cannot create " + dir);
+        int frames = 0;
+        if (events.size() == 0) return frames;
+        double until = events.time(0) + slice;
+        for (int i = 0; i < events.size(); until += slice) {
+            i = raster.paint(events, i, until);
+            raster.writePng(new File(dir, String.format("frame_%05d.png", frames++)), factor);
+        }
+        return frames;
+    }
+
+    /**
+     * Writes one frame per time slice into a looping animated GIF.  Returns the
+     * number of frames.
+     *
+     * @param   events      The decoded simulation result, in time order.
+     * @param   raster      The raster to paint into.
+     * @param   slice       The simulation time covered by one frame.
+     * @param   file        The GIF file to write.
+     * @param   factor      The number of pixels per cell side.
+     * @param   delayMillis The display time of a frame.
+     */
+    public static int writeGif(BurnEventColumns events, FireRaster raster, double slice,
+                               File file, int factor, int delayMillis) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("gif");
+        if (! writers.hasNext()) throw new IOException("no GIF writer available");
+        ImageWriter writer = writers.next();
+        if (file.exists() && ! file.delete()) throw new IOException("cannot overwrite " + file);
+
+        int frames = 0;
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(file)) {
+            writer.setOutput(out);
+            writer.prepareWriteSequence(null);
+            double until = events.size() > 0 ? events.time(0) + slice : 0;
+            int i = 0;
+            do {
+                i = raster.paint(events, i, until);
+                until += slice;
+                BufferedImage frame = raster.scaled(factor);
+                IIOMetadata meta = gifMetadata(writer, frame, delayMillis, frames == 0);
+                writer.writeToSequence(new IIOImage(frame, null, meta), null);
+                frames++;
+            } while (i < events.size());
+            writer.endWriteSequence();
+        } finally {
+            writer.dispose();
+        }
+        return frames;
+    }
+
+    /**
+     * Returns the GIF metadata giving a frame its delay and, for the first frame,
+     * making the animation loop forever.
+     */
+    private static IIOMetadata gifMetadata(ImageWriter writer, BufferedImage frame, int delayMillis,
+                                           boolean first) throws IOException {
+        IIOMetadata meta = writer.getDefaultImageMetadata(ImageTypeSpecifier.createFromRenderedImage(frame), null);
+        String format = meta.getNativeMetadataFormatName();
+        IIOMetadataNode root = (IIOMetadataNode) meta.getAsTree(format);
+
+        IIOMetadataNode gce = new IIOMetadataNode("GraphicControlExtension");
+        gce.setAttribute("disposalMethod", "none");
+        gce.setAttribute("userInputFlag", "FALSE");
+        gce.setAttribute("transparentColorFlag", "FALSE");
+        gce.setAttribute("delayTime", Integer.toString(Math.max(1, delayMillis / 10)));
+        gce.setAttribute("transparentColorIndex", "0");
+        root.appendChild(gce);
+
+        if (first) {
+            IIOMetadataNode apps = new IIOMetadataNode("ApplicationExtensions");
+            IIOMetadataNode app = new IIOMetadataNode("ApplicationExtension");
+            app.setAttribute("applicationID", "NETSCAPE");
+            app.setAttribute("authenticationCode", "2.0");
+            app.setUserObject(new byte[] { 1, 0, 0 });             // loop forever
+            apps.appendChild(app);
+            root.appendChild(apps);
+        }
+        meta.setFromTree(format, root);
+        return meta;
+    }
+
+    /**
+     * Runs the connectAndRunTest scenario (on the local engine by default) and
+     * writes its PNG frames and an animated GIF without opening a window.
+     */
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        String target = args.length > 0 ? args[0] : "local";
+        File dir      = new File(args.length > 1 ? args[1] : "fire_frames");
+        double slice  = args.length > 2 ? Double.parseDouble(args[2]) : 500;
+
+        BurnEventColumns events = new BurnEventColumns();
+        DevsFireApi api = DevsFireApi.create(target);
+        try {
+            api.run(DevsFireScenario.EXAMPLE, events).get();
+        } finally {
+            if (api instanceof DevsFireClient remote) remote.close();
+        }
+
+        int frames = writePngFrames(events, rasterFor(events), slice, dir, 3);
+        writeGif(events, rasterFor(events), slice, new File(dir, "fire.gif"), 3, 100);
+        System.out.println("wrote " + frames + " frames of " + events.size() + " records to " + dir);
+    }
+
+}
@@ -0,0 +1,78 @@
+package scalation.simulation.process.wide_FIRE;
+
+import java.util.Arrays;
+
+/**
+ * The cell space a LocalFireEngine burns: its dimensions, the size of a cell and,
+ * per cell, a fuel factor multiplying the spread rate (0 = not burnable) and an
+ * optional elevation.  Cells are stored row by row in primitive arrays, cell
+ * (x, y) at index y * dimX + x.
+ */
+public class FireLandscape {
+
+    public final int dimX, dimY;
+
+    /**
+     * The side of a cell (m).
+     */
+    public final double cellSize;
+
+    /**
+     * The spread rate multiplier of each cell, 0 for non-burnable cells.
+     */
+    public final float[] fuel;
+
+    /**
+     * The elevation of each cell (m), or null for flat terrain.
+     */
+    public final float[] elevation;
+
+    /**
+     * Creates a landscape with the given per-cell layers.
+     *
+     * @param   dimX, dimY      The dimensions in cells.
+     * @param   cellSize        The side of a cell (m).
+     * @param   fuel            The spread rate multipliers (dimX * dimY).
+     * @param   elevation       The elevations (dimX * dimY), or null for flat terrain.
+     */
+    public FireLandscape(int dimX, int dimY, double cellSize, float[] fuel, float[] elevation) {
+        if (fuel.length != dimX * dimY || elevation != null && elevation.length != dimX * dimY) {
+            throw new IllegalArgumentException("layer sizes do not match " + dimX + " x " + dimY);
+        }
+        this.dimX = dimX;
+        this.dimY = dimY;
+        this.cellSize = cellSize;
+        this.fuel = fuel;
+        this.elevation = elevation;
+    }
+
+    /**
+     * Returns a flat landscape with the same fuel everywhere.
+     *
+     * @param   dimX, dimY      The dimensions in cells.
+     * @param   cellSize        The side of a cell (m).
+     */
+    public static FireLandscape uniform(int dimX, int dimY, double cellSize) {
+        float[] fuel = new float[dimX * dimY];
+        Arrays.fill(fuel, 1f);
+        return new FireLandscape(dimX, dimY, cellSize, fuel, null);
+    }
+
+    public int index(int x, int y) {
+        return y * dimX + x;
+    }
+
+    public boolean contains(int x, int y) {
+        return x >= 0 && y >= 0 && x < dimX && y < dimY;
+    }
+
+    /**
+     * Provides the landscape of the cell space centered at a projected location,
+     * i.e., what setCellSpaceLocation selects.
+     */
+    @FunctionalInterface
+    public interface Source {
+        FireLandscape landscape(double lat, double lng);
+    }
+
+}
@@ -0,0 +1,333 @@
+package scalation.simulation.process.wide_FIRE;
+
+import java.util.Arrays;
+
+/**
+ * A level-of-detail pyramid over a fire's cell space, so large burns can be drawn
+ * at any zoom without touching every cell.  Level 0 holds the state and the
+ * arrival (ignition) time of each cell; each block of level k + 1 summarizes a
+ * 2 x 2 block of level k by its maximum burn state and its earliest arrival.
+ *
+ * An update walks up the levels only while the summary changes, so its cost is
+ * O(1) amortized.  Every level is cut into TILE x TILE tiles with a version
+ * counter bumped on change, so a view can re-render just the tiles it shows that
+ * changed since it last drew them.
+ */
+public class FireLodPyramid {
+
+    /**
+     * The side of a tile (in blocks of its level).
+     */
+    public static final int TILE = 64;
+
+    public final int dimX, dimY;
+
+    /**
+     * The number of levels, the top one having a single block.
+     */
+    public final int levels;
+
+    private final int[] w, h, tilesX;
+    private final byte[][] state;
+    private final float[][] arrival;
+    private final int[][] tileVersion;
+
+    /**
+     * The earliest and latest arrival times seen (for coloring by arrival).
+     */
+    private float minTime = Float.POSITIVE_INFINITY, maxTime = Float.NEGATIVE_INFINITY;
+
+    public FireLodPyramid(int dimX, int dimY) {
+        this.dimX = dimX;
+        this.dimY = dimY;
+        int n = 1;
+        while ((Math.max(dimX, dimY) - 1 >> (n - 1)) > 0) n++;
+        levels = n;
+        w = new int[n];
+        h = new int[n];
+        tilesX = new int[n];
+        state = new byte[n][];
+        arrival = new float[n][];
+        tileVersion = new int[n][];
+        for (int k = 0; k < n; k++) {
+            w[k] = (dimX + (1 << k) - 1) >> k;
+            h[k] = (dimY + (1 << k) - 1) >> k;
+            state[k] = new byte[w[k] * h[k]];
+            arrival[k] = new float[w[k] * h[k]];
+            Arrays.fill(arrival[k], Float.POSITIVE_INFINITY);
+            tilesX[k] = (w[k] + TILE - 1) / TILE;
+            tileVersion[k] = new int[tilesX[k] * ((h[k] + TILE - 1) / TILE)];
+        }
+    }
+
+    /**
+     * Records a burn state change of a cell.  States only rise (0 unburned,
+     * 1 burning, 2 burned); the arrival time is that of the first burn record.
+     *
+     * @param   x, y    The cell.
+     * @param   time    The time of the record.
+     * @param   s       The new state of the cell.
+     * @return          Whether the record was kept (a burn state of a cell in the cell space).
+     */
+    public boolean update(int x, int y, double time, int s) {
+        if (x < 0 || y < 0 || x >= dimX || y >= dimY || s <= 0) return false;
+        float t = (float) time;
+        if (t < minTime) minTime = t;
+        if (t > maxTime) maxTime = t;
+        for (int k = 0; k < levels; k++) {
+            int bx = x >> k, by = y >> k, i = by * w[k] + bx;
+            boolean changed = false;
+            if (s > state[k][i]) {
+                state[k][i] = (byte) s;
+                changed = true;
+            }
+            if (t < arrival[k][i]) {
+                arrival[k][i] = t;
+                changed = true;
+            }
+            if (! changed) break;                                  // the levels above cannot change either
+            tileVersion[k][(by / TILE) * tilesX[k] + bx / TILE]++;
+        }
+        return true;
+    }
+
+    /**
+     * Sets the state and arrival time of a cell, which may also lower them (e.g.,
+     * when a replay seeks back); the blocks above are recomputed from their 2 x 2
+     * children while they change.  Matches FireTimeline.CellSink.
+     *
+     * @param   x, y        The cell.
+     * @param   s           The new state of the cell.
+     * @param   arrivalTime The new arrival time (infinity if unburned), or NaN to keep it.
+     * @return              Whether the cell was in the cell space.
+     */
+    public boolean set(int x, int y, int s, double arrivalTime) {
+        if (x < 0 || y < 0 || x >= dimX || y >= dimY) return false;
+        int i = y * w[0] + x;
+        float t = Double.isNaN(arrivalTime) ? arrival[0][i] : (float) arrivalTime;
+        if (state[0][i] == s && arrival[0][i] == t) return true;
+        if (t != Float.POSITIVE_INFINITY) {
+            if (t < minTime) minTime = t;
+            if (t > maxTime) maxTime = t;
+        }
+        state[0][i] = (byte) s;
+        arrival[0][i] = t;
+        tileVersion[0][(y / TILE) * tilesX[0] + x / TILE]++;
+        for (int k = 1; k < levels; k++) {
+            int bx = x >> k, by = y >> k, cx = bx << 1, cy = by << 1;
+            byte ms = 0;
+            float mt = Float.POSITIVE_INFINITY;
+            for (int j = cy; j < Math.min(cy + 2, h[k - 1]); j++) {
+                for (int c = cx; c < Math.min(cx + 2, w[k - 1]); c++) {
+                    int ci = j * w[k - 1] + c;
+                    if (state[k - 1][ci] > ms) ms = state[k - 1][ci];
+                    if (arrival[k - 1][ci] < mt) mt = arrival[k - 1][ci];
+                }
+            }
+            int bi = by * w[k] + bx;
+            if (state[k][bi] == ms && arrival[k][bi] == mt) break;
+            state[k][bi] = ms;
+            arrival[k][bi] = mt;
+            tileVersion[k][(by / TILE) * tilesX[k] + bx / TILE]++;
+        }
+        return true;
+    }
+
+    /**
+     * Clears all states and arrival times.
+     */
+    public void clear() {
+        for (int k = 0; k < levels; k++) {
+            Arrays.fill(state[k], (byte) 0);
+            Arrays.fill(arrival[k], Float.POSITIVE_INFINITY);
+            for (int i = 0; i < tileVersion[k].length; i++) tileVersion[k][i]++;
+        }
+        minTime = Float.POSITIVE_INFINITY;
+        maxTime = Float.NEGATIVE_INFINITY;
+    }
+
+    public int width(int level)  { return w[level]; }
+    public int height(int level) { return h[level]; }
+
+    /**
+     * Returns the maximum burn state of block (bx, by) of the level.
+     */
+    public int state(int level, int bx, int by) {
+        return state[level][by * w[level] + bx];
+    }
+
+    /**
+     * Returns the earliest arrival time in block (bx, by) of the level (infinity
+     * if the block has not burned).
+     */
+    public float arrival(int level, int bx, int by) {
+        return arrival[level][by * w[level] + bx];
+    }
+
+    /**
+     * Returns the version of the tile holding block (bx, by) of the level.
+     */
+    public int tileVersion(int level, int bx, int by) {
+        return tileVersion[level][(by / TILE) * tilesX[level] + bx / TILE];
+    }
+
+    /**
+     * Returns the color of block (bx, by) of the level: by burn state, or by
+     * arrival time (from yellow for early to dark red for late).
+     */
+    public int color(int level, int bx, int by, boolean byArrival) {
+        int i = by * w[level] + bx;
+        int s = state[level][i];
+        if (s == 0) return FireRaster.UNBURNED;
+        if (! byArrival) return FireRaster.stateColor(s);
+        float span = maxTime - minTime;
+        float f = span > 0 ? (arrival[level][i] - minTime) / span : 0;
+        int red = 255 - (int) (f * 127), green = (int) ((1 - f) * 220);
+        return 0xff000000 | red << 16 | green << 8;
+    }
+
+    /**
+     * Renders a window of the level into the raster, one pixel per block; the
+     * window's lower-left block is (bx0, by0) and rows are flipped so north is up.
+     * Only the raster pixels whose tile version differs from the one recorded in
+     * drawn are re-rendered (pass null to render all), and drawn is updated.
+     *
+     * @param   raster      The raster to render into (its size is the window size).
+     * @param   level       The level to render.
+     * @param   bx0, by0    The lower-left block of the window.
+     * @param   byArrival   Whether to color by arrival time instead of burn state.
+     * @param   drawn       The tile versions last rendered, per tile of the level, or null.
+     * @return              The number of tiles rendered.
+     */
+    public int render(FireRaster raster, int level, int bx0, int by0, boolean byArrival, int[] drawn) {
+        int rendered = 0;
+        int tx0 = Math.max(0, bx0) / TILE, ty0 = Math.max(0, by0) / TILE;
+        int tx1 = Math.min(w[level], bx0 + raster.width) - 1, ty1 = Math.min(h[level], by0 + raster.height) - 1;
+        if (tx1 < 0 || ty1 < 0) {
+            raster.fill(FireRaster.UNBURNED);
+            return 0;
+        }
+        if (drawn == null) raster.fill(FireRaster.UNBURNED);
+        tx1 /= TILE;
+        ty1 /= TILE;
+        for (int ty = ty0; ty <= ty1; ty++) {
+            for (int tx = tx0; tx <= tx1; tx++) {
+                int t = ty * tilesX[level] + tx;
+                int version = tileVersion[level][t];
+                if (drawn != null && drawn[t] == version) continue;
+                if (drawn != null) drawn[t] = version;
+                rendered++;
+                int bxEnd = Math.min(Math.min((tx + 1) * TILE, w[level]), bx0 + raster.width);
+                int byEnd = Math.min(Math.min((ty + 1) * TILE, h[level]), by0 + raster.height);
+                for (int by = Math.max(ty * TILE, by0); by < byEnd; by++) {
+                    int row = raster.height - 1 - (by - by0);
+                    for (int bx = Math.max(tx * TILE, bx0); bx < bxEnd; bx++) {
+                        raster.setPixel(bx - bx0, row, color(level, bx, by, byArrival));
+                    }
+                }
+            }
+        }
+        return rendered;
+    }
+
+    /**
+     * Returns a new array for the tile versions rendered at the level, initialized
+     * so every tile counts as changed.
+     */
+    public int[] newDrawnVersions(int level) {
+        int[] drawn = new int[tileVersion[level].length];
+        for (int i = 0; i < drawn.length; i++) drawn[i] = tileVersion[level][i] - 1;
+        return drawn;
+    }
+
+    /**
+     * Checks the pyramid after random updates and sets (which also lower cells)
+     * on cell spaces of odd and even sizes: level 0 must hold the cells as set,
+     * and each block of a level above the maximum state and earliest arrival of
+     * its (up to) 2 x 2 children and of the cells it covers.
+     */
+    public static void main(String[] args) {
+        int[][] dims = { { 1, 1 }, { 2, 1 }, { 5, 3 }, { 7, 130 }, { 67, 129 }, { 128, 128 }, { 300, 201 } };
+        java.util.Random rand = new java.util.Random(6);
+        for (int[] d : dims) {
+            int dimX = d[0], dimY = d[1];
+            FireLodPyramid p = new FireLodPyramid(dimX, dimY);
+            byte[] state = new byte[dimX * dimY];
+            float[] arrival = new float[dimX * dimY];
+            Arrays.fill(arrival, Float.POSITIVE_INFINITY);
+            for (int round = 0; round < 5; round++) {
+                for (int i = 0; i < 4 * dimX * dimY; i++) {
+                    int x = rand.nextInt(dimX + 2) - 1, y = rand.nextInt(dimY + 2) - 1, s = rand.nextInt(3);
+                    double t = rand.nextInt(1000) / 8.0;
+                    boolean in = x >= 0 && y >= 0 && x < dimX && y < dimY;
+                    int c = in ? y * dimX + x : -1;
+                    if (rand.nextBoolean()) {
+                        if (p.update(x, y, t, s) != (in && s > 0)) throw new AssertionError("update (" + x + ", " + y + ")");
+                        if (in && s > 0) {
+                            state[c] = (byte) Math.max(state[c], s);
+                            arrival[c] = Math.min(arrival[c], (float) t);
+                        }
+                    } else {
+                        double a = s == 0 ? Double.POSITIVE_INFINITY : rand.nextInt(4) == 0 ? Double.NaN : t;
+                        if (p.set(x, y, s, a) != in) throw new AssertionError("set (" + x + ", " + y + ")");
+                        if (in) {
+                            state[c] = (byte) s;
+                            if (! Double.isNaN(a)) arrival[c] = (float) a;
+                        }
+                    }
+                }
+                check(p, state, arrival);
+            }
+            if (p.width(p.levels - 1) != 1 || p.height(p.levels - 1) != 1) throw new AssertionError("top level not 1 x 1");
+            p.clear();
+            Arrays.fill(arrival, Float.POSITIVE_INFINITY);
+            check(p, new byte[dimX * dimY], arrival);
+            System.out.printf("%d x %d: %d levels match their children and cells%n", dimX, dimY, p.levels);
+        }
+    }
+
+    /**
+     * Throws an AssertionError unless level 0 holds the cells' states and arrival
+     * times and each block above reduces its children and the cells it covers.
+     */
+    private static void check(FireLodPyramid p, byte[] state, float[] arrival) {
+        for (int y = 0; y < p.dimY; y++) {
+            for (int x = 0; x < p.dimX; x++) {
+                int c = y * p.dimX + x;
+                if (p.state(0, x, y) != state[c] || p.arrival(0, x, y) != arrival[c]) {
+                    throw new AssertionError("cell (" + x + ", " + y + ") is " + p.state(0, x, y) + " at "
+                                             + p.arrival(0, x, y) + ", set to " + state[c] + " at " + arrival[c]);
+                }
+            }
+        }
+        for (int k = 1; k < p.levels; k++) {
+            if (p.width(k) != (p.dimX + (1 << k) - 1) >> k || p.height(k) != (p.dimY + (1 << k) - 1) >> k) {
+                throw new AssertionError("level " + k + " is " + p.width(k) + " x " + p.height(k));
+            }
+            for (int by = 0; by < p.height(k); by++) {
+                for (int bx = 0; bx < p.width(k); bx++) {
+                    int s = 0, cs = 0;
+                    float t = Float.POSITIVE_INFINITY, ct = Float.POSITIVE_INFINITY;
+                    for (int j = 2 * by; j < Math.min(2 * by + 2, p.height(k - 1)); j++) {
+                        for (int i = 2 * bx; i < Math.min(2 * bx + 2, p.width(k - 1)); i++) {
+                            s = Math.max(s, p.state(k - 1, i, j));
+                            t = Math.min(t, p.arrival(k - 1, i, j));
+                        }
+                    }
+                    for (int y = by << k; y < Math.min((by + 1) << k, p.dimY); y++) {
+                        for (int x = bx << k; x < Math.min((bx + 1) << k, p.dimX); x++) {
+                            cs = Math.max(cs, p.state(0, x, y));
+                            ct = Math.min(ct, p.arrival(0, x, y));
+                        }
+                    }
+                    if (p.state(k, bx, by) != s || p.arrival(k, bx, by) != t || s != cs || t != ct) {
+                        throw new AssertionError("level " + k + " block (" + bx + ", " + by + ") is "
+                                                 + p.state(k, bx, by) + " at " + p.arrival(k, bx, by)
+                                                 + ", children " + s + " at " + t + ", cells " + cs + " at " + ct);
+                    }
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,285 @@
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** @author  John Miller
+ *  @version 2.0
+ *  @date    Sat Oct 17 10:15:00 EDT 2026
+ *  @see     LICENSE (MIT style license file).
+ *
+ *  @note    Incremental Fire Metrics (Area, Perimeter, Fronts, Rate of Spread)
+ */
+
+package scalation
+package simulation
+package process
+package wide_FIRE
+
+import scala.collection.mutable.{ArrayBuffer => VEC}
+import scala.math.{atan2, sqrt, toDegrees}
+
+import scalation.mathstat.{MatrixD, Plot, Statistic, StatTable, VectorD}
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `FireMetrics` class updates fire metrics record by record as the BurnCell
+ *  records of a run arrive (it is a `BurnEventSink`), in O(1) amortized time per
+ *  record, and samples them into time series every `interval` seconds:
+ *      burned area, perimeter length, number of fire fronts (separate burned
+ *      patches), active (burning) cells, head distance, rate of spread and
+ *      head-fire direction.
+ *  The ignited and burned-out cells are kept in bitsets; the perimeter changes
+ *  by 4 - 2k edges when a cell with k ignited 4-neighbors ignites, and the
+ *  patches are the sets of a union-find (union by size, path halving) merged
+ *  as cells ignite.  The head is the ignited cell farthest from the first
+ *  ignition; its direction is in degrees clockwise from north (+y).
+ *  Accessors may be called from another thread while records arrive (e.g., to
+ *  chart a run in real time).
+ *  @param dimX      the x dimension of the cell space
+ *  @param dimY      the y dimension of the cell space
+ *  @param cellSize  the side of a cell (m)
+ *  @param interval  the simulation time between samples (s)
+ */
+class FireMetrics (val dimX: Int, val dimY: Int, cellSize: Double = 30.0, interval: Double = 60.0)
+      extends BurnEventSink:
+
+    private val n         = dimX * dimY
+    private val ignited   = Array.ofDim [Long] ((n + 63) >> 6)              // bitset of cells ever ignited
+    private val burnedOut = Array.ofDim [Long] ((n + 63) >> 6)              // bitset of cells burned out
+    private val parent    = Array.ofDim [Int] (n)                           // union-find: parent or -size at a root
+
+    private var cells     = 0                                               // ignited cells
+    private var active    = 0                                               // burning cells
+    private var edges     = 0                                               // perimeter edges
+    private var fronts    = 0                                               // union-find sets (burned patches)
+    private var originX   = -1                                              // first ignited cell
+    private var originY   = -1
+    private var headD2    = 0L                                              // squared head distance (cells)
+    private var headX     = -1                                              // head cell
+    private var headY     = -1
+    private var lastT     = Double.NaN                                      // time of the last record
+    private var nextT     = Double.NaN                                      // time of the next sample
+    private var sampleT   = Double.NaN                                      // time of the last sample
+    private var sampleD   = 0.0                                             // head distance at the last sample
+
+    private var cols      = Array.ofDim [Double] (FireMetrics.names.length, 64) // sampled series, one row per metric
+    private var samples   = 0                                               // number of samples
+
+    val rateOfSpread = new Statistic ("rateOfSpread")                     // rate of spread per sample (m/s)
+    val activeCells  = new Statistic ("activeCells")                      // burning cells per sample
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Accept one record (see `BurnEventSink`); records must arrive in time order.
+     */
+    def accept (x: Int, y: Int, time: Double, state: Int, op: Int): Unit = synchronized {
+        if op == BurnEventSink.BURN_CELL && x >= 0 && x < dimX && y >= 0 && y < dimY then
+            advance (time)
+            val c = x * dimY + y
+            if (state == 1 || state == 2) && ! test (ignited, c) then ignite (x, y, c)
+            if state == 2 && ! test (burnedOut, c) then
+                set (burnedOut, c)
+                active -= 1
+            end if
+        end if
+    } // accept
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Record the samples due before time t (the metrics do not include the record
+     *  at time t yet).
+     *  @param t  the time of the next record
+     */
+    private def advance (t: Double): Unit =
+        if ! t.isNaN then
+            if nextT.isNaN then { sampleT = t; nextT = t + interval }
+            while t >= nextT do
+                sample (nextT)
+                nextT += interval
+            end while
+            lastT = t
+        end if
+    end advance
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Ignite cell c = (x, y): update the perimeter, merge its set with those of
+     *  its ignited 4-neighbors and move the head.
+     */
+    private def ignite (x: Int, y: Int, c: Int): Unit =
+        set (ignited, c)
+        cells    += 1
+        active   += 1
+        fronts   += 1
+        parent(c) = -1
+        if x > 0 then join (c, c - dimY) else edges += 1
+        if x < dimX - 1 then join (c, c + dimY) else edges += 1
+        if y > 0 then join (c, c - 1) else edges += 1
+        if y < dimY - 1 then join (c, c + 1) else edges += 1
+
+        if originX < 0 then { originX = x; originY = y }
+        val (dx, dy) = (x - originX, y - originY)
+        val d2 = dx.toLong * dx + dy.toLong * dy
+        if d2 > headD2 then { headD2 = d2; headX = x; headY = y }
+    end ignite
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Account for the edge between the new cell c and its neighbor nb: a shared
+     *  edge leaves the perimeter and their sets merge, otherwise it is perimeter.
+     */
+    private def join (c: Int, nb: Int): Unit =
+        if test (ignited, nb) then
+            edges -= 1
+            val (a, b) = (find (c), find (nb))
+            if a != b then
+                if parent(a) <= parent(b) then { parent(a) += parent(b); parent(b) = a }   // a is larger
+                else { parent(b) += parent(a); parent(a) = b }
+                fronts -= 1
+            end if
+        else edges += 1
+    end join
+
+    private def find (c: Int): Int =
+        var i = c
+        while parent(i) >= 0 do
+            val p = parent(i)
+            if parent(p) >= 0 then parent(i) = parent(p)                   // path halving
+            i = p
+        end while
+        i
+    end find
+
+    private inline def test (bits: Array [Long], i: Int): Boolean = (bits(i >> 6) & (1L << i)) != 0
+    private inline def set (bits: Array [Long], i: Int): Unit     = bits(i >> 6) |= 1L << i
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Append a sample of the current metrics at time t.
+     *  @param t  the sample time
+     */
+    private def sample (t: Double): Unit =
+        if samples == cols(0).length then cols = cols.map (java.util.Arrays.copyOf (_, 2 * samples))
+        val d   = headDistance
+        val ros = if t > sampleT then (d - sampleD) / (t - sampleT) else 0.0
+        val row = Array (t, area, perimeter, fronts.toDouble, active.toDouble, d, ros, headDirection)
+        for j <- row.indices do cols(j)(samples) = row(j)
+        samples += 1
+        sampleT  = t
+        sampleD  = d
+        rateOfSpread.tally (ros)
+        activeCells.tally (active)
+    end sample
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Sample the metrics at the time of the last record, if not yet sampled
+     *  (call at the end of a run).
+     */
+    def finish (): Unit = synchronized {
+        if ! lastT.isNaN && (samples == 0 || lastT > cols(0)(samples - 1)) then sample (lastT)
+    } // finish
+
+    /** Return the current burned area (m^2), perimeter length (m) and number of
+     *  fire fronts (separate burned patches).
+     */
+    def area: Double       = synchronized { cells * cellSize * cellSize }
+    def perimeter: Double  = synchronized { edges * cellSize }
+    def numFronts: Int     = synchronized { fronts }
+    def numActive: Int     = synchronized { active }
+
+    /** Return the distance (m) and direction (degrees clockwise from north) of the
+     *  head, i.e., the ignited cell farthest from the first ignition.
+     */
+    def headDistance: Double  = synchronized { sqrt (headD2.toDouble) * cellSize }
+    def headDirection: Double = synchronized {
+        if headD2 == 0 then 0.0
+        else (toDegrees (atan2 (headX - originX, headY - originY)) + 360.0) % 360.0
+    } // headDirection
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return the sample times as a vector.
+     */
+    def times: VectorD = column (0)
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return the time series of the j-th metric (see `FireMetrics.names`), a copy.
+     *  @param j  the metric index
+     */
+    def column (j: Int): VectorD = synchronized {
+        new VectorD (samples, java.util.Arrays.copyOf (cols(j), samples))
+    } // column
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return all the time series as a matrix with one row per sample and one
+     *  column per metric (see `FireMetrics.names`), a copy.
+     */
+    def series: MatrixD = synchronized {
+        val a = Array.tabulate (samples)(i => Array.tabulate (cols.length)(j => cols(j)(i)))
+        new MatrixD (samples, cols.length, a)
+    } // series
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return the per-sample statistics (rate of spread, active cells).
+     */
+    def stats: VEC [Statistic] = synchronized { VEC (rateOfSpread, activeCells) }
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Report the current metrics and the per-sample statistics in the terminal.
+     */
+    def report (): Unit =
+        banner (s"Fire metrics: ${samples} samples")
+        println (f"area = $area%.0f m^2, perimeter = $perimeter%.0f m, fronts = $numFronts, " +
+                 f"active = $numActive, head = $headDistance%.0f m at $headDirection%.1f deg")
+        println (Statistic.line)
+        println (Statistic.labels)
+        println (Statistic.line)
+        for stat <- stats do println (stat)
+        println (Statistic.line)
+    end report
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Report the per-sample statistics in a new GUI window/frame.
+     */
+    def reportF (): Unit = new StatTable ("Fire metrics statistics", stats)
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Plot the time series of the j-th metric against time.
+     *  @param j  the metric index (see `FireMetrics.names`)
+     */
+    def plot (j: Int): Plot =
+        new Plot (times, column (j), null, s"${FireMetrics.names(j)} vs. time", lines = true)
+    end plot
+
+end FireMetrics
+
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `FireMetrics` companion object names the columns of the series.
+ */
+object FireMetrics:
+
+    val names = Array ("time", "area", "perimeter", "fronts", "active", "headDistance",
+                       "rateOfSpread", "headDirection")
+
+    val AREA = 1; val PERIMETER = 2; val FRONTS = 3; val ACTIVE = 4
+    val HEAD_DISTANCE = 5; val RATE_OF_SPREAD = 6; val HEAD_DIRECTION = 7
+
+end FireMetrics
+
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `fireMetricsTest` main function computes the metrics of a run of the
+ *  `LocalFireEngine` on a 2000 x 2000 cell space while its records stream in,
+ *  then reports and plots them.
+ *  > runMain scalation.simulation.process.wide_FIRE.fireMetricsTest
+ */
+@main def fireMetricsTest (): Unit =
+
+    val dim     = 2000
+    val engine  = new LocalFireEngine ((lat, lng) => FireLandscape.uniform (dim, dim, 30))
+    val metrics = new FireMetrics (dim, dim, 30.0, 600.0)
+    val events  = new BurnEventColumns ()
+    engine.run (DevsFireScenario.EXAMPLE.withIgnition (dim / 2, dim / 2).withSimTime (100000), events).get ()
+
+    val t0 = System.nanoTime ()
+    events.replay (metrics)
+    metrics.finish ()
+    println (s"${events.size} records in ${(System.nanoTime () - t0) / 1E6} ms")
+
+    metrics.report ()
+    println (s"series = ${metrics.series}")
+    metrics.plot (FireMetrics.AREA)
+    metrics.plot (FireMetrics.RATE_OF_SPREAD)
+
+end fireMetricsTest
@@ -0,0 +1,123 @@
+package scalation.simulation.process.wide_FIRE;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import javax.imageio.ImageIO;
+
+/**
+ * An off-screen raster of a fire's cell space with one pixel per cell, backed by a
+ * BufferedImage whose int[] RGB data is written directly.  Painting a cell is a
+ * single array store; the image is put on screen (or into a file) in one operation,
+ * so it is used both by API_FireState_Visualization and for headless rendering
+ * (see FireFrameWriter).
+ */
+public class FireRaster {
+
+    /**
+     * The colors of unburned, burning (state 1) and burned (state 2) cells.
+     */
+    public static final int UNBURNED = Color.getHSBColor(200, 240, 250).getRGB();
+    public static final int BURNING  = Color.red.getRGB();
+    public static final int BURNED   = Color.black.getRGB();
+
+    public final int width, height;
+
+    private final BufferedImage image;
+    private final int[] pixels;
+
+    /**
+     * Creates a raster of the given size (in cells), filled with UNBURNED.
+     */
+    public FireRaster(int width, int height) {
+        this.width = width;
+        this.height = height;
+        image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        fill(UNBURNED);
+    }
+
+    /**
+     * Returns the image backed by this raster.
+     */
+    public BufferedImage image() {
+        return image;
+    }
+
+    public void fill(int rgb) {
+        Arrays.fill(pixels, rgb);
+    }
+
+    /**
+     * Sets the pixel at the given column and row (row 0 at the top).
+     */
+    public void setPixel(int col, int row, int rgb) {
+        pixels[row * width + col] = rgb;
+    }
+
+    public int getPixel(int col, int row) {
+        return pixels[row * width + col];
+    }
+
+    /**
+     * Sets the pixel of the given cell, the y axis pointing up (north).  Cells
+     * outside the raster are ignored.
+     */
+    public void setCell(int cellX, int cellY, int rgb) {
+        int row = height - 1 - cellY;
+        if (cellX >= 0 && cellX < width && row >= 0 && row < height) pixels[row * width + cellX] = rgb;
+    }
+
+    /**
+     * Returns the color for the given cell state, or 0 if the state is not drawn.
+     */
+    public static int stateColor(int state) {
+        return state == 1 ? BURNING : state == 2 ? BURNED : 0;
+    }
+
+    /**
+     * Paints the BurnCell records of the events from index from, in order, while
+     * their time is before until.  Returns the index of the first record not painted.
+     *
+     * @param   events  The decoded simulation result, in time order.
+     * @param   from    The index of the first record to paint.
+     * @param   until   The end (exclusive) of the time slice to paint.
+     */
+    public int paint(BurnEventColumns events, int from, double until) {
+        int i = from, n = events.size();
+        for (; i < n && ! (events.time(i) >= until); i++) {      // records without a time go with the slice
+            if (! events.isBurnCell(i)) continue;
+            int rgb = stateColor(events.state(i));
+            if (rgb != 0) setCell(events.x(i), events.y(i), rgb);
+        }
+        return i;
+    }
+
+    /**
+     * Returns the image enlarged by the given factor (nearest neighbor), or the
+     * image itself for a factor of 1.
+     */
+    public BufferedImage scaled(int factor) {
+        if (factor <= 1) return image;
+        BufferedImage big = new BufferedImage(width * factor, height * factor, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = big.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        g.drawImage(image, 0, 0, width * factor, height * factor, null);
+        g.dispose();
+        return big;
+    }
+
+    /**
+     * Writes the raster, enlarged by the given factor, to a PNG file.
+     */
+    public void writePng(File file, int factor) throws IOException {
+        ImageIO.write(scaled(factor), "png", file);
+    }
+
+}
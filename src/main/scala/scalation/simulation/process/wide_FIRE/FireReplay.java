@@ -0,0 +1,221 @@
+package scalation.simulation.process.wide_FIRE;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleConsumer;
+
+/**
+ * A replay clock for fire state playback: simulation time advances with the wall
+ * clock at an adjustable speed and can be paused or moved (seek) at any time.  A
+ * scheduler thread of its own renders a frame every FRAME_MILLIS whenever the
+ * time changed, by calling the renderer with the current simulation time, so no
+ * method blocks the caller.  The renderer is only ever called from that thread.
+ *
+ * Usage (see API_FireState_Visualization.visualize):
+ *
+ *     FireReplay replay = new FireReplay(timeline.startTime(), timeline.endTime(), view::renderAt);
+ *     replay.play();
+ */
+public class FireReplay implements AutoCloseable {
+
+    /**
+     * The wall-clock time between frames, and the default speed (simulation
+     * seconds per wall-clock second).
+     */
+    public static final long FRAME_MILLIS = 40;
+    public static final double DEFAULT_SPEED = 1000;
+
+    private final double startTime, endTime;
+    private final DoubleConsumer renderer;
+    private final ScheduledExecutorService scheduler;
+    private final CompletableFuture<Void> finished = new CompletableFuture<>();
+
+    /**
+     * The simulation time at anchorNanos (wall clock); while playing, the time is
+     * anchorTime + speed * elapsed seconds.
+     */
+    private double anchorTime;
+    private long anchorNanos;
+    private double speed = DEFAULT_SPEED;
+    private boolean playing = false;
+
+    /**
+     * The time of the last frame rendered (NaN before the first).
+     */
+    private double rendered = Double.NaN;
+
+    /**
+     * Creates a paused replay at the start time and renders its first frame.
+     *
+     * @param   startTime   The simulation time the replay starts at.
+     * @param   endTime     The simulation time the replay stops at.
+     * @param   renderer    Renders the fire state at a given simulation time.
+     */
+    public FireReplay(double startTime, double endTime, DoubleConsumer renderer) {
+        this.startTime = startTime;
+        this.endTime   = Math.max(startTime, endTime);
+        this.renderer  = renderer;
+        anchorTime = startTime;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "FireReplay");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleAtFixedRate(this::tick, 0, FRAME_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts or resumes the playback (from the start once it has reached the end).
+     */
+    public synchronized void play() {
+        if (playing) return;
+        if (anchorTime >= endTime) anchorTime = startTime;
+        anchorNanos = System.nanoTime();
+        playing = true;
+    }
+
+    public synchronized void pause() {
+        if (! playing) return;
+        anchorTime = time();
+        playing = false;
+    }
+
+    public synchronized boolean isPlaying() {
+        return playing;
+    }
+
+    /**
+     * Moves the replay to simulation time t (limited to the replay's range); the
+     * frame is rendered promptly, playing or paused.
+     */
+    public synchronized void seek(double t) {
+        anchorTime  = Math.max(startTime, Math.min(t, endTime));
+        anchorNanos = System.nanoTime();
+        if (! scheduler.isShutdown()) scheduler.execute(this::tick);
+    }
+
+    /**
+     * Sets the speed in simulation seconds per wall-clock second.
+     */
+    public synchronized void setSpeed(double simSecondsPerSecond) {
+        if (! (simSecondsPerSecond > 0)) throw new IllegalArgumentException("speed must be positive");
+        anchorTime  = time();
+        anchorNanos = System.nanoTime();
+        speed = simSecondsPerSecond;
+    }
+
+    public synchronized double speed() {
+        return speed;
+    }
+
+    /**
+     * Returns the current simulation time of the replay.
+     */
+    public synchronized double time() {
+        if (! playing) return anchorTime;
+        return Math.min(endTime, anchorTime + speed * (System.nanoTime() - anchorNanos) / 1e9);
+    }
+
+    public double startTime() { return startTime; }
+    public double endTime()   { return endTime; }
+
+    /**
+     * Returns a future completed when the playback first reaches the end time.
+     */
+    public CompletableFuture<Void> finished() {
+        return finished;
+    }
+
+    /**
+     * Renders a frame if the time changed since the last one; stops the playback
+     * at the end.
+     */
+    private void tick() {
+        double t;
+        boolean atEnd;
+        synchronized (this) {
+            t = time();
+            atEnd = t >= endTime;
+            if (atEnd && playing) {
+                anchorTime = endTime;
+                playing = false;
+            }
+        }
+        if (t != rendered) {
+            try {
+                renderer.accept(t);
+            } catch (RuntimeException e) {                         // would silently cancel the schedule
+                finished.completeExceptionally(e);
+                scheduler.shutdown();
+                return;
+            }
+            rendered = t;
+        }
+        if (atEnd) finished.complete(null);
+    }
+
+    /**
+     * Stops the clock; no frame is rendered afterwards.
+     */
+    public void close() {
+        scheduler.shutdownNow();
+        finished.complete(null);
+    }
+
+    /**
+     * Waits until the renderer of main has shown time t, then checks its cells
+     * against the brute force fold of the records.
+     */
+    private static void expectFrame(FireTimeline.StateMap cells, double[] shown, BurnEventColumns events, double t)
+            throws InterruptedException {
+        synchronized (cells) {
+            long until = System.nanoTime() + 5_000_000_000L;
+            while (shown[0] != t) {
+                if (System.nanoTime() > until) throw new AssertionError("no frame at " + t + ", last " + shown[0]);
+                cells.wait(100);
+            }
+            cells.check(events, t);
+        }
+    }
+
+    /**
+     * Checks that the frames rendered after seeks (paused, in and out of range)
+     * and at the end of a playback show the states of a brute force fold of the
+     * records at their times.
+     */
+    public static void main(String[] args) throws Exception {
+        BurnEventColumns events = FireTimeline.testEvents(5, 20_000, 200, 150);
+        FireTimeline timeline = new FireTimeline(events);
+        FireTimeline.StateMap cells = new FireTimeline.StateMap();
+        FireTimeline.Cursor cursor = timeline.cursor();
+        double[] shown = { Double.NaN };
+        double start = timeline.startTime(), end = timeline.endTime();
+
+        try (FireReplay replay = new FireReplay(start, end, t -> {
+                 synchronized (cells) {
+                     cursor.seek(t, cells);
+                     shown[0] = t;
+                     cells.notifyAll();
+                 }
+             })) {
+            expectFrame(cells, shown, events, start);
+            java.util.Random rand = new java.util.Random(3);
+            for (int i = 0; i < 50; i++) {
+                double t = start + (rand.nextDouble() * 1.2 - 0.1) * (end - start);
+                replay.seek(t);
+                expectFrame(cells, shown, events, Math.max(start, Math.min(t, end)));
+            }
+            replay.seek(start);
+            expectFrame(cells, shown, events, start);
+            replay.setSpeed((end - start) / 0.5);                     // half a second to the end
+            replay.play();
+            expectFrame(cells, shown, events, end);
+            replay.finished().get(5, TimeUnit.SECONDS);
+            if (replay.isPlaying()) throw new AssertionError("playback did not stop at the end");
+        }
+        System.out.printf("%d records: frames after seeks and playback match the fold%n", timeline.size());
+    }
+
+}
@@ -0,0 +1,229 @@
+package scalation.simulation.process.wide_FIRE;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A DevsFireApi that caches the results of whole runs on local disk, in front of
+ * another backend.  A run is stored in a BurnEventFile named by the SHA-256 of the
+ * full scenario (wind, location, ignition, simTime) and a namespace telling the
+ * backends apart (e.g., "local" or the server URL), so a repeated scenario is read
+ * through a memory-mapped file instead of being simulated (or downloaded and parsed)
+ * again.  A new result streams to a temporary file while it is pushed to the sink
+ * and is moved into place only if the run succeeds.
+ *
+ * The session operations (connect, setWindCondition, ...) go to the backend
+ * uncached; only run (and so runAll) uses the cache.  Works from Scala, e.g.,
+ * new FireEnsemble (new FireResultCache (dir, "local", new LocalFireEngine ())).
+ */
+public class FireResultCache implements DevsFireApi {
+
+    private final Path dir;
+    private final String namespace;
+    private final DevsFireApi backend;
+    private final AtomicLong hits = new AtomicLong(), misses = new AtomicLong();
+
+    /**
+     * @param   dir         The cache directory (created if missing).
+     * @param   namespace   Identifies the backend in the keys.
+     * @param   backend     Runs the scenarios not in the cache.
+     */
+    public FireResultCache(Path dir, String namespace, DevsFireApi backend) throws IOException {
+        this.dir       = Files.createDirectories(dir);
+        this.namespace = namespace;
+        this.backend   = backend;
+    }
+
+    /**
+     * Returns the content address of a scenario run on the namespace's backend: the
+     * hex SHA-256 of the namespace and the exact bits of every scenario field.
+     */
+    public static String key(String namespace, DevsFireScenario s) {
+        byte[] ns = namespace.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer b = ByteBuffer.allocate(4 + ns.length + 4 * 8 + 3 * 4);
+        b.putInt(ns.length).put(ns)
+         .putLong(Double.doubleToLongBits(s.windSpeed())).putLong(Double.doubleToLongBits(s.windDirection()))
+         .putLong(Double.doubleToLongBits(s.lat())).putLong(Double.doubleToLongBits(s.lng()))
+         .putInt(s.ignitionX()).putInt(s.ignitionY()).putInt(s.simTime());
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(b.array()));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);                     // every JDK has SHA-256
+        }
+    }
+
+    /**
+     * Returns the file holding the result of the scenario (which may not exist).
+     */
+    public Path path(DevsFireScenario scenario) {
+        return dir.resolve(key(namespace, scenario) + ".dfbe");
+    }
+
+    public boolean contains(DevsFireScenario scenario) {
+        return Files.isRegularFile(path(scenario));
+    }
+
+    /**
+     * Reads the cached result of the scenario into the sink.
+     *
+     * @return          The number of records, or -1 if the scenario is not cached.
+     */
+    public int load(DevsFireScenario scenario, BurnEventSink sink) throws IOException {
+        Path file = path(scenario);
+        if (! Files.isRegularFile(file)) return -1;
+        return BurnEventFile.read(file, sink);
+    }
+
+    /**
+     * Stores the result of the scenario (replacing any cached one).
+     */
+    public void store(DevsFireScenario scenario, BurnEventColumns events) throws IOException {
+        Path tmp = Files.createTempFile(dir, "run", ".tmp");
+        try {
+            BurnEventFile.write(events, tmp);
+            Files.move(tmp, path(scenario), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Returns the number of runs served from the cache and run on the backend.
+     */
+    public long hits()   { return hits.get(); }
+    public long misses() { return misses.get(); }
+
+    /**
+     * Runs the scenario, from the cache if it holds it, otherwise on the backend
+     * while writing the result to the cache.  A cached file that cannot be read is
+     * deleted and the run fails (the sink may have received part of it), so the
+     * next run recomputes it.
+     */
+    @Override
+    public CompletableFuture<Integer> run(DevsFireScenario scenario, BurnEventSink sink) {
+        Path file = path(scenario);
+        if (Files.isRegularFile(file)) {
+            try {
+                int n = BurnEventFile.read(file, sink);
+                hits.incrementAndGet();
+                return CompletableFuture.completedFuture(n);
+            } catch (IOException e) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException ignored) {
+                    // the failure reported is the read
+                }
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+
+        misses.incrementAndGet();
+        Path tmp;
+        BurnEventFile.Writer writer;
+        try {
+            tmp = Files.createTempFile(dir, "run", ".tmp");
+            writer = new BurnEventFile.Writer(tmp);
+        } catch (IOException e) {
+            return backend.run(scenario, sink);                    // uncached rather than failed
+        }
+        BurnEventSink tee = (x, y, time, state, op) -> {
+            writer.accept(x, y, time, state, op);
+            sink.accept(x, y, time, state, op);
+        };
+        return backend.run(scenario, tee).whenComplete((n, error) -> {
+            try {
+                writer.close();
+                if (error == null) {
+                    Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } catch (IOException e) {
+                // the run itself succeeded; it is just not cached
+            } finally {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException ignored) {
+                    // a stale temporary file only wastes space
+                }
+            }
+        });
+    }
+
+    /**
+     * See parent method.
+     */
+    public CompletableFuture<String> connect() {
+        return backend.connect();
+    }
+
+    /**
+     * See parent method.
+     */
+    public CompletableFuture<Void> setWindCondition(String token, double windSpeed, double windDirection) {
+        return backend.setWindCondition(token, windSpeed, windDirection);
+    }
+
+    /**
+     * See parent method.
+     */
+    public CompletableFuture<Void> setCellSpaceLocation(String token, double lat, double lng) {
+        return backend.setCellSpaceLocation(token, lat, lng);
+    }
+
+    /**
+     * See parent method.
+     */
+    public CompletableFuture<Void> setPointIgnition(String token, int x, int y) {
+        return backend.setPointIgnition(token, x, y);
+    }
+
+    /**
+     * See parent method.
+     */
+    public CompletableFuture<Integer> runSimulation(String token, int simTime, BurnEventSink sink) {
+        return backend.runSimulation(token, simTime, sink);
+    }
+
+    /**
+     * See parent method.
+     */
+    public void disconnect(String token) {
+        backend.disconnect(token);
+    }
+
+    /**
+     * Runs the connectAndRunTest scenario twice through a cache (on the local engine
+     * by default) and reports the time of the miss and of the hit, and the file size.
+     *
+     * Usage: java scalation.simulation.process.wide_FIRE.FireResultCache [local|url] [cacheDir]
+     */
+    public static void main(String[] args) throws Exception {
+        String target = args.length > 0 ? args[0] : "local";
+        Path dir      = Path.of(args.length > 1 ? args[1] : System.getProperty("java.io.tmpdir"), "fire_cache");
+        DevsFireApi api = DevsFireApi.create(target);
+        FireResultCache cache = new FireResultCache(dir, target, api);
+        try {
+            Files.deleteIfExists(cache.path(DevsFireScenario.EXAMPLE));
+            for (int pass = 1; pass <= 3; pass++) {
+                BurnEventColumns events = new BurnEventColumns();
+                long t0 = System.nanoTime();
+                int n = cache.run(DevsFireScenario.EXAMPLE, events).get();
+                System.out.printf("pass %d: %d records in %.2f ms (hits %d, misses %d)%n",
+                                  pass, n, (System.nanoTime() - t0) / 1e6, cache.hits(), cache.misses());
+            }
+            System.out.println(cache.path(DevsFireScenario.EXAMPLE) + ": "
+                               + Files.size(cache.path(DevsFireScenario.EXAMPLE)) + " bytes");
+        } finally {
+            if (api instanceof DevsFireClient remote) remote.close();
+        }
+    }
+
+}
@@ -0,0 +1,417 @@
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** @author  John Miller
+ *  @version 2.0
+ *  @date    Sat Oct 17 10:15:00 EDT 2026
+ *  @see     LICENSE (MIT style license file).
+ *
+ *  @note    Spatial Index Coupling the Fire Grid with Road Models (Evacuation)
+ */
+
+package scalation
+package simulation
+package process
+package wide_FIRE
+
+import scala.collection.mutable.{ArrayBuffer => VEC, HashMap}
+import scala.math.{ceil, hypot, max, min}
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `FireRoadIndex` class is a uniform-grid spatial index over road segments
+ *  (e.g., the lanes of `Path`s, `Transport`s and `Junction`s) and actor positions
+ *  (e.g., `Vehicle`s), updated incrementally by the BurnCell records of a fire
+ *  run (it is a `BurnEventSink`).  When a cell ignites, only the buckets within
+ *  the reach of the cell are examined, so each record costs near-constant time
+ *  (independent of the numbers of segments, actors and burning cells), and each
+ *  road (owner of segments) and each actor within reach of the fire front is
+ *  reported once to the listeners, e.g., to close a road or reroute a vehicle.
+ *  Queries find the segments/actors within a distance of a point and whether
+ *  fire burns within a distance of a point.
+ *
+ *  Distances are in meters in the fire's cell space (cell (x, y) has its center at
+ *  ((x + 0.5) cellSize, (y + 0.5) cellSize)); road model coordinates (x, y) map to
+ *  ((x - x0) metersPerUnit, (y - y0) metersPerUnit).
+ *  @param dimX           the x dimension of the fire's cell space
+ *  @param dimY           the y dimension of the fire's cell space
+ *  @param reach          the distance (m) from a burning cell at which roads/actors are threatened
+ *  @param cellSize       the side of a fire cell (m)
+ *  @param bucketCells    the side of a bucket in fire cells
+ *  @param origin         the road model coordinates (x0, y0) of the cell space's corner
+ *  @param metersPerUnit  the meters per road model unit (e.g., pixel)
+ */
+class FireRoadIndex (val dimX: Int, val dimY: Int, val reach: Double = 300.0, cellSize: Double = 30.0,
+                     bucketCells: Int = 8, origin: (Double, Double) = (0.0, 0.0), metersPerUnit: Double = 1.0)
+      extends BurnEventSink:
+
+    private val bs   = bucketCells * cellSize                                // side of a bucket (m)
+    private val nbx  = (dimX + bucketCells - 1) / bucketCells                // number of buckets in x
+    private val nby  = (dimY + bucketCells - 1) / bucketCells                // number of buckets in y
+    private val ring = ceil (reach / bs).toInt + 1                           // buckets examined around a bucket
+
+    private val cell = Array.ofDim [Byte] (dimX * dimY)                      // cell states (0, 1 burning, 2 burned)
+    private val fire = Array.ofDim [Int] (nbx * nby)                         // burning cells per bucket
+
+    // segments: coordinates (m), owner index; per bucket, the segments passing near it
+    private val sx1, sy1, sx2, sy2 = VEC [Double] ()
+    private val sOwner  = VEC [Int] ()
+    private val owners  = VEC [AnyRef] ()                                    // owners of segments (roads)
+    private val ownerOf = HashMap [AnyRef, Int] ()
+    private val closed  = VEC [Boolean] ()                                   // whether an owner was reported
+    private val segs    = Array.fill (nbx * nby)(VEC [Int] ())
+
+    // actors: position (m) and bucket per slot; per bucket, a doubly linked list of slots
+    private val slotOf  = HashMap [AnyRef, Int] ()
+    private val actors  = VEC [AnyRef] ()
+    private val ax, ay  = VEC [Double] ()
+    private val abucket = VEC [Int] ()
+    private val anext, aprev = VEC [Int] ()
+    private val warned  = VEC [Boolean] ()                                   // whether an actor was reported
+    private val ahead   = Array.fill (nbx * nby)(-1)
+    private var freeSlot = -1
+
+    private var time = 0.0                                                   // time of the last record
+
+    /** Called when fire comes within reach of a road (once per road) and of an actor
+     *  (once, until `clearWarning`), with the road/actor and the time.
+     */
+    var onRoad:  (AnyRef, Double) => Unit = (_, _) => ()
+    var onActor: (AnyRef, Double) => Unit = (_, _) => ()
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return the bucket of the point (m), clamped to the grid.
+     */
+    private def bx (x: Double): Int = min (nbx - 1, max (0, (x / bs).toInt))
+    private def by (y: Double): Int = min (nby - 1, max (0, (y / bs).toInt))
+
+    private def mx (x: Double): Double = (x - origin._1) * metersPerUnit
+    private def my (y: Double): Double = (y - origin._2) * metersPerUnit
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return the distance from point (px, py) to segment s.
+     */
+    private def segDist (s: Int, px: Double, py: Double): Double =
+        val dx = sx2(s) - sx1(s); val dy = sy2(s) - sy1(s)
+        val l2 = dx * dx + dy * dy
+        val u  = if l2 == 0.0 then 0.0
+                 else max (0.0, min (1.0, ((px - sx1(s)) * dx + (py - sy1(s)) * dy) / l2))
+        hypot (px - sx1(s) - u * dx, py - sy1(s) - u * dy)
+    end segDist
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Add the straight segment from (x1, y1) to (x2, y2), in meters, to the road
+     *  (owner); a road may have several segments.
+     *  @param owner  the road the segment belongs to
+     */
+    def addSegment (owner: AnyRef, x1: Double, y1: Double, x2: Double, y2: Double): Unit =
+        val o = ownerOf.getOrElseUpdate (owner, { owners += owner; closed += false; owners.size - 1 })
+        val s = sx1.size
+        sx1 += x1; sy1 += y1; sx2 += x2; sy2 += y2; sOwner += o
+        val steps = max (1, ceil (2.0 * hypot (x2 - x1, y2 - y1) / bs).toInt)  // samples at most half a bucket apart
+        var last = -1
+        for k <- 0 to steps do
+            val u = k.toDouble / steps
+            val b = by (y1 + u * (y2 - y1)) * nbx + bx (x1 + u * (x2 - x1))
+            if b != last && ! segs(b).contains (s) then segs(b) += s
+            last = b
+        end for
+    end addSegment
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Add the lane (its curve, as a polyline) of a road model.
+     *  @param t       the transport (lane)
+     *  @param pieces  the number of straight pieces for a bent lane
+     */
+    def addTransport (t: Transport, pieces: Int = 8): Unit =
+        val (p1, pc, p2) = (t.p1, t.pc, t.p2)
+        val bent = ((pc(0) - p1(0)) * (p2(1) - p1(1)) - (pc(1) - p1(1)) * (p2(0) - p1(0))).abs > 1E-7
+        val n    = if bent then pieces else 1
+        def pt (u: Double, i: Int): Double = (1 - u) * (1 - u) * p1(i) + 2 * (1 - u) * u * pc(i) + u * u * p2(i)
+        for k <- 0 until n do
+            val (u1, u2) = (k.toDouble / n, (k + 1).toDouble / n)
+            val (x1, y1) = if bent then (pt (u1, 0), pt (u1, 1)) else (p1(0) + u1 * (p2(0) - p1(0)), p1(1) + u1 * (p2(1) - p1(1)))
+            val (x2, y2) = if bent then (pt (u2, 0), pt (u2, 1)) else (p1(0) + u2 * (p2(0) - p1(0)), p1(1) + u2 * (p2(1) - p1(1)))
+            addSegment (t, mx (x1), my (y1), mx (x2), my (y2))
+        end for
+    end addTransport
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Add all lanes of the path (each lane is a road of its own).
+     *  @param p  the path
+     */
+    def addPath (p: Path): Unit = for l <- p.lane do addTransport (l)
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Add the junction as a road of one point (its center).
+     *  @param j  the junction
+     */
+    def addJunction (j: Junction): Unit =
+        val (x, y) = (mx (j.at(0) + j.at(2) / 2), my (j.at(1) + j.at(3) / 2))
+        addSegment (j, x, y, x, y)
+    end addJunction
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Place the actor at (x, y) in meters (adding it on its first move), and
+     *  report it if fire already burns within reach.  O(1) unless fire is near.
+     *  @param actor  the actor (e.g., a vehicle)
+     */
+    def moveActor (actor: AnyRef, x: Double, y: Double): Unit =
+        val a = slotOf.getOrElse (actor, -1) match
+            case -1 =>
+                val a = newSlot (actor)
+                slotOf (actor) = a
+                a
+            case a => a
+        ax(a) = x; ay(a) = y
+        val b = by (y) * nbx + bx (x)
+        if b != abucket(a) then
+            unlinkActor (a)
+            anext(a) = ahead(b); aprev(a) = -1
+            if ahead(b) >= 0 then aprev(ahead(b)) = a
+            ahead(b) = a; abucket(a) = b
+        end if
+        if ! warned(a) && fireWithin (x, y, reach) then
+            warned(a) = true
+            onActor (actor, time)
+        end if
+    end moveActor
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Place the simulation actor at its location (`at`, road model coordinates).
+     *  @param actor  the actor (e.g., a vehicle)
+     */
+    def moveActor (actor: SimActor): Unit = moveActor (actor, mx (actor.at(0)), my (actor.at(1)))
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Remove the actor (e.g., a vehicle leaving through a sink).
+     *  @param actor  the actor to remove
+     */
+    def removeActor (actor: AnyRef): Unit =
+        slotOf.remove (actor) match
+        case Some (a) =>
+            unlinkActor (a)
+            actors(a) = null
+            anext(a) = freeSlot; freeSlot = a
+        case None =>
+        end match
+    end removeActor
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Allow the actor to be reported again (e.g., after it was rerouted).
+     *  @param actor  the actor
+     */
+    def clearWarning (actor: AnyRef): Unit = slotOf.get (actor).foreach (warned(_) = false)
+
+    private def newSlot (actor: AnyRef): Int =
+        if freeSlot >= 0 then
+            val a = freeSlot
+            freeSlot = anext(a)
+            actors(a) = actor; abucket(a) = -1; warned(a) = false
+            a
+        else
+            actors += actor; ax += 0.0; ay += 0.0; abucket += -1
+            anext += -1; aprev += -1; warned += false
+            actors.size - 1
+        end if
+    end newSlot
+
+    private def unlinkActor (a: Int): Unit =
+        val b = abucket(a)
+        if b >= 0 then
+            if aprev(a) >= 0 then anext(aprev(a)) = anext(a) else ahead(b) = anext(a)
+            if anext(a) >= 0 then aprev(anext(a)) = aprev(a)
+            abucket(a) = -1
+        end if
+    end unlinkActor
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Accept one record (see `BurnEventSink`): a cell that ignites reports the
+     *  roads and actors newly within reach.
+     */
+    def accept (x: Int, y: Int, t: Double, state: Int, op: Int): Unit =
+        if op == BurnEventSink.BURN_CELL && x >= 0 && x < dimX && y >= 0 && y < dimY then
+            if ! t.isNaN then time = t
+            val c    = y * dimX + x
+            val prev = cell(c)
+            val b    = (y / bucketCells) * nbx + x / bucketCells
+            if state == 1 && prev == 0 then
+                cell(c) = 1
+                fire(b) += 1
+                threaten ((x + 0.5) * cellSize, (y + 0.5) * cellSize, b)
+            else if state == 2 && prev != 2 then
+                cell(c) = 2
+                if prev == 1 then fire(b) -= 1
+            end if
+        end if
+    end accept
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Report the roads and actors within reach of the burning point (px, py).
+     *  @param b  the bucket of the point
+     */
+    private def threaten (px: Double, py: Double, b: Int): Unit =
+        val (cx, cy) = (b % nbx, b / nbx)
+        for j <- max (0, cy - ring) to min (nby - 1, cy + ring);
+            i <- max (0, cx - ring) to min (nbx - 1, cx + ring) do
+            val k = j * nbx + i
+            for s <- segs(k) do
+                val o = sOwner(s)
+                if ! closed(o) && segDist (s, px, py) <= reach then
+                    closed(o) = true
+                    onRoad (owners(o), time)
+            end for
+            var a = ahead(k)
+            while a >= 0 do
+                val nx = anext(a)                                            // the listener may move/remove a
+                if ! warned(a) && hypot (ax(a) - px, ay(a) - py) <= reach then
+                    warned(a) = true
+                    onActor (actors(a), time)
+                a = nx
+            end while
+        end for
+    end threaten
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return whether some cell burns within distance d (m) of point (x, y);
+     *  buckets without burning cells are skipped.
+     */
+    def fireWithin (x: Double, y: Double, d: Double): Boolean =
+        val r = ceil (d / bs).toInt
+        val (cx, cy) = (bx (x), by (y))
+        var found = false
+        for j <- max (0, cy - r) to min (nby - 1, cy + r);
+            i <- max (0, cx - r) to min (nbx - 1, cx + r) if ! found && fire(j * nbx + i) > 0 do
+            var yy = j * bucketCells
+            while ! found && yy < min (dimY, (j + 1) * bucketCells) do
+                var xx = i * bucketCells
+                while ! found && xx < min (dimX, (i + 1) * bucketCells) do
+                    found = cell(yy * dimX + xx) == 1 &&
+                            hypot ((xx + 0.5) * cellSize - x, (yy + 0.5) * cellSize - y) <= d
+                    xx += 1
+                end while
+                yy += 1
+            end while
+        end for
+        found
+    end fireWithin
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return the roads with a segment within distance d (m) of point (x, y).
+     */
+    def roadsNear (x: Double, y: Double, d: Double): Set [AnyRef] =
+        val r = ceil (d / bs).toInt + 1
+        val (cx, cy) = (bx (x), by (y))
+        val found = for j <- max (0, cy - r) to min (nby - 1, cy + r);
+                        i <- max (0, cx - r) to min (nbx - 1, cx + r);
+                        s <- segs(j * nbx + i) if segDist (s, x, y) <= d yield owners(sOwner(s))
+        found.toSet
+    end roadsNear
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return the actors within distance d (m) of point (x, y).
+     */
+    def actorsNear (x: Double, y: Double, d: Double): VEC [AnyRef] =
+        val r = ceil (d / bs).toInt
+        val (cx, cy) = (bx (x), by (y))
+        val found = VEC [AnyRef] ()
+        for j <- max (0, cy - r) to min (nby - 1, cy + r);
+            i <- max (0, cx - r) to min (nbx - 1, cx + r) do
+            var a = ahead(j * nbx + i)
+            while a >= 0 do
+                if hypot (ax(a) - x, ay(a) - y) <= d then found += actors(a)
+                a = anext(a)
+            end while
+        end for
+        found
+    end actorsNear
+
+    //::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+    /** Return whether the road was reported (closed).
+     *  @param road  the road (owner of segments)
+     */
+    def isClosed (road: AnyRef): Boolean = ownerOf.get (road).exists (closed(_))
+
+end FireRoadIndex
+
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `FireFront` class is a simulation actor that plays the BurnCell records
+ *  of a fire run into a `FireRoadIndex` at their simulation times, so the index
+ *  listeners (closures, reroutes) act inside the simulation, interleaved with
+ *  the vehicles on the agenda.  Schedule it with director.reschedule (front)
+ *  before simulate.
+ *  @param events    the records of the fire run (in time order)
+ *  @param index     the index receiving them
+ *  @param director  the director controlling the model
+ */
+class FireFront (events: BurnEventColumns, index: FireRoadIndex, director: Model)
+      extends SimActor ("fire", director):
+
+    override def act (): Unit =
+        var i = 0
+        while i < events.size && ! director.stopped do
+            val t = events.time (i)
+            if t > director.clock then
+                schedule (t - director.clock)
+                yieldToDirector ()
+            end if
+            while i < events.size && ! (events.time (i) > director.clock) do   // NaN times play at once
+                index.accept (events.x (i), events.y (i), events.time (i), events.state (i), events.op (i))
+                i += 1
+            end while
+        end while
+        yieldToDirector (true)
+    end act
+
+end FireFront
+
+
+//::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::::
+/** The `fireRoadIndexTest` main function burns a uniform landscape and plays the
+ *  run into an index over random road segments and vehicles, checking the roads
+ *  and vehicles reported against a brute-force scan of every burning cell.
+ *  > runMain scalation.simulation.process.wide_FIRE.fireRoadIndexTest
+ */
+@main def fireRoadIndexTest (): Unit =
+
+    val dim    = 400
+    val reach  = 200.0
+    val engine = new LocalFireEngine ((lat, lng) => FireLandscape.uniform (dim, dim, 30))
+    val events = new BurnEventColumns ()
+    engine.run (DevsFireScenario.EXAMPLE.withIgnition (dim / 2, dim / 2).withSimTime (20000), events).get ()
+
+    val rng   = new java.util.Random (7)
+    val side  = dim * 30.0
+    val roads = Array.tabulate (500)(k => (s"road$k", rng.nextDouble * side, rng.nextDouble * side,
+                                                      rng.nextDouble * side, rng.nextDouble * side))
+    val cars  = Array.tabulate (5000)(k => (s"car$k", rng.nextDouble * side, rng.nextDouble * side))
+
+    val index = new FireRoadIndex (dim, dim, reach)
+    val hitRoads = VEC [AnyRef] ()
+    val hitCars  = VEC [AnyRef] ()
+    index.onRoad  = (r, _) => hitRoads += r
+    index.onActor = (c, _) => hitCars += c
+    for (r, x1, y1, x2, y2) <- roads do index.addSegment (r, x1, y1, x2, y2)
+    for (c, x, y) <- cars do index.moveActor (c, x, y)
+
+    val t0 = System.nanoTime ()
+    events.replay (index)
+    println (s"${events.size} records in ${(System.nanoTime () - t0) / 1E6} ms: " +
+             s"${hitRoads.size} roads and ${hitCars.size} vehicles within $reach m of the fire")
+
+    val burnt: IndexedSeq [(Double, Double)] =
+        for i <- 0 until events.size if events.isBurnCell (i) && events.state (i) == 1
+        yield ((events.x (i) + 0.5) * 30, (events.y (i) + 0.5) * 30)
+    def segDist (x1: Double, y1: Double, x2: Double, y2: Double, px: Double, py: Double): Double =
+        val (dx, dy) = (x2 - x1, y2 - y1)
+        val l2 = dx * dx + dy * dy
+        val u  = if l2 == 0 then 0.0 else max (0.0, min (1.0, ((px - x1) * dx + (py - y1) * dy) / l2))
+        hypot (px - x1 - u * dx, py - y1 - u * dy)
+    val expRoads = roads.filter ((_, x1, y1, x2, y2) => burnt.exists ((px, py) => segDist (x1, y1, x2, y2, px, py) <= reach))
+    val expCars  = cars.filter ((_, x, y) => burnt.exists ((px, py) => hypot (x - px, y - py) <= reach))
+    println (s"brute force: ${expRoads.length} roads and ${expCars.length} vehicles")
+    assert (expRoads.nonEmpty && expCars.nonEmpty, "the fire reaches no road or vehicle: test too weak")
+    assert (hitRoads.toSet.size == hitRoads.size && hitCars.toSet.size == hitCars.size, "reported more than once")
+    assert (hitRoads.toSet == expRoads.map (_._1).toSet, "roads differ from brute force")
+    assert (hitCars.toSet == expCars.map (_._1).toSet, "vehicles differ from brute force")
+
+end fireRoadIndexTest
+
@@ -0,0 +1,364 @@
+package scalation.simulation.process.wide_FIRE;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A local store of fuel and elevation grids, cut into square tiles of TILE x TILE
+ * cells kept one per file and read through memory maps, so the landscape of a cell
+ * space (what setCellSpaceLocation selects) is assembled from the page cache instead
+ * of being fetched again for every scenario of an ensemble over the same region.
+ *
+ * Locations are the projected coordinates setCellSpaceLocation takes (lat = y,
+ * lng = x, in m) and the cell grid is aligned to them: cell (i, j) covers x in
+ * [i, i + 1) * cellSize and y in [j, j + 1) * cellSize, and tile (tx, ty) holds cells tx * TILE .. (tx + 1) * TILE - 1
+ * (likewise for y).  A tile missing from the store is made by the Fetcher (e.g.,
+ * from LANDFIRE, or synthetic data) and written once; the hot tiles stay mapped in
+ * an LRU of at most maxTiles entries.
+ *
+ * The store is a FireLandscape.Source, so a LocalFireEngine reads its cell spaces
+ * from it (new LocalFireEngine(store)) and a DevsFireClient can warm it alongside
+ * the server (DevsFireClient.Builder.tileStore).
+ */
+public class FireTileStore implements FireLandscape.Source {
+
+    /**
+     * The side of a tile in cells.
+     */
+    public static final int TILE = 256;
+
+    private static final int MAGIC  = 0x46544C31;               // "FTL1"
+    private static final int HEADER = 16;                       // magic, tile, cellSize (double)
+
+    /**
+     * Makes the layers of a tile missing from the store.
+     */
+    @FunctionalInterface
+    public interface Fetcher {
+        /**
+         * Fills the fuel and elevation (m) of tile (tx, ty), row by row, TILE * TILE
+         * cells each, cell (i, j) of the tile at j * TILE + i.
+         */
+        void fetch(int tx, int ty, double cellSize, float[] fuel, float[] elevation) throws IOException;
+    }
+
+    /**
+     * A mapped tile: views of its fuel and elevation layers.
+     */
+    private record Tile(FloatBuffer fuel, FloatBuffer elevation) { }
+
+    private final Path dir;
+    private final double cellSize;
+    private final int dimX, dimY;
+    private final Fetcher fetcher;
+    private final Map<Long, Tile> hot;
+    private final AtomicLong hits = new AtomicLong(), maps = new AtomicLong(), fetches = new AtomicLong();
+
+    /**
+     * @param   dir         The directory of the tile files (created if missing).
+     * @param   cellSize    The side of a cell (m, projected).
+     * @param   dimX, dimY  The dimensions in cells of the cell spaces returned by landscape.
+     * @param   maxTiles    The number of tiles kept mapped.
+     * @param   fetcher     Makes the tiles not yet in the store.
+     */
+    public FireTileStore(Path dir, double cellSize, int dimX, int dimY, int maxTiles, Fetcher fetcher)
+            throws IOException {
+        this.dir      = Files.createDirectories(dir);
+        this.cellSize = cellSize;
+        this.dimX     = dimX;
+        this.dimY     = dimY;
+        this.fetcher  = fetcher;
+        this.hot      = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Tile> eldest) {
+                return size() > maxTiles;                       // unmapped once unreachable
+            }
+        };
+    }
+
+    /**
+     * Returns the file of tile (tx, ty).
+     */
+    public Path path(int tx, int ty) {
+        return dir.resolve(tx + "_" + ty + "_" + (int) Math.round(cellSize * 1000) + ".tile");
+    }
+
+    /**
+     * Returns the number of tiles found mapped, mapped from their files and fetched.
+     */
+    public long hits()    { return hits.get(); }
+    public long maps()    { return maps.get(); }
+    public long fetches() { return fetches.get(); }
+
+    /**
+     * Returns the landscape of the dimX x dimY cell space centered at the location, copied out of the tiles it overlaps (see FireLandscape.Source).
+     */
+    @Override
+    public FireLandscape landscape(double lat, double lng) {
+        long x0 = (long) Math.floor(lng / cellSize) - dimX / 2;
+        long y0 = (long) Math.floor(lat / cellSize) - dimY / 2;
+        float[] fuel = new float[dimX * dimY];
+        float[] elev = new float[dimX * dimY];
+        for (int y = 0; y < dimY; y++) {
+            long gy = y0 + y;
+            int ty  = (int) Math.floorDiv(gy, (long) TILE);
+            int row = (int) Math.floorMod(gy, (long) TILE) * TILE;
+            int x = 0;
+            while (x < dimX) {                                  // one run of cells per overlapped tile
+                long gx  = x0 + x;
+                int tx   = (int) Math.floorDiv(gx, (long) TILE);
+                int col  = (int) Math.floorMod(gx, (long) TILE);
+                int len  = Math.min(TILE - col, dimX - x);
+                Tile t   = tile(tx, ty);
+                t.fuel().get(row + col, fuel, y * dimX + x, len);
+                t.elevation().get(row + col, elev, y * dimX + x, len);
+                x += len;
+            }
+        }
+        return new FireLandscape(dimX, dimY, cellSize, fuel, elev);
+    }
+
+    /**
+     * Maps the tiles the cell space centered at the location overlaps (fetching the
+     * missing ones), so a later landscape call for it only copies.
+     */
+    public void prefetch(double lat, double lng) {
+        long x0 = (long) Math.floor(lng / cellSize) - dimX / 2;
+        long y0 = (long) Math.floor(lat / cellSize) - dimY / 2;
+        for (long ty = Math.floorDiv(y0, TILE); ty <= Math.floorDiv(y0 + dimY - 1, TILE); ty++) {
+            for (long tx = Math.floorDiv(x0, TILE); tx <= Math.floorDiv(x0 + dimX - 1, TILE); tx++) {
+                tile((int) tx, (int) ty);
+            }
+        }
+    }
+
+    /**
+     * Returns tile (tx, ty): from the LRU, else mapped from its file, else fetched,
+     * written (atomically, so readers never see a partial tile) and mapped.
+     */
+    private Tile tile(int tx, int ty) {
+        long key = ((long) tx << 32) | (ty & 0xffffffffL);
+        synchronized (hot) {
+            Tile t = hot.get(key);
+            if (t != null) {
+                hits.incrementAndGet();
+                return t;
+            }
+        }
+        Tile t;
+        try {
+            Path file = path(tx, ty);
+            if (! Files.isRegularFile(file)) {
+                write(tx, ty, file);
+                fetches.incrementAndGet();
+            }
+            t = map(file);
+            maps.incrementAndGet();
+        } catch (IOException e) {
+            throw new UncheckedIOException("tile " + tx + "_" + ty, e);
+        }
+        synchronized (hot) {
+            Tile other = hot.putIfAbsent(key, t);               // another thread may have mapped it
+            return other != null ? other : t;
+        }
+    }
+
+    private void write(int tx, int ty, Path file) throws IOException {
+        float[] fuel = new float[TILE * TILE];
+        float[] elev = new float[TILE * TILE];
+        fetcher.fetch(tx, ty, cellSize, fuel, elev);
+        ByteBuffer b = ByteBuffer.allocate(HEADER + 8 * TILE * TILE).order(ByteOrder.LITTLE_ENDIAN);
+        b.putInt(MAGIC).putInt(TILE).putDouble(cellSize);
+        b.asFloatBuffer().put(fuel).put(elev);
+        b.rewind();                                             // the view does not advance b
+        Path tmp = Files.createTempFile(dir, "tile", ".tmp");
+        try {
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                while (b.hasRemaining()) ch.write(b);
+            }
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static Tile map(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer m = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            m.order(ByteOrder.LITTLE_ENDIAN);
+            if (ch.size() != HEADER + 8L * TILE * TILE || m.getInt(0) != MAGIC || m.getInt(4) != TILE) {
+                throw new IOException("not a tile file: " + file);
+            }
+            FloatBuffer all = m.position(HEADER).slice().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+            return new Tile(all.slice(0, TILE * TILE), all.slice(TILE * TILE, TILE * TILE));
+        }
+    }
+
+    /**
+     * A synthetic Fetcher for tests: fuel in bands (with unburnable stripes) and
+     * rolling hills, both functions of the global cell, so tiles join seamlessly.
+     */
+    public static void synthetic(int tx, int ty, double cellSize, float[] fuel, float[] elevation) {
+        for (int j = 0; j < TILE; j++) {
+            for (int i = 0; i < TILE; i++) {
+                long gx = (long) tx * TILE + i, gy = (long) ty * TILE + j;
+                fuel[j * TILE + i]      = Math.floorMod(gx + gy, 97L) < 3 ? 0f : 0.5f + Math.floorMod(gx / 64 + gy / 64, 3L) * 0.5f;
+                elevation[j * TILE + i] = (float) (100 * Math.sin(gx * cellSize / 900) * Math.cos(gy * cellSize / 1300));
+            }
+        }
+    }
+
+    /**
+     * Fills a store with synthetic tiles and times the landscape of a region: first
+     * with the tiles fetched and written, then mapped from their files by a new
+     * store (a page-cache hit), then from the LRU; the layers must agree.  Then checks
+     * cell spaces across tile seams and at negative coordinates against the synthetic
+     * layers, the LRU eviction, the reading back of the persisted tiles by a store
+     * unable to fetch, and that a DevsFireClient run outlives a failing prefetch.
+     * Last, runs the local engine on the store.
+     *
+     * Usage: java scalation.simulation.process.wide_FIRE.FireTileStore [dir]
+     */
+    public static void main(String[] args) throws Exception {
+        Path dir = Path.of(args.length > 0 ? args[0] : System.getProperty("java.io.tmpdir"), "fire_tiles");
+        clear(dir);
+        double lat = DevsFireScenario.EXAMPLE.lat(), lng = DevsFireScenario.EXAMPLE.lng();
+        double cs  = 30;
+        int dim    = 200;
+
+        FireTileStore cold = new FireTileStore(dir, cs, dim, dim, 64, FireTileStore::synthetic);
+        long t0 = System.nanoTime();
+        FireLandscape a = cold.landscape(lat, lng);
+        long t1 = System.nanoTime();
+        FireTileStore warm = new FireTileStore(dir, cs, dim, dim, 64, FireTileStore::synthetic);
+        FireLandscape b = warm.landscape(lat, lng);
+        long t2 = System.nanoTime();
+        FireLandscape c = warm.landscape(lat, lng);
+        long t3 = System.nanoTime();
+
+        System.out.printf("fetch + write: %.2f ms (%d tiles fetched)%n", (t1 - t0) / 1e6, cold.fetches());
+        System.out.printf("map from file: %.2f ms (%d tiles mapped, %d fetched)%n", (t2 - t1) / 1e6, warm.maps(), warm.fetches());
+        System.out.printf("LRU hit:       %.2f ms (%d hits)%n", (t3 - t2) / 1e6, warm.hits());
+        if (warm.fetches() != 0) throw new AssertionError("a new store fetched " + warm.fetches() + " stored tiles");
+        same(a, b, "mapped from file");
+        same(a, c, "from the LRU");
+
+        // seams and edges: the origin (x0, y0) of each cell space, in cells; the first
+        // straddles the corner of four tiles, the next ones lie at or across x, y = 0
+        // and the last one ends exactly at a tile edge
+        long[][] origins = { { TILE - 100, TILE - 100 }, { -100, -100 }, { -TILE, 0 }, { -dim, -dim },
+                             { TILE - dim, 2 * TILE - dim } };
+        FireLandscape[] seams = new FireLandscape[origins.length];
+        for (int k = 0; k < origins.length; k++) {
+            seams[k] = cold.landscape(center(origins[k][1], dim, cs), center(origins[k][0], dim, cs));
+            expect(seams[k], origins[k][0], origins[k][1], cs);
+        }
+        expect(a, (long) Math.floor(lng / cs) - dim / 2, (long) Math.floor(lat / cs) - dim / 2, cs);
+        System.out.println("tile seams and edges: " + origins.length + " cell spaces match the synthetic layers");
+
+        // LRU eviction: the corner cell space overlaps four tiles, visited row by row
+        double cLat = center(TILE - 100, dim, cs), cLng = center(TILE - 100, dim, cs);
+        FireTileStore two = new FireTileStore(dir, cs, dim, dim, 2, FireTileStore::synthetic);
+        two.landscape(cLat, cLng);
+        long mapped = two.maps();
+        same(seams[0], two.landscape(cLat, cLng), "with 2 hot tiles");
+        if (mapped != 4 || two.maps() != 8) {
+            throw new AssertionError("2 hot tiles: " + mapped + ", then " + two.maps() + " maps, expected 4, then 8");
+        }
+        FireTileStore four = new FireTileStore(dir, cs, dim, dim, 4, FireTileStore::synthetic);
+        four.landscape(cLat, cLng);
+        long hits = four.hits();
+        same(seams[0], four.landscape(cLat, cLng), "with 4 hot tiles");
+        if (four.maps() != 4 || four.hits() != hits + 2L * dim) {
+            throw new AssertionError("4 hot tiles: " + four.maps() + " maps, " + (four.hits() - hits) + " hits on reuse");
+        }
+        System.out.println("LRU eviction: 2 hot tiles remap the evicted ones, 4 keep them all");
+
+        // reopening: every tile read so far must come back from its file
+        Fetcher none = (tx, ty, size, fuel, elev) -> { throw new IOException("tile " + tx + "_" + ty + " not stored"); };
+        FireTileStore reopened = new FireTileStore(dir, cs, dim, dim, 64, none);
+        same(a, reopened.landscape(lat, lng), "reopened");
+        for (int k = 0; k < origins.length; k++) {
+            same(seams[k], reopened.landscape(center(origins[k][1], dim, cs), center(origins[k][0], dim, cs)), "reopened");
+        }
+        if (reopened.fetches() != 0) throw new AssertionError("reopened store fetched " + reopened.fetches() + " tiles");
+        System.out.println("reopened store: " + reopened.maps() + " tiles read back from their files");
+
+        // a failing prefetch leaves the remote run alone
+        FireTileStore broken = new FireTileStore(Files.createTempDirectory("fire_tiles_missing"), cs, dim, dim, 64, none);
+        try {
+            broken.prefetch(lat, lng);
+            throw new AssertionError("prefetch of a missing tile did not fail");
+        } catch (UncheckedIOException e) {
+            // expected: the fetcher cannot make the tile
+        }
+        try (DevsFireStubServer stub = new DevsFireStubServer(0, 0);
+             DevsFireClient client = DevsFireClient.builder().baseUrl(stub.baseUrl()).tileStore(broken).build()) {
+            BurnEventColumns events = new BurnEventColumns();
+            int n = client.run(DevsFireScenario.EXAMPLE, events).join();
+            if (n == 0 || events.size() != n) throw new AssertionError("remote run returned " + n + " records");
+            System.out.println("remote run with a failing prefetch: " + n + " records");
+        }
+
+        LocalFireEngine engine = new LocalFireEngine(warm);
+        BurnEventColumns events = new BurnEventColumns();
+        int n = engine.run(DevsFireScenario.EXAMPLE, events).join();
+        System.out.println("local engine on the store: " + n + " records, " + events.burnCount() + " burn records");
+    }
+
+    /**
+     * Returns the location (lat or lng) of a cell space of dim cells starting at cell o.
+     */
+    private static double center(long o, int dim, double cellSize) {
+        return (o + dim / 2 + 0.5) * cellSize;
+    }
+
+    /**
+     * Checks the landscape with origin (x0, y0) cell by cell against the synthetic layers.
+     */
+    private static void expect(FireLandscape l, long x0, long y0, double cellSize) {
+        Map<Long, float[][]> tiles = new java.util.HashMap<>();
+        for (int y = 0; y < l.dimY; y++) {
+            for (int x = 0; x < l.dimX; x++) {
+                long gx = x0 + x, gy = y0 + y;
+                int tx = (int) Math.floorDiv(gx, (long) TILE), ty = (int) Math.floorDiv(gy, (long) TILE);
+                float[][] t = tiles.computeIfAbsent(((long) tx << 32) | (ty & 0xffffffffL), k -> {
+                    float[][] layers = new float[2][TILE * TILE];
+                    synthetic(tx, ty, cellSize, layers[0], layers[1]);
+                    return layers;
+                });
+                int i = (int) Math.floorMod(gy, (long) TILE) * TILE + (int) Math.floorMod(gx, (long) TILE);
+                if (l.fuel[y * l.dimX + x] != t[0][i] || l.elevation[y * l.dimX + x] != t[1][i]) {
+                    throw new AssertionError("cell (" + gx + ", " + gy + ") differs from the synthetic layers");
+                }
+            }
+        }
+    }
+
+    private static void same(FireLandscape a, FireLandscape b, String what) {
+        if (! java.util.Arrays.equals(a.fuel, b.fuel) || ! java.util.Arrays.equals(a.elevation, b.elevation)) {
+            throw new AssertionError("layers " + what + " differ");
+        }
+    }
+
+    private static void clear(Path dir) throws IOException {
+        if (Files.isDirectory(dir)) {
+            try (var files = Files.list(dir)) {
+                for (Path f : (Iterable<Path>) files::iterator) Files.delete(f);
+            }
+        }
+    }
+
+}
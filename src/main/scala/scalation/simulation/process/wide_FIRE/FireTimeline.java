@@ -0,0 +1,381 @@
+package scalation.simulation.process.wide_FIRE;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The drawable records (BurnCell records with state 1 or 2) of a simulation
+ * result in time order, in primitive columns, with an index by time bucket.  A
+ * Cursor moves the cell states to any simulation time by applying only the
+ * records between its position and that time, forward or backward: finding the
+ * position is O(log n) and applying it O(delta).
+ *
+ * Records without a time get the time of the record before them (as in
+ * FireRaster.paint they go with the current slice); records with negative
+ * coordinates are dropped.  The states before each record are found on a grid
+ * of (maxX + 1) x (maxY + 1) cells, or in a hash map when that grid would be
+ * much larger than the records (e.g., corrupt coordinates).
+ */
+public class FireTimeline {
+
+    /**
+     * The receiver of the cell state changes applied by a Cursor.
+     */
+    @FunctionalInterface
+    public interface CellSink {
+
+        /**
+         * Sets the state of a cell.
+         *
+         * @param   x, y        The cell.
+         * @param   state       The new state (0 unburned, 1 burning, 2 burned).
+         * @param   arrival     The new arrival time of the cell (infinity once it is
+         *                      unburned again), or NaN to keep its arrival time.
+         */
+        void set(int x, int y, int state, double arrival);
+    }
+
+    private final int n;
+    private final int[] x, y;
+    private final double[] time;
+    private final byte[] state;
+
+    /**
+     * The state of the cell before each record.
+     */
+    private final byte[] prev;
+
+    private final int maxX, maxY;
+
+    /**
+     * The number of cells always allowed for the grid finding the previous states.
+     */
+    private static final long DENSE_CELLS = 1L << 24;
+
+    /**
+     * The time of the first record, the width of a bucket and the index of the first
+     * record of each bucket (bucketStart[b] is the first record at or after
+     * startTime + b * bucketWidth, with a sentinel at the end).
+     */
+    private final double startTime, bucketWidth;
+    private final int[] bucketStart;
+
+    /**
+     * Builds the timeline with about 64 records per time bucket.
+     *
+     * @param   events  The decoded simulation result.
+     */
+    public FireTimeline(BurnEventColumns events) {
+        this(events, 64);
+    }
+
+    /**
+     * @param   events          The decoded simulation result.
+     * @param   perBucket       The average number of records per time bucket.
+     */
+    public FireTimeline(BurnEventColumns events, int perBucket) {
+        int size = events.size(), count = 0;
+        int[] keep = new int[size];
+        double[] t = new double[size];
+        double last = Double.NaN;
+        for (int i = 0; i < size; i++) {
+            if (! events.isBurnCell(i)) continue;
+            if (! Double.isNaN(events.time(i))) last = events.time(i);
+            t[i] = last;
+            int s = events.state(i);
+            if ((s == 1 || s == 2) && events.x(i) >= 0 && events.y(i) >= 0) keep[count++] = i;
+        }
+        // records before the first time go with the first time
+        double first = Double.NaN;
+        for (int k = 0; k < count && Double.isNaN(first); k++) first = t[keep[k]];
+        for (int k = 0; k < count && Double.isNaN(t[keep[k]]); k++) t[keep[k]] = Double.isNaN(first) ? 0 : first;
+
+        boolean sorted = true;
+        for (int k = 1; k < count && sorted; k++) sorted = t[keep[k - 1]] <= t[keep[k]];
+        if (! sorted) mergeSort(keep, new int[count], 0, count, t);
+
+        n     = count;
+        x     = new int[n];
+        y     = new int[n];
+        time  = new double[n];
+        state = new byte[n];
+        prev  = new byte[n];
+        int mx = -1, my = -1;
+        for (int k = 0; k < n; k++) {
+            int i = keep[k];
+            x[k]     = events.x(i);
+            y[k]     = events.y(i);
+            time[k]  = t[i];
+            state[k] = (byte) events.state(i);
+            mx = Math.max(mx, x[k]);
+            my = Math.max(my, y[k]);
+        }
+        maxX = mx;
+        maxY = my;
+
+        long cells = (maxX + 1L) * (maxY + 1L);
+        if (cells <= Math.max(DENSE_CELLS, 8L * n)) {
+            byte[] cell = new byte[(int) cells];
+            for (int k = 0; k < n; k++) {
+                int c = (int) (y[k] * (maxX + 1L) + x[k]);
+                prev[k] = cell[c];
+                cell[c] = state[k];
+            }
+        } else {                                                // sparse: too many cells for a grid
+            Map<Long, Byte> cell = new HashMap<>();
+            for (int k = 0; k < n; k++) {
+                Byte before = cell.put(key(x[k], y[k]), state[k]);
+                prev[k] = before == null ? 0 : before;
+            }
+        }
+
+        startTime = n > 0 ? time[0] : 0;
+        double span = n > 0 ? time[n - 1] - startTime : 0;
+        int buckets = Math.max(1, n / Math.max(1, perBucket));
+        bucketWidth = span > 0 ? span / buckets : 1;
+        bucketStart = new int[buckets + 1];
+        for (int b = 0, k = 0; b <= buckets; b++) {
+            double from = startTime + b * bucketWidth;
+            while (k < n && time[k] < from) k++;
+            bucketStart[b] = b == buckets ? n : k;
+        }
+    }
+
+    /**
+     * Returns the key of cell (x, y) in a hash map.
+     */
+    private static long key(int x, int y) {
+        return (long) y << 32 | (x & 0xffffffffL);
+    }
+
+    /**
+     * Sorts keep[from, until) by time, stably.
+     */
+    private static void mergeSort(int[] keep, int[] tmp, int from, int until, double[] t) {
+        if (until - from < 2) return;
+        int mid = (from + until) >>> 1;
+        mergeSort(keep, tmp, from, mid, t);
+        mergeSort(keep, tmp, mid, until, t);
+        if (t[keep[mid - 1]] <= t[keep[mid]]) return;
+        System.arraycopy(keep, from, tmp, from, until - from);
+        for (int i = from, a = from, b = mid; i < until; i++) {
+            keep[i] = b >= until || (a < mid && t[tmp[a]] <= t[tmp[b]]) ? tmp[a++] : tmp[b++];
+        }
+    }
+
+    public int size()             { return n; }
+    public int x(int k)           { return x[k]; }
+    public int y(int k)           { return y[k]; }
+    public double time(int k)     { return time[k]; }
+    public int state(int k)       { return state[k]; }
+    public int prevState(int k)   { return prev[k]; }
+
+    /**
+     * Returns the largest x and y of the records (-1 if there are none), i.e., the
+     * cell space must be at least (maxX + 1) x (maxY + 1).
+     */
+    public int maxX() { return maxX; }
+    public int maxY() { return maxY; }
+
+    public double startTime() { return startTime; }
+    public double endTime()   { return n > 0 ? time[n - 1] : startTime; }
+
+    /**
+     * Returns the number of records at or before time t, found in the time bucket of
+     * t by binary search.
+     *
+     * @param   t       The simulation time.
+     */
+    public int countUntil(double t) {
+        if (n == 0 || t < startTime) return 0;
+        if (t >= time[n - 1]) return n;
+        int b = (int) ((t - startTime) / bucketWidth);
+        int buckets = bucketStart.length - 1;
+        if (b >= buckets) b = buckets - 1;
+        int lo = bucketStart[b], hi = bucketStart[b + 1];
+        while (lo > 0 && time[lo - 1] > t) lo--;                // rounding at the bucket bounds
+        while (hi < n && time[hi] <= t) hi++;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (time[mid] <= t) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * Returns a cursor at the start (no record applied).
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * A position in the timeline: the records before it have been applied to the
+     * cell states of its owner.
+     */
+    public class Cursor {
+
+        private int position = 0;
+
+        public int position() {
+            return position;
+        }
+
+        /**
+         * Moves to time t, pushing to the sink the state changes of the records
+         * between the current position and t (undoing them when moving back).
+         *
+         * @param   t       The simulation time to move to.
+         * @param   sink    The receiver of the cell state changes.
+         * @return          The number of records applied or undone.
+         */
+        public int seek(double t, CellSink sink) {
+            int target = countUntil(t), moved = Math.abs(target - position);
+            for (; position < target; position++) {
+                int k = position;
+                sink.set(x[k], y[k], state[k], prev[k] == 0 ? time[k] : Double.NaN);
+            }
+            while (position > target) {
+                int k = --position;
+                sink.set(x[k], y[k], prev[k], prev[k] == 0 ? Double.POSITIVE_INFINITY : Double.NaN);
+            }
+            return moved;
+        }
+
+    }
+
+    /**
+     * Returns the random events of a test: BurnCell records (and a few others) in
+     * roughly increasing time, some without a time, with states 0 to 3, repeated
+     * cells and some negative coordinates.
+     *
+     * @param   seed    The seed of the random numbers.
+     * @param   size    The number of records.
+     * @param   side    The cells are in [0, side) x [0, side), a few off it.
+     * @param   far     A coordinate far off the others (e.g., to make the grid huge).
+     */
+    static BurnEventColumns testEvents(long seed, int size, int side, int far) {
+        java.util.Random rand = new java.util.Random(seed);
+        BurnEventColumns events = new BurnEventColumns();
+        double t = 10;
+        for (int i = 0; i < size; i++) {
+            t += rand.nextInt(5) == 0 ? -rand.nextDouble() * 3 : rand.nextDouble();    // sometimes out of order
+            double time = rand.nextInt(10) == 0 ? Double.NaN : Math.floor(t * 4) / 4;   // ties and no time
+            int x = rand.nextInt(side), y = rand.nextInt(side);
+            if (rand.nextInt(50) == 0) x = -1 - x;
+            if (rand.nextInt(500) == 0) { x = far; y = far - x % 7; }
+            int op = rand.nextInt(20) == 0 ? 3 : BurnEventSink.BURN_CELL;
+            events.accept(x, y, time, rand.nextInt(4), op);
+        }
+        return events;
+    }
+
+    /**
+     * Returns the state and arrival time of each cell at time t, found by folding
+     * in the drawable records at or before t one by one (brute force, to check
+     * cursors against): a cell gets the state of its last record and the time of
+     * its first as its arrival time.
+     *
+     * @param   events  The simulation result.
+     * @param   t       The simulation time.
+     */
+    static Map<Long, double[]> fold(BurnEventColumns events, double t) {
+        int size = events.size();
+        double[] at = new double[size];
+        Integer[] order = new Integer[size];
+        double last = Double.NaN, first = Double.NaN;
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (! events.isBurnCell(i)) continue;
+            if (! Double.isNaN(events.time(i))) last = events.time(i);
+            int s = events.state(i);
+            if ((s == 1 || s == 2) && events.x(i) >= 0 && events.y(i) >= 0) {
+                if (Double.isNaN(first)) first = last;
+                at[i] = last;
+                order[count++] = i;
+            }
+        }
+        for (int k = 0; k < count; k++) if (Double.isNaN(at[order[k]])) at[order[k]] = Double.isNaN(first) ? 0 : first;
+        Integer[] kept = Arrays.copyOf(order, count);
+        Arrays.sort(kept, (a, b) -> Double.compare(at[a], at[b]));         // stable
+        Map<Long, double[]> cells = new HashMap<>();
+        for (int i : kept) {
+            if (at[i] > t) break;
+            double[] c = cells.computeIfAbsent(key(events.x(i), events.y(i)), k -> new double[] { 0, at[i] });
+            c[0] = events.state(i);
+        }
+        return cells;
+    }
+
+    /**
+     * Holds the cell states a cursor pushes, as fold returns them.
+     */
+    static class StateMap implements CellSink {
+
+        final Map<Long, double[]> cells = new HashMap<>();
+
+        @Override
+        public void set(int x, int y, int state, double arrival) {
+            if (state == 0) {
+                if (arrival != Double.POSITIVE_INFINITY) throw new AssertionError("unburned cell with an arrival time");
+                cells.remove(key(x, y));
+            } else {
+                double[] c = cells.computeIfAbsent(key(x, y), k -> new double[] { 0, Double.NaN });
+                c[0] = state;
+                if (! Double.isNaN(arrival)) c[1] = arrival;
+                else if (Double.isNaN(c[1])) throw new AssertionError("burning cell without an arrival time");
+            }
+        }
+
+        /**
+         * Throws an AssertionError unless the states are those of fold (events, t).
+         */
+        void check(BurnEventColumns events, double t) {
+            Map<Long, double[]> expect = fold(events, t);
+            if (expect.size() != cells.size()) {
+                throw new AssertionError("at " + t + ": " + cells.size() + " cells, fold gives " + expect.size());
+            }
+            for (Map.Entry<Long, double[]> e : expect.entrySet()) {
+                double[] c = cells.get(e.getKey());
+                if (c == null || ! Arrays.equals(c, e.getValue())) {
+                    throw new AssertionError("at " + t + ": cell " + e.getKey() + " is " + Arrays.toString(c)
+                                             + ", fold gives " + Arrays.toString(e.getValue()));
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Checks cursors moved forward and back to random times against the brute
+     * force fold of the records, with cells on a grid and far apart (a hash map),
+     * and the record counts against a linear count.
+     */
+    public static void main(String[] args) {
+        int[] fars = { 300, 100_000, Integer.MAX_VALUE - 1 };
+        for (int far : fars) {
+            BurnEventColumns events = testEvents(far, 20_000, 300, far);
+            FireTimeline timeline = new FireTimeline(events, 16);
+            java.util.Random rand = new java.util.Random(7);
+            StateMap grid = new StateMap();
+            Cursor cursor = timeline.cursor();
+            double lo = timeline.startTime() - 5, hi = timeline.endTime() + 5;
+            for (int i = 0; i < 200; i++) {
+                double t = i % 10 == 0 ? timeline.time(rand.nextInt(timeline.size()))    // on a record
+                                       : lo + rand.nextDouble() * (hi - lo);
+                cursor.seek(t, grid);
+                grid.check(events, t);
+                int count = 0;
+                for (int k = 0; k < timeline.size(); k++) if (timeline.time(k) <= t) count++;
+                if (count != timeline.countUntil(t) || count != cursor.position()) {
+                    throw new AssertionError("at " + t + ": " + count + " records, countUntil " + timeline.countUntil(t));
+                }
+            }
+            System.out.printf("far %d: %d records, max (%d, %d): 200 seeks match the fold%n",
+                              far, timeline.size(), timeline.maxX(), timeline.maxY());
+        }
+    }
+
+}
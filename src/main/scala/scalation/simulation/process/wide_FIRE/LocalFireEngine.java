@@ -0,0 +1,409 @@
+package scalation.simulation.process.wide_FIRE;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * An in-process cellular fire spread simulator offering the DEVS-FIRE operations,
+ * so experiments can run without the remote server (see DevsFireApi.create).
+ *
+ * The spread is computed by an event-driven earliest-arrival scheduler: a binary
+ * heap over primitive arrays holds the tentative ignition times of the cells next
+ * to the fire front, and only those cells are ever touched (no per-tick sweep of
+ * the grid).  The time to spread from a burning cell to one of its 8 neighbors is
+ * the distance between their centers divided by the spread rate
+ *
+ *     R = baseRate * fuel(neighbor) * exp(windFactor * windSpeed * cos(a)) * exp(slopeFactor * slope)
+ *
+ * where a is the angle between the spread direction and the direction the wind
+ * blows toward (the wind direction is where it blows from, in degrees clockwise from
+ * north = +y) and slope is the rise over run to the neighbor.  A cell burns out
+ * burnTime seconds after igniting.  The run emits, in time order, the same BurnCell
+ * records as the server (state 1 at ignition, state 2 at burn out) up to simTime.
+ *
+ * A run without an ignition point starts at the center cell, while one whose
+ * ignition point is off the landscape fails with an IllegalArgumentException.
+ * Each token has its own session (wind, landscape, ignition point); a run reuses
+ * pooled work arrays, so repeated runs on large grids do not reallocate them.
+ * Landscapes are only read, so the sessions at a location share one: the most
+ * recently used ones are kept (up to MAX_LANDSCAPES) instead of asking the source
+ * again for every session.
+ */
+public class LocalFireEngine implements DevsFireApi {
+
+    /**
+     * The number of landscapes (locations) kept for reuse.
+     */
+    public static final int MAX_LANDSCAPES = 16;
+
+    private final FireLandscape.Source landscapes;
+    private final double baseRate;
+    private final double windFactor;
+    private final double slopeFactor;
+    private final double burnTime;
+    private final Executor executor;
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final AtomicInteger nextToken = new AtomicInteger();
+
+    /**
+     * The work arrays of finished runs, available for reuse (indexed by grid size).
+     */
+    private final Map<Integer, Queue<Workspace>> workspaces = new ConcurrentHashMap<>();
+
+    /**
+     * The recently used landscapes by location (access order, guarded by itself).
+     */
+    private final Map<Location, FireLandscape> recent = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Location, FireLandscape> eldest) {
+            return size() > MAX_LANDSCAPES;
+        }
+    };
+
+    private record Location(double lat, double lng) {}
+
+    /**
+     * The ignition coordinates of a session without setPointIgnition; such a run
+     * ignites the center cell.
+     */
+    static final int NO_IGNITION = -1;
+
+    private static final class Session {
+        volatile double windSpeed, windDirection;
+        volatile FireLandscape landscape;
+        volatile int ignitionX = NO_IGNITION, ignitionY = NO_IGNITION;
+    }
+
+    /**
+     * Creates an engine on uniform 200 x 200 landscapes of 30 m cells, like the
+     * cell space of the DEVS-FIRE server.
+     */
+    public LocalFireEngine() {
+        this((lat, lng) -> FireLandscape.uniform(200, 200, 30));
+    }
+
+    /**
+     * Creates an engine with the default spread parameters.
+     *
+     * @param   landscapes      Provides the landscape for setCellSpaceLocation.
+     */
+    public LocalFireEngine(FireLandscape.Source landscapes) {
+        this(landscapes, 0.05, 0.1, 2.0, 600, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param   landscapes      Provides the landscape for setCellSpaceLocation.
+     * @param   baseRate        The spread rate without wind and slope (m/s).
+     * @param   windFactor      The wind coefficient of the spread rate (s/m).
+     * @param   slopeFactor     The slope coefficient of the spread rate.
+     * @param   burnTime        The seconds from ignition to burn out.
+     * @param   executor        Runs the simulations.
+     */
+    public LocalFireEngine(FireLandscape.Source landscapes, double baseRate, double windFactor,
+                           double slopeFactor, double burnTime, Executor executor) {
+        this.landscapes  = landscapes;
+        this.baseRate    = baseRate;
+        this.windFactor  = windFactor;
+        this.slopeFactor = slopeFactor;
+        this.burnTime    = burnTime;
+        this.executor    = executor;
+    }
+
+    /**
+     * See parent method.
+     */
+    public CompletableFuture<String> connect() {
+        String token = "local" + nextToken.incrementAndGet();
+        sessions.put(token, new Session());
+        return CompletableFuture.completedFuture(token);
+    }
+
+    /**
+     * See parent method.
+     */
+    public CompletableFuture<Void> setWindCondition(String token, double windSpeed, double windDirection) {
+        return update(token, s -> {
+            s.windSpeed = windSpeed;
+            s.windDirection = windDirection;
+        });
+    }
+
+    /**
+     * See parent method.
+     */
+    public CompletableFuture<Void> setCellSpaceLocation(String token, double lat, double lng) {
+        return update(token, s -> s.landscape = landscape(lat, lng));
+    }
+
+    /**
+     * See parent method.  As on the stub server, the point replaces any previous one.
+     */
+    public CompletableFuture<Void> setPointIgnition(String token, int x, int y) {
+        return update(token, s -> {
+            s.ignitionX = x;
+            s.ignitionY = y;
+        });
+    }
+
+    /**
+     * See parent method.
+     */
+    public CompletableFuture<Integer> runSimulation(String token, int simTime, BurnEventSink sink) {
+        Session s = sessions.get(token);
+        if (s == null) return CompletableFuture.failedFuture(new IllegalArgumentException("unknown userToken " + token));
+        return CompletableFuture.supplyAsync(() -> {
+            FireLandscape land = s.landscape != null ? s.landscape : landscape(0, 0);
+            return simulate(land, s.windSpeed, s.windDirection, s.ignitionX, s.ignitionY, simTime, sink);
+        }, executor);
+    }
+
+    /**
+     * See parent method.  Forgets the session of the given token.
+     */
+    public void disconnect(String token) {
+        sessions.remove(token);
+    }
+
+    /**
+     * Returns the landscape at the location, from the recently used ones when
+     * there, otherwise from the source.
+     */
+    private FireLandscape landscape(double lat, double lng) {
+        Location at = new Location(lat, lng);
+        synchronized (recent) {
+            FireLandscape land = recent.get(at);
+            if (land != null) return land;
+        }
+        FireLandscape land = landscapes.landscape(lat, lng);            // outside the lock: may read tiles
+        synchronized (recent) {
+            FireLandscape other = recent.putIfAbsent(at, land);
+            return other != null ? other : land;
+        }
+    }
+
+    private CompletableFuture<Void> update(String token, Consumer<Session> change) {
+        Session s = sessions.get(token);
+        if (s == null) return CompletableFuture.failedFuture(new IllegalArgumentException("unknown userToken " + token));
+        change.accept(s);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Spreads the fire from the ignition cell until simTime, pushing the BurnCell
+     * records to the sink in time order.  Returns the number of records.
+     *
+     * @param   land            The landscape to burn.
+     * @param   windSpeed       The wind speed (m/s).
+     * @param   windDirection   The direction the wind blows from (degree).
+     * @param   ignX, ignY      The ignition cell.
+     * @param   simTime         The simulation time (seconds).
+     * @param   sink            The receiver of the records.
+     * @throws  IllegalArgumentException  if a set ignition cell is off the landscape.
+     */
+    public int simulate(FireLandscape land, double windSpeed, double windDirection,
+                        int ignX, int ignY, double simTime, BurnEventSink sink) {
+        if (ignX == NO_IGNITION && ignY == NO_IGNITION) {
+            ignX = land.dimX / 2;                                   // no ignition point set: center
+            ignY = land.dimY / 2;
+        } else if (! land.contains(ignX, ignY)) {
+            throw new IllegalArgumentException("ignition point (" + ignX + ", " + ignY + ") is outside the "
+                                               + land.dimX + " x " + land.dimY + " landscape");
+        }
+        int n = land.dimX * land.dimY;
+        Workspace w = acquire(n);
+        try {
+            // spread rate to each of the 8 neighbors, without fuel and slope
+            double toward = Math.toRadians(windDirection + 180);
+            double[] dirRate = new double[8];
+            double[] dist = new double[8];
+            for (int k = 0; k < 8; k++) {
+                double angle = Math.atan2(DX[k], DY[k]);            // clockwise from +y
+                dirRate[k] = baseRate * Math.exp(windFactor * windSpeed * Math.cos(angle - toward));
+                dist[k] = land.cellSize * ((DX[k] != 0 && DY[k] != 0) ? Math.sqrt(2) : 1);
+            }
+
+            int records = 0;
+            int start = land.index(ignX, ignY);
+            w.setArrival(start, 0);
+            w.push(0, start << 1);
+            while (w.size > 0) {
+                double t = w.topKey();
+                int ev = w.pop();
+                if (t > simTime) break;
+                int c = ev >>> 1;
+                int x = c % land.dimX, y = c / land.dimX;
+                if ((ev & 1) == 1) {                                // burn out
+                    sink.accept(x, y, t, 2, BurnEventSink.BURN_CELL);
+                    records++;
+                    continue;
+                }
+                if (w.state[c] != 0) continue;                      // stale entry
+                w.state[c] = 1;
+                sink.accept(x, y, t, 1, BurnEventSink.BURN_CELL);
+                records++;
+                w.push(t + burnTime, (c << 1) | 1);
+
+                for (int k = 0; k < 8; k++) {
+                    int nx = x + DX[k], ny = y + DY[k];
+                    if (! land.contains(nx, ny)) continue;
+                    int nc = land.index(nx, ny);
+                    float fuel = land.fuel[nc];
+                    if (w.state[nc] != 0 || fuel <= 0) continue;
+                    double rate = dirRate[k] * fuel;
+                    if (land.elevation != null) {
+                        rate *= Math.exp(slopeFactor * (land.elevation[nc] - land.elevation[c]) / dist[k]);
+                    }
+                    double tn = t + dist[k] / rate;
+                    if (tn < w.arrival[nc]) {
+                        w.setArrival(nc, tn);
+                        w.push(tn, nc << 1);
+                    }
+                }
+            }
+            return records;
+        } finally {
+            release(n, w);
+        }
+    }
+
+    /**
+     * The offsets of the 8 neighbors.
+     */
+    private static final int[] DX = { 0, 1, 1, 1, 0, -1, -1, -1 };
+    private static final int[] DY = { 1, 1, 0, -1, -1, -1, 0, 1 };
+
+    private Workspace acquire(int n) {
+        Queue<Workspace> pool = workspaces.get(n);
+        Workspace w = pool != null ? pool.poll() : null;
+        if (w == null) return new Workspace(n);
+        w.reset();
+        return w;
+    }
+
+    private void release(int n, Workspace w) {
+        workspaces.computeIfAbsent(n, k -> new ConcurrentLinkedQueue<>()).offer(w);
+    }
+
+    /**
+     * The per-run arrays: tentative arrival times, cell states, the cells touched
+     * (so a reset only clears those) and the event heap (keys = times, values =
+     * cell << 1 | burnOut).
+     */
+    private static final class Workspace {
+        final float[] arrival;
+        final byte[] state;
+        int[] touched = new int[1024];
+        int nTouched;
+        double[] keys = new double[1024];
+        int[] vals = new int[1024];
+        int size;
+
+        Workspace(int n) {
+            arrival = new float[n];
+            state = new byte[n];
+            Arrays.fill(arrival, Float.POSITIVE_INFINITY);
+        }
+
+        void setArrival(int c, double t) {
+            if (arrival[c] == Float.POSITIVE_INFINITY) {
+                if (nTouched == touched.length) touched = Arrays.copyOf(touched, nTouched * 2);
+                touched[nTouched++] = c;
+            }
+            arrival[c] = (float) t;
+        }
+
+        void reset() {
+            for (int i = 0; i < nTouched; i++) {
+                arrival[touched[i]] = Float.POSITIVE_INFINITY;
+                state[touched[i]] = 0;
+            }
+            nTouched = 0;
+            size = 0;
+        }
+
+        double topKey() {
+            return keys[0];
+        }
+
+        void push(double key, int val) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                vals = Arrays.copyOf(vals, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {                                         // sift up
+                int p = (i - 1) >>> 1;
+                if (keys[p] <= key) break;
+                keys[i] = keys[p];
+                vals[i] = vals[p];
+                i = p;
+            }
+            keys[i] = key;
+            vals[i] = val;
+        }
+
+        int pop() {
+            int top = vals[0];
+            double key = keys[--size];
+            int val = vals[size];
+            int i = 0;
+            while (true) {                                          // sift down
+                int l = 2 * i + 1;
+                if (l >= size) break;
+                int m = (l + 1 < size && keys[l + 1] < keys[l]) ? l + 1 : l;
+                if (keys[m] >= key) break;
+                keys[i] = keys[m];
+                vals[i] = vals[m];
+                i = m;
+            }
+            keys[i] = key;
+            vals[i] = val;
+            return top;
+        }
+    }
+
+    /**
+     * Runs the connectAndRunTest scenario locally on a large grid and reports the
+     * number of records and the run time.
+     *
+     * Usage: java scalation.simulation.process.wide_FIRE.LocalFireEngine [dim] [simTime]
+     */
+    public static void main(String[] args) {
+        int dim     = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int simTime = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+        AtomicInteger built = new AtomicInteger();
+        LocalFireEngine engine = new LocalFireEngine((lat, lng) -> {
+            built.incrementAndGet();
+            return FireLandscape.uniform(dim, dim, 30);
+        });
+        DevsFireScenario scenario = DevsFireScenario.EXAMPLE.withIgnition(dim / 2, dim / 2).withSimTime(simTime);
+        for (int r = 0; r < 3; r++) {
+            BurnEventColumns events = new BurnEventColumns();
+            long start = System.nanoTime();
+            int n = engine.run(scenario, events).join();
+            System.out.printf("%d x %d grid: %d records, last at t = %.0f, in %.1f ms%n", dim, dim, n,
+                    n > 0 ? events.time(n - 1) : 0.0, (System.nanoTime() - start) / 1e6);
+        }
+        try {
+            engine.run(scenario.withIgnition(dim, 0), new BurnEventColumns()).join();
+            throw new AssertionError("run with the ignition point off the landscape did not fail");
+        } catch (CompletionException e) {
+            if (! (e.getCause() instanceof IllegalArgumentException))
+                throw new AssertionError("off-landscape ignition failed with " + e.getCause());
+        }
+        if (! engine.sessions.isEmpty()) throw new AssertionError(engine.sessions.size() + " sessions left after run");
+        if (built.get() != 1) throw new AssertionError("landscape built " + built.get() + " times for one location");
+    }
+
+}
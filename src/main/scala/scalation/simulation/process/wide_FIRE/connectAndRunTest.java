@@ -9,7 +9,9 @@ package scalation.simulation.process.wide_FIRE;
  * Step 4: set ignition point
  * Step 5: start simulation run by giving a simulation time
  *
- * The simulation result of all burning cells' ignition time is returned as a String.
+ * The calls are made through DevsFireClient, which shares one HTTP connection pool across calls.
+ * Run with the argument "local" to use the in-process LocalFireEngine instead of the server.
+ * The simulation result of all burning cells' ignition time is decoded into BurnEventColumns.
  * To visualize the simulation result, you may use the API_FireState_Visualization class that can be
  * download from https://sims.cs.gsu.edu/sims/research/API_FireState_Visualization.java
  *
@@ -19,17 +21,12 @@ package scalation.simulation.process.wide_FIRE;
  *
  */
 
-import java.io.IOException;
-import java.net.URI;
-import java.net.http.HttpRequest;
-import java.net.http.HttpClient;
-import java.net.http.HttpResponse;
+import java.util.concurrent.ExecutionException;
 
 
 public class connectAndRunTest {
-    public static void main(String[] args) throws IOException, InterruptedException {
-        String base_url = "http://firesim.cs.gsu.edu:8084";
-        String simulationResult;
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        String base_url = args.length > 0 ? args[0] : "http://firesim.cs.gsu.edu:8084";
 
         double windSpeed = 10; // m/s
         double windDirection = 180;  // degree
@@ -39,54 +36,30 @@ public class connectAndRunTest {
         int ignition_x = 100;
         int ignition_y = 100;
 
-        // Connecting to server
-        HttpRequest request1 = HttpRequest.newBuilder()
-                .uri(URI.create(base_url+"/api/connect"))
-                .header("accept", "application/json")
-                .method("POST", HttpRequest.BodyPublishers.ofString("testtest"))
-                .build();
-        HttpResponse<String> response1 = HttpClient.newHttpClient().send(request1, HttpResponse.BodyHandlers.ofString());
-        System.out.println(response1.body());
-        String key = response1.body();
+        BurnEventColumns simulationResult = new BurnEventColumns();
+        DevsFireApi client = DevsFireApi.create(base_url);
+        try {
+            // Connecting to server
+            String key = client.connect().get();
+            System.out.println(key);
 
-        // Setting wind conditions
-        HttpRequest request2 = HttpRequest.newBuilder()
-                .uri(URI.create(base_url+"/api/setWindCondition/?userToken="+key+"&windSpeed="+windSpeed+"&windDirection="+windDirection))
-                .POST(HttpRequest.BodyPublishers.noBody())
-                .build();
-        HttpResponse<String> response2 = HttpClient.newHttpClient().send(request2, HttpResponse.BodyHandlers.ofString());
-        //System.out.println(response2.body());
-
-        //Setting center location
-        HttpRequest request3 = HttpRequest.newBuilder()
-                .uri(URI.create(base_url+"/api/setCellSpaceLocation/?userToken="+key+"&lat="+lat+"&lng="+lng))
-                .POST(HttpRequest.BodyPublishers.noBody())
-                .build();
-        HttpResponse<String> response3 = HttpClient.newHttpClient().send(request3, HttpResponse.BodyHandlers.ofString());
-        //System.out.println(response3.body());
-
-        //Setting ignition Point
-        HttpRequest request4 = HttpRequest.newBuilder()
-                .uri(URI.create(base_url+"/api/setPointIgnition/?userToken="+key+"&x="+ignition_x+"&y="+ignition_y))
-                .POST(HttpRequest.BodyPublishers.noBody())
-                .build();
-        HttpResponse<String> response4 = HttpClient.newHttpClient().send(request4, HttpResponse.BodyHandlers.ofString());
-        //System.out.println(response4.body());
-
-        //running Simulation
-        HttpRequest request5 = HttpRequest.newBuilder()
-                .uri(URI.create(base_url+"/api/runSimulation/?userToken="+key+"&time="+simTime))
-                .POST(HttpRequest.BodyPublishers.noBody())
-                .build();
-        HttpResponse<String> response5 = HttpClient.newHttpClient().send(request5, HttpResponse.BodyHandlers.ofString());
-        simulationResult = response5.body();
-        //System.out.println(simulationResult);
+            // Setting wind conditions and center location (sent concurrently)
+            client.setWindCondition(key, windSpeed, windDirection)
+                  .thenCombine(client.setCellSpaceLocation(key, lat, lng), (a, b) -> b)
+                  // Setting ignition Point
+                  .thenCompose(v -> client.setPointIgnition(key, ignition_x, ignition_y))
+                  // running Simulation, the result is decoded while it streams in
+                  .thenCompose(v -> client.runSimulation(key, simTime, simulationResult))
+                  .get();
+        } finally {
+            if (client instanceof DevsFireClient remote) remote.close();
+        }
 
         //using the API_FireState_Visualization to visualize the simulation results.
         //you may remove the following two lines of code if you don't need the visualization
         API_FireState_Visualization visual = new API_FireState_Visualization();
-        visual.visualize(simulationResult);
+        visual.visualize(simulationResult).finished().join();
 
         System.out.println("finished!");
     }
-}
\ No newline at end of file
+}